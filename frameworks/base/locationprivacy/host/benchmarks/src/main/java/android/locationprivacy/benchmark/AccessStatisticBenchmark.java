@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.benchmark;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import android.database.Cursor;
+import android.locationprivacy.control.CryptoDatabase;
+import android.locationprivacy.control.LocationPrivacyManager;
+import android.locationprivacy.host.HostContext;
+
+/**
+ * Latency of the 28 day access statistic with 1, 100 and 1000 apps that
+ * accessed the location in hoursPerDay hours of every day:
+ * <ul>
+ * <li>statistic: getLocationAccessStatistic of one app</li>
+ * <li>statisticAllApps: getLocationAccessStatistic of every app, as the
+ * statistic overview and the content provider do</li>
+ * <li>databaseQuery: the STATISTICACCESS query used without access store</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessStatisticBenchmark {
+
+	@Param({ "1", "100", "1000" })
+	public int apps;
+
+	@Param({ "4" })
+	public int hoursPerDay;
+
+	private HostContext context;
+	private CryptoDatabase database;
+	private LocationPrivacyManager manager;
+	private int app;
+
+	@Setup
+	public void setUp() throws Exception {
+		context = Devices.create();
+		database = Devices.openDatabase(context);
+		Devices.fillStatistics(database, apps, hoursPerDay);
+		manager = new LocationPrivacyManager(context);
+	}
+
+	@TearDown
+	public void tearDown() {
+		database.close();
+		Devices.delete(context.getDataDir().getParentFile());
+	}
+
+	private String nextApp() {
+		app = (app + 1) % apps;
+		return Devices.packagename(app);
+	}
+
+	@Benchmark
+	public HashMap<Calendar, Integer> statistic() {
+		return manager.getLocationAccessStatistic(nextApp());
+	}
+
+	@Benchmark
+	public void statisticAllApps(Blackhole bh) {
+		for (int i = 0; i < apps; i++) {
+			bh.consume(manager.getLocationAccessStatistic(Devices
+					.packagename(i)));
+		}
+	}
+
+	@Benchmark
+	public void databaseQuery(Blackhole bh) {
+		Calendar now = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		Calendar border = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		border.set(Calendar.DAY_OF_MONTH,
+				border.get(Calendar.DAY_OF_MONTH) - 28);
+		Cursor c = database
+				.query("STATISTICACCESS",
+						new String[] { "day, month, year, hour, count" },
+						"packagename = ? AND (month = ? OR month = ?) AND (year = ? OR year = ?)",
+						new String[] { nextApp(),
+								"" + now.get(Calendar.MONTH),
+								"" + border.get(Calendar.MONTH),
+								"" + now.get(Calendar.YEAR),
+								"" + border.get(Calendar.YEAR) }, null, null,
+						"day asc");
+		c.moveToFirst();
+		while (!c.isAfterLast()) {
+			bh.consume(c.getInt(0));
+			bh.consume(c.getInt(4));
+			c.moveToNext();
+		}
+		c.close();
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import android.location.Location;
+import android.locationprivacy.algorithm.GeoReverseGeo;
+import android.locationprivacy.algorithm.RadiusDistance;
+import android.locationprivacy.model.AbstractLocationPrivacyAlgorithm;
+import android.locationprivacy.model.Coordinate;
+import android.locationprivacy.model.LocationPrivacyAlgorithmValues;
+import android.os.Parcel;
+
+/**
+ * Accessors of LocationPrivacyAlgorithmValues and Parcel round trips of the
+ * algorithm configurations and of locations
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AlgorithmValuesBenchmark {
+
+	private LocationPrivacyAlgorithmValues radiusValues;
+	private RadiusDistance radiusDistance;
+	private GeoReverseGeo geoReverseGeo;
+	private Location location;
+	private Coordinate coordinate;
+	private int counter;
+
+	@Setup
+	public void setUp() {
+		radiusDistance = new RadiusDistance();
+		radiusDistance.obfuscate(Traces.walk(1, 0, 1)[0]);
+		radiusValues = radiusDistance.getConfiguration();
+		geoReverseGeo = new GeoReverseGeo();
+		location = Traces.walk(1, 0, 1)[0];
+		Location noGPS = new Location(location);
+		noGPS.setExtraLocation("coarseLocation", new Location(location));
+		location.setExtraLocation("noGPSLocation", noGPS);
+		coordinate = new Coordinate(9.7176, 52.3826, 55);
+	}
+
+	@Benchmark
+	public void getValues(Blackhole bh) {
+		bh.consume(radiusValues.getInt("radius"));
+		bh.consume(radiusValues.getInt("movement"));
+		bh.consume(radiusValues.getInt("distance"));
+		bh.consume(radiusValues.getCoordinate("private_lastlocation"));
+	}
+
+	@Benchmark
+	public void setValues() {
+		radiusValues.setInt("radius", counter++ & 1023);
+		radiusValues.setCoordinate("private_lastlocation", coordinate);
+	}
+
+	@Benchmark
+	public LocationPrivacyAlgorithmValues parcelValues() {
+		Parcel parcel = Parcel.obtain();
+		try {
+			radiusValues.writeToParcel(parcel, 0);
+			parcel.setDataPosition(0);
+			return LocationPrivacyAlgorithmValues.CREATOR
+					.createFromParcel(parcel);
+		} finally {
+			parcel.recycle();
+		}
+	}
+
+	/**
+	 * Round trip through AbstractLocationPrivacyAlgorithm.CREATOR, as the
+	 * algorithms are passed to the settings dialog
+	 */
+	@Benchmark
+	public void parcelAlgorithms(Blackhole bh) {
+		Parcel parcel = Parcel.obtain();
+		try {
+			radiusDistance.writeToParcel(parcel, 0);
+			geoReverseGeo.writeToParcel(parcel, 0);
+			parcel.setDataPosition(0);
+			AbstractLocationPrivacyAlgorithm.Creator<AbstractLocationPrivacyAlgorithm> creator = AbstractLocationPrivacyAlgorithm.CREATOR;
+			bh.consume(creator.createFromParcel(parcel));
+			bh.consume(creator.createFromParcel(parcel));
+		} finally {
+			parcel.recycle();
+		}
+	}
+
+	@Benchmark
+	public Location parcelLocation() {
+		Parcel parcel = Parcel.obtain();
+		try {
+			location.writeToParcel(parcel, 0);
+			parcel.setDataPosition(0);
+			return Location.CREATOR.createFromParcel(parcel);
+		} finally {
+			parcel.recycle();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.benchmark;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.content.ContentValues;
+import android.locationprivacy.control.CryptoDatabase;
+import android.locationprivacy.host.HostContext;
+
+/**
+ * Encrypted inserts and updates of STATISTICACCESS rows, one statement per
+ * row and in batches of one transaction. The database uses the journal and
+ * sync mode of the device, so single statements include a sync to disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CryptoDatabaseBenchmark {
+
+	private static final int BATCH = 100;
+	/** Rows updated by the update benchmarks */
+	private static final int UPDATE_ROWS = 1000;
+
+	private static final String WHERE = "packagename = ? AND day = ? AND month = ? AND year = ? AND hour = ?";
+
+	private HostContext context;
+	private CryptoDatabase database;
+	private Calendar date;
+	private int inserted;
+	private int updated;
+
+	@Setup
+	public void setUp() throws Exception {
+		context = Devices.create();
+		database = Devices.openDatabase(context);
+		date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		date.setTimeInMillis(1400000000000L);
+		List<ContentValues> rows = new ArrayList<ContentValues>();
+		for (int i = 0; i < UPDATE_ROWS; i++) {
+			rows.add(Devices.statisticRow("com.example.update" + i, date, 1));
+		}
+		database.insertAll("STATISTICACCESS", rows);
+	}
+
+	@TearDown
+	public void tearDown() {
+		database.close();
+		Devices.delete(context.getDataDir().getParentFile());
+	}
+
+	private ContentValues nextInsert() {
+		return Devices.statisticRow("com.example.insert" + inserted++, date,
+				1);
+	}
+
+	private String[] nextUpdateArgs() {
+		int row = updated++ % UPDATE_ROWS;
+		return new String[] { "com.example.update" + row,
+				"" + date.get(Calendar.DAY_OF_MONTH),
+				"" + date.get(Calendar.MONTH), "" + date.get(Calendar.YEAR),
+				"" + date.get(Calendar.HOUR_OF_DAY) };
+	}
+
+	private ContentValues nextCount() {
+		ContentValues values = new ContentValues();
+		values.put("count", updated);
+		return values;
+	}
+
+	@Benchmark
+	public long insert() {
+		return database.insert("STATISTICACCESS", null, nextInsert());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int insertBatch() {
+		List<ContentValues> rows = new ArrayList<ContentValues>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			rows.add(nextInsert());
+		}
+		return database.insertAll("STATISTICACCESS", rows);
+	}
+
+	@Benchmark
+	public int update() {
+		return database.update("STATISTICACCESS", nextCount(), WHERE,
+				nextUpdateArgs());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int updateBatch() {
+		List<ContentValues> values = new ArrayList<ContentValues>(BATCH);
+		List<String[]> args = new ArrayList<String[]>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			values.add(nextCount());
+			args.add(nextUpdateArgs());
+		}
+		return database.updateAll("STATISTICACCESS", values, WHERE, args);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.locationprivacy.control.CryptoDatabase;
+import android.locationprivacy.host.HostContext;
+import android.preference.PreferenceManager;
+
+/**
+ * Host devices with a location privacy database for the storage benchmarks
+ */
+final class Devices {
+
+	static final String PASSWORD = "benchmarkpassword";
+	static final String SALT = "benchmarksalt";
+	static final int ITERATION_COUNT = 75;
+
+	private Devices() {
+	}
+
+	/**
+	 * Creates a device in a new temporary directory. The Settings package
+	 * uses the fixed password, salt and iteration count, so CryptoDatabase
+	 * and LocationPrivacyManager open the same database.
+	 */
+	static HostContext create() throws IOException {
+		File root = File.createTempFile("lp-device", "");
+		root.delete();
+		root.mkdirs();
+		HostContext context = new HostContext("android", root);
+		try {
+			Context settings = context.createPackageContext(
+					"com.android.settings", Context.CONTEXT_INCLUDE_CODE);
+			SharedPreferences preferences = PreferenceManager
+					.getDefaultSharedPreferences(settings);
+			preferences.edit().putString("password", PASSWORD)
+					.putString("salt", SALT)
+					.putInt("iterationCount", ITERATION_COUNT).commit();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		return context;
+	}
+
+	/**
+	 * Opens the location privacy database of the device
+	 */
+	static CryptoDatabase openDatabase(HostContext context) {
+		try {
+			return new CryptoDatabase(PASSWORD, SALT, ITERATION_COUNT,
+					context.createPackageContext("com.android.settings",
+							Context.CONTEXT_INCLUDE_CODE));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static String packagename(int app) {
+		return "com.example.app" + app;
+	}
+
+	/**
+	 * Fills APPLICATION and STATISTICACCESS with apps that accessed the
+	 * location in hoursPerDay hours of each of the last 28 days
+	 */
+	static void fillStatistics(CryptoDatabase database, int apps,
+			int hoursPerDay) {
+		List<ContentValues> applications = new ArrayList<ContentValues>();
+		for (int app = 0; app < apps; app++) {
+			ContentValues values = new ContentValues();
+			values.put("packagename", packagename(app));
+			values.put("config", 2);
+			applications.add(values);
+		}
+		database.insertAll("APPLICATION", applications);
+
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		long now = System.currentTimeMillis();
+		for (int app = 0; app < apps; app++) {
+			List<ContentValues> rows = new ArrayList<ContentValues>();
+			for (int day = 0; day < 28; day++) {
+				for (int hour = 0; hour < hoursPerDay; hour++) {
+					date.setTimeInMillis(now - day * 86400000L - hour
+							* 3600000L);
+					rows.add(statisticRow(packagename(app), date, 1 + hour));
+				}
+			}
+			database.insertAll("STATISTICACCESS", rows);
+		}
+	}
+
+	static ContentValues statisticRow(String packagename, Calendar date,
+			int count) {
+		ContentValues values = new ContentValues();
+		values.put("packagename", packagename);
+		values.put("day", date.get(Calendar.DAY_OF_MONTH));
+		values.put("month", date.get(Calendar.MONTH));
+		values.put("year", date.get(Calendar.YEAR));
+		values.put("hour", date.get(Calendar.HOUR_OF_DAY));
+		values.put("count", count);
+		return values;
+	}
+
+	/**
+	 * Deletes the directory of a device
+	 */
+	static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
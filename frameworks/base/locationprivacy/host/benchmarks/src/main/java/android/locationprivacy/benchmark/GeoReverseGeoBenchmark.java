@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.location.Location;
+import android.locationprivacy.algorithm.GeoReverseGeo;
+import android.locationprivacy.host.FakeGeocoder;
+import android.locationprivacy.host.HostContext;
+import android.util.Pair;
+
+/**
+ * GeoReverseGeo.obfuscate against the FakeGeocoder. The cache of the
+ * algorithm holds cacheSize entries; a hit finds the last entry, a miss
+ * geocodes a location in a new cell and drops the added entry again, so
+ * the cache size stays constant.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GeoReverseGeoBenchmark {
+
+	@Param({ "0", "1000" })
+	public long latencyMicros;
+
+	@Param({ "1", "100", "1000" })
+	public int cacheSize;
+
+	@Param({ "street", "city" })
+	public String detail;
+
+	private GeoReverseGeo algorithm;
+	private List<Pair<Location, Location>> cache;
+	private Location[] cached;
+	private Location[] uncached;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		HostContext context = new HostContext("com.android.settings",
+				new File(System.getProperty("java.io.tmpdir"),
+						"lp-benchmark"));
+		context.setGeocoderBackend(new FakeGeocoder(latencyMicros));
+		algorithm = new GeoReverseGeo();
+		algorithm.setContext(context);
+		algorithm.getConfiguration().setEnumChoosen("detail", detail);
+		cache = new ArrayList<Pair<Location, Location>>();
+		algorithm.setCachedLocationsStreet(cache);
+		algorithm.setCachedLocationsPostalcode(cache);
+		algorithm.setCachedLocationsCity(cache);
+
+		Location[] locations = Traces.distinctDegrees(cacheSize + 4096);
+		cached = new Location[] { locations[cacheSize - 1] };
+		for (int i = 0; i < cacheSize; i++) {
+			algorithm.obfuscate(locations[i]);
+		}
+		uncached = new Location[4096];
+		System.arraycopy(locations, cacheSize, uncached, 0, uncached.length);
+	}
+
+	@Benchmark
+	public Location cacheHit() {
+		return algorithm.obfuscate(cached[0]);
+	}
+
+	@Benchmark
+	public Location cacheMiss() {
+		index = (index + 1) & (uncached.length - 1);
+		Location result = algorithm.obfuscate(uncached[index]);
+		cache.remove(cache.size() - 1);
+		return result;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.location.Location;
+import android.locationprivacy.algorithm.RadiusDistance;
+
+/**
+ * RadiusDistance.obfuscate for a device that moves more than the movement
+ * threshold between two fixes, so every fix is obfuscated anew, and for a
+ * device that stays within the threshold, so the last result is reused.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RadiusDistanceBenchmark {
+
+	private static final int TRACE_SIZE = 4096;
+
+	private RadiusDistance algorithm;
+	private Location[] moving;
+	private Location[] stationary;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		algorithm = new RadiusDistance();
+		// movement threshold of the default configuration is 50 m
+		moving = Traces.walk(TRACE_SIZE, 100, 1);
+		stationary = Traces.walk(TRACE_SIZE, 0.01, 2);
+	}
+
+	@Benchmark
+	public Location obfuscateMoving() {
+		index = (index + 1) & (TRACE_SIZE - 1);
+		return algorithm.obfuscate(moving[index]);
+	}
+
+	@Benchmark
+	public Location obfuscateStationary() {
+		index = (index + 1) & (TRACE_SIZE - 1);
+		return algorithm.obfuscate(stationary[index]);
+	}
+
+	/**
+	 * Fix with the coarse and no-GPS extra locations the
+	 * LocationManagerService attaches
+	 */
+	@Benchmark
+	public Location obfuscateWithExtras() {
+		index = (index + 1) & (TRACE_SIZE - 1);
+		Location location = new Location(moving[index]);
+		Location noGPS = new Location(location);
+		noGPS.setExtraLocation("coarseLocation", new Location(location));
+		location.setExtraLocation("noGPSLocation", noGPS);
+		return algorithm.obfuscate(location);
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.benchmark;
+
+import java.util.Random;
+
+import android.location.Location;
+
+/**
+ * Synthetic location traces for the benchmarks
+ */
+final class Traces {
+
+	private Traces() {
+	}
+
+	/**
+	 * Returns a random walk with the given step length, starting in Hannover
+	 *
+	 * @param size
+	 *            number of fixes
+	 * @param stepMeters
+	 *            distance between two fixes
+	 * @param seed
+	 *            seed of the walk
+	 */
+	static Location[] walk(int size, double stepMeters, long seed) {
+		Random random = new Random(seed);
+		Location[] trace = new Location[size];
+		double latitude = 52.3826;
+		double longitude = 9.7176;
+		for (int i = 0; i < size; i++) {
+			Location location = new Location("gps");
+			location.setLatitude(latitude);
+			location.setLongitude(longitude);
+			location.setAccuracy(10);
+			location.setTime(1400000000000L + i * 1000L);
+			trace[i] = location;
+			double angle = random.nextDouble() * 2 * Math.PI;
+			latitude += stepMeters * Math.sin(angle) / 111320;
+			longitude += stepMeters * Math.cos(angle)
+					/ (111320 * Math.cos(Math.toRadians(latitude)));
+		}
+		return trace;
+	}
+
+	/**
+	 * Returns locations in distinct cells of one degree, which are distinct
+	 * entries of the GeoReverseGeo cache
+	 */
+	static Location[] distinctDegrees(int size) {
+		Location[] locations = new Location[size];
+		for (int i = 0; i < size; i++) {
+			Location location = new Location("gps");
+			location.setLatitude(-80 + (i / 300) % 160 + 0.2);
+			location.setLongitude(-150 + i % 300 + 0.2);
+			locations[i] = location;
+		}
+		return locations;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.locationprivacy.host.HostContext;
+
+/**
+ * Simulates weeks of location accesses through the AccessStatisticWriter
+ * and prints the size of the database files after every week.
+ *
+ * Every app is active in activeHours random hours of each day and accesses
+ * the location every interval minutes while active. The accesses of one
+ * interval are written as one batch, like the writer does on the device.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar \
+ *     android.locationprivacy.control.StorageGrowth \
+ *     [apps [weeks [interval [activeHours]]]]
+ * </pre>
+ */
+public class StorageGrowth {
+
+	private static final long MINUTE = 60L * 1000L;
+	private static final long DAY = 24L * 60L * MINUTE;
+
+	public static void main(String[] args) throws Exception {
+		int apps = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int weeks = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int interval = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+		int activeHours = args.length > 3 ? Integer.parseInt(args[3]) : 12;
+		run(apps, weeks, interval, activeHours, System.out);
+	}
+
+	static void run(int apps, int weeks, int interval, int activeHours,
+			PrintStream out) throws Exception {
+		File root = File.createTempFile("lp-growth", "");
+		root.delete();
+		root.mkdirs();
+		HostContext device = new HostContext("android", root);
+		Context context = device.createPackageContext("com.android.settings",
+				Context.CONTEXT_INCLUDE_CODE);
+		CryptoDatabase database = new CryptoDatabase("growthpassword",
+				"growthsalt", 75, context);
+		File databaseFile = context.getDatabasePath("privacy.db");
+		File journalFile = new File(databaseFile.getPath() + "-journal");
+		File ringFile = context.getDatabasePath("privacy_access.ring");
+		AccessRingStore accessStore = new AccessRingStore(ringFile,
+				database.deriveKey("AccessRingStore"));
+		AccessStatisticWriter writer = new AccessStatisticWriter(database,
+				accessStore, context.getContentResolver(), false);
+
+		out.println("apps=" + apps + " weeks=" + weeks + " interval="
+				+ interval + "min activeHours=" + activeHours);
+		out.println(String.format("%4s %10s %10s %12s %12s %12s %10s",
+				"week", "accesses", "rows", "db bytes", "journal", "ring",
+				"write ms"));
+
+		Random random = new Random(1);
+		Calendar start = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		start.clear();
+		start.set(2014, Calendar.JANUARY, 6);
+		long time = start.getTimeInMillis();
+		boolean[][] active = new boolean[apps][24];
+		long accesses = 0;
+		for (int week = 1; week <= weeks; week++) {
+			long writeNanos = 0;
+			for (int day = 0; day < 7; day++) {
+				for (int app = 0; app < apps; app++) {
+					for (int hour = 0; hour < 24; hour++) {
+						active[app][hour] = random.nextInt(24) < activeHours;
+					}
+				}
+				for (long minute = 0; minute < 24 * 60; minute += interval) {
+					int hour = (int) (minute / 60);
+					long now = time + day * DAY + minute * MINUTE;
+					for (int app = 0; app < apps; app++) {
+						if (active[app][hour]) {
+							writer.record("com.example.app" + app,
+									random.nextInt(2000), app % 4, false, now);
+							accesses++;
+						}
+					}
+					long writeStart = System.nanoTime();
+					writer.flush();
+					writeNanos += System.nanoTime() - writeStart;
+				}
+			}
+			time += 7 * DAY;
+			Cursor c = database.query("STATISTICACCESS",
+					new String[] { "count" }, null, null, null, null, null);
+			int rows = c.getCount();
+			c.close();
+			out.println(String.format("%4d %10d %10d %12d %12d %12d %10d",
+					week, accesses, rows, databaseFile.length(),
+					journalFile.length(), ringFile.length(),
+					writeNanos / 1000000));
+		}
+		accessStore.close();
+		database.close();
+		delete(root);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
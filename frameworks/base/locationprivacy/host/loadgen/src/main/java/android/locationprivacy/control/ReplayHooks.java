@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import android.locationprivacy.host.VirtualClock;
+
+/**
+ * Access of the load generator to the package private parts of the
+ * framework
+ */
+public final class ReplayHooks {
+
+	private ReplayHooks() {
+	}
+
+	/**
+	 * Makes the framework read the wall clock from the VirtualClock
+	 */
+	public static void useVirtualClock() {
+		LocationPrivacyClock.setSource(new LocationPrivacyClock.Source() {
+			public long currentTimeMillis() {
+				return VirtualClock.currentTimeMillis();
+			}
+		});
+	}
+
+	/**
+	 * Writes the queued location accesses of manager
+	 */
+	public static void flushStatistics(LocationPrivacyManager manager) {
+		manager.flushStatistics();
+	}
+}
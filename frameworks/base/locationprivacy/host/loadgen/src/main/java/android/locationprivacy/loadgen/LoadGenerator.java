@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.loadgen;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import android.content.Intent;
+import android.location.Location;
+import android.locationprivacy.control.LocationPrivacyManager;
+import android.locationprivacy.control.LocationPrivacyMetrics;
+import android.locationprivacy.control.ReplayHooks;
+import android.locationprivacy.host.FakeGeocoder;
+import android.locationprivacy.host.HostContext;
+import android.locationprivacy.host.VirtualClock;
+import android.locationprivacy.model.LocationPrivacyApplication;
+
+/**
+ * Replays a recorded track through LocationPrivacyManager.obfuscateLocation
+ * for simulated apps. Time is virtual: the replay runs as fast as the
+ * framework allows, and the statistics are written once per virtual second
+ * like the AccessStatisticWriter does on the device.
+ *
+ * Reports per virtual day and in total: latency percentiles of
+ * obfuscateLocation, geocoder calls per fix, database writes per fix and the
+ * heap in use after a full GC.
+ */
+public class LoadGenerator {
+
+	private static final long SECOND = 1000;
+	private static final long DAY = 24L * 60L * 60L * SECOND;
+
+	private static final String USAGE = "Usage: java -jar loadgen.jar [options]\n"
+			+ "  -trace <file>        GPX or NMEA track, default: random walk\n"
+			+ "  -packages <n>        number of apps, default 50\n"
+			+ "  -presets <mix>       preset:weight,... of the apps, presets 0-4,\n"
+			+ "                       -1 unconfigured, default 0:10,1:30,2:30,3:25,4:5\n"
+			+ "  -intervals <mix>     seconds:weight,... between two fixes of an\n"
+			+ "                       app, default 1:10,10:30,60:60\n"
+			+ "  -days <n>            virtual days to replay, default 28\n"
+			+ "  -online              use the online algorithm (GeoReverseGeo)\n"
+			+ "  -geocoder-latency <us> latency of every geocoder request, default 0\n"
+			+ "  -retention           run the retention at every virtual midnight\n"
+			+ "  -seed <n>            seed of the preset and interval assignment\n"
+			+ "  -sync                sync database writes to disk as the device\n"
+			+ "                       does, default off to replay faster\n";
+
+	/** Simulated app */
+	private static class Client implements Comparable<Client> {
+		final String packagename;
+		final int preset;
+		final long interval;
+		/** Offset of the app in the trace */
+		final long offset;
+		long next;
+
+		Client(String packagename, int preset, long interval, long offset) {
+			this.packagename = packagename;
+			this.preset = preset;
+			this.interval = interval;
+			this.offset = offset;
+		}
+
+		public int compareTo(Client other) {
+			return next < other.next ? -1 : next > other.next ? 1
+					: packagename.compareTo(other.packagename);
+		}
+	}
+
+	private File traceFile;
+	private int packages = 50;
+	private String presets = "0:10,1:30,2:30,3:25,4:5";
+	private String intervals = "1:10,10:30,60:60";
+	private int days = 28;
+	private boolean online;
+	private long geocoderLatency;
+	private boolean retention;
+	private long seed = 1;
+	private boolean sync;
+
+	private final PrintStream out = System.out;
+
+	public static void main(String[] args) throws Exception {
+		LoadGenerator generator = new LoadGenerator();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-trace")) {
+					generator.traceFile = new File(args[++i]);
+				} else if (arg.equals("-packages")) {
+					generator.packages = Integer.parseInt(args[++i]);
+				} else if (arg.equals("-presets")) {
+					generator.presets = args[++i];
+				} else if (arg.equals("-intervals")) {
+					generator.intervals = args[++i];
+				} else if (arg.equals("-days")) {
+					generator.days = Integer.parseInt(args[++i]);
+				} else if (arg.equals("-online")) {
+					generator.online = true;
+				} else if (arg.equals("-geocoder-latency")) {
+					generator.geocoderLatency = Long.parseLong(args[++i]);
+				} else if (arg.equals("-retention")) {
+					generator.retention = true;
+				} else if (arg.equals("-seed")) {
+					generator.seed = Long.parseLong(args[++i]);
+				} else if (arg.equals("-sync")) {
+					generator.sync = true;
+				} else {
+					System.err.print(USAGE);
+					System.exit(arg.equals("-help") ? 0 : 1);
+				}
+			}
+		} catch (RuntimeException e) {
+			System.err.print(USAGE);
+			System.exit(1);
+		}
+		generator.run();
+		System.exit(0);
+	}
+
+	/**
+	 * Parses key:weight,... and returns the key for each of count items,
+	 * distributed by weight and shuffled with random
+	 */
+	static long[] distribute(String mix, int count, Random random) {
+		String[] entries = mix.split(",");
+		long[] keys = new long[entries.length];
+		double[] weights = new double[entries.length];
+		double total = 0;
+		for (int i = 0; i < entries.length; i++) {
+			String[] parts = entries[i].trim().split(":");
+			keys[i] = Long.parseLong(parts[0]);
+			weights[i] = parts.length > 1 ? Double.parseDouble(parts[1]) : 1;
+			total += weights[i];
+		}
+		long[] result = new long[count];
+		double cumulative = 0;
+		int next = 0;
+		for (int i = 0; i < entries.length; i++) {
+			cumulative += weights[i];
+			int end = i == entries.length - 1 ? count : (int) Math
+					.round(cumulative / total * count);
+			while (next < end) {
+				result[next++] = keys[i];
+			}
+		}
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			long swap = result[i];
+			result[i] = result[j];
+			result[j] = swap;
+		}
+		return result;
+	}
+
+	private void run() throws Exception {
+		Trace trace = traceFile != null ? Trace.read(traceFile) : Trace
+				.walk(seed);
+		out.println("trace: " + (traceFile != null ? traceFile : "random walk")
+				+ ", " + trace.size() + " fixes, "
+				+ (trace.getDuration() / SECOND) + " s");
+
+		if (!sync) {
+			System.setProperty("locationprivacy.sqlite.sync", "OFF");
+		}
+		VirtualClock.install(trace.getStart());
+		ReplayHooks.useVirtualClock();
+
+		File root = File.createTempFile("lp-loadgen", "");
+		root.delete();
+		root.mkdirs();
+		HostContext context = new HostContext("android", root);
+		FakeGeocoder geocoder = new FakeGeocoder(geocoderLatency);
+		context.setGeocoderBackend(geocoder);
+		context.setIntentListener(new HostContext.IntentListener() {
+			public void onIntent(Intent intent) {
+				// configuration dialogs are not answered
+			}
+		});
+
+		Random random = new Random(seed);
+		long[] presetOf = distribute(presets, packages, random);
+		long[] intervalOf = distribute(intervals, packages, random);
+		List<Client> clients = new ArrayList<Client>();
+		for (int i = 0; i < packages; i++) {
+			String packagename = "com.example.app" + i;
+			context.getPackageManager().install(packagename, "App " + i);
+			clients.add(new Client(packagename, (int) presetOf[i],
+					intervalOf[i] * SECOND, trace.getDuration() * i / packages));
+		}
+
+		LocationPrivacyMetrics.setEnabled(true);
+		LocationPrivacyManager manager = new LocationPrivacyManager(context);
+		if (online) {
+			manager.setUseOnlineAlgorithm(true);
+		}
+		// apps are registered by their first location request
+		for (Client client : clients) {
+			manager.obfuscateLocation(trace.at(client.offset),
+					client.packagename);
+		}
+		ReplayHooks.flushStatistics(manager);
+		for (Client client : clients) {
+			if (client.preset != -1) {
+				manager.setApplication(new LocationPrivacyApplication(
+						client.packagename, client.preset));
+			}
+		}
+		ReplayHooks.flushStatistics(manager);
+
+		out.println("packages: " + packages + ", presets " + presets
+				+ ", intervals " + intervals + (online ? ", online" : "")
+				+ (retention ? ", retention" : ""));
+		out.println();
+		out.println(String.format("%4s %9s %9s %9s %9s %9s %9s %9s %9s",
+				"day", "fixes", "p50 us", "p90 us", "p99 us", "max us",
+				"geo/fix", "db/fix", "heap MB"));
+
+		long heapStart = usedHeap();
+		LocationPrivacyMetrics.reset();
+		long start = VirtualClock.currentTimeMillis();
+		long end = start + days * DAY;
+		PriorityQueue<Client> queue = new PriorityQueue<Client>();
+		for (Client client : clients) {
+			client.next = start + random.nextInt((int) client.interval);
+			queue.add(client);
+		}
+
+		LatencyHistogram dayLatency = new LatencyHistogram();
+		LatencyHistogram totalLatency = new LatencyHistogram();
+		long nextFlush = start + SECOND;
+		long nextDay = start + DAY;
+		int day = 1;
+		long geocoderCalls = 0;
+		long databaseWrites = 0;
+		while (true) {
+			Client client = queue.poll();
+			long time = Math.min(client.next, end);
+			if (time >= nextFlush) {
+				ReplayHooks.flushStatistics(manager);
+				nextFlush = time - (time - start) % SECOND + SECOND;
+			}
+			if (time >= nextDay) {
+				long geo = geocoderCalls();
+				long writes = LocationPrivacyMetrics.sumCounters("db.write.");
+				report("" + day, dayLatency, geo - geocoderCalls, writes
+						- databaseWrites, usedHeap());
+				geocoderCalls = geo;
+				databaseWrites = writes;
+				totalLatency.add(dayLatency);
+				dayLatency.clear();
+				day++;
+				nextDay += DAY;
+				if (retention && time < end) {
+					VirtualClock.advanceTo(nextDay - DAY);
+					manager.cleanDatabase();
+				}
+			}
+			if (time >= end) {
+				break;
+			}
+			VirtualClock.advanceTo(time);
+
+			Location location = trace.at(time - start + client.offset);
+			location.setTime(time);
+			long fixStart = System.nanoTime();
+			manager.obfuscateLocation(location, client.packagename);
+			dayLatency.record(System.nanoTime() - fixStart);
+
+			client.next += client.interval;
+			queue.add(client);
+		}
+
+		long heapEnd = usedHeap();
+		out.println();
+		report("all", totalLatency, geocoderCalls, databaseWrites, heapEnd);
+		out.println("heap growth: " + toMegabytes(heapEnd - heapStart)
+				+ " MB, mean latency "
+				+ (totalLatency.getMean() / 1000) + " us, geocoder requests "
+				+ (geocoder.getReverseRequests() + geocoder.getForwardRequests()));
+		delete(root);
+	}
+
+	private static long geocoderCalls() {
+		return LocationPrivacyMetrics.getCounter("geocoder.reverse")
+				+ LocationPrivacyMetrics.getCounter("geocoder.forward");
+	}
+
+	private void report(String day, LatencyHistogram latency,
+			long geocoderCalls, long databaseWrites, long heap) {
+		long fixes = Math.max(1, latency.getCount());
+		out.println(String.format(
+				"%4s %9d %9d %9d %9d %9d %9.3f %9.3f %9s", day,
+				latency.getCount(), latency.quantile(0.5) / 1000,
+				latency.quantile(0.9) / 1000, latency.quantile(0.99) / 1000,
+				latency.getMax() / 1000, (double) geocoderCalls / fixes,
+				(double) databaseWrites / fixes, toMegabytes(heap)));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static String toMegabytes(long bytes) {
+		return String.format("%.1f", bytes / (1024.0 * 1024.0));
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.loadgen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import android.location.Location;
+
+/**
+ * Recorded track. The track repeats, so it can be replayed for any period:
+ * after the last fix it starts again with the first.
+ */
+public class Trace {
+
+	private final Location[] fixes;
+	private final long start;
+	private final long duration;
+
+	Trace(List<Location> locations) {
+		if (locations.isEmpty()) {
+			throw new IllegalArgumentException("Trace contains no fixes");
+		}
+		Collections.sort(locations, new Comparator<Location>() {
+			public int compare(Location a, Location b) {
+				return a.getTime() < b.getTime() ? -1
+						: a.getTime() > b.getTime() ? 1 : 0;
+			}
+		});
+		fixes = locations.toArray(new Location[locations.size()]);
+		start = fixes[0].getTime();
+		long span = fixes[fixes.length - 1].getTime() - start;
+		// the pause between the last and the first fix of a repetition
+		long step = fixes.length > 1 ? span / (fixes.length - 1) : 1000;
+		duration = span + Math.max(step, 1000);
+	}
+
+	public int size() {
+		return fixes.length;
+	}
+
+	/** Time of the first fix */
+	public long getStart() {
+		return start;
+	}
+
+	/** Duration of one repetition in ms */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns a copy of the latest fix at offset ms after the start of the
+	 * trace
+	 */
+	public Location at(long offset) {
+		long time = start + (offset % duration + duration) % duration;
+		int low = 0;
+		int high = fixes.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (fixes[mid].getTime() <= time) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return new Location(fixes[low]);
+	}
+
+	/**
+	 * Reads a GPX or NMEA file. Files whose first non blank character is
+	 * '$' are read as NMEA.
+	 */
+	public static Trace read(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), "UTF-8"));
+		try {
+			reader.mark(4096);
+			int c;
+			do {
+				c = reader.read();
+			} while (c != -1 && Character.isWhitespace(c));
+			reader.reset();
+			if (c == '$') {
+				return new Trace(readNmea(reader));
+			}
+		} finally {
+			reader.close();
+		}
+		return new Trace(readGpx(file));
+	}
+
+	/**
+	 * Reads the track, route and way points of a GPX file. Points without
+	 * time are one second apart.
+	 */
+	static List<Location> readGpx(File file) throws IOException {
+		final List<Location> locations = new ArrayList<Location>();
+		try {
+			final DatatypeFactory dates = DatatypeFactory.newInstance();
+			SAXParserFactory.newInstance().newSAXParser()
+					.parse(file, new DefaultHandler() {
+						private Location point;
+						private StringBuilder text = new StringBuilder();
+
+						private String name(String qName) {
+							return qName.substring(qName.indexOf(':') + 1);
+						}
+
+						@Override
+						public void startElement(String uri, String localName,
+								String qName, Attributes attributes) {
+							String name = name(qName);
+							text.setLength(0);
+							if (name.equals("trkpt") || name.equals("rtept")
+									|| name.equals("wpt")) {
+								point = new Location("gps");
+								point.setLatitude(Double.parseDouble(attributes
+										.getValue("lat")));
+								point.setLongitude(Double
+										.parseDouble(attributes.getValue("lon")));
+								point.setTime(-1);
+							}
+						}
+
+						@Override
+						public void characters(char[] ch, int start, int length) {
+							text.append(ch, start, length);
+						}
+
+						@Override
+						public void endElement(String uri, String localName,
+								String qName) {
+							String name = name(qName);
+							String value = text.toString().trim();
+							if (point == null) {
+								return;
+							}
+							if (name.equals("time")) {
+								point.setTime(dates
+										.newXMLGregorianCalendar(value)
+										.toGregorianCalendar().getTimeInMillis());
+							} else if (name.equals("ele")) {
+								point.setAltitude(Double.parseDouble(value));
+							} else if (name.equals("speed")) {
+								point.setSpeed(Float.parseFloat(value));
+							} else if (name.equals("hdop")) {
+								point.setAccuracy(5 * Float.parseFloat(value));
+							} else if (name.equals("trkpt")
+									|| name.equals("rtept") || name.equals("wpt")) {
+								locations.add(point);
+								point = null;
+							}
+						}
+					});
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Invalid GPX file " + file, e);
+		}
+		long previous = 0;
+		for (Location location : locations) {
+			if (location.getTime() < 0) {
+				location.setTime(previous + 1000);
+			}
+			previous = location.getTime();
+		}
+		return locations;
+	}
+
+	/**
+	 * Reads the RMC sentences of an NMEA log. Altitude and HDOP are taken
+	 * from the GGA sentence of the same fix. Sentences with a wrong checksum
+	 * are skipped.
+	 */
+	static List<Location> readNmea(BufferedReader reader) throws IOException {
+		List<Location> locations = new ArrayList<Location>();
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		String ggaTime = null;
+		double altitude = Double.NaN;
+		float accuracy = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			line = line.trim();
+			if (!line.startsWith("$") || !validChecksum(line)) {
+				continue;
+			}
+			int star = line.indexOf('*');
+			String[] fields = line.substring(1, star >= 0 ? star : line.length())
+					.split(",", -1);
+			if (fields[0].length() < 5) {
+				continue;
+			}
+			String type = fields[0].substring(fields[0].length() - 3);
+			try {
+				if (type.equals("GGA") && fields.length > 9) {
+					ggaTime = fields[1];
+					accuracy = fields[8].length() > 0 ? 5 * Float
+							.parseFloat(fields[8]) : 0;
+					altitude = fields[9].length() > 0 ? Double
+							.parseDouble(fields[9]) : Double.NaN;
+				} else if (type.equals("RMC") && fields.length > 9
+						&& fields[2].equals("A")) {
+					Location location = new Location("gps");
+					location.setLatitude(coordinate(fields[3], fields[4]));
+					location.setLongitude(coordinate(fields[5], fields[6]));
+					if (fields[7].length() > 0) {
+						location.setSpeed(Float.parseFloat(fields[7]) * 0.514444f);
+					}
+					if (fields[8].length() > 0) {
+						location.setBearing(Float.parseFloat(fields[8]));
+					}
+					String time = fields[1];
+					String day = fields[9];
+					date.clear();
+					date.set(2000 + Integer.parseInt(day.substring(4, 6)),
+							Integer.parseInt(day.substring(2, 4)) - 1,
+							Integer.parseInt(day.substring(0, 2)),
+							Integer.parseInt(time.substring(0, 2)),
+							Integer.parseInt(time.substring(2, 4)),
+							Integer.parseInt(time.substring(4, 6)));
+					long millis = date.getTimeInMillis();
+					if (time.length() > 7) {
+						millis += Math.round(Double.parseDouble("0"
+								+ time.substring(6)) * 1000);
+					}
+					location.setTime(millis);
+					if (time.equals(ggaTime)) {
+						if (!Double.isNaN(altitude)) {
+							location.setAltitude(altitude);
+						}
+						if (accuracy > 0) {
+							location.setAccuracy(accuracy);
+						}
+					}
+					locations.add(location);
+				}
+			} catch (RuntimeException e) {
+				// incomplete sentence
+			}
+		}
+		return locations;
+	}
+
+	private static boolean validChecksum(String line) {
+		int star = line.indexOf('*');
+		if (star < 0) {
+			return true;
+		}
+		int sum = 0;
+		for (int i = 1; i < star; i++) {
+			sum ^= line.charAt(i);
+		}
+		try {
+			return sum == Integer.parseInt(line.substring(star + 1).trim(), 16);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Converts (d)ddmm.mmmm and hemisphere to degrees
+	 */
+	private static double coordinate(String value, String hemisphere) {
+		int dot = value.indexOf('.');
+		int degreeDigits = (dot < 0 ? value.length() : dot) - 2;
+		double degrees = Integer.parseInt(value.substring(0, degreeDigits))
+				+ Double.parseDouble(value.substring(degreeDigits)) / 60;
+		return hemisphere.equals("S") || hemisphere.equals("W") ? -degrees
+				: degrees;
+	}
+
+	/**
+	 * Returns a random walk of one hour with one fix per second
+	 */
+	public static Trace walk(long seed) {
+		Random random = new Random(seed);
+		List<Location> locations = new ArrayList<Location>();
+		double latitude = 52.3826;
+		double longitude = 9.7176;
+		for (int i = 0; i < 3600; i++) {
+			Location location = new Location("gps");
+			location.setLatitude(latitude);
+			location.setLongitude(longitude);
+			location.setAccuracy(10);
+			location.setTime(1389000000000L + i * 1000L);
+			locations.add(location);
+			double angle = random.nextDouble() * 2 * Math.PI;
+			latitude += 1.4 * Math.sin(angle) / 111320;
+			longitude += 1.4 * Math.cos(angle)
+					/ (111320 * Math.cos(Math.toRadians(latitude)));
+		}
+		return new Trace(locations);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+/**
+ * Host implementation of android.content.ComponentName
+ */
+public final class ComponentName {
+
+	private final String packageName;
+	private final String className;
+
+	public ComponentName(String pkg, String cls) {
+		if (pkg == null) {
+			throw new NullPointerException("package name is null");
+		}
+		if (cls == null) {
+			throw new NullPointerException("class name is null");
+		}
+		packageName = pkg;
+		className = cls;
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public String flattenToString() {
+		return packageName + "/" + className;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof ComponentName)) {
+			return false;
+		}
+		ComponentName other = (ComponentName) obj;
+		return packageName.equals(other.packageName)
+				&& className.equals(other.className);
+	}
+
+	@Override
+	public int hashCode() {
+		return packageName.hashCode() + className.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "ComponentInfo{" + packageName + "/" + className + "}";
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.database.ContentObserver;
+import android.net.Uri;
+
+/**
+ * Host implementation of the change notifications of
+ * android.content.ContentResolver. Observers are matched like the platform's
+ * observer tree: an observer receives changes of its URI, of URIs below it
+ * if it observes descendants, and of URIs above it.
+ */
+public class ContentResolver {
+
+	private static class Registration {
+		final String uri;
+		final boolean notifyForDescendents;
+		final ContentObserver observer;
+
+		Registration(Uri uri, boolean notifyForDescendents,
+				ContentObserver observer) {
+			this.uri = uri.toString();
+			this.notifyForDescendents = notifyForDescendents;
+			this.observer = observer;
+		}
+	}
+
+	private final Context context;
+	private final ArrayList<Registration> registrations = new ArrayList<Registration>();
+
+	public ContentResolver(Context context) {
+		this.context = context;
+	}
+
+	public final void registerContentObserver(Uri uri,
+			boolean notifyForDescendents, ContentObserver observer) {
+		synchronized (registrations) {
+			registrations.add(new Registration(uri, notifyForDescendents,
+					observer));
+		}
+	}
+
+	public final void unregisterContentObserver(ContentObserver observer) {
+		synchronized (registrations) {
+			for (int i = registrations.size() - 1; i >= 0; i--) {
+				if (registrations.get(i).observer == observer) {
+					registrations.remove(i);
+				}
+			}
+		}
+	}
+
+	public void notifyChange(Uri uri, ContentObserver observer) {
+		notifyChange(uri, observer, true);
+	}
+
+	/**
+	 * Notifies the matching observers. The observer that made the change is
+	 * only notified if it delivers self notifications.
+	 */
+	public void notifyChange(Uri uri, ContentObserver observer,
+			boolean syncToNetwork) {
+		String changed = uri.toString();
+		List<ContentObserver> matches = new ArrayList<ContentObserver>();
+		synchronized (registrations) {
+			for (Registration r : registrations) {
+				if (matches(r, changed)) {
+					matches.add(r.observer);
+				}
+			}
+		}
+		for (ContentObserver o : matches) {
+			if (o != observer) {
+				o.dispatchChange(false, uri);
+			} else if (o.deliverSelfNotifications()) {
+				o.dispatchChange(true, uri);
+			}
+		}
+	}
+
+	private static boolean matches(Registration r, String changed) {
+		if (changed.equals(r.uri)) {
+			return true;
+		}
+		if (r.notifyForDescendents && isBelow(changed, r.uri)) {
+			return true;
+		}
+		return isBelow(r.uri, changed);
+	}
+
+	private static boolean isBelow(String uri, String parent) {
+		return uri.length() > parent.length() && uri.startsWith(parent)
+				&& (uri.charAt(parent.length()) == '/' || parent.endsWith("/"));
+	}
+
+	/**
+	 * Returns the context this resolver belongs to
+	 */
+	Context getContext() {
+		return context;
+	}
+}
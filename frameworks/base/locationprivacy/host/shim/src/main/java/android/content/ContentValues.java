@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Host implementation of android.content.ContentValues
+ */
+public final class ContentValues implements Parcelable {
+
+	public static final Parcelable.Creator<ContentValues> CREATOR = new Parcelable.Creator<ContentValues>() {
+		@SuppressWarnings("unchecked")
+		public ContentValues createFromParcel(Parcel in) {
+			HashMap<String, Object> values = in.readHashMap(null);
+			return new ContentValues(values);
+		}
+
+		public ContentValues[] newArray(int size) {
+			return new ContentValues[size];
+		}
+	};
+
+	private final HashMap<String, Object> values;
+
+	public ContentValues() {
+		values = new HashMap<String, Object>(8);
+	}
+
+	public ContentValues(int size) {
+		values = new HashMap<String, Object>(size, 1.0f);
+	}
+
+	public ContentValues(ContentValues from) {
+		values = new HashMap<String, Object>(from.values);
+	}
+
+	private ContentValues(HashMap<String, Object> values) {
+		this.values = values;
+	}
+
+	public void put(String key, String value) {
+		values.put(key, value);
+	}
+
+	public void putAll(ContentValues other) {
+		values.putAll(other.values);
+	}
+
+	public void put(String key, Byte value) {
+		values.put(key, value);
+	}
+
+	public void put(String key, Short value) {
+		values.put(key, value);
+	}
+
+	public void put(String key, Integer value) {
+		values.put(key, value);
+	}
+
+	public void put(String key, Long value) {
+		values.put(key, value);
+	}
+
+	public void put(String key, Float value) {
+		values.put(key, value);
+	}
+
+	public void put(String key, Double value) {
+		values.put(key, value);
+	}
+
+	public void put(String key, Boolean value) {
+		values.put(key, value);
+	}
+
+	public void put(String key, byte[] value) {
+		values.put(key, value);
+	}
+
+	public void putNull(String key) {
+		values.put(key, null);
+	}
+
+	public int size() {
+		return values.size();
+	}
+
+	public void remove(String key) {
+		values.remove(key);
+	}
+
+	public void clear() {
+		values.clear();
+	}
+
+	public boolean containsKey(String key) {
+		return values.containsKey(key);
+	}
+
+	public Object get(String key) {
+		return values.get(key);
+	}
+
+	public String getAsString(String key) {
+		Object value = values.get(key);
+		return value != null ? value.toString() : null;
+	}
+
+	public Long getAsLong(String key) {
+		Object value = values.get(key);
+		try {
+			return value != null ? ((Number) value).longValue() : null;
+		} catch (ClassCastException e) {
+			if (value instanceof CharSequence) {
+				try {
+					return Long.valueOf(value.toString());
+				} catch (NumberFormatException e2) {
+					return null;
+				}
+			}
+			return null;
+		}
+	}
+
+	public Integer getAsInteger(String key) {
+		Object value = values.get(key);
+		try {
+			return value != null ? ((Number) value).intValue() : null;
+		} catch (ClassCastException e) {
+			if (value instanceof CharSequence) {
+				try {
+					return Integer.valueOf(value.toString());
+				} catch (NumberFormatException e2) {
+					return null;
+				}
+			}
+			return null;
+		}
+	}
+
+	public Double getAsDouble(String key) {
+		Object value = values.get(key);
+		try {
+			return value != null ? ((Number) value).doubleValue() : null;
+		} catch (ClassCastException e) {
+			if (value instanceof CharSequence) {
+				try {
+					return Double.valueOf(value.toString());
+				} catch (NumberFormatException e2) {
+					return null;
+				}
+			}
+			return null;
+		}
+	}
+
+	public Boolean getAsBoolean(String key) {
+		Object value = values.get(key);
+		try {
+			return (Boolean) value;
+		} catch (ClassCastException e) {
+			if (value instanceof CharSequence) {
+				return Boolean.valueOf(value.toString());
+			} else if (value instanceof Number) {
+				return ((Number) value).intValue() != 0;
+			}
+			return null;
+		}
+	}
+
+	public byte[] getAsByteArray(String key) {
+		Object value = values.get(key);
+		return value instanceof byte[] ? (byte[]) value : null;
+	}
+
+	public Set<Map.Entry<String, Object>> valueSet() {
+		return values.entrySet();
+	}
+
+	public Set<String> keySet() {
+		return values.keySet();
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (!(object instanceof ContentValues)) {
+			return false;
+		}
+		return values.equals(((ContentValues) object).values);
+	}
+
+	@Override
+	public int hashCode() {
+		return values.hashCode();
+	}
+
+	public int describeContents() {
+		return 0;
+	}
+
+	public void writeToParcel(Parcel parcel, int flags) {
+		parcel.writeMap(values);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (String name : values.keySet()) {
+			String value = getAsString(name);
+			if (sb.length() > 0) {
+				sb.append(" ");
+			}
+			sb.append(name + "=" + value);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import java.io.File;
+
+import android.content.pm.PackageManager;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Looper;
+
+/**
+ * Host declaration of the parts of android.content.Context used by the
+ * framework. android.locationprivacy.host.HostContext implements it.
+ */
+public abstract class Context {
+
+	public static final int MODE_PRIVATE = 0x0000;
+	public static final int MODE_WORLD_READABLE = 0x0001;
+	public static final int MODE_WORLD_WRITEABLE = 0x0002;
+	public static final int MODE_APPEND = 0x8000;
+
+	public static final int CONTEXT_INCLUDE_CODE = 0x00000001;
+	public static final int CONTEXT_IGNORE_SECURITY = 0x00000002;
+
+	public static final String LOCATION_SERVICE = "location";
+
+	public abstract Context getApplicationContext();
+
+	public abstract String getPackageName();
+
+	public abstract ContentResolver getContentResolver();
+
+	public abstract PackageManager getPackageManager();
+
+	public abstract Looper getMainLooper();
+
+	public abstract SharedPreferences getSharedPreferences(String name,
+			int mode);
+
+	public abstract File getFilesDir();
+
+	public abstract File getCacheDir();
+
+	public abstract File getDatabasePath(String name);
+
+	public abstract SQLiteDatabase openOrCreateDatabase(String name,
+			int mode, SQLiteDatabase.CursorFactory factory);
+
+	public abstract boolean deleteDatabase(String name);
+
+	public abstract Context createPackageContext(String packageName,
+			int flags) throws PackageManager.NameNotFoundException;
+
+	public abstract void startActivity(Intent intent);
+
+	public abstract void sendBroadcast(Intent intent);
+
+	public abstract Object getSystemService(String name);
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import android.os.Bundle;
+import android.os.Parcelable;
+
+/**
+ * Host implementation of android.content.Intent with action, component,
+ * flags and extras
+ */
+public class Intent {
+
+	public static final int FLAG_ACTIVITY_NEW_TASK = 0x10000000;
+	public static final int FLAG_ACTIVITY_CLEAR_TOP = 0x04000000;
+
+	private String action;
+	private ComponentName component;
+	private int flags;
+	private Bundle extras;
+
+	public Intent() {
+	}
+
+	public Intent(String action) {
+		this.action = action;
+	}
+
+	public Intent(Intent o) {
+		action = o.action;
+		component = o.component;
+		flags = o.flags;
+		if (o.extras != null) {
+			extras = new Bundle(o.extras);
+		}
+	}
+
+	public String getAction() {
+		return action;
+	}
+
+	public Intent setAction(String action) {
+		this.action = action;
+		return this;
+	}
+
+	public ComponentName getComponent() {
+		return component;
+	}
+
+	public Intent setComponent(ComponentName component) {
+		this.component = component;
+		return this;
+	}
+
+	public Intent setClassName(String packageName, String className) {
+		component = new ComponentName(packageName, className);
+		return this;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	public Intent setFlags(int flags) {
+		this.flags = flags;
+		return this;
+	}
+
+	public Intent addFlags(int flags) {
+		this.flags |= flags;
+		return this;
+	}
+
+	public Bundle getExtras() {
+		return extras != null ? new Bundle(extras) : null;
+	}
+
+	public boolean hasExtra(String name) {
+		return extras != null && extras.containsKey(name);
+	}
+
+	private Bundle extras() {
+		if (extras == null) {
+			extras = new Bundle();
+		}
+		return extras;
+	}
+
+	public Intent putExtra(String name, boolean value) {
+		extras().putBoolean(name, value);
+		return this;
+	}
+
+	public Intent putExtra(String name, int value) {
+		extras().putInt(name, value);
+		return this;
+	}
+
+	public Intent putExtra(String name, long value) {
+		extras().putLong(name, value);
+		return this;
+	}
+
+	public Intent putExtra(String name, double value) {
+		extras().putDouble(name, value);
+		return this;
+	}
+
+	public Intent putExtra(String name, String value) {
+		extras().putString(name, value);
+		return this;
+	}
+
+	public Intent putExtra(String name, Parcelable value) {
+		extras().putParcelable(name, value);
+		return this;
+	}
+
+	public Intent putExtra(String name, Bundle value) {
+		extras().putBundle(name, value);
+		return this;
+	}
+
+	public Intent putExtras(Bundle extras) {
+		extras().putAll(extras);
+		return this;
+	}
+
+	public boolean getBooleanExtra(String name, boolean defaultValue) {
+		return extras == null ? defaultValue : extras.getBoolean(name,
+				defaultValue);
+	}
+
+	public int getIntExtra(String name, int defaultValue) {
+		return extras == null ? defaultValue : extras.getInt(name,
+				defaultValue);
+	}
+
+	public String getStringExtra(String name) {
+		return extras == null ? null : extras.getString(name);
+	}
+
+	public <T extends Parcelable> T getParcelableExtra(String name) {
+		return extras == null ? null : extras.<T> getParcelable(name);
+	}
+
+	@Override
+	public String toString() {
+		return "Intent { " + (action != null ? "act=" + action + " " : "")
+				+ (component != null ? "cmp=" + component.flattenToString()
+						+ " " : "") + "flg=0x" + Integer.toHexString(flags)
+				+ (extras != null ? " (has extras)" : "") + " }";
+	}
+}
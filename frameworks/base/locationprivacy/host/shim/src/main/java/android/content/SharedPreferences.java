@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Host declaration of android.content.SharedPreferences
+ */
+public interface SharedPreferences {
+
+	public interface OnSharedPreferenceChangeListener {
+		void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+				String key);
+	}
+
+	public interface Editor {
+		Editor putString(String key, String value);
+
+		Editor putStringSet(String key, Set<String> values);
+
+		Editor putInt(String key, int value);
+
+		Editor putLong(String key, long value);
+
+		Editor putFloat(String key, float value);
+
+		Editor putBoolean(String key, boolean value);
+
+		Editor remove(String key);
+
+		Editor clear();
+
+		boolean commit();
+
+		void apply();
+	}
+
+	Map<String, ?> getAll();
+
+	String getString(String key, String defValue);
+
+	Set<String> getStringSet(String key, Set<String> defValues);
+
+	int getInt(String key, int defValue);
+
+	long getLong(String key, long defValue);
+
+	float getFloat(String key, float defValue);
+
+	boolean getBoolean(String key, boolean defValue);
+
+	boolean contains(String key);
+
+	Editor edit();
+
+	void registerOnSharedPreferenceChangeListener(
+			OnSharedPreferenceChangeListener listener);
+
+	void unregisterOnSharedPreferenceChangeListener(
+			OnSharedPreferenceChangeListener listener);
+}
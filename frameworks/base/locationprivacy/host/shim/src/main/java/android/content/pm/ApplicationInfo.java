@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content.pm;
+
+/**
+ * Host implementation of android.content.pm.ApplicationInfo
+ */
+public class ApplicationInfo {
+
+	public String packageName;
+	public CharSequence nonLocalizedLabel;
+	public int uid;
+	public int flags;
+	public boolean enabled = true;
+
+	public ApplicationInfo() {
+	}
+
+	public ApplicationInfo(ApplicationInfo orig) {
+		packageName = orig.packageName;
+		nonLocalizedLabel = orig.nonLocalizedLabel;
+		uid = orig.uid;
+		flags = orig.flags;
+		enabled = orig.enabled;
+	}
+
+	@Override
+	public String toString() {
+		return "ApplicationInfo{"
+				+ Integer.toHexString(System.identityHashCode(this)) + " "
+				+ packageName + "}";
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content.pm;
+
+/**
+ * Host implementation of android.content.pm.PackageInfo
+ */
+public class PackageInfo {
+
+	public String packageName;
+	public int versionCode;
+	public String versionName;
+	public ApplicationInfo applicationInfo;
+	public long firstInstallTime;
+	public long lastUpdateTime;
+
+	@Override
+	public String toString() {
+		return "PackageInfo{"
+				+ Integer.toHexString(System.identityHashCode(this)) + " "
+				+ packageName + "}";
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content.pm;
+
+import java.util.List;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * Host declaration of the parts of android.content.pm.PackageManager used
+ * by the framework
+ */
+public abstract class PackageManager {
+
+	public static class NameNotFoundException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		public NameNotFoundException() {
+		}
+
+		public NameNotFoundException(String name) {
+			super(name);
+		}
+	}
+
+	public static final int GET_META_DATA = 0x00000080;
+
+	public abstract PackageInfo getPackageInfo(String packageName, int flags)
+			throws NameNotFoundException;
+
+	public abstract ApplicationInfo getApplicationInfo(String packageName,
+			int flags) throws NameNotFoundException;
+
+	public abstract List<PackageInfo> getInstalledPackages(int flags);
+
+	public abstract List<ApplicationInfo> getInstalledApplications(int flags);
+
+	public abstract String[] getPackagesForUid(int uid);
+
+	public abstract CharSequence getApplicationLabel(ApplicationInfo info);
+
+	public abstract Drawable getApplicationIcon(ApplicationInfo info);
+
+	public abstract Drawable getApplicationIcon(String packageName)
+			throws NameNotFoundException;
+}
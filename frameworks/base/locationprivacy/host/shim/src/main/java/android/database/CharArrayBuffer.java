@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database;
+
+/**
+ * Host implementation of android.database.CharArrayBuffer
+ */
+public final class CharArrayBuffer {
+
+	public char[] data;
+	public int sizeCopied;
+
+	public CharArrayBuffer(int size) {
+		data = new char[size];
+	}
+
+	public CharArrayBuffer(char[] buf) {
+		data = buf;
+	}
+}
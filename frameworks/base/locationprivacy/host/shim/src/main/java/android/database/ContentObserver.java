@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database;
+
+import android.net.Uri;
+import android.os.Handler;
+
+/**
+ * Host implementation of android.database.ContentObserver
+ */
+public abstract class ContentObserver {
+
+	private final Handler handler;
+
+	public ContentObserver(Handler handler) {
+		this.handler = handler;
+	}
+
+	public boolean deliverSelfNotifications() {
+		return false;
+	}
+
+	public void onChange(boolean selfChange) {
+	}
+
+	public void onChange(boolean selfChange, Uri uri) {
+		onChange(selfChange);
+	}
+
+	public final void dispatchChange(boolean selfChange) {
+		dispatchChange(selfChange, null);
+	}
+
+	public final void dispatchChange(final boolean selfChange, final Uri uri) {
+		if (handler == null) {
+			onChange(selfChange, uri);
+		} else {
+			handler.post(new Runnable() {
+				public void run() {
+					onChange(selfChange, uri);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database;
+
+import java.io.Closeable;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Bundle;
+
+/**
+ * Host declaration of android.database.Cursor of API level 17
+ */
+public interface Cursor extends Closeable {
+
+	static final int FIELD_TYPE_NULL = 0;
+	static final int FIELD_TYPE_INTEGER = 1;
+	static final int FIELD_TYPE_FLOAT = 2;
+	static final int FIELD_TYPE_STRING = 3;
+	static final int FIELD_TYPE_BLOB = 4;
+
+	int getCount();
+
+	int getPosition();
+
+	boolean move(int offset);
+
+	boolean moveToPosition(int position);
+
+	boolean moveToFirst();
+
+	boolean moveToLast();
+
+	boolean moveToNext();
+
+	boolean moveToPrevious();
+
+	boolean isFirst();
+
+	boolean isLast();
+
+	boolean isBeforeFirst();
+
+	boolean isAfterLast();
+
+	int getColumnIndex(String columnName);
+
+	int getColumnIndexOrThrow(String columnName)
+			throws IllegalArgumentException;
+
+	String getColumnName(int columnIndex);
+
+	String[] getColumnNames();
+
+	int getColumnCount();
+
+	byte[] getBlob(int columnIndex);
+
+	String getString(int columnIndex);
+
+	void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer);
+
+	short getShort(int columnIndex);
+
+	int getInt(int columnIndex);
+
+	long getLong(int columnIndex);
+
+	float getFloat(int columnIndex);
+
+	double getDouble(int columnIndex);
+
+	int getType(int columnIndex);
+
+	boolean isNull(int columnIndex);
+
+	@Deprecated
+	void deactivate();
+
+	@Deprecated
+	boolean requery();
+
+	void close();
+
+	boolean isClosed();
+
+	void registerContentObserver(ContentObserver observer);
+
+	void unregisterContentObserver(ContentObserver observer);
+
+	void registerDataSetObserver(DataSetObserver observer);
+
+	void unregisterDataSetObserver(DataSetObserver observer);
+
+	void setNotificationUri(ContentResolver cr, Uri uri);
+
+	boolean getWantsAllOnMoveCalls();
+
+	Bundle getExtras();
+
+	Bundle respond(Bundle extras);
+}
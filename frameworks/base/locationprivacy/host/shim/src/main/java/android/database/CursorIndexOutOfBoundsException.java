@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database;
+
+/**
+ * Host implementation of android.database.CursorIndexOutOfBoundsException
+ */
+public class CursorIndexOutOfBoundsException extends IndexOutOfBoundsException {
+	private static final long serialVersionUID = 1L;
+
+	public CursorIndexOutOfBoundsException(int index, int size) {
+		super("Index " + index + " requested, with a size of " + size);
+	}
+
+	public CursorIndexOutOfBoundsException(String message) {
+		super(message);
+	}
+}
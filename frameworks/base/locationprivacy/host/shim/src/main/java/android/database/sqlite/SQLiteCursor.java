@@ -0,0 +1,467 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database.sqlite;
+
+import java.io.UnsupportedEncodingException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.CursorIndexOutOfBoundsException;
+import android.database.DataSetObserver;
+import android.net.Uri;
+import android.os.Bundle;
+
+/**
+ * Host implementation of android.database.sqlite.SQLiteCursor. All rows are
+ * read when the query is executed, like a CursorWindow holding the whole
+ * result. Values are converted between types the way CursorWindow does.
+ */
+public class SQLiteCursor implements Cursor {
+
+	private final SQLiteDatabase database;
+	private final String sql;
+	private final String[] selectionArgs;
+	private String[] columnNames;
+	private List<Object[]> rows;
+	private int position = -1;
+	private boolean closed;
+
+	private final ArrayList<ContentObserver> contentObservers = new ArrayList<ContentObserver>();
+	private final ArrayList<DataSetObserver> dataSetObservers = new ArrayList<DataSetObserver>();
+	private ContentResolver notifyResolver;
+	private ContentObserver selfObserver;
+
+	SQLiteCursor(SQLiteDatabase database, String sql, String[] selectionArgs,
+			ResultSet result) throws SQLException {
+		this.database = database;
+		this.sql = sql;
+		this.selectionArgs = selectionArgs;
+		fill(result);
+	}
+
+	private void fill(ResultSet result) throws SQLException {
+		ResultSetMetaData meta = result.getMetaData();
+		String[] names = new String[meta.getColumnCount()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = meta.getColumnLabel(i + 1);
+		}
+		ArrayList<Object[]> newRows = new ArrayList<Object[]>();
+		while (result.next()) {
+			Object[] row = new Object[names.length];
+			for (int i = 0; i < row.length; i++) {
+				Object value = result.getObject(i + 1);
+				if (value instanceof Integer) {
+					value = ((Integer) value).longValue();
+				}
+				row[i] = value;
+			}
+			newRows.add(row);
+		}
+		columnNames = names;
+		rows = newRows;
+	}
+
+	private Object get(int columnIndex) {
+		if (position < 0 || position >= rows.size()) {
+			throw new CursorIndexOutOfBoundsException(position, rows.size());
+		}
+		if (columnIndex < 0 || columnIndex >= columnNames.length) {
+			throw new IllegalStateException("Couldn't read row " + position
+					+ ", col " + columnIndex + " from CursorWindow.");
+		}
+		return rows.get(position)[columnIndex];
+	}
+
+	public int getCount() {
+		return rows.size();
+	}
+
+	public int getPosition() {
+		return position;
+	}
+
+	public boolean move(int offset) {
+		return moveToPosition(position + offset);
+	}
+
+	public boolean moveToPosition(int newPosition) {
+		int count = rows.size();
+		if (newPosition >= count) {
+			position = count;
+			return false;
+		}
+		if (newPosition < 0) {
+			position = -1;
+			return false;
+		}
+		position = newPosition;
+		return true;
+	}
+
+	public boolean moveToFirst() {
+		return moveToPosition(0);
+	}
+
+	public boolean moveToLast() {
+		return moveToPosition(rows.size() - 1);
+	}
+
+	public boolean moveToNext() {
+		return moveToPosition(position + 1);
+	}
+
+	public boolean moveToPrevious() {
+		return moveToPosition(position - 1);
+	}
+
+	public boolean isFirst() {
+		return position == 0 && rows.size() != 0;
+	}
+
+	public boolean isLast() {
+		int count = rows.size();
+		return position == count - 1 && count != 0;
+	}
+
+	public boolean isBeforeFirst() {
+		return rows.size() == 0 || position == -1;
+	}
+
+	public boolean isAfterLast() {
+		return rows.size() == 0 || position == rows.size();
+	}
+
+	public int getColumnIndex(String columnName) {
+		int dot = columnName.lastIndexOf('.');
+		if (dot != -1) {
+			columnName = columnName.substring(dot + 1);
+		}
+		for (int i = 0; i < columnNames.length; i++) {
+			if (columnNames[i].equalsIgnoreCase(columnName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public int getColumnIndexOrThrow(String columnName)
+			throws IllegalArgumentException {
+		int index = getColumnIndex(columnName);
+		if (index < 0) {
+			throw new IllegalArgumentException("column '" + columnName
+					+ "' does not exist");
+		}
+		return index;
+	}
+
+	public String getColumnName(int columnIndex) {
+		return columnNames[columnIndex];
+	}
+
+	public String[] getColumnNames() {
+		return columnNames;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public byte[] getBlob(int columnIndex) {
+		Object value = get(columnIndex);
+		if (value == null || value instanceof byte[]) {
+			return (byte[]) value;
+		}
+		if (value instanceof String) {
+			try {
+				return ((String) value).getBytes("UTF-8");
+			} catch (UnsupportedEncodingException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		throw new SQLiteException("unable to convert number to blob");
+	}
+
+	public String getString(int columnIndex) {
+		Object value = get(columnIndex);
+		if (value instanceof byte[]) {
+			throw new SQLiteException("unable to convert BLOB to string");
+		}
+		return value != null ? value.toString() : null;
+	}
+
+	public void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer) {
+		String value = getString(columnIndex);
+		if (value == null) {
+			buffer.sizeCopied = 0;
+			return;
+		}
+		if (buffer.data == null || buffer.data.length < value.length()) {
+			buffer.data = value.toCharArray();
+		} else {
+			value.getChars(0, value.length(), buffer.data, 0);
+		}
+		buffer.sizeCopied = value.length();
+	}
+
+	public short getShort(int columnIndex) {
+		return (short) getLong(columnIndex);
+	}
+
+	public int getInt(int columnIndex) {
+		return (int) getLong(columnIndex);
+	}
+
+	/**
+	 * Strings are converted like strtoll: the leading integer, 0 if there is
+	 * none
+	 */
+	public long getLong(int columnIndex) {
+		Object value = get(columnIndex);
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof Long) {
+			return (Long) value;
+		}
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		if (value instanceof String) {
+			String s = ((String) value).trim();
+			int end = 0;
+			if (end < s.length()
+					&& (s.charAt(end) == '-' || s.charAt(end) == '+')) {
+				end++;
+			}
+			while (end < s.length() && Character.isDigit(s.charAt(end))) {
+				end++;
+			}
+			try {
+				return Long.parseLong(s.substring(
+						s.startsWith("+") ? 1 : 0, end));
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+		throw new SQLiteException("unable to convert BLOB to long");
+	}
+
+	public float getFloat(int columnIndex) {
+		return (float) getDouble(columnIndex);
+	}
+
+	/**
+	 * Strings are converted like strtod: the leading number, 0 if there is
+	 * none
+	 */
+	public double getDouble(int columnIndex) {
+		Object value = get(columnIndex);
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		if (value instanceof String) {
+			String s = ((String) value).trim();
+			for (int end = s.length(); end > 0; end--) {
+				try {
+					return Double.parseDouble(s.substring(0, end));
+				} catch (NumberFormatException e) {
+					// try a shorter prefix
+				}
+			}
+			return 0;
+		}
+		throw new SQLiteException("unable to convert BLOB to double");
+	}
+
+	public int getType(int columnIndex) {
+		Object value = get(columnIndex);
+		if (value == null) {
+			return FIELD_TYPE_NULL;
+		}
+		if (value instanceof Long) {
+			return FIELD_TYPE_INTEGER;
+		}
+		if (value instanceof Number) {
+			return FIELD_TYPE_FLOAT;
+		}
+		if (value instanceof byte[]) {
+			return FIELD_TYPE_BLOB;
+		}
+		return FIELD_TYPE_STRING;
+	}
+
+	public boolean isNull(int columnIndex) {
+		return get(columnIndex) == null;
+	}
+
+	@Deprecated
+	public void deactivate() {
+		notifyDataSetInvalidated();
+	}
+
+	/**
+	 * Executes the query again and moves before the first row
+	 */
+	@Deprecated
+	public boolean requery() {
+		if (closed) {
+			return false;
+		}
+		database.acquire();
+		try {
+			PreparedStatement statement = database.getConnection()
+					.prepareStatement(sql);
+			try {
+				if (selectionArgs != null) {
+					for (int i = 0; i < selectionArgs.length; i++) {
+						statement.setString(i + 1, selectionArgs[i]);
+					}
+				}
+				ResultSet result = statement.executeQuery();
+				try {
+					fill(result);
+				} finally {
+					result.close();
+				}
+			} finally {
+				statement.close();
+			}
+		} catch (SQLException e) {
+			return false;
+		} finally {
+			database.release();
+		}
+		position = -1;
+		synchronized (dataSetObservers) {
+			for (DataSetObserver observer : dataSetObservers) {
+				observer.onChanged();
+			}
+		}
+		return true;
+	}
+
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (notifyResolver != null) {
+			notifyResolver.unregisterContentObserver(selfObserver);
+		}
+		notifyDataSetInvalidated();
+	}
+
+	private void notifyDataSetInvalidated() {
+		synchronized (dataSetObservers) {
+			for (DataSetObserver observer : dataSetObservers) {
+				observer.onInvalidated();
+			}
+		}
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public void registerContentObserver(ContentObserver observer) {
+		synchronized (contentObservers) {
+			if (contentObservers.contains(observer)) {
+				throw new IllegalStateException("Observer " + observer
+						+ " is already registered.");
+			}
+			contentObservers.add(observer);
+		}
+	}
+
+	public void unregisterContentObserver(ContentObserver observer) {
+		synchronized (contentObservers) {
+			contentObservers.remove(observer);
+		}
+	}
+
+	public void registerDataSetObserver(DataSetObserver observer) {
+		synchronized (dataSetObservers) {
+			if (dataSetObservers.contains(observer)) {
+				throw new IllegalStateException("Observer " + observer
+						+ " is already registered.");
+			}
+			dataSetObservers.add(observer);
+		}
+	}
+
+	public void unregisterDataSetObserver(DataSetObserver observer) {
+		synchronized (dataSetObservers) {
+			dataSetObservers.remove(observer);
+		}
+	}
+
+	/**
+	 * Forwards changes of uri to the registered content observers
+	 */
+	public void setNotificationUri(ContentResolver cr, Uri uri) {
+		if (notifyResolver != null) {
+			notifyResolver.unregisterContentObserver(selfObserver);
+		}
+		if (selfObserver == null) {
+			selfObserver = new ContentObserver(null) {
+				@Override
+				public boolean deliverSelfNotifications() {
+					return false;
+				}
+
+				@Override
+				public void onChange(boolean selfChange) {
+					ArrayList<ContentObserver> observers;
+					synchronized (contentObservers) {
+						observers = new ArrayList<ContentObserver>(
+								contentObservers);
+					}
+					for (ContentObserver observer : observers) {
+						observer.dispatchChange(false);
+					}
+				}
+			};
+		}
+		notifyResolver = cr;
+		cr.registerContentObserver(uri, true, selfObserver);
+	}
+
+	public boolean getWantsAllOnMoveCalls() {
+		return false;
+	}
+
+	public Bundle getExtras() {
+		return Bundle.EMPTY;
+	}
+
+	public Bundle respond(Bundle extras) {
+		return Bundle.EMPTY;
+	}
+}
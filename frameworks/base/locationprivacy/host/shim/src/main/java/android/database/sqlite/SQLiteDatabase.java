@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database.sqlite;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.sqlite.SQLiteConfig;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.util.Log;
+
+/**
+ * Host implementation of android.database.sqlite.SQLiteDatabase on one
+ * sqlite-jdbc connection. The connection uses the defaults of API 17:
+ * exclusive transactions, PERSIST journal and FULL synchronous mode. The
+ * system property "locationprivacy.sqlite.sync" selects another synchronous
+ * mode (OFF, NORMAL), for simulations that need no durable writes.
+ * Operations of other threads wait while a thread holds a transaction.
+ * Nested transactions are committed by the outermost endTransaction and
+ * rolled back if any level was not marked successful.
+ */
+public final class SQLiteDatabase {
+
+	private static final String TAG = "SQLiteDatabase";
+
+	public static final int CONFLICT_NONE = 0;
+	public static final int OPEN_READWRITE = 0x00000000;
+	public static final int CREATE_IF_NECESSARY = 0x10000000;
+
+	public interface CursorFactory {
+		public Cursor newCursor(SQLiteDatabase db, Object masterQuery,
+				String editTable, Object query);
+	}
+
+	private final String path;
+	private final Connection connection;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Depth of the transaction held by the thread owning lock */
+	private int transactionDepth;
+	/** true if the current level was marked successful */
+	private boolean markedSuccessful;
+	/** true if a nested level ended without being marked successful */
+	private boolean childFailed;
+
+	private SQLiteDatabase(String path, Connection connection) {
+		this.path = path;
+		this.connection = connection;
+	}
+
+	public static SQLiteDatabase openOrCreateDatabase(String path,
+			CursorFactory factory) {
+		return openDatabase(path, factory, CREATE_IF_NECESSARY);
+	}
+
+	public static SQLiteDatabase openDatabase(String path,
+			CursorFactory factory, int flags) {
+		if ((flags & CREATE_IF_NECESSARY) == 0 && !new File(path).exists()) {
+			throw new SQLiteException("unable to open database file: " + path);
+		}
+		SQLiteConfig config = new SQLiteConfig();
+		config.setTransactionMode(SQLiteConfig.TransactionMode.EXCLUSIVE);
+		config.setJournalMode(SQLiteConfig.JournalMode.PERSIST);
+		config.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(System
+				.getProperty("locationprivacy.sqlite.sync", "FULL")
+				.toUpperCase(Locale.US)));
+		try {
+			return new SQLiteDatabase(path, config.createConnection("jdbc:sqlite:"
+					+ path));
+		} catch (SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	static SQLiteException wrap(SQLException e) {
+		return new SQLiteException(e.getMessage(), e);
+	}
+
+	void acquire() {
+		lock.lock();
+		if (!isOpen()) {
+			lock.unlock();
+			throw new IllegalStateException("database " + path
+					+ " already closed");
+		}
+	}
+
+	void release() {
+		lock.unlock();
+	}
+
+	Connection getConnection() {
+		return connection;
+	}
+
+	public long insert(String table, String nullColumnHack,
+			ContentValues values) {
+		try {
+			return insertOrThrow(table, nullColumnHack, values);
+		} catch (SQLiteException e) {
+			Log.e(TAG, "Error inserting " + values, e);
+			return -1;
+		}
+	}
+
+	public long insertOrThrow(String table, String nullColumnHack,
+			ContentValues values) {
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+				.append('(');
+		Object[] args;
+		if (values == null || values.size() == 0) {
+			sql.append(nullColumnHack).append(") VALUES (NULL)");
+			args = new Object[0];
+		} else {
+			args = new Object[values.size()];
+			int i = 0;
+			for (Map.Entry<String, Object> entry : values.valueSet()) {
+				sql.append(i > 0 ? "," : "").append(entry.getKey());
+				args[i++] = entry.getValue();
+			}
+			sql.append(") VALUES (");
+			for (i = 0; i < args.length; i++) {
+				sql.append(i > 0 ? ",?" : "?");
+			}
+			sql.append(')');
+		}
+		SQLiteStatement statement = new SQLiteStatement(this, sql.toString());
+		try {
+			statement.bindAllArgs(args);
+			return statement.executeInsert();
+		} finally {
+			statement.close();
+		}
+	}
+
+	public int update(String table, ContentValues values, String whereClause,
+			String[] whereArgs) {
+		if (values == null || values.size() == 0) {
+			throw new IllegalArgumentException("Empty values");
+		}
+		StringBuilder sql = new StringBuilder("UPDATE ").append(table)
+				.append(" SET ");
+		int argCount = whereArgs != null ? whereArgs.length : 0;
+		Object[] args = new Object[values.size() + argCount];
+		int i = 0;
+		for (Map.Entry<String, Object> entry : values.valueSet()) {
+			sql.append(i > 0 ? "," : "").append(entry.getKey()).append("=?");
+			args[i++] = entry.getValue();
+		}
+		for (int j = 0; j < argCount; j++) {
+			args[i++] = whereArgs[j];
+		}
+		if (whereClause != null && whereClause.length() > 0) {
+			sql.append(" WHERE ").append(whereClause);
+		}
+		SQLiteStatement statement = new SQLiteStatement(this, sql.toString());
+		try {
+			statement.bindAllArgs(args);
+			return statement.executeUpdateDelete();
+		} finally {
+			statement.close();
+		}
+	}
+
+	public int delete(String table, String whereClause, String[] whereArgs) {
+		String sql = "DELETE FROM "
+				+ table
+				+ (whereClause != null && whereClause.length() > 0 ? " WHERE "
+						+ whereClause : "");
+		SQLiteStatement statement = new SQLiteStatement(this, sql);
+		try {
+			statement.bindAllArgs(whereArgs);
+			return statement.executeUpdateDelete();
+		} finally {
+			statement.close();
+		}
+	}
+
+	public Cursor query(String table, String[] columns, String selection,
+			String[] selectionArgs, String groupBy, String having,
+			String orderBy) {
+		return query(false, table, columns, selection, selectionArgs,
+				groupBy, having, orderBy, null);
+	}
+
+	public Cursor query(String table, String[] columns, String selection,
+			String[] selectionArgs, String groupBy, String having,
+			String orderBy, String limit) {
+		return query(false, table, columns, selection, selectionArgs,
+				groupBy, having, orderBy, limit);
+	}
+
+	public Cursor query(boolean distinct, String table, String[] columns,
+			String selection, String[] selectionArgs, String groupBy,
+			String having, String orderBy, String limit) {
+		StringBuilder sql = new StringBuilder("SELECT ");
+		if (distinct) {
+			sql.append("DISTINCT ");
+		}
+		if (columns == null || columns.length == 0) {
+			sql.append('*');
+		} else {
+			for (int i = 0; i < columns.length; i++) {
+				sql.append(i > 0 ? ", " : "").append(columns[i]);
+			}
+		}
+		sql.append(" FROM ").append(table);
+		appendClause(sql, " WHERE ", selection);
+		appendClause(sql, " GROUP BY ", groupBy);
+		appendClause(sql, " HAVING ", having);
+		appendClause(sql, " ORDER BY ", orderBy);
+		appendClause(sql, " LIMIT ", limit);
+		return rawQuery(sql.toString(), selectionArgs);
+	}
+
+	private static void appendClause(StringBuilder sql, String name,
+			String clause) {
+		if (clause != null && clause.length() > 0) {
+			sql.append(name).append(clause);
+		}
+	}
+
+	public Cursor rawQuery(String sql, String[] selectionArgs) {
+		acquire();
+		try {
+			PreparedStatement statement = connection.prepareStatement(sql);
+			try {
+				if (selectionArgs != null) {
+					for (int i = 0; i < selectionArgs.length; i++) {
+						statement.setString(i + 1, selectionArgs[i]);
+					}
+				}
+				ResultSet result = statement.executeQuery();
+				try {
+					return new SQLiteCursor(this, sql, selectionArgs, result);
+				} finally {
+					result.close();
+				}
+			} finally {
+				statement.close();
+			}
+		} catch (SQLException e) {
+			throw wrap(e);
+		} finally {
+			release();
+		}
+	}
+
+	public void execSQL(String sql) {
+		execSQL(sql, new Object[0]);
+	}
+
+	public void execSQL(String sql, Object[] bindArgs) {
+		SQLiteStatement statement = new SQLiteStatement(this, sql);
+		try {
+			statement.bindAllArgs(bindArgs);
+			statement.execute();
+		} finally {
+			statement.close();
+		}
+	}
+
+	public SQLiteStatement compileStatement(String sql) {
+		return new SQLiteStatement(this, sql);
+	}
+
+	public void beginTransaction() {
+		acquire();
+		if (transactionDepth == 0) {
+			try {
+				connection.setAutoCommit(false);
+			} catch (SQLException e) {
+				release();
+				throw wrap(e);
+			}
+			childFailed = false;
+		}
+		transactionDepth++;
+		markedSuccessful = false;
+	}
+
+	public void setTransactionSuccessful() {
+		if (!lock.isHeldByCurrentThread() || transactionDepth == 0) {
+			throw new IllegalStateException(
+					"Cannot perform this operation because there is no current transaction.");
+		}
+		if (markedSuccessful) {
+			throw new IllegalStateException(
+					"Cannot perform this operation because the transaction has already been marked successful.");
+		}
+		markedSuccessful = true;
+	}
+
+	public void endTransaction() {
+		if (!lock.isHeldByCurrentThread() || transactionDepth == 0) {
+			throw new IllegalStateException(
+					"Cannot perform this operation because there is no current transaction.");
+		}
+		if (!markedSuccessful) {
+			childFailed = true;
+		}
+		markedSuccessful = false;
+		transactionDepth--;
+		try {
+			if (transactionDepth == 0) {
+				try {
+					if (childFailed) {
+						connection.rollback();
+					} else {
+						connection.commit();
+					}
+				} finally {
+					connection.setAutoCommit(true);
+				}
+			}
+		} catch (SQLException e) {
+			throw wrap(e);
+		} finally {
+			release();
+		}
+	}
+
+	public boolean inTransaction() {
+		return lock.isHeldByCurrentThread() && transactionDepth > 0;
+	}
+
+	public int getVersion() {
+		acquire();
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				ResultSet result = statement
+						.executeQuery("PRAGMA user_version");
+				try {
+					return result.next() ? result.getInt(1) : 0;
+				} finally {
+					result.close();
+				}
+			} finally {
+				statement.close();
+			}
+		} catch (SQLException e) {
+			throw wrap(e);
+		} finally {
+			release();
+		}
+	}
+
+	public void setVersion(int version) {
+		execSQL("PRAGMA user_version = " + version);
+	}
+
+	public boolean isOpen() {
+		try {
+			return !connection.isClosed();
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void close() {
+		lock.lock();
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			throw wrap(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
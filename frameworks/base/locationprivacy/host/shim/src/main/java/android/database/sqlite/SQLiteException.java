@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database.sqlite;
+
+import android.database.SQLException;
+
+/**
+ * Host implementation of android.database.sqlite.SQLiteException
+ */
+public class SQLiteException extends SQLException {
+	private static final long serialVersionUID = 1L;
+
+	public SQLiteException() {
+	}
+
+	public SQLiteException(String error) {
+		super(error);
+	}
+
+	public SQLiteException(String error, Throwable cause) {
+		super(error, cause);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database.sqlite;
+
+import android.content.Context;
+
+/**
+ * Host implementation of android.database.sqlite.SQLiteOpenHelper. Creates
+ * or upgrades the database on first access like the platform.
+ */
+public abstract class SQLiteOpenHelper {
+
+	private final Context context;
+	private final String name;
+	private final SQLiteDatabase.CursorFactory factory;
+	private final int newVersion;
+
+	private SQLiteDatabase database;
+
+	public SQLiteOpenHelper(Context context, String name,
+			SQLiteDatabase.CursorFactory factory, int version) {
+		if (version < 1) {
+			throw new IllegalArgumentException("Version must be >= 1, was "
+					+ version);
+		}
+		this.context = context;
+		this.name = name;
+		this.factory = factory;
+		this.newVersion = version;
+	}
+
+	public String getDatabaseName() {
+		return name;
+	}
+
+	public synchronized SQLiteDatabase getWritableDatabase() {
+		if (database != null && database.isOpen()) {
+			return database;
+		}
+		SQLiteDatabase db = context.openOrCreateDatabase(name, 0, factory);
+		onConfigure(db);
+		int version = db.getVersion();
+		if (version != newVersion) {
+			db.beginTransaction();
+			try {
+				if (version == 0) {
+					onCreate(db);
+				} else if (version > newVersion) {
+					onDowngrade(db, version, newVersion);
+				} else {
+					onUpgrade(db, version, newVersion);
+				}
+				db.setVersion(newVersion);
+				db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
+			}
+		}
+		onOpen(db);
+		database = db;
+		return db;
+	}
+
+	public synchronized SQLiteDatabase getReadableDatabase() {
+		return getWritableDatabase();
+	}
+
+	public synchronized void close() {
+		if (database != null && database.isOpen()) {
+			database.close();
+		}
+		database = null;
+	}
+
+	public void onConfigure(SQLiteDatabase db) {
+	}
+
+	public abstract void onCreate(SQLiteDatabase db);
+
+	public abstract void onUpgrade(SQLiteDatabase db, int oldVersion,
+			int newVersion);
+
+	public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+		throw new SQLiteException("Can't downgrade database from version "
+				+ oldVersion + " to " + newVersion);
+	}
+
+	public void onOpen(SQLiteDatabase db) {
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.database.sqlite;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Host implementation of android.database.sqlite.SQLiteStatement on a
+ * prepared statement of the database connection
+ */
+public final class SQLiteStatement {
+
+	private final SQLiteDatabase database;
+	private final String sql;
+	private final Object[] bindArgs;
+	private PreparedStatement statement;
+
+	SQLiteStatement(SQLiteDatabase database, String sql) {
+		this.database = database;
+		this.sql = sql;
+		database.acquire();
+		try {
+			statement = database.getConnection().prepareStatement(sql);
+			bindArgs = new Object[statement.getParameterMetaData()
+					.getParameterCount()];
+		} catch (SQLException e) {
+			throw SQLiteDatabase.wrap(e);
+		} finally {
+			database.release();
+		}
+	}
+
+	private void bind(int index, Object value) {
+		if (index < 1 || index > bindArgs.length) {
+			throw new IllegalArgumentException("Cannot bind argument at index "
+					+ index + " because the index is out of range.  "
+					+ "The statement has " + bindArgs.length + " parameters.");
+		}
+		bindArgs[index - 1] = value;
+	}
+
+	public void bindNull(int index) {
+		bind(index, null);
+	}
+
+	public void bindLong(int index, long value) {
+		bind(index, value);
+	}
+
+	public void bindDouble(int index, double value) {
+		bind(index, value);
+	}
+
+	public void bindString(int index, String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("the bind value at index "
+					+ index + " is null");
+		}
+		bind(index, value);
+	}
+
+	public void bindBlob(int index, byte[] value) {
+		if (value == null) {
+			throw new IllegalArgumentException("the bind value at index "
+					+ index + " is null");
+		}
+		bind(index, value);
+	}
+
+	/**
+	 * Binds values the way SQLiteDatabase binds ContentValues
+	 */
+	void bindAllArgs(Object[] args) {
+		if (args == null) {
+			return;
+		}
+		for (int i = 0; i < args.length; i++) {
+			Object arg = args[i];
+			if (arg instanceof Boolean) {
+				arg = ((Boolean) arg).booleanValue() ? 1L : 0L;
+			} else if (arg instanceof Byte || arg instanceof Short
+					|| arg instanceof Integer) {
+				arg = ((Number) arg).longValue();
+			} else if (arg instanceof Float) {
+				arg = ((Float) arg).doubleValue();
+			} else if (arg != null && !(arg instanceof Long)
+					&& !(arg instanceof Double) && !(arg instanceof byte[])) {
+				arg = arg.toString();
+			}
+			bind(i + 1, arg);
+		}
+	}
+
+	public void clearBindings() {
+		for (int i = 0; i < bindArgs.length; i++) {
+			bindArgs[i] = null;
+		}
+	}
+
+	private void applyBindings() throws SQLException {
+		if (statement == null) {
+			throw new IllegalStateException("statement " + sql
+					+ " already closed");
+		}
+		for (int i = 0; i < bindArgs.length; i++) {
+			statement.setObject(i + 1, bindArgs[i]);
+		}
+	}
+
+	public void execute() {
+		database.acquire();
+		try {
+			applyBindings();
+			statement.execute();
+		} catch (SQLException e) {
+			throw SQLiteDatabase.wrap(e);
+		} finally {
+			database.release();
+		}
+	}
+
+	public int executeUpdateDelete() {
+		database.acquire();
+		try {
+			applyBindings();
+			return statement.executeUpdate();
+		} catch (SQLException e) {
+			throw SQLiteDatabase.wrap(e);
+		} finally {
+			database.release();
+		}
+	}
+
+	/**
+	 * Returns the row ID of the inserted row, -1 if no row was inserted
+	 */
+	public long executeInsert() {
+		database.acquire();
+		try {
+			applyBindings();
+			if (statement.executeUpdate() <= 0) {
+				return -1;
+			}
+			Statement rowId = database.getConnection().createStatement();
+			try {
+				ResultSet result = rowId
+						.executeQuery("SELECT last_insert_rowid()");
+				try {
+					return result.next() ? result.getLong(1) : -1;
+				} finally {
+					result.close();
+				}
+			} finally {
+				rowId.close();
+			}
+		} catch (SQLException e) {
+			throw SQLiteDatabase.wrap(e);
+		} finally {
+			database.release();
+		}
+	}
+
+	public long simpleQueryForLong() {
+		String value = simpleQueryForString();
+		return value != null ? Long.parseLong(value) : 0;
+	}
+
+	public String simpleQueryForString() {
+		database.acquire();
+		try {
+			applyBindings();
+			ResultSet result = statement.executeQuery();
+			try {
+				if (!result.next()) {
+					throw new SQLiteException("query returned no rows: " + sql);
+				}
+				return result.getString(1);
+			} finally {
+				result.close();
+			}
+		} catch (SQLException e) {
+			throw SQLiteDatabase.wrap(e);
+		} finally {
+			database.release();
+		}
+	}
+
+	public void close() {
+		if (statement == null) {
+			return;
+		}
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			throw SQLiteDatabase.wrap(e);
+		} finally {
+			statement = null;
+		}
+	}
+}
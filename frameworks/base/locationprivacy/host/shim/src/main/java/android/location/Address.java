@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.location;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Host implementation of android.location.Address
+ */
+public class Address implements Parcelable {
+
+	public static final Parcelable.Creator<Address> CREATOR = new Parcelable.Creator<Address>() {
+		public Address createFromParcel(Parcel in) {
+			String language = in.readString();
+			String country = in.readString();
+			Locale locale = country.length() > 0 ? new Locale(language,
+					country) : new Locale(language);
+			Address a = new Address(locale);
+
+			int n = in.readInt();
+			if (n > 0) {
+				a.addressLines = new HashMap<Integer, String>(n);
+				for (int i = 0; i < n; i++) {
+					int index = in.readInt();
+					String line = in.readString();
+					a.addressLines.put(index, line);
+					a.maxAddressLineIndex = Math.max(a.maxAddressLineIndex,
+							index);
+				}
+			} else {
+				a.addressLines = null;
+				a.maxAddressLineIndex = -1;
+			}
+			a.featureName = in.readString();
+			a.adminArea = in.readString();
+			a.subAdminArea = in.readString();
+			a.locality = in.readString();
+			a.subLocality = in.readString();
+			a.thoroughfare = in.readString();
+			a.subThoroughfare = in.readString();
+			a.premises = in.readString();
+			a.postalCode = in.readString();
+			a.countryCode = in.readString();
+			a.countryName = in.readString();
+			a.hasLatitude = in.readInt() != 0;
+			if (a.hasLatitude) {
+				a.latitude = in.readDouble();
+			}
+			a.hasLongitude = in.readInt() != 0;
+			if (a.hasLongitude) {
+				a.longitude = in.readDouble();
+			}
+			a.phone = in.readString();
+			a.url = in.readString();
+			a.extras = in.readBundle();
+			return a;
+		}
+
+		public Address[] newArray(int size) {
+			return new Address[size];
+		}
+	};
+
+	private Locale locale;
+
+	private String featureName;
+	private HashMap<Integer, String> addressLines;
+	private int maxAddressLineIndex = -1;
+	private String adminArea;
+	private String subAdminArea;
+	private String locality;
+	private String subLocality;
+	private String thoroughfare;
+	private String subThoroughfare;
+	private String premises;
+	private String postalCode;
+	private String countryCode;
+	private String countryName;
+	private double latitude;
+	private double longitude;
+	private boolean hasLatitude = false;
+	private boolean hasLongitude = false;
+	private String phone;
+	private String url;
+	private Bundle extras = null;
+
+	public Address(Locale locale) {
+		this.locale = locale;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	public int getMaxAddressLineIndex() {
+		return maxAddressLineIndex;
+	}
+
+	public String getAddressLine(int index) {
+		if (index < 0) {
+			throw new IllegalArgumentException("index = " + index + " < 0");
+		}
+		return addressLines == null ? null : addressLines.get(index);
+	}
+
+	public void setAddressLine(int index, String line) {
+		if (index < 0) {
+			throw new IllegalArgumentException("index = " + index + " < 0");
+		}
+		if (addressLines == null) {
+			addressLines = new HashMap<Integer, String>();
+		}
+		addressLines.put(index, line);
+
+		if (line == null) {
+			// We've eliminated a line, recompute the max index
+			maxAddressLineIndex = -1;
+			for (Integer i : addressLines.keySet()) {
+				maxAddressLineIndex = Math.max(maxAddressLineIndex, i);
+			}
+		} else {
+			maxAddressLineIndex = Math.max(maxAddressLineIndex, index);
+		}
+	}
+
+	public String getFeatureName() {
+		return featureName;
+	}
+
+	public void setFeatureName(String featureName) {
+		this.featureName = featureName;
+	}
+
+	public String getAdminArea() {
+		return adminArea;
+	}
+
+	public void setAdminArea(String adminArea) {
+		this.adminArea = adminArea;
+	}
+
+	public String getSubAdminArea() {
+		return subAdminArea;
+	}
+
+	public void setSubAdminArea(String subAdminArea) {
+		this.subAdminArea = subAdminArea;
+	}
+
+	public String getLocality() {
+		return locality;
+	}
+
+	public void setLocality(String locality) {
+		this.locality = locality;
+	}
+
+	public String getSubLocality() {
+		return subLocality;
+	}
+
+	public void setSubLocality(String sublocality) {
+		this.subLocality = sublocality;
+	}
+
+	public String getThoroughfare() {
+		return thoroughfare;
+	}
+
+	public void setThoroughfare(String thoroughfare) {
+		this.thoroughfare = thoroughfare;
+	}
+
+	public String getSubThoroughfare() {
+		return subThoroughfare;
+	}
+
+	public void setSubThoroughfare(String subthoroughfare) {
+		this.subThoroughfare = subthoroughfare;
+	}
+
+	public String getPremises() {
+		return premises;
+	}
+
+	public void setPremises(String premises) {
+		this.premises = premises;
+	}
+
+	public String getPostalCode() {
+		return postalCode;
+	}
+
+	public void setPostalCode(String postalCode) {
+		this.postalCode = postalCode;
+	}
+
+	public String getCountryCode() {
+		return countryCode;
+	}
+
+	public void setCountryCode(String countryCode) {
+		this.countryCode = countryCode;
+	}
+
+	public String getCountryName() {
+		return countryName;
+	}
+
+	public void setCountryName(String countryName) {
+		this.countryName = countryName;
+	}
+
+	public boolean hasLatitude() {
+		return hasLatitude;
+	}
+
+	public double getLatitude() {
+		if (hasLatitude) {
+			return latitude;
+		}
+		throw new IllegalStateException();
+	}
+
+	public void setLatitude(double latitude) {
+		this.latitude = latitude;
+		hasLatitude = true;
+	}
+
+	public void clearLatitude() {
+		hasLatitude = false;
+	}
+
+	public boolean hasLongitude() {
+		return hasLongitude;
+	}
+
+	public double getLongitude() {
+		if (hasLongitude) {
+			return longitude;
+		}
+		throw new IllegalStateException();
+	}
+
+	public void setLongitude(double longitude) {
+		this.longitude = longitude;
+		hasLongitude = true;
+	}
+
+	public void clearLongitude() {
+		hasLongitude = false;
+	}
+
+	public String getPhone() {
+		return phone;
+	}
+
+	public void setPhone(String phone) {
+		this.phone = phone;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public Bundle getExtras() {
+		return extras;
+	}
+
+	public void setExtras(Bundle extras) {
+		this.extras = (extras == null) ? null : new Bundle(extras);
+	}
+
+	@Override
+	public String toString() {
+		return "Address[locale=" + locale + ",feature=" + featureName
+				+ ",thoroughfare=" + thoroughfare + ",postalCode="
+				+ postalCode + ",locality=" + locality + ",subLocality="
+				+ subLocality + ",countryName=" + countryName
+				+ (hasLatitude ? ",latitude=" + latitude : "")
+				+ (hasLongitude ? ",longitude=" + longitude : "") + "]";
+	}
+
+	public int describeContents() {
+		return (extras != null) ? extras.describeContents() : 0;
+	}
+
+	public void writeToParcel(Parcel parcel, int flags) {
+		parcel.writeString(locale.getLanguage());
+		parcel.writeString(locale.getCountry());
+		if (addressLines == null) {
+			parcel.writeInt(0);
+		} else {
+			parcel.writeInt(addressLines.size());
+			for (java.util.Map.Entry<Integer, String> e : addressLines
+					.entrySet()) {
+				parcel.writeInt(e.getKey());
+				parcel.writeString(e.getValue());
+			}
+		}
+		parcel.writeString(featureName);
+		parcel.writeString(adminArea);
+		parcel.writeString(subAdminArea);
+		parcel.writeString(locality);
+		parcel.writeString(subLocality);
+		parcel.writeString(thoroughfare);
+		parcel.writeString(subThoroughfare);
+		parcel.writeString(premises);
+		parcel.writeString(postalCode);
+		parcel.writeString(countryCode);
+		parcel.writeString(countryName);
+		parcel.writeInt(hasLatitude ? 1 : 0);
+		if (hasLatitude) {
+			parcel.writeDouble(latitude);
+		}
+		parcel.writeInt(hasLongitude ? 1 : 0);
+		if (hasLongitude) {
+			parcel.writeDouble(longitude);
+		}
+		parcel.writeString(phone);
+		parcel.writeString(url);
+		parcel.writeBundle(extras);
+	}
+}
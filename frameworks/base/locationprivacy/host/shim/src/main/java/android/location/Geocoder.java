@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.location;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import android.content.Context;
+import android.locationprivacy.host.GeocoderBackend;
+import android.locationprivacy.host.HostContext;
+
+/**
+ * Host implementation of android.location.Geocoder. Requests go to the
+ * GeocoderBackend of the HostContext; without a backend the geocoder is not
+ * present and requests fail like on a device without geocoder provider.
+ */
+public final class Geocoder {
+
+	private final GeocoderBackend backend;
+	private final Locale locale;
+
+	public Geocoder(Context context) {
+		this(context, Locale.getDefault());
+	}
+
+	public Geocoder(Context context, Locale locale) {
+		if (locale == null) {
+			throw new NullPointerException("locale == null");
+		}
+		this.locale = locale;
+		backend = context instanceof HostContext ? ((HostContext) context)
+				.getGeocoderBackend() : null;
+	}
+
+	public static boolean isPresent() {
+		return HostContext.hasGeocoderBackend();
+	}
+
+	public List<Address> getFromLocation(double latitude, double longitude,
+			int maxResults) throws IOException {
+		if (latitude < -90.0 || latitude > 90.0) {
+			throw new IllegalArgumentException("latitude == " + latitude);
+		}
+		if (longitude < -180.0 || longitude > 180.0) {
+			throw new IllegalArgumentException("longitude == " + longitude);
+		}
+		if (backend == null) {
+			throw new IOException("Service not Available");
+		}
+		return backend.getFromLocation(latitude, longitude, maxResults,
+				locale);
+	}
+
+	public List<Address> getFromLocationName(String locationName,
+			int maxResults) throws IOException {
+		if (locationName == null) {
+			throw new IllegalArgumentException("locationName == null");
+		}
+		if (backend == null) {
+			throw new IOException("Service not Available");
+		}
+		return backend.getFromLocationName(locationName, maxResults, locale);
+	}
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.location;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Host implementation of android.location.Location of API level 17,
+ * including the hidden extra location accessors and the WGS84 distance
+ * computation of the platform.
+ */
+public class Location implements Parcelable {
+
+	public static final String EXTRA_COARSE_LOCATION = "coarseLocation";
+	public static final String EXTRA_NO_GPS_LOCATION = "noGPSLocation";
+
+	public static final Parcelable.Creator<Location> CREATOR = new Parcelable.Creator<Location>() {
+		@Override
+		public Location createFromParcel(Parcel in) {
+			String provider = in.readString();
+			Location l = new Location(provider);
+			l.time = in.readLong();
+			l.elapsedRealtimeNanos = in.readLong();
+			l.latitude = in.readDouble();
+			l.longitude = in.readDouble();
+			l.hasAltitude = in.readInt() != 0;
+			l.altitude = in.readDouble();
+			l.hasSpeed = in.readInt() != 0;
+			l.speed = in.readFloat();
+			l.hasBearing = in.readInt() != 0;
+			l.bearing = in.readFloat();
+			l.hasAccuracy = in.readInt() != 0;
+			l.accuracy = in.readFloat();
+			l.extras = in.readBundle();
+			return l;
+		}
+
+		@Override
+		public Location[] newArray(int size) {
+			return new Location[size];
+		}
+	};
+
+	private String provider;
+	private long time = 0;
+	private long elapsedRealtimeNanos = 0;
+	private double latitude = 0.0;
+	private double longitude = 0.0;
+	private boolean hasAltitude = false;
+	private double altitude = 0.0f;
+	private boolean hasSpeed = false;
+	private float speed = 0.0f;
+	private boolean hasBearing = false;
+	private float bearing = 0.0f;
+	private boolean hasAccuracy = false;
+	private float accuracy = 0.0f;
+	private Bundle extras = null;
+
+	// Cache the inputs and outputs of computeDistanceAndBearing
+	// so calls to distanceTo() and bearingTo() can share work
+	private double lat1 = 0.0;
+	private double lon1 = 0.0;
+	private double lat2 = 0.0;
+	private double lon2 = 0.0;
+	private float distance = 0.0f;
+	private float initialBearing = 0.0f;
+	// Scratchpad
+	private final float[] results = new float[2];
+
+	public Location(String provider) {
+		this.provider = provider;
+	}
+
+	public Location(Location l) {
+		set(l);
+	}
+
+	public void set(Location l) {
+		provider = l.provider;
+		time = l.time;
+		elapsedRealtimeNanos = l.elapsedRealtimeNanos;
+		latitude = l.latitude;
+		longitude = l.longitude;
+		hasAltitude = l.hasAltitude;
+		altitude = l.altitude;
+		hasSpeed = l.hasSpeed;
+		speed = l.speed;
+		hasBearing = l.hasBearing;
+		bearing = l.bearing;
+		hasAccuracy = l.hasAccuracy;
+		accuracy = l.accuracy;
+		extras = (l.extras == null) ? null : new Bundle(l.extras);
+	}
+
+	public void reset() {
+		provider = null;
+		time = 0;
+		elapsedRealtimeNanos = 0;
+		latitude = 0;
+		longitude = 0;
+		hasAltitude = false;
+		altitude = 0;
+		hasSpeed = false;
+		speed = 0;
+		hasBearing = false;
+		bearing = 0;
+		hasAccuracy = false;
+		accuracy = 0;
+		extras = null;
+	}
+
+	private static void computeDistanceAndBearing(double lat1, double lon1,
+			double lat2, double lon2, float[] results) {
+		// Based on http://www.ngs.noaa.gov/PUBS_LIB/inverse.pdf
+		// using the "Inverse Formula" (section 4)
+
+		int MAXITERS = 20;
+		// Convert lat/long to radians
+		lat1 *= Math.PI / 180.0;
+		lat2 *= Math.PI / 180.0;
+		lon1 *= Math.PI / 180.0;
+		lon2 *= Math.PI / 180.0;
+
+		double a = 6378137.0; // WGS84 major axis
+		double b = 6356752.3142; // WGS84 semi-major axis
+		double f = (a - b) / a;
+		double aSqMinusBSqOverBSq = (a * a - b * b) / (b * b);
+
+		double L = lon2 - lon1;
+		double A = 0.0;
+		double U1 = Math.atan((1.0 - f) * Math.tan(lat1));
+		double U2 = Math.atan((1.0 - f) * Math.tan(lat2));
+
+		double cosU1 = Math.cos(U1);
+		double cosU2 = Math.cos(U2);
+		double sinU1 = Math.sin(U1);
+		double sinU2 = Math.sin(U2);
+		double cosU1cosU2 = cosU1 * cosU2;
+		double sinU1sinU2 = sinU1 * sinU2;
+
+		double sigma = 0.0;
+		double deltaSigma = 0.0;
+		double cosSqAlpha = 0.0;
+		double cos2SM = 0.0;
+		double cosSigma = 0.0;
+		double sinSigma = 0.0;
+		double cosLambda = 0.0;
+		double sinLambda = 0.0;
+
+		double lambda = L; // initial guess
+		for (int iter = 0; iter < MAXITERS; iter++) {
+			double lambdaOrig = lambda;
+			cosLambda = Math.cos(lambda);
+			sinLambda = Math.sin(lambda);
+			double t1 = cosU2 * sinLambda;
+			double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+			double sinSqSigma = t1 * t1 + t2 * t2;
+			sinSigma = Math.sqrt(sinSqSigma);
+			cosSigma = sinU1sinU2 + cosU1cosU2 * cosLambda;
+			sigma = Math.atan2(sinSigma, cosSigma);
+			double sinAlpha = (sinSigma == 0) ? 0.0 : cosU1cosU2 * sinLambda
+					/ sinSigma;
+			cosSqAlpha = 1.0 - sinAlpha * sinAlpha;
+			cos2SM = (cosSqAlpha == 0) ? 0.0 : cosSigma - 2.0 * sinU1sinU2
+					/ cosSqAlpha;
+
+			double uSquared = cosSqAlpha * aSqMinusBSqOverBSq;
+			A = 1 + (uSquared / 16384.0)
+					* (4096.0 + uSquared
+							* (-768 + uSquared * (320.0 - 175.0 * uSquared)));
+			double B = (uSquared / 1024.0)
+					* (256.0 + uSquared
+							* (-128.0 + uSquared * (74.0 - 47.0 * uSquared)));
+			double C = (f / 16.0) * cosSqAlpha
+					* (4.0 + f * (4.0 - 3.0 * cosSqAlpha));
+			double cos2SMSq = cos2SM * cos2SM;
+			deltaSigma = B
+					* sinSigma
+					* (cos2SM + (B / 4.0)
+							* (cosSigma * (-1.0 + 2.0 * cos2SMSq) - (B / 6.0)
+									* cos2SM
+									* (-3.0 + 4.0 * sinSigma * sinSigma)
+									* (-3.0 + 4.0 * cos2SMSq)));
+
+			lambda = L
+					+ (1.0 - C)
+					* f
+					* sinAlpha
+					* (sigma + C * sinSigma
+							* (cos2SM + C * cosSigma
+									* (-1.0 + 2.0 * cos2SM * cos2SM)));
+
+			double delta = (lambda - lambdaOrig) / lambda;
+			if (Math.abs(delta) < 1.0e-12) {
+				break;
+			}
+		}
+
+		float distance = (float) (b * A * (sigma - deltaSigma));
+		results[0] = distance;
+		if (results.length > 1) {
+			float initialBearing = (float) Math.atan2(cosU2 * sinLambda,
+					cosU1 * sinU2 - sinU1 * cosU2 * cosLambda);
+			initialBearing *= 180.0 / Math.PI;
+			results[1] = initialBearing;
+			if (results.length > 2) {
+				float finalBearing = (float) Math.atan2(cosU1 * sinLambda,
+						-sinU1 * cosU2 + cosU1 * sinU2 * cosLambda);
+				finalBearing *= 180.0 / Math.PI;
+				results[2] = finalBearing;
+			}
+		}
+	}
+
+	public static void distanceBetween(double startLatitude,
+			double startLongitude, double endLatitude, double endLongitude,
+			float[] results) {
+		if (results == null || results.length < 1) {
+			throw new IllegalArgumentException(
+					"results is null or has length < 1");
+		}
+		computeDistanceAndBearing(startLatitude, startLongitude, endLatitude,
+				endLongitude, results);
+	}
+
+	public float distanceTo(Location dest) {
+		// See if we already have the result
+		synchronized (results) {
+			if (latitude != lat1 || longitude != lon1
+					|| dest.latitude != lat2 || dest.longitude != lon2) {
+				computeDistanceAndBearing(latitude, longitude, dest.latitude,
+						dest.longitude, results);
+				lat1 = latitude;
+				lon1 = longitude;
+				lat2 = dest.latitude;
+				lon2 = dest.longitude;
+				distance = results[0];
+				initialBearing = results[1];
+			}
+			return distance;
+		}
+	}
+
+	public float bearingTo(Location dest) {
+		synchronized (results) {
+			// See if we already have the result
+			if (latitude != lat1 || longitude != lon1
+					|| dest.latitude != lat2 || dest.longitude != lon2) {
+				computeDistanceAndBearing(latitude, longitude, dest.latitude,
+						dest.longitude, results);
+				lat1 = latitude;
+				lon1 = longitude;
+				lat2 = dest.latitude;
+				lon2 = dest.longitude;
+				distance = results[0];
+				initialBearing = results[1];
+			}
+			return initialBearing;
+		}
+	}
+
+	public String getProvider() {
+		return provider;
+	}
+
+	public void setProvider(String provider) {
+		this.provider = provider;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	public void setTime(long time) {
+		this.time = time;
+	}
+
+	public long getElapsedRealtimeNanos() {
+		return elapsedRealtimeNanos;
+	}
+
+	public void setElapsedRealtimeNanos(long time) {
+		elapsedRealtimeNanos = time;
+	}
+
+	public double getLatitude() {
+		return latitude;
+	}
+
+	public void setLatitude(double latitude) {
+		this.latitude = latitude;
+	}
+
+	public double getLongitude() {
+		return longitude;
+	}
+
+	public void setLongitude(double longitude) {
+		this.longitude = longitude;
+	}
+
+	public boolean hasAltitude() {
+		return hasAltitude;
+	}
+
+	public double getAltitude() {
+		return altitude;
+	}
+
+	public void setAltitude(double altitude) {
+		this.altitude = altitude;
+		hasAltitude = true;
+	}
+
+	public void removeAltitude() {
+		altitude = 0.0f;
+		hasAltitude = false;
+	}
+
+	public boolean hasSpeed() {
+		return hasSpeed;
+	}
+
+	public float getSpeed() {
+		return speed;
+	}
+
+	public void setSpeed(float speed) {
+		this.speed = speed;
+		hasSpeed = true;
+	}
+
+	public void removeSpeed() {
+		speed = 0.0f;
+		hasSpeed = false;
+	}
+
+	public boolean hasBearing() {
+		return hasBearing;
+	}
+
+	public float getBearing() {
+		return bearing;
+	}
+
+	public void setBearing(float bearing) {
+		while (bearing < 0.0f) {
+			bearing += 360.0f;
+		}
+		while (bearing >= 360.0f) {
+			bearing -= 360.0f;
+		}
+		this.bearing = bearing;
+		hasBearing = true;
+	}
+
+	public void removeBearing() {
+		bearing = 0.0f;
+		hasBearing = false;
+	}
+
+	public boolean hasAccuracy() {
+		return hasAccuracy;
+	}
+
+	public float getAccuracy() {
+		return accuracy;
+	}
+
+	public void setAccuracy(float accuracy) {
+		this.accuracy = accuracy;
+		hasAccuracy = true;
+	}
+
+	public void removeAccuracy() {
+		accuracy = 0.0f;
+		hasAccuracy = false;
+	}
+
+	public boolean isComplete() {
+		return provider != null && hasAccuracy && time != 0
+				&& elapsedRealtimeNanos != 0;
+	}
+
+	public Bundle getExtras() {
+		return extras;
+	}
+
+	public void setExtras(Bundle extras) {
+		this.extras = (extras == null) ? null : new Bundle(extras);
+	}
+
+	/**
+	 * Returns one of the optional extra Locations that can be attached to
+	 * this Location.
+	 */
+	public Location getExtraLocation(String key) {
+		if (extras != null) {
+			Parcelable value = extras.getParcelable(key);
+			if (value instanceof Location) {
+				return (Location) value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Attaches an extra Location to this Location.
+	 */
+	public void setExtraLocation(String key, Location value) {
+		if (extras == null) {
+			extras = new Bundle();
+		}
+		extras.putParcelable(key, value);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		s.append("Location[");
+		s.append(provider);
+		s.append(String.format(" %.6f,%.6f", latitude, longitude));
+		if (hasAccuracy) {
+			s.append(String.format(" acc=%.0f", accuracy));
+		} else {
+			s.append(" acc=???");
+		}
+		if (time == 0) {
+			s.append(" t=?!?");
+		}
+		if (hasAltitude) {
+			s.append(" alt=").append(altitude);
+		}
+		if (hasSpeed) {
+			s.append(" vel=").append(speed);
+		}
+		if (hasBearing) {
+			s.append(" bear=").append(bearing);
+		}
+		if (extras != null) {
+			s.append(" {").append(extras).append('}');
+		}
+		s.append(']');
+		return s.toString();
+	}
+
+	@Override
+	public int describeContents() {
+		return 0;
+	}
+
+	@Override
+	public void writeToParcel(Parcel parcel, int flags) {
+		parcel.writeString(provider);
+		parcel.writeLong(time);
+		parcel.writeLong(elapsedRealtimeNanos);
+		parcel.writeDouble(latitude);
+		parcel.writeDouble(longitude);
+		parcel.writeInt(hasAltitude ? 1 : 0);
+		parcel.writeDouble(altitude);
+		parcel.writeInt(hasSpeed ? 1 : 0);
+		parcel.writeFloat(speed);
+		parcel.writeInt(hasBearing ? 1 : 0);
+		parcel.writeFloat(bearing);
+		parcel.writeInt(hasAccuracy ? 1 : 0);
+		parcel.writeFloat(accuracy);
+		parcel.writeBundle(extras);
+	}
+}
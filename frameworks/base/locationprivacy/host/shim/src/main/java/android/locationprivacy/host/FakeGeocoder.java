@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.host;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import android.location.Address;
+
+/**
+ * Deterministic geocoder. The world is divided into grids for street,
+ * postal code, city and country; the address of a location names its cells,
+ * and the location of an address is the center of its finest cell. Every
+ * request takes the configured latency.
+ */
+public class FakeGeocoder implements GeocoderBackend {
+
+	/** Cell sizes in degrees for street, postal code, city and country */
+	private static final double[] CELL = new double[] { 0.002, 0.01, 0.05, 1.0 };
+	private static final char[] PREFIX = new char[] { 'S', 'P', 'C', 'K' };
+
+	private final long latencyNanos;
+	private final AtomicLong reverseRequests = new AtomicLong();
+	private final AtomicLong forwardRequests = new AtomicLong();
+
+	/**
+	 * @param latencyMicros
+	 *            duration of every request in microseconds
+	 */
+	public FakeGeocoder(long latencyMicros) {
+		this.latencyNanos = latencyMicros * 1000;
+	}
+
+	public long getReverseRequests() {
+		return reverseRequests.get();
+	}
+
+	public long getForwardRequests() {
+		return forwardRequests.get();
+	}
+
+	public List<Address> getFromLocation(double latitude, double longitude,
+			int maxResults, Locale locale) throws IOException {
+		reverseRequests.incrementAndGet();
+		delay();
+		Address address = new Address(locale);
+		address.setThoroughfare(cellName(0, latitude, longitude));
+		address.setSubLocality(cellName(1, latitude, longitude));
+		address.setLocality(cellName(2, latitude, longitude));
+		address.setCountryName(cellName(3, latitude, longitude));
+		address.setLatitude(latitude);
+		address.setLongitude(longitude);
+		List<Address> result = new ArrayList<Address>(1);
+		result.add(address);
+		return result;
+	}
+
+	public List<Address> getFromLocationName(String locationName,
+			int maxResults, Locale locale) throws IOException {
+		forwardRequests.incrementAndGet();
+		delay();
+		List<Address> result = new ArrayList<Address>(1);
+		for (int level = 0; level < PREFIX.length; level++) {
+			int start = locationName.indexOf(PREFIX[level] + "[");
+			if (start < 0) {
+				continue;
+			}
+			int end = locationName.indexOf(']', start);
+			String[] cell = locationName.substring(start + 2, end).split(",");
+			Address address = new Address(locale);
+			address.setLatitude((Long.parseLong(cell[0]) + 0.5) * CELL[level]);
+			address.setLongitude((Long.parseLong(cell[1]) + 0.5)
+					* CELL[level]);
+			result.add(address);
+			break;
+		}
+		return result;
+	}
+
+	private static String cellName(int level, double latitude,
+			double longitude) {
+		return PREFIX[level] + "[" + (long) Math.floor(latitude / CELL[level])
+				+ "," + (long) Math.floor(longitude / CELL[level]) + "]";
+	}
+
+	private void delay() {
+		if (latencyNanos > 0) {
+			long end = System.nanoTime() + latencyNanos;
+			long remaining = latencyNanos;
+			while (remaining > 0) {
+				LockSupport.parkNanos(remaining);
+				remaining = end - System.nanoTime();
+			}
+		}
+	}
+}
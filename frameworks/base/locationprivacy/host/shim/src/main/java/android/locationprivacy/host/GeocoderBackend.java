@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.host;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import android.location.Address;
+
+/**
+ * Geocoding service behind android.location.Geocoder on the host, the
+ * counterpart of the platform's geocoder provider
+ */
+public interface GeocoderBackend {
+
+	List<Address> getFromLocation(double latitude, double longitude,
+			int maxResults, Locale locale) throws IOException;
+
+	List<Address> getFromLocationName(String locationName, int maxResults,
+			Locale locale) throws IOException;
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.host;
+
+import java.io.File;
+import java.security.Security;
+import java.util.HashMap;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Looper;
+
+/**
+ * Context of the host. All package contexts of one HostContext share the
+ * content resolver, the package manager and the geocoder backend, like the
+ * contexts of one device. Each package stores its files below
+ * root/packagename. BouncyCastle is installed as preferred security
+ * provider, as on the device, so the framework gets the same ciphers.
+ */
+public class HostContext extends Context {
+
+	/** Receives the intents of startActivity and sendBroadcast */
+	public interface IntentListener {
+		void onIntent(Intent intent);
+	}
+
+	/** State shared by all package contexts */
+	private static class Device {
+		final File root;
+		final HostPackageManager packageManager = new HostPackageManager();
+		final HashMap<String, HostSharedPreferences> preferences = new HashMap<String, HostSharedPreferences>();
+		ContentResolver contentResolver;
+		volatile GeocoderBackend geocoderBackend;
+		volatile IntentListener intentListener;
+
+		Device(File root) {
+			this.root = root;
+		}
+	}
+
+	private static volatile boolean geocoderPresent;
+
+	static {
+		Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+		Security.insertProviderAt(new BouncyCastleProvider(), 1);
+	}
+
+	private final Device device;
+	private final String packageName;
+
+	/**
+	 * Creates the context of a new host device
+	 *
+	 * @param packageName
+	 *            package of the calling code
+	 * @param root
+	 *            directory for the data of all packages
+	 */
+	public HostContext(String packageName, File root) {
+		this(new Device(root), packageName);
+		device.contentResolver = new ContentResolver(this);
+	}
+
+	private HostContext(Device device, String packageName) {
+		this.device = device;
+		this.packageName = packageName;
+	}
+
+	public GeocoderBackend getGeocoderBackend() {
+		return device.geocoderBackend;
+	}
+
+	public void setGeocoderBackend(GeocoderBackend backend) {
+		device.geocoderBackend = backend;
+		if (backend != null) {
+			geocoderPresent = true;
+		}
+	}
+
+	/**
+	 * Returns true if a geocoder backend has been set on any context
+	 */
+	public static boolean hasGeocoderBackend() {
+		return geocoderPresent;
+	}
+
+	public void setIntentListener(IntentListener listener) {
+		device.intentListener = listener;
+	}
+
+	@Override
+	public HostPackageManager getPackageManager() {
+		return device.packageManager;
+	}
+
+	@Override
+	public Context getApplicationContext() {
+		return this;
+	}
+
+	@Override
+	public String getPackageName() {
+		return packageName;
+	}
+
+	@Override
+	public ContentResolver getContentResolver() {
+		return device.contentResolver;
+	}
+
+	@Override
+	public Looper getMainLooper() {
+		return Looper.getMainLooper();
+	}
+
+	/**
+	 * Returns the data directory of this package
+	 */
+	public File getDataDir() {
+		return new File(device.root, packageName);
+	}
+
+	@Override
+	public SharedPreferences getSharedPreferences(String name, int mode) {
+		File file = new File(new File(getDataDir(), "shared_prefs"), name
+				+ ".properties");
+		synchronized (device.preferences) {
+			HostSharedPreferences preferences = device.preferences.get(file
+					.getPath());
+			if (preferences == null) {
+				preferences = new HostSharedPreferences(file);
+				device.preferences.put(file.getPath(), preferences);
+			}
+			return preferences;
+		}
+	}
+
+	@Override
+	public File getFilesDir() {
+		return mkdirs(new File(getDataDir(), "files"));
+	}
+
+	@Override
+	public File getCacheDir() {
+		return mkdirs(new File(getDataDir(), "cache"));
+	}
+
+	@Override
+	public File getDatabasePath(String name) {
+		return new File(mkdirs(new File(getDataDir(), "databases")), name);
+	}
+
+	private static File mkdirs(File dir) {
+		dir.mkdirs();
+		return dir;
+	}
+
+	@Override
+	public SQLiteDatabase openOrCreateDatabase(String name, int mode,
+			SQLiteDatabase.CursorFactory factory) {
+		return SQLiteDatabase.openOrCreateDatabase(getDatabasePath(name)
+				.getPath(), factory);
+	}
+
+	@Override
+	public boolean deleteDatabase(String name) {
+		File file = getDatabasePath(name);
+		new File(file.getPath() + "-journal").delete();
+		return file.delete();
+	}
+
+	@Override
+	public Context createPackageContext(String packageName, int flags)
+			throws PackageManager.NameNotFoundException {
+		if (packageName.equals(this.packageName)) {
+			return this;
+		}
+		return new HostContext(device, packageName);
+	}
+
+	@Override
+	public void startActivity(Intent intent) {
+		if ((intent.getFlags() & Intent.FLAG_ACTIVITY_NEW_TASK) == 0) {
+			throw new IllegalStateException(
+					"Calling startActivity() from outside of an Activity "
+							+ " context requires the FLAG_ACTIVITY_NEW_TASK flag.");
+		}
+		IntentListener listener = device.intentListener;
+		if (listener != null) {
+			listener.onIntent(intent);
+		}
+	}
+
+	@Override
+	public void sendBroadcast(Intent intent) {
+		IntentListener listener = device.intentListener;
+		if (listener != null) {
+			listener.onIntent(intent);
+		}
+	}
+
+	@Override
+	public Object getSystemService(String name) {
+		return null;
+	}
+}
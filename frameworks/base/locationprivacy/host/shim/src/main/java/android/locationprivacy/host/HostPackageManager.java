@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.host;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+
+/**
+ * PackageManager of the host with a list of installed packages
+ */
+public class HostPackageManager extends PackageManager {
+
+	private static final Drawable ICON = new Drawable() {
+	};
+
+	private final LinkedHashMap<String, ApplicationInfo> packages = new LinkedHashMap<String, ApplicationInfo>();
+	private int nextUid = 10000;
+
+	/**
+	 * Installs a package
+	 *
+	 * @param packageName
+	 *            name of the package
+	 * @param label
+	 *            label of the app
+	 */
+	public synchronized void install(String packageName, String label) {
+		ApplicationInfo info = new ApplicationInfo();
+		info.packageName = packageName;
+		info.nonLocalizedLabel = label;
+		info.uid = nextUid++;
+		packages.put(packageName, info);
+	}
+
+	public synchronized void uninstall(String packageName) {
+		packages.remove(packageName);
+	}
+
+	@Override
+	public synchronized PackageInfo getPackageInfo(String packageName,
+			int flags) throws NameNotFoundException {
+		return packageInfo(getApplicationInfo(packageName, flags));
+	}
+
+	private static PackageInfo packageInfo(ApplicationInfo info) {
+		PackageInfo p = new PackageInfo();
+		p.packageName = info.packageName;
+		p.applicationInfo = new ApplicationInfo(info);
+		return p;
+	}
+
+	@Override
+	public synchronized ApplicationInfo getApplicationInfo(
+			String packageName, int flags) throws NameNotFoundException {
+		ApplicationInfo info = packages.get(packageName);
+		if (info == null) {
+			throw new NameNotFoundException(packageName);
+		}
+		return new ApplicationInfo(info);
+	}
+
+	@Override
+	public synchronized List<PackageInfo> getInstalledPackages(int flags) {
+		ArrayList<PackageInfo> result = new ArrayList<PackageInfo>();
+		for (ApplicationInfo info : packages.values()) {
+			result.add(packageInfo(info));
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized List<ApplicationInfo> getInstalledApplications(
+			int flags) {
+		ArrayList<ApplicationInfo> result = new ArrayList<ApplicationInfo>();
+		for (ApplicationInfo info : packages.values()) {
+			result.add(new ApplicationInfo(info));
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized String[] getPackagesForUid(int uid) {
+		for (ApplicationInfo info : packages.values()) {
+			if (info.uid == uid) {
+				return new String[] { info.packageName };
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public CharSequence getApplicationLabel(ApplicationInfo info) {
+		return info.nonLocalizedLabel != null ? info.nonLocalizedLabel
+				: info.packageName;
+	}
+
+	@Override
+	public Drawable getApplicationIcon(ApplicationInfo info) {
+		return ICON;
+	}
+
+	@Override
+	public Drawable getApplicationIcon(String packageName)
+			throws NameNotFoundException {
+		getApplicationInfo(packageName, 0);
+		return ICON;
+	}
+}
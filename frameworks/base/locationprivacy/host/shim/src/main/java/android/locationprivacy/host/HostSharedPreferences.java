@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.host;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import android.content.SharedPreferences;
+
+/**
+ * SharedPreferences of the host, stored as properties file. Values are
+ * prefixed with their type, so typed getters behave like the platform.
+ */
+class HostSharedPreferences implements SharedPreferences {
+
+	private final File file;
+	private final HashMap<String, Object> map = new HashMap<String, Object>();
+	private final ArrayList<OnSharedPreferenceChangeListener> listeners = new ArrayList<OnSharedPreferenceChangeListener>();
+
+	HostSharedPreferences(File file) {
+		this.file = file;
+		if (file.exists()) {
+			load();
+		}
+	}
+
+	private void load() {
+		Properties properties = new Properties();
+		try {
+			FileInputStream in = new FileInputStream(file);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		for (String key : properties.stringPropertyNames()) {
+			String value = properties.getProperty(key);
+			char type = value.charAt(0);
+			String v = value.substring(2);
+			switch (type) {
+			case 'i':
+				map.put(key, Integer.valueOf(v));
+				break;
+			case 'l':
+				map.put(key, Long.valueOf(v));
+				break;
+			case 'f':
+				map.put(key, Float.valueOf(v));
+				break;
+			case 'b':
+				map.put(key, Boolean.valueOf(v));
+				break;
+			default:
+				map.put(key, v);
+			}
+		}
+	}
+
+	private void store() {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Object> e : map.entrySet()) {
+			Object v = e.getValue();
+			char type = v instanceof Integer ? 'i' : v instanceof Long ? 'l'
+					: v instanceof Float ? 'f' : v instanceof Boolean ? 'b'
+							: 's';
+			properties.setProperty(e.getKey(), type + ":" + v);
+		}
+		try {
+			file.getParentFile().mkdirs();
+			FileOutputStream out = new FileOutputStream(file);
+			try {
+				properties.store(out, null);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public synchronized Map<String, ?> getAll() {
+		return new HashMap<String, Object>(map);
+	}
+
+	private synchronized Object get(String key) {
+		return map.get(key);
+	}
+
+	public String getString(String key, String defValue) {
+		Object v = get(key);
+		return v != null ? (String) v : defValue;
+	}
+
+	public Set<String> getStringSet(String key, Set<String> defValues) {
+		Object v = get(key);
+		if (v == null) {
+			return defValues;
+		}
+		HashSet<String> set = new HashSet<String>();
+		for (String s : ((String) v).split("\u0000")) {
+			if (s.length() > 0) {
+				set.add(s);
+			}
+		}
+		return set;
+	}
+
+	public int getInt(String key, int defValue) {
+		Object v = get(key);
+		return v != null ? (Integer) v : defValue;
+	}
+
+	public long getLong(String key, long defValue) {
+		Object v = get(key);
+		return v != null ? (Long) v : defValue;
+	}
+
+	public float getFloat(String key, float defValue) {
+		Object v = get(key);
+		return v != null ? (Float) v : defValue;
+	}
+
+	public boolean getBoolean(String key, boolean defValue) {
+		Object v = get(key);
+		return v != null ? (Boolean) v : defValue;
+	}
+
+	public synchronized boolean contains(String key) {
+		return map.containsKey(key);
+	}
+
+	public Editor edit() {
+		return new HostEditor();
+	}
+
+	public synchronized void registerOnSharedPreferenceChangeListener(
+			OnSharedPreferenceChangeListener listener) {
+		listeners.add(listener);
+	}
+
+	public synchronized void unregisterOnSharedPreferenceChangeListener(
+			OnSharedPreferenceChangeListener listener) {
+		listeners.remove(listener);
+	}
+
+	private class HostEditor implements Editor {
+		private final HashMap<String, Object> modified = new HashMap<String, Object>();
+		private boolean clear;
+
+		public Editor putString(String key, String value) {
+			modified.put(key, value);
+			return this;
+		}
+
+		public Editor putStringSet(String key, Set<String> values) {
+			StringBuilder builder = new StringBuilder();
+			if (values != null) {
+				for (String s : values) {
+					builder.append(s).append('\u0000');
+				}
+			}
+			modified.put(key, values != null ? builder.toString() : null);
+			return this;
+		}
+
+		public Editor putInt(String key, int value) {
+			modified.put(key, value);
+			return this;
+		}
+
+		public Editor putLong(String key, long value) {
+			modified.put(key, value);
+			return this;
+		}
+
+		public Editor putFloat(String key, float value) {
+			modified.put(key, value);
+			return this;
+		}
+
+		public Editor putBoolean(String key, boolean value) {
+			modified.put(key, value);
+			return this;
+		}
+
+		public Editor remove(String key) {
+			modified.put(key, null);
+			return this;
+		}
+
+		public Editor clear() {
+			clear = true;
+			return this;
+		}
+
+		public boolean commit() {
+			ArrayList<OnSharedPreferenceChangeListener> notify;
+			synchronized (HostSharedPreferences.this) {
+				if (clear) {
+					map.clear();
+				}
+				for (Map.Entry<String, Object> e : modified.entrySet()) {
+					if (e.getValue() == null) {
+						map.remove(e.getKey());
+					} else {
+						map.put(e.getKey(), e.getValue());
+					}
+				}
+				store();
+				notify = new ArrayList<OnSharedPreferenceChangeListener>(
+						listeners);
+			}
+			for (OnSharedPreferenceChangeListener listener : notify) {
+				for (String key : modified.keySet()) {
+					listener.onSharedPreferenceChanged(
+							HostSharedPreferences.this, key);
+				}
+			}
+			return true;
+		}
+
+		public void apply() {
+			commit();
+		}
+	}
+}
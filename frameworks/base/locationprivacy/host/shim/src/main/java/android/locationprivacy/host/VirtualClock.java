@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.host;
+
+import android.os.SystemClock;
+
+/**
+ * Virtual time of the host device. Once installed, SystemClock, Handler
+ * delays and SystemClock.sleep follow the virtual time, which only moves
+ * when it is advanced, so days of device time can pass in seconds.
+ * System.currentTimeMillis is not affected; code that needs the virtual
+ * wall clock reads currentTimeMillis().
+ */
+public final class VirtualClock {
+
+	private static volatile boolean installed;
+	/** Virtual uptime in ms */
+	private static volatile long uptime;
+	/** Virtual wall clock minus virtual uptime */
+	private static long wallOffset;
+
+	private VirtualClock() {
+	}
+
+	/**
+	 * Installs the virtual clock. Uptime continues from the real uptime, so
+	 * pending delays stay valid.
+	 *
+	 * @param wallMillis
+	 *            virtual wall clock time in ms since epoch
+	 */
+	public static synchronized void install(long wallMillis) {
+		if (installed) {
+			throw new IllegalStateException("VirtualClock already installed");
+		}
+		long now = SystemClock.uptimeMillis();
+		wallOffset = wallMillis - now;
+		uptime = now;
+		installed = true;
+	}
+
+	public static boolean isInstalled() {
+		return installed;
+	}
+
+	/**
+	 * Moves the virtual time forward
+	 *
+	 * @param millis
+	 *            ms to advance, must not be negative
+	 */
+	public static synchronized void advance(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("time must not go backwards");
+		}
+		uptime += millis;
+	}
+
+	/**
+	 * Moves the virtual wall clock forward to wallMillis. Does nothing if
+	 * the clock is already past it.
+	 */
+	public static synchronized void advanceTo(long wallMillis) {
+		long target = wallMillis - wallOffset;
+		if (target > uptime) {
+			uptime = target;
+		}
+	}
+
+	/**
+	 * Virtual uptime in ms
+	 */
+	public static long uptimeMillis() {
+		return uptime;
+	}
+
+	/**
+	 * Virtual wall clock in ms since epoch
+	 */
+	public static synchronized long currentTimeMillis() {
+		return uptime + wallOffset;
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.net;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Host implementation of android.net.Uri for hierarchical URIs of the form
+ * scheme://authority/path?query#fragment. Uris are immutable and compare by
+ * their string form.
+ */
+public final class Uri implements Parcelable, Comparable<Uri> {
+
+	public static final Uri EMPTY = new Uri("");
+
+	public static final Parcelable.Creator<Uri> CREATOR = new Parcelable.Creator<Uri>() {
+		public Uri createFromParcel(Parcel in) {
+			return parse(in.readString());
+		}
+
+		public Uri[] newArray(int size) {
+			return new Uri[size];
+		}
+	};
+
+	private final String uriString;
+	private String scheme;
+	private String authority;
+	private String path;
+	private String query;
+	private String fragment;
+	private List<String> pathSegments;
+
+	private Uri(String uriString) {
+		this.uriString = uriString;
+		String rest = uriString;
+		int hash = rest.indexOf('#');
+		if (hash >= 0) {
+			fragment = rest.substring(hash + 1);
+			rest = rest.substring(0, hash);
+		}
+		int colon = rest.indexOf(':');
+		int slash = rest.indexOf('/');
+		if (colon > 0 && (slash < 0 || colon < slash)) {
+			scheme = rest.substring(0, colon);
+			rest = rest.substring(colon + 1);
+		}
+		int question = rest.indexOf('?');
+		if (question >= 0) {
+			query = rest.substring(question + 1);
+			rest = rest.substring(0, question);
+		}
+		if (rest.startsWith("//")) {
+			int end = rest.indexOf('/', 2);
+			if (end < 0) {
+				end = rest.length();
+			}
+			authority = rest.substring(2, end);
+			rest = rest.substring(end);
+		}
+		path = rest;
+	}
+
+	public static Uri parse(String uriString) {
+		return new Uri(uriString);
+	}
+
+	/**
+	 * Creates a new Uri by appending an already-encoded path segment to a
+	 * base Uri
+	 */
+	public static Uri withAppendedPath(Uri baseUri, String pathSegment) {
+		String base = baseUri.scheme != null ? baseUri.scheme + ":" : "";
+		if (baseUri.authority != null) {
+			base += "//" + baseUri.authority;
+		}
+		String basePath = baseUri.path;
+		if (!basePath.endsWith("/")) {
+			basePath += "/";
+		}
+		String result = base + basePath + pathSegment;
+		if (baseUri.query != null) {
+			result += "?" + baseUri.query;
+		}
+		if (baseUri.fragment != null) {
+			result += "#" + baseUri.fragment;
+		}
+		return new Uri(result);
+	}
+
+	public String getScheme() {
+		return scheme;
+	}
+
+	public String getAuthority() {
+		return authority;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public String getFragment() {
+		return fragment;
+	}
+
+	public boolean isHierarchical() {
+		return authority != null || path.startsWith("/");
+	}
+
+	public boolean isAbsolute() {
+		return scheme != null;
+	}
+
+	public synchronized List<String> getPathSegments() {
+		if (pathSegments == null) {
+			ArrayList<String> segments = new ArrayList<String>();
+			for (String segment : path.split("/")) {
+				if (segment.length() > 0) {
+					segments.add(segment);
+				}
+			}
+			pathSegments = Collections.unmodifiableList(segments);
+		}
+		return pathSegments;
+	}
+
+	public String getLastPathSegment() {
+		List<String> segments = getPathSegments();
+		int size = segments.size();
+		return size == 0 ? null : segments.get(size - 1);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Uri && uriString.equals(((Uri) o).uriString);
+	}
+
+	@Override
+	public int hashCode() {
+		return uriString.hashCode();
+	}
+
+	public int compareTo(Uri other) {
+		return uriString.compareTo(other.uriString);
+	}
+
+	@Override
+	public String toString() {
+		return uriString;
+	}
+
+	public int describeContents() {
+		return 0;
+	}
+
+	public void writeToParcel(Parcel out, int flags) {
+		out.writeString(uriString);
+	}
+}
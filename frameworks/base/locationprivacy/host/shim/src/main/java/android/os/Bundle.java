@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Host implementation of android.os.Bundle, a mapping from String keys to
+ * values of various types. Typed getters return the default value if the
+ * key is missing or the value has another type.
+ */
+public final class Bundle implements Parcelable, Cloneable {
+
+	public static final Bundle EMPTY = new Bundle();
+
+	public static final Parcelable.Creator<Bundle> CREATOR = new Parcelable.Creator<Bundle>() {
+		public Bundle createFromParcel(Parcel in) {
+			return in.readBundle();
+		}
+
+		public Bundle[] newArray(int size) {
+			return new Bundle[size];
+		}
+	};
+
+	private final HashMap<String, Object> map;
+	private ClassLoader classLoader;
+
+	public Bundle() {
+		map = new HashMap<String, Object>();
+	}
+
+	public Bundle(ClassLoader loader) {
+		map = new HashMap<String, Object>();
+		classLoader = loader;
+	}
+
+	public Bundle(int capacity) {
+		map = new HashMap<String, Object>(capacity);
+	}
+
+	/**
+	 * Creates a shallow copy of b
+	 */
+	public Bundle(Bundle b) {
+		map = new HashMap<String, Object>(b.map);
+		classLoader = b.classLoader;
+	}
+
+	@Override
+	public Object clone() {
+		return new Bundle(this);
+	}
+
+	public void setClassLoader(ClassLoader loader) {
+		classLoader = loader;
+	}
+
+	public ClassLoader getClassLoader() {
+		return classLoader;
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	public void clear() {
+		map.clear();
+	}
+
+	public boolean containsKey(String key) {
+		return map.containsKey(key);
+	}
+
+	public Object get(String key) {
+		return map.get(key);
+	}
+
+	public void remove(String key) {
+		map.remove(key);
+	}
+
+	public void putAll(Bundle map) {
+		this.map.putAll(map.map);
+	}
+
+	public Set<String> keySet() {
+		return map.keySet();
+	}
+
+	public void putBoolean(String key, boolean value) {
+		map.put(key, value);
+	}
+
+	public void putByte(String key, byte value) {
+		map.put(key, value);
+	}
+
+	public void putShort(String key, short value) {
+		map.put(key, value);
+	}
+
+	public void putInt(String key, int value) {
+		map.put(key, value);
+	}
+
+	public void putLong(String key, long value) {
+		map.put(key, value);
+	}
+
+	public void putFloat(String key, float value) {
+		map.put(key, value);
+	}
+
+	public void putDouble(String key, double value) {
+		map.put(key, value);
+	}
+
+	public void putString(String key, String value) {
+		map.put(key, value);
+	}
+
+	public void putStringArray(String key, String[] value) {
+		map.put(key, value);
+	}
+
+	public void putStringArrayList(String key, ArrayList<String> value) {
+		map.put(key, value);
+	}
+
+	public void putByteArray(String key, byte[] value) {
+		map.put(key, value);
+	}
+
+	public void putParcelable(String key, Parcelable value) {
+		map.put(key, value);
+	}
+
+	public void putBundle(String key, Bundle value) {
+		map.put(key, value);
+	}
+
+	public boolean getBoolean(String key) {
+		return getBoolean(key, false);
+	}
+
+	public boolean getBoolean(String key, boolean defaultValue) {
+		Object o = map.get(key);
+		return o instanceof Boolean ? (Boolean) o : defaultValue;
+	}
+
+	public byte getByte(String key) {
+		return getByte(key, (byte) 0);
+	}
+
+	public Byte getByte(String key, byte defaultValue) {
+		Object o = map.get(key);
+		return o instanceof Byte ? (Byte) o : defaultValue;
+	}
+
+	public short getShort(String key) {
+		return getShort(key, (short) 0);
+	}
+
+	public short getShort(String key, short defaultValue) {
+		Object o = map.get(key);
+		return o instanceof Short ? (Short) o : defaultValue;
+	}
+
+	public int getInt(String key) {
+		return getInt(key, 0);
+	}
+
+	public int getInt(String key, int defaultValue) {
+		Object o = map.get(key);
+		return o instanceof Integer ? (Integer) o : defaultValue;
+	}
+
+	public long getLong(String key) {
+		return getLong(key, 0L);
+	}
+
+	public long getLong(String key, long defaultValue) {
+		Object o = map.get(key);
+		return o instanceof Long ? (Long) o : defaultValue;
+	}
+
+	public float getFloat(String key) {
+		return getFloat(key, 0.0f);
+	}
+
+	public float getFloat(String key, float defaultValue) {
+		Object o = map.get(key);
+		return o instanceof Float ? (Float) o : defaultValue;
+	}
+
+	public double getDouble(String key) {
+		return getDouble(key, 0.0);
+	}
+
+	public double getDouble(String key, double defaultValue) {
+		Object o = map.get(key);
+		return o instanceof Double ? (Double) o : defaultValue;
+	}
+
+	public String getString(String key) {
+		Object o = map.get(key);
+		return o instanceof String ? (String) o : null;
+	}
+
+	public String getString(String key, String defaultValue) {
+		String s = getString(key);
+		return s != null ? s : defaultValue;
+	}
+
+	public String[] getStringArray(String key) {
+		Object o = map.get(key);
+		return o instanceof String[] ? (String[]) o : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public ArrayList<String> getStringArrayList(String key) {
+		Object o = map.get(key);
+		return o instanceof ArrayList ? (ArrayList<String>) o : null;
+	}
+
+	public byte[] getByteArray(String key) {
+		Object o = map.get(key);
+		return o instanceof byte[] ? (byte[]) o : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Parcelable> T getParcelable(String key) {
+		Object o = map.get(key);
+		return o instanceof Parcelable ? (T) o : null;
+	}
+
+	public Bundle getBundle(String key) {
+		Object o = map.get(key);
+		return o instanceof Bundle ? (Bundle) o : null;
+	}
+
+	public int describeContents() {
+		return 0;
+	}
+
+	public void writeToParcel(Parcel parcel, int flags) {
+		parcel.writeBundleMap(map.entrySet(), map.size());
+	}
+
+	public void readFromParcel(Parcel parcel) {
+		int length = parcel.readInt();
+		if (length < 0) {
+			throw new RuntimeException("Bad length in parcel: " + length);
+		}
+		readFromParcel(parcel, length);
+	}
+
+	void readFromParcel(Parcel parcel, int length) {
+		map.clear();
+		parcel.readBundleMap(map, length, classLoader);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Bundle[" + map.toString() + "]";
+	}
+}
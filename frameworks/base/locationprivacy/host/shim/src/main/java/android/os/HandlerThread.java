@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Host implementation of android.os.HandlerThread
+ */
+public class HandlerThread extends Thread {
+
+	private final int priority;
+	private Looper looper;
+
+	public HandlerThread(String name) {
+		this(name, Process.THREAD_PRIORITY_DEFAULT);
+	}
+
+	public HandlerThread(String name, int priority) {
+		super(name);
+		this.priority = priority;
+	}
+
+	protected void onLooperPrepared() {
+	}
+
+	@Override
+	public void run() {
+		Looper.prepare();
+		synchronized (this) {
+			looper = Looper.myLooper();
+			notifyAll();
+		}
+		Process.setThreadPriority(priority);
+		onLooperPrepared();
+		Looper.loop();
+	}
+
+	/**
+	 * Returns the Looper of this thread, waits until it has been prepared
+	 */
+	public Looper getLooper() {
+		if (!isAlive() && looper == null) {
+			return null;
+		}
+		synchronized (this) {
+			while (isAlive() && looper == null) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					// keep waiting like the platform
+				}
+			}
+		}
+		return looper;
+	}
+
+	public boolean quit() {
+		Looper l = getLooper();
+		if (l != null) {
+			l.quit();
+			return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Host implementation of android.os.Looper. The host has no UI thread, so
+ * getMainLooper() starts a daemon thread named "main" unless
+ * prepareMainLooper() has been called.
+ */
+public final class Looper {
+
+	private static final ThreadLocal<Looper> threadLocal = new ThreadLocal<Looper>();
+	private static Looper mainLooper;
+
+	final MessageQueue queue;
+	final Thread thread;
+
+	private Looper() {
+		queue = new MessageQueue();
+		thread = Thread.currentThread();
+	}
+
+	public static void prepare() {
+		if (threadLocal.get() != null) {
+			throw new RuntimeException(
+					"Only one Looper may be created per thread");
+		}
+		threadLocal.set(new Looper());
+	}
+
+	public static void prepareMainLooper() {
+		prepare();
+		synchronized (Looper.class) {
+			if (mainLooper != null) {
+				throw new IllegalStateException(
+						"The main Looper has already been prepared.");
+			}
+			mainLooper = myLooper();
+		}
+	}
+
+	public static synchronized Looper getMainLooper() {
+		if (mainLooper == null) {
+			HandlerThread thread = new HandlerThread("main");
+			thread.setDaemon(true);
+			thread.start();
+			mainLooper = thread.getLooper();
+		}
+		return mainLooper;
+	}
+
+	public static Looper myLooper() {
+		return threadLocal.get();
+	}
+
+	public static MessageQueue myQueue() {
+		return myLooper().queue;
+	}
+
+	/**
+	 * Runs the message queue of this thread until quit() is called
+	 */
+	public static void loop() {
+		Looper me = myLooper();
+		if (me == null) {
+			throw new RuntimeException(
+					"No Looper; Looper.prepare() wasn't called on this thread.");
+		}
+		while (true) {
+			Message msg = me.queue.next();
+			if (msg == null) {
+				return;
+			}
+			msg.target.dispatchMessage(msg);
+			msg.recycle();
+		}
+	}
+
+	public void quit() {
+		queue.quit();
+	}
+
+	public Thread getThread() {
+		return thread;
+	}
+
+	@Override
+	public String toString() {
+		return "Looper (" + thread.getName() + ", tid " + thread.getId()
+				+ ") {" + Integer.toHexString(System.identityHashCode(this))
+				+ "}";
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Host implementation of android.os.Message
+ */
+public final class Message {
+
+	public int what;
+	public int arg1;
+	public int arg2;
+	public Object obj;
+
+	Handler target;
+	Runnable callback;
+	long when;
+	/** Order of messages with equal when */
+	long sequence;
+	Message next;
+	private Bundle data;
+
+	public Message() {
+	}
+
+	public static Message obtain() {
+		return new Message();
+	}
+
+	public static Message obtain(Handler h) {
+		Message m = obtain();
+		m.target = h;
+		return m;
+	}
+
+	public static Message obtain(Handler h, Runnable callback) {
+		Message m = obtain(h);
+		m.callback = callback;
+		return m;
+	}
+
+	public static Message obtain(Handler h, int what) {
+		Message m = obtain(h);
+		m.what = what;
+		return m;
+	}
+
+	public static Message obtain(Handler h, int what, Object obj) {
+		Message m = obtain(h, what);
+		m.obj = obj;
+		return m;
+	}
+
+	public static Message obtain(Handler h, int what, int arg1, int arg2) {
+		Message m = obtain(h, what);
+		m.arg1 = arg1;
+		m.arg2 = arg2;
+		return m;
+	}
+
+	public static Message obtain(Handler h, int what, int arg1, int arg2,
+			Object obj) {
+		Message m = obtain(h, what, arg1, arg2);
+		m.obj = obj;
+		return m;
+	}
+
+	public void recycle() {
+		target = null;
+		callback = null;
+		obj = null;
+		data = null;
+		next = null;
+	}
+
+	public long getWhen() {
+		return when;
+	}
+
+	public Handler getTarget() {
+		return target;
+	}
+
+	public void setTarget(Handler target) {
+		this.target = target;
+	}
+
+	public Runnable getCallback() {
+		return callback;
+	}
+
+	public Bundle getData() {
+		if (data == null) {
+			data = new Bundle();
+		}
+		return data;
+	}
+
+	public Bundle peekData() {
+		return data;
+	}
+
+	public void setData(Bundle data) {
+		this.data = data;
+	}
+
+	public void sendToTarget() {
+		target.sendMessage(this);
+	}
+
+	@Override
+	public String toString() {
+		return "{ what=" + what + " when=" + when + " callback=" + callback
+				+ " }";
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import android.locationprivacy.host.VirtualClock;
+
+/**
+ * Host implementation of android.os.MessageQueue. Messages are kept in a
+ * list sorted by their uptime; messages with equal times keep their order.
+ * Under a VirtualClock, waiting threads poll the virtual time.
+ */
+public final class MessageQueue {
+
+	private Message messages;
+	private long sequence;
+	private boolean quitting;
+
+	MessageQueue() {
+	}
+
+	synchronized boolean enqueueMessage(Message msg, long when) {
+		if (quitting) {
+			return false;
+		}
+		msg.when = when;
+		msg.sequence = sequence++;
+		Message prev = null;
+		Message p = messages;
+		while (p != null && p.when <= when) {
+			prev = p;
+			p = p.next;
+		}
+		msg.next = p;
+		if (prev == null) {
+			messages = msg;
+			notifyAll();
+		} else {
+			prev.next = msg;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the next due message, waits if none is due. Returns null if the
+	 * queue quits.
+	 */
+	synchronized Message next() {
+		while (true) {
+			if (quitting) {
+				return null;
+			}
+			long now = SystemClock.uptimeMillis();
+			Message msg = messages;
+			if (msg != null && msg.when <= now) {
+				messages = msg.next;
+				msg.next = null;
+				return msg;
+			}
+			try {
+				if (msg == null) {
+					wait();
+				} else if (VirtualClock.isInstalled()) {
+					wait(Math.max(1, Math.min(msg.when - now,
+							SystemClock.VIRTUAL_POLL_MILLIS)));
+				} else {
+					wait(Math.max(1, msg.when - now));
+				}
+			} catch (InterruptedException e) {
+				return null;
+			}
+		}
+	}
+
+	synchronized boolean hasMessages(Handler h, int what, Object object) {
+		for (Message p = messages; p != null; p = p.next) {
+			if (p.target == h && p.callback == null && p.what == what
+					&& (object == null || p.obj == object)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	synchronized void removeMessages(Handler h, int what, Object object) {
+		Message prev = null;
+		Message p = messages;
+		while (p != null) {
+			Message n = p.next;
+			if (p.target == h && p.callback == null && p.what == what
+					&& (object == null || p.obj == object)) {
+				unlink(prev, p);
+			} else {
+				prev = p;
+			}
+			p = n;
+		}
+	}
+
+	synchronized void removeCallbacks(Handler h, Runnable r, Object object) {
+		Message prev = null;
+		Message p = messages;
+		while (p != null) {
+			Message n = p.next;
+			if (p.target == h && p.callback == r
+					&& (object == null || p.obj == object)) {
+				unlink(prev, p);
+			} else {
+				prev = p;
+			}
+			p = n;
+		}
+	}
+
+	synchronized void removeCallbacksAndMessages(Handler h, Object object) {
+		Message prev = null;
+		Message p = messages;
+		while (p != null) {
+			Message n = p.next;
+			if (p.target == h && (object == null || p.obj == object)) {
+				unlink(prev, p);
+			} else {
+				prev = p;
+			}
+			p = n;
+		}
+	}
+
+	private void unlink(Message prev, Message p) {
+		if (prev == null) {
+			messages = p.next;
+		} else {
+			prev.next = p.next;
+		}
+		p.next = null;
+	}
+
+	synchronized void quit() {
+		quitting = true;
+		messages = null;
+		notifyAll();
+	}
+}
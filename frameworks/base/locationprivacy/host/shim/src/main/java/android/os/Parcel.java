@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Host implementation of android.os.Parcel. Values are stored in the binary
+ * layout of the native Parcel: little endian, every value padded to 4 bytes
+ * and strings as UTF-16 with length prefix and terminator. Sizes and
+ * marshalled data therefore match the device.
+ */
+public final class Parcel {
+
+	private static final int VAL_NULL = -1;
+	private static final int VAL_STRING = 0;
+	private static final int VAL_INTEGER = 1;
+	private static final int VAL_MAP = 2;
+	private static final int VAL_BUNDLE = 3;
+	private static final int VAL_PARCELABLE = 4;
+	private static final int VAL_SHORT = 5;
+	private static final int VAL_LONG = 6;
+	private static final int VAL_FLOAT = 7;
+	private static final int VAL_DOUBLE = 8;
+	private static final int VAL_BOOLEAN = 9;
+	private static final int VAL_LIST = 11;
+	private static final int VAL_BYTEARRAY = 13;
+	private static final int VAL_STRINGARRAY = 14;
+	private static final int VAL_BYTE = 20;
+
+	/** Magic number of a marshalled Bundle, 'B' 'N' 'D' 'L' */
+	private static final int BUNDLE_MAGIC = 0x4C444E42;
+
+	private static final int POOL_SIZE = 6;
+	private static final Parcel[] pool = new Parcel[POOL_SIZE];
+
+	private static final HashMap<String, Parcelable.Creator<?>> creators = new HashMap<String, Parcelable.Creator<?>>();
+
+	private byte[] data = new byte[64];
+	private int size;
+	private int position;
+
+	private Parcel() {
+	}
+
+	/**
+	 * Retrieves a new Parcel object from the pool
+	 */
+	public static Parcel obtain() {
+		synchronized (pool) {
+			for (int i = 0; i < POOL_SIZE; i++) {
+				Parcel p = pool[i];
+				if (p != null) {
+					pool[i] = null;
+					return p;
+				}
+			}
+		}
+		return new Parcel();
+	}
+
+	/**
+	 * Puts a Parcel object back into the pool
+	 */
+	public final void recycle() {
+		size = 0;
+		position = 0;
+		synchronized (pool) {
+			for (int i = 0; i < POOL_SIZE; i++) {
+				if (pool[i] == null) {
+					pool[i] = this;
+					return;
+				}
+			}
+		}
+	}
+
+	public final int dataSize() {
+		return size;
+	}
+
+	public final int dataAvail() {
+		return size - position;
+	}
+
+	public final int dataPosition() {
+		return position;
+	}
+
+	public final int dataCapacity() {
+		return data.length;
+	}
+
+	public final void setDataSize(int newSize) {
+		ensureCapacity(newSize);
+		size = newSize;
+		if (position > size) {
+			position = size;
+		}
+	}
+
+	public final void setDataPosition(int pos) {
+		position = pos;
+	}
+
+	public final void setDataCapacity(int capacity) {
+		if (capacity > data.length) {
+			ensureCapacity(capacity);
+		}
+	}
+
+	public final byte[] marshall() {
+		byte[] result = new byte[size];
+		System.arraycopy(data, 0, result, 0, size);
+		return result;
+	}
+
+	public final void unmarshall(byte[] bytes, int offset, int length) {
+		ensureCapacity(length);
+		System.arraycopy(bytes, offset, data, 0, length);
+		size = length;
+		position = 0;
+	}
+
+	public final void appendFrom(Parcel parcel, int offset, int length) {
+		grow(length);
+		System.arraycopy(parcel.data, offset, data, position, length);
+		advance(length);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > data.length) {
+			byte[] newData = new byte[Math.max(capacity, data.length * 2)];
+			System.arraycopy(data, 0, newData, 0, size);
+			data = newData;
+		}
+	}
+
+	/** Makes room for length bytes at the current position */
+	private void grow(int length) {
+		ensureCapacity(position + length);
+	}
+
+	private void advance(int length) {
+		position += length;
+		if (position > size) {
+			size = position;
+		}
+	}
+
+	private static int pad(int length) {
+		return (length + 3) & ~3;
+	}
+
+	public final void writeInt(int val) {
+		grow(4);
+		byte[] d = data;
+		int p = position;
+		d[p] = (byte) val;
+		d[p + 1] = (byte) (val >> 8);
+		d[p + 2] = (byte) (val >> 16);
+		d[p + 3] = (byte) (val >> 24);
+		advance(4);
+	}
+
+	public final void writeLong(long val) {
+		grow(8);
+		byte[] d = data;
+		int p = position;
+		for (int i = 0; i < 8; i++) {
+			d[p + i] = (byte) (val >> (8 * i));
+		}
+		advance(8);
+	}
+
+	public final void writeFloat(float val) {
+		writeInt(Float.floatToRawIntBits(val));
+	}
+
+	public final void writeDouble(double val) {
+		writeLong(Double.doubleToRawLongBits(val));
+	}
+
+	public final void writeByte(byte val) {
+		writeInt(val);
+	}
+
+	public final void writeString(String val) {
+		if (val == null) {
+			writeInt(-1);
+			return;
+		}
+		int length = val.length();
+		writeInt(length);
+		int bytes = pad((length + 1) * 2);
+		grow(bytes);
+		byte[] d = data;
+		int p = position;
+		for (int i = 0; i < length; i++) {
+			char c = val.charAt(i);
+			d[p++] = (byte) c;
+			d[p++] = (byte) (c >> 8);
+		}
+		// terminator and padding
+		for (int end = position + bytes; p < end; p++) {
+			d[p] = 0;
+		}
+		advance(bytes);
+	}
+
+	public final void writeByteArray(byte[] b) {
+		if (b == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(b.length);
+		int bytes = pad(b.length);
+		grow(bytes);
+		System.arraycopy(b, 0, data, position, b.length);
+		for (int p = position + b.length; p < position + bytes; p++) {
+			data[p] = 0;
+		}
+		advance(bytes);
+	}
+
+	public final void writeStringArray(String[] val) {
+		if (val == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(val.length);
+		for (String s : val) {
+			writeString(s);
+		}
+	}
+
+	public final void writeStringList(List<String> val) {
+		if (val == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(val.size());
+		for (String s : val) {
+			writeString(s);
+		}
+	}
+
+	public final void writeBundle(Bundle val) {
+		if (val == null) {
+			writeInt(-1);
+			return;
+		}
+		val.writeToParcel(this, 0);
+	}
+
+	public final void writeParcelable(Parcelable p, int parcelableFlags) {
+		if (p == null) {
+			writeString(null);
+			return;
+		}
+		writeString(p.getClass().getName());
+		p.writeToParcel(this, parcelableFlags);
+	}
+
+	public final void writeMap(Map<?, ?> val) {
+		if (val == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(val.size());
+		for (Map.Entry<?, ?> e : val.entrySet()) {
+			writeValue(e.getKey());
+			writeValue(e.getValue());
+		}
+	}
+
+	public final void writeList(List<?> val) {
+		if (val == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(val.size());
+		for (Object o : val) {
+			writeValue(o);
+		}
+	}
+
+	/**
+	 * Writes a generic value as type tag followed by the value
+	 */
+	public final void writeValue(Object v) {
+		if (v == null) {
+			writeInt(VAL_NULL);
+		} else if (v instanceof String) {
+			writeInt(VAL_STRING);
+			writeString((String) v);
+		} else if (v instanceof Integer) {
+			writeInt(VAL_INTEGER);
+			writeInt((Integer) v);
+		} else if (v instanceof Map) {
+			writeInt(VAL_MAP);
+			writeMap((Map<?, ?>) v);
+		} else if (v instanceof Bundle) {
+			writeInt(VAL_BUNDLE);
+			writeBundle((Bundle) v);
+		} else if (v instanceof Parcelable) {
+			writeInt(VAL_PARCELABLE);
+			writeParcelable((Parcelable) v, 0);
+		} else if (v instanceof Short) {
+			writeInt(VAL_SHORT);
+			writeInt(((Short) v).intValue());
+		} else if (v instanceof Long) {
+			writeInt(VAL_LONG);
+			writeLong((Long) v);
+		} else if (v instanceof Float) {
+			writeInt(VAL_FLOAT);
+			writeFloat((Float) v);
+		} else if (v instanceof Double) {
+			writeInt(VAL_DOUBLE);
+			writeDouble((Double) v);
+		} else if (v instanceof Boolean) {
+			writeInt(VAL_BOOLEAN);
+			writeInt((Boolean) v ? 1 : 0);
+		} else if (v instanceof List) {
+			writeInt(VAL_LIST);
+			writeList((List<?>) v);
+		} else if (v instanceof byte[]) {
+			writeInt(VAL_BYTEARRAY);
+			writeByteArray((byte[]) v);
+		} else if (v instanceof String[]) {
+			writeInt(VAL_STRINGARRAY);
+			writeStringArray((String[]) v);
+		} else if (v instanceof Byte) {
+			writeInt(VAL_BYTE);
+			writeInt((Byte) v);
+		} else {
+			throw new RuntimeException("Parcel: unable to marshal value " + v);
+		}
+	}
+
+	private void check(int length) {
+		if (position + length > size) {
+			throw new IllegalStateException("Parcel: read past end of data");
+		}
+	}
+
+	public final int readInt() {
+		if (position + 4 > size) {
+			// like the native Parcel, reading past the end returns 0
+			position = size;
+			return 0;
+		}
+		byte[] d = data;
+		int p = position;
+		position += 4;
+		return (d[p] & 0xff) | (d[p + 1] & 0xff) << 8
+				| (d[p + 2] & 0xff) << 16 | (d[p + 3] & 0xff) << 24;
+	}
+
+	public final long readLong() {
+		if (position + 8 > size) {
+			position = size;
+			return 0;
+		}
+		long val = 0;
+		for (int i = 7; i >= 0; i--) {
+			val = val << 8 | (data[position + i] & 0xff);
+		}
+		position += 8;
+		return val;
+	}
+
+	public final float readFloat() {
+		return Float.intBitsToFloat(readInt());
+	}
+
+	public final double readDouble() {
+		return Double.longBitsToDouble(readLong());
+	}
+
+	public final byte readByte() {
+		return (byte) readInt();
+	}
+
+	public final String readString() {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		int bytes = pad((length + 1) * 2);
+		check(bytes);
+		char[] chars = new char[length];
+		byte[] d = data;
+		int p = position;
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) ((d[p] & 0xff) | (d[p + 1] & 0xff) << 8);
+			p += 2;
+		}
+		position += bytes;
+		return new String(chars);
+	}
+
+	public final byte[] createByteArray() {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		check(pad(length));
+		byte[] b = new byte[length];
+		System.arraycopy(data, position, b, 0, length);
+		position += pad(length);
+		return b;
+	}
+
+	public final String[] createStringArray() {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] val = new String[length];
+		for (int i = 0; i < length; i++) {
+			val[i] = readString();
+		}
+		return val;
+	}
+
+	public final ArrayList<String> createStringArrayList() {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		ArrayList<String> val = new ArrayList<String>(length);
+		for (int i = 0; i < length; i++) {
+			val.add(readString());
+		}
+		return val;
+	}
+
+	public final Bundle readBundle() {
+		return readBundle(null);
+	}
+
+	public final Bundle readBundle(ClassLoader loader) {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		Bundle bundle = new Bundle(loader);
+		bundle.readFromParcel(this, length);
+		return bundle;
+	}
+
+	@SuppressWarnings("unchecked")
+	public final <T extends Parcelable> T readParcelable(ClassLoader loader) {
+		String name = readString();
+		if (name == null) {
+			return null;
+		}
+		Parcelable.Creator<?> creator = getCreator(name, loader);
+		if (creator instanceof Parcelable.ClassLoaderCreator) {
+			return (T) ((Parcelable.ClassLoaderCreator<?>) creator)
+					.createFromParcel(this, loader);
+		}
+		return (T) creator.createFromParcel(this);
+	}
+
+	private static Parcelable.Creator<?> getCreator(String name,
+			ClassLoader loader) {
+		synchronized (creators) {
+			Parcelable.Creator<?> creator = creators.get(name);
+			if (creator == null) {
+				try {
+					Class<?> c = Class.forName(name, true,
+							loader != null ? loader : Parcel.class
+									.getClassLoader());
+					Field f = c.getField("CREATOR");
+					creator = (Parcelable.Creator<?>) f.get(null);
+				} catch (Exception e) {
+					throw new RuntimeException(
+							"Parcelable protocol requires a CREATOR in " + name,
+							e);
+				}
+				creators.put(name, creator);
+			}
+			return creator;
+		}
+	}
+
+	public final HashMap readHashMap(ClassLoader loader) {
+		int n = readInt();
+		if (n < 0) {
+			return null;
+		}
+		HashMap<Object, Object> m = new HashMap<Object, Object>(n);
+		readMapInternal(m, n, loader);
+		return m;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public final void readMap(Map outVal, ClassLoader loader) {
+		readMapInternal(outVal, readInt(), loader);
+	}
+
+	void readMapInternal(Map<Object, Object> outVal, int n, ClassLoader loader) {
+		for (int i = 0; i < n; i++) {
+			Object key = readValue(loader);
+			outVal.put(key, readValue(loader));
+		}
+	}
+
+	public final ArrayList readArrayList(ClassLoader loader) {
+		int n = readInt();
+		if (n < 0) {
+			return null;
+		}
+		ArrayList<Object> l = new ArrayList<Object>(n);
+		for (int i = 0; i < n; i++) {
+			l.add(readValue(loader));
+		}
+		return l;
+	}
+
+	public final Object readValue(ClassLoader loader) {
+		int type = readInt();
+		switch (type) {
+		case VAL_NULL:
+			return null;
+		case VAL_STRING:
+			return readString();
+		case VAL_INTEGER:
+			return readInt();
+		case VAL_MAP:
+			return readHashMap(loader);
+		case VAL_BUNDLE:
+			return readBundle(loader);
+		case VAL_PARCELABLE:
+			return readParcelable(loader);
+		case VAL_SHORT:
+			return (short) readInt();
+		case VAL_LONG:
+			return readLong();
+		case VAL_FLOAT:
+			return readFloat();
+		case VAL_DOUBLE:
+			return readDouble();
+		case VAL_BOOLEAN:
+			return readInt() == 1;
+		case VAL_LIST:
+			return readArrayList(loader);
+		case VAL_BYTEARRAY:
+			return createByteArray();
+		case VAL_STRINGARRAY:
+			return createStringArray();
+		case VAL_BYTE:
+			return readByte();
+		default:
+			throw new RuntimeException("Parcel " + this
+					+ ": Unmarshalling unknown type code " + type
+					+ " at offset " + (position - 4));
+		}
+	}
+
+	/**
+	 * Writes the map of a Bundle with length and magic number
+	 */
+	void writeBundleMap(Set<Map.Entry<String, Object>> entries, int count) {
+		int lengthPos = position;
+		writeInt(-1);
+		writeInt(BUNDLE_MAGIC);
+		int start = position;
+		writeInt(count);
+		for (Map.Entry<String, Object> e : entries) {
+			writeString(e.getKey());
+			writeValue(e.getValue());
+		}
+		int end = position;
+		position = lengthPos;
+		writeInt(end - start);
+		position = end;
+	}
+
+	/**
+	 * Reads the map of a Bundle written by writeBundleMap
+	 */
+	void readBundleMap(Map<String, Object> map, int length, ClassLoader loader) {
+		int magic = readInt();
+		if (magic != BUNDLE_MAGIC) {
+			throw new IllegalStateException("Bad magic number for Bundle: 0x"
+					+ Integer.toHexString(magic));
+		}
+		int n = readInt();
+		for (int i = 0; i < n; i++) {
+			String key = readString();
+			map.put(key, readValue(loader));
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Host implementation of android.os.Parcelable
+ */
+public interface Parcelable {
+
+	public static final int PARCELABLE_WRITE_RETURN_VALUE = 0x0001;
+	public static final int CONTENTS_FILE_DESCRIPTOR = 0x0001;
+
+	public int describeContents();
+
+	public void writeToParcel(Parcel dest, int flags);
+
+	public interface Creator<T> {
+		public T createFromParcel(Parcel source);
+
+		public T[] newArray(int size);
+	}
+
+	public interface ClassLoaderCreator<T> extends Creator<T> {
+		public T createFromParcel(Parcel source, ClassLoader loader);
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Host implementation of android.os.Process. Thread priorities are mapped
+ * to Java thread priorities of the calling thread.
+ */
+public class Process {
+
+	public static final int THREAD_PRIORITY_DEFAULT = 0;
+	public static final int THREAD_PRIORITY_LOWEST = 19;
+	public static final int THREAD_PRIORITY_BACKGROUND = 10;
+	public static final int THREAD_PRIORITY_FOREGROUND = -2;
+	public static final int THREAD_PRIORITY_DISPLAY = -4;
+	public static final int THREAD_PRIORITY_URGENT_DISPLAY = -8;
+	public static final int THREAD_PRIORITY_AUDIO = -16;
+	public static final int THREAD_PRIORITY_URGENT_AUDIO = -19;
+
+	public static final int SYSTEM_UID = 1000;
+
+	public static final int myPid() {
+		return (int) ProcessHandleHolder.PID;
+	}
+
+	public static final int myUid() {
+		return SYSTEM_UID;
+	}
+
+	public static final int myTid() {
+		return (int) Thread.currentThread().getId();
+	}
+
+	public static final void setThreadPriority(int priority) {
+		// -20 .. 19 to Thread.MAX_PRIORITY .. Thread.MIN_PRIORITY
+		int javaPriority = Thread.NORM_PRIORITY - priority / 4;
+		Thread.currentThread().setPriority(
+				Math.max(Thread.MIN_PRIORITY,
+						Math.min(Thread.MAX_PRIORITY, javaPriority)));
+	}
+
+	public static final void setThreadPriority(int tid, int priority) {
+		if (tid == myTid()) {
+			setThreadPriority(priority);
+		}
+	}
+
+	/** Pid of the JVM, looked up once */
+	private static class ProcessHandleHolder {
+		static final long PID;
+		static {
+			String name = java.lang.management.ManagementFactory
+					.getRuntimeMXBean().getName();
+			long pid = 0;
+			try {
+				pid = Long.parseLong(name.substring(0, name.indexOf('@')));
+			} catch (RuntimeException e) {
+				// unknown format
+			}
+			PID = pid;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import android.locationprivacy.host.VirtualClock;
+
+/**
+ * Host implementation of android.os.SystemClock. Uptime and elapsed realtime
+ * count from class initialization, as the device counts from boot. They
+ * follow the VirtualClock once it is installed.
+ */
+public final class SystemClock {
+
+	private static final long bootNanos = System.nanoTime();
+
+	/** Longest real time a thread waits before it checks the virtual time */
+	static final long VIRTUAL_POLL_MILLIS = 5;
+
+	private SystemClock() {
+	}
+
+	public static long uptimeMillis() {
+		if (VirtualClock.isInstalled()) {
+			return VirtualClock.uptimeMillis();
+		}
+		return (System.nanoTime() - bootNanos) / 1000000;
+	}
+
+	public static long elapsedRealtime() {
+		return uptimeMillis();
+	}
+
+	public static long elapsedRealtimeNanos() {
+		if (VirtualClock.isInstalled()) {
+			return VirtualClock.uptimeMillis() * 1000000;
+		}
+		return System.nanoTime() - bootNanos;
+	}
+
+	public static long currentThreadTimeMillis() {
+		return java.lang.management.ManagementFactory.getThreadMXBean()
+				.getCurrentThreadCpuTime() / 1000000;
+	}
+
+	public static void sleep(long ms) {
+		long end = uptimeMillis() + ms;
+		boolean interrupted = false;
+		while (ms > 0) {
+			try {
+				Thread.sleep(VirtualClock.isInstalled() ? Math.min(ms,
+						VIRTUAL_POLL_MILLIS) : ms);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+			ms = end - uptimeMillis();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public static boolean setCurrentTimeMillis(long millis) {
+		return false;
+	}
+}
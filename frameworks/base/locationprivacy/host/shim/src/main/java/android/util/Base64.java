@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+/**
+ * Host implementation of android.util.Base64. Supports the flags used by
+ * the framework; the URL_SAFE alphabet is not supported.
+ */
+public class Base64 {
+
+	public static final int DEFAULT = 0;
+	public static final int NO_PADDING = 1;
+	public static final int NO_WRAP = 2;
+	public static final int CRLF = 4;
+	public static final int URL_SAFE = 8;
+	public static final int NO_CLOSE = 16;
+
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+	private static final int[] DECODE = new int[256];
+	static {
+		java.util.Arrays.fill(DECODE, -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			DECODE[ALPHABET[i]] = i;
+		}
+	}
+
+	/** Line length of the DEFAULT encoding in characters */
+	private static final int LINE_LENGTH = 76;
+
+	private Base64() {
+	}
+
+	public static byte[] encode(byte[] input, int flags) {
+		if ((flags & URL_SAFE) != 0) {
+			throw new IllegalArgumentException("URL_SAFE is not supported");
+		}
+		boolean padding = (flags & NO_PADDING) == 0;
+		boolean wrap = (flags & NO_WRAP) == 0;
+		boolean crlf = (flags & CRLF) != 0;
+		int full = input.length / 3;
+		int rest = input.length % 3;
+		int chars = full * 4 + (rest == 0 ? 0 : padding ? 4 : rest + 1);
+		int lines = wrap && chars > 0 ? (chars + LINE_LENGTH - 1) / LINE_LENGTH
+				: 0;
+		byte[] output = new byte[chars + lines * (crlf ? 2 : 1)];
+		int in = 0;
+		int out = 0;
+		int lineChars = 0;
+		for (int i = 0; i < full; i++) {
+			int bits = (input[in++] & 0xff) << 16 | (input[in++] & 0xff) << 8
+					| (input[in++] & 0xff);
+			output[out++] = (byte) ALPHABET[bits >>> 18];
+			output[out++] = (byte) ALPHABET[(bits >>> 12) & 0x3f];
+			output[out++] = (byte) ALPHABET[(bits >>> 6) & 0x3f];
+			output[out++] = (byte) ALPHABET[bits & 0x3f];
+			lineChars += 4;
+			if (wrap && lineChars == LINE_LENGTH) {
+				out = newline(output, out, crlf);
+				lineChars = 0;
+			}
+		}
+		if (rest > 0) {
+			int bits = (input[in++] & 0xff) << 16;
+			if (rest == 2) {
+				bits |= (input[in] & 0xff) << 8;
+			}
+			output[out++] = (byte) ALPHABET[bits >>> 18];
+			output[out++] = (byte) ALPHABET[(bits >>> 12) & 0x3f];
+			if (rest == 2) {
+				output[out++] = (byte) ALPHABET[(bits >>> 6) & 0x3f];
+			} else if (padding) {
+				output[out++] = '=';
+			}
+			if (padding) {
+				output[out++] = '=';
+			}
+			lineChars++;
+		}
+		if (wrap && lineChars > 0) {
+			out = newline(output, out, crlf);
+		}
+		return output;
+	}
+
+	private static int newline(byte[] output, int out, boolean crlf) {
+		if (crlf) {
+			output[out++] = '\r';
+		}
+		output[out++] = '\n';
+		return out;
+	}
+
+	public static String encodeToString(byte[] input, int flags) {
+		try {
+			return new String(encode(input, flags), "US-ASCII");
+		} catch (java.io.UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	public static byte[] decode(String str, int flags) {
+		return decode(str.getBytes(), flags);
+	}
+
+	public static byte[] decode(byte[] input, int flags) {
+		byte[] output = new byte[input.length * 3 / 4];
+		int out = 0;
+		int bits = 0;
+		int count = 0;
+		for (int i = 0; i < input.length; i++) {
+			int c = input[i] & 0xff;
+			if (c == '=') {
+				break;
+			}
+			int value = DECODE[c];
+			if (value < 0) {
+				if (c == '\n' || c == '\r' || c == ' ' || c == '\t') {
+					continue;
+				}
+				throw new IllegalArgumentException("bad base-64");
+			}
+			bits = bits << 6 | value;
+			if (++count == 4) {
+				output[out++] = (byte) (bits >> 16);
+				output[out++] = (byte) (bits >> 8);
+				output[out++] = (byte) bits;
+				bits = 0;
+				count = 0;
+			}
+		}
+		if (count == 1) {
+			throw new IllegalArgumentException("bad base-64");
+		} else if (count == 2) {
+			output[out++] = (byte) (bits >> 4);
+		} else if (count == 3) {
+			output[out++] = (byte) (bits >> 10);
+			output[out++] = (byte) (bits >> 2);
+		}
+		if (out == output.length) {
+			return output;
+		}
+		byte[] result = new byte[out];
+		System.arraycopy(output, 0, result, 0, out);
+		return result;
+	}
+}
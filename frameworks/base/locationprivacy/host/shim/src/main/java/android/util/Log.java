@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+/**
+ * Host implementation of android.util.Log. Messages are written to stderr if
+ * their priority is at least the level set with the system property
+ * "locationprivacy.log" (default WARN), so logging does not distort
+ * measurements.
+ */
+public final class Log {
+
+	public static final int VERBOSE = 2;
+	public static final int DEBUG = 3;
+	public static final int INFO = 4;
+	public static final int WARN = 5;
+	public static final int ERROR = 6;
+	public static final int ASSERT = 7;
+
+	private static final int level = parseLevel(System.getProperty(
+			"locationprivacy.log", "WARN"));
+
+	private static final String LEVELS = "??VDIWEA";
+
+	private Log() {
+	}
+
+	private static int parseLevel(String name) {
+		int index = LEVELS.indexOf(name.length() > 0 ? Character
+				.toUpperCase(name.charAt(0)) : 'W');
+		return index >= VERBOSE ? index : WARN;
+	}
+
+	public static boolean isLoggable(String tag, int priority) {
+		return priority >= level;
+	}
+
+	public static int v(String tag, String msg) {
+		return println(VERBOSE, tag, msg, null);
+	}
+
+	public static int v(String tag, String msg, Throwable tr) {
+		return println(VERBOSE, tag, msg, tr);
+	}
+
+	public static int d(String tag, String msg) {
+		return println(DEBUG, tag, msg, null);
+	}
+
+	public static int d(String tag, String msg, Throwable tr) {
+		return println(DEBUG, tag, msg, tr);
+	}
+
+	public static int i(String tag, String msg) {
+		return println(INFO, tag, msg, null);
+	}
+
+	public static int i(String tag, String msg, Throwable tr) {
+		return println(INFO, tag, msg, tr);
+	}
+
+	public static int w(String tag, String msg) {
+		return println(WARN, tag, msg, null);
+	}
+
+	public static int w(String tag, String msg, Throwable tr) {
+		return println(WARN, tag, msg, tr);
+	}
+
+	public static int w(String tag, Throwable tr) {
+		return println(WARN, tag, null, tr);
+	}
+
+	public static int e(String tag, String msg) {
+		return println(ERROR, tag, msg, null);
+	}
+
+	public static int e(String tag, String msg, Throwable tr) {
+		return println(ERROR, tag, msg, tr);
+	}
+
+	public static int wtf(String tag, String msg) {
+		return println(ASSERT, tag, msg, null);
+	}
+
+	public static int println(int priority, String tag, String msg) {
+		return println(priority, tag, msg, null);
+	}
+
+	private static int println(int priority, String tag, String msg,
+			Throwable tr) {
+		if (priority < level) {
+			return 0;
+		}
+		String line = LEVELS.charAt(priority) + "/" + tag + ": " + msg;
+		synchronized (System.err) {
+			System.err.println(line);
+			if (tr != null) {
+				tr.printStackTrace();
+			}
+		}
+		return line.length();
+	}
+}
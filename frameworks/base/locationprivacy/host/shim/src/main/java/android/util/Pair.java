@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+/**
+ * Host implementation of android.util.Pair
+ */
+public class Pair<F, S> {
+	public final F first;
+	public final S second;
+
+	public Pair(F first, S second) {
+		this.first = first;
+		this.second = second;
+	}
+
+	public static <A, B> Pair<A, B> create(A a, B b) {
+		return new Pair<A, B>(a, b);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Pair)) {
+			return false;
+		}
+		Pair<?, ?> p = (Pair<?, ?>) o;
+		return equal(p.first, first) && equal(p.second, second);
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == b || (a != null && a.equals(b));
+	}
+
+	@Override
+	public int hashCode() {
+		return (first == null ? 0 : first.hashCode())
+				^ (second == null ? 0 : second.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return "Pair{" + String.valueOf(first) + " " + String.valueOf(second)
+				+ "}";
+	}
+}
@@ -26,6 +26,7 @@ import java.util.List;
 import android.location.Address;
 import android.location.Geocoder;
 import android.location.Location;
+import android.locationprivacy.control.LocationPrivacyMetrics;
 import android.locationprivacy.model.AbstractLocationPrivacyAlgorithm;
 import android.locationprivacy.model.Coordinate;
 import android.locationprivacy.model.LocationPrivacyAlgorithmValues;
@@ -206,15 +207,20 @@ public class GeoReverseGeo extends AbstractLocationPrivacyAlgorithm {
 				location.getLatitude());
 		if (newLocation != null) {
 			Log.d(TAG, "Use cached location");
+			LocationPrivacyMetrics.increment("geocoder.cache.hit");
 			return newLocation;
 		}
+		LocationPrivacyMetrics.increment("geocoder.cache.miss");
 		String detail = configuration.getEnumChoosen("detail");
 		Geocoder geocoder = new Geocoder(context);
 		List<Address> nextAddressList = null;
+		long start = LocationPrivacyMetrics.start();
 		try {
 			nextAddressList = geocoder.getFromLocation(location.getLatitude(),
 					location.getLongitude(), 1);
+			LocationPrivacyMetrics.recordLatency("geocoder.reverse", start);
 		} catch (IOException e) {
+			LocationPrivacyMetrics.increment("geocoder.error");
 			Log.d(TAG, "Error: Could not read from Geocoder");
 			Log.d(TAG, e.getMessage());
 			return null;
@@ -223,9 +229,12 @@ public class GeoReverseGeo extends AbstractLocationPrivacyAlgorithm {
 			Address nextAddress = nextAddressList.get(0);
 			String addressString = formateAddress(nextAddress, detail);
 			List<Address> nextStreetList = null;
+			start = LocationPrivacyMetrics.start();
 			try {
 				nextStreetList = geocoder.getFromLocationName(addressString, 1);
+				LocationPrivacyMetrics.recordLatency("geocoder.forward", start);
 			} catch (IOException e) {
+				LocationPrivacyMetrics.increment("geocoder.error");
 				Log.d(TAG, "Error: Could not read from Geocoder");
 				Log.d(TAG, e.getMessage());
 				return null;
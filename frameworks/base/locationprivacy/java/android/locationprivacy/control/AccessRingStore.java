@@ -0,0 +1,534 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * The AccessRingStore keeps the hourly location access counts of every app
+ * for the last 28 days. Each app owns a fixed ring of 672 hourly slots that is
+ * indexed by epoch hour modulo the window. Old hours expire implicitly when
+ * the ring wraps, so retention needs no deletes and an update touches exactly
+ * one slot.
+ *
+ * All records are stored encrypted in one memory-mapped file, which is shared
+ * by every process using the location privacy framework. A slot is a single
+ * AES block holding epoch hour, count and a random nonce, so equal counts do
+ * not produce equal ciphertexts.
+ *
+ * Processes coordinate through file locks: writers hold an exclusive lock,
+ * readers a shared one. Records of removed apps are marked free and reused
+ * for the next new app. Removing or reusing a record increments the
+ * generation in the header, which makes other processes rebuild their index.
+ */
+public class AccessRingStore {
+
+	/** Number of hourly slots per app (28 days) */
+	public static final int SLOTS = 28 * 24;
+
+	/** Milliseconds of one slot */
+	public static final long MILLIS_PER_HOUR = 60L * 60L * 1000L;
+
+	/** File magic "LPAR" */
+	private static final int MAGIC = 0x4c504152;
+	private static final int VERSION = 2;
+
+	private static final int BLOCK_SIZE = 16;
+	/** magic, version, slots, record count, generation */
+	private static final int HEADER_SIZE = 2 * BLOCK_SIZE;
+	private static final int RECORD_COUNT_OFFSET = 12;
+	private static final int GENERATION_OFFSET = 16;
+	/**
+	 * Encrypted package name: 2 bytes length, UTF-8 bytes, zero padding. A
+	 * free record has an empty name.
+	 */
+	private static final int NAME_SIZE = 256;
+	/** Record: IV of the name, name, slots */
+	private static final int SLOT_OFFSET = BLOCK_SIZE + NAME_SIZE;
+	private static final int RECORD_SIZE = SLOT_OFFSET + SLOTS * BLOCK_SIZE;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	/** Number of records the current mapping can hold */
+	private int capacity;
+	/** Number of records already read into the index */
+	private int knownRecords;
+	/** Generation the index was read at */
+	private int knownGeneration;
+	/** true if the file did not exist before or had an older layout */
+	private final boolean created;
+
+	/** Maps packagenames to record numbers */
+	private final HashMap<String, Integer> index = new HashMap<String, Integer>();
+	/** Records of removed apps */
+	private final ArrayList<Integer> freeRecords = new ArrayList<Integer>();
+
+	private final SecretKey key;
+	private final Cipher slotEncrypt;
+	private final Cipher slotDecrypt;
+	private final Random nonces;
+	private final byte[] plain = new byte[BLOCK_SIZE];
+	private final byte[] cipher = new byte[BLOCK_SIZE];
+
+	/** Hour of the slot read last by readSlot */
+	private int slotHour;
+	/** Count of the slot read last by readSlot */
+	private int slotCount;
+
+	/**
+	 * Opens or creates an AccessRingStore
+	 *
+	 * @param path
+	 *            file the store is kept in
+	 * @param key
+	 *            AES key records are encrypted with
+	 * @throws IOException
+	 *             if the file cannot be opened or is not a ring store
+	 */
+	public AccessRingStore(File path, SecretKey key) throws IOException {
+		this.key = key;
+		try {
+			slotEncrypt = Cipher.getInstance("AES/ECB/NoPadding");
+			slotEncrypt.init(Cipher.ENCRYPT_MODE, key);
+			slotDecrypt = Cipher.getInstance("AES/ECB/NoPadding");
+			slotDecrypt.init(Cipher.DECRYPT_MODE, key);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		nonces = new Random(new SecureRandom().nextLong());
+
+		file = new RandomAccessFile(path, "rw");
+		channel = file.getChannel();
+		FileLock lock = channel.lock();
+		try {
+			boolean create = file.length() < HEADER_SIZE;
+			if (!create) {
+				map();
+				if (buffer.getInt(0) != MAGIC || buffer.getInt(8) != SLOTS) {
+					throw new IOException("Not an access ring store: " + path);
+				}
+				// older layouts are rebuilt from the database
+				create = buffer.getInt(4) != VERSION;
+			}
+			if (create) {
+				file.setLength(0);
+				file.setLength(HEADER_SIZE + (long) INITIAL_CAPACITY
+						* RECORD_SIZE);
+				map();
+				buffer.putInt(0, MAGIC);
+				buffer.putInt(4, VERSION);
+				buffer.putInt(8, SLOTS);
+				buffer.putInt(RECORD_COUNT_OFFSET, 0);
+				buffer.putInt(GENERATION_OFFSET, 0);
+			}
+			created = create;
+		} finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Converts a point in time to its epoch hour
+	 *
+	 * @param timeMillis
+	 *            milliseconds since epoch
+	 * @return hours since epoch
+	 */
+	public static long toEpochHour(long timeMillis) {
+		return timeMillis / MILLIS_PER_HOUR;
+	}
+
+	/**
+	 * Returns true if the store file was created by this instance. Callers use
+	 * it to import existing data exactly once.
+	 */
+	public boolean isCreated() {
+		return created;
+	}
+
+	/**
+	 * Counts one location access of an app
+	 *
+	 * @param packagename
+	 *            packagename of the app
+	 * @param timeMillis
+	 *            time of the access
+	 */
+	public synchronized void increment(String packagename, long timeMillis) {
+		add(packagename, toEpochHour(timeMillis), 1);
+	}
+
+	/**
+	 * Adds location accesses of an app to an hour. An hour replaces an older
+	 * hour sharing its slot and is dropped if the slot holds a newer one.
+	 *
+	 * @param packagename
+	 *            packagename of the app
+	 * @param epochHour
+	 *            hour since epoch
+	 * @param count
+	 *            number of accesses
+	 */
+	public synchronized void add(String packagename, long epochHour, int count) {
+		FileLock lock = lock(false);
+		try {
+			int record = findRecord(packagename, true);
+			if (record < 0) {
+				return;
+			}
+			int position = slotPosition(record, epochHour);
+			readSlot(position);
+			if (slotHour > epochHour) {
+				return;
+			}
+			int current = slotHour == epochHour ? slotCount : 0;
+			writeSlot(position, (int) epochHour, current + count);
+		} finally {
+			release(lock);
+		}
+	}
+
+	/**
+	 * Returns the hourly access counts of an app for the last 28 days
+	 *
+	 * @param packagename
+	 *            packagename of the app
+	 * @param nowMillis
+	 *            current time
+	 * @return counts, index 0 is the oldest hour, the last index the current
+	 *         hour
+	 */
+	public synchronized int[] getHourlyCounts(String packagename,
+			long nowMillis) {
+		int[] counts = new int[SLOTS];
+		FileLock lock = lock(true);
+		try {
+			int record = findRecord(packagename, false);
+			if (record < 0) {
+				return counts;
+			}
+			long first = toEpochHour(nowMillis) - SLOTS + 1;
+			for (int i = 0; i < SLOTS; i++) {
+				long hour = first + i;
+				readSlot(slotPosition(record, hour));
+				if (slotHour == hour) {
+					counts[i] = slotCount;
+				}
+			}
+			return counts;
+		} finally {
+			release(lock);
+		}
+	}
+
+	/**
+	 * Removes all counts of an app and frees its record
+	 *
+	 * @param packagename
+	 *            packagename of the app
+	 */
+	public synchronized void remove(String packagename) {
+		FileLock lock = lock(false);
+		try {
+			syncIndex();
+			Integer record = index.remove(packagename);
+			if (record == null) {
+				return;
+			}
+			clearSlots(record);
+			writeName(record, "");
+			freeRecords.add(record);
+			nextGeneration();
+		} finally {
+			release(lock);
+		}
+	}
+
+	/**
+	 * Removes all counts of all apps
+	 */
+	public synchronized void clear() {
+		FileLock lock = lock(false);
+		try {
+			syncIndex();
+			for (int record = 0; record < knownRecords; record++) {
+				clearSlots(record);
+			}
+		} finally {
+			release(lock);
+		}
+	}
+
+	/**
+	 * Writes changes to storage and closes the file
+	 */
+	public synchronized void close() {
+		buffer.force();
+		try {
+			file.close();
+		} catch (IOException e) {
+			// nothing left to release
+		}
+	}
+
+	private void clearSlots(int record) {
+		int position = recordPosition(record) + SLOT_OFFSET;
+		for (int i = 0; i < SLOTS; i++) {
+			writeSlot(position + i * BLOCK_SIZE, -1, 0);
+		}
+	}
+
+	/**
+	 * Returns the record of an app. The caller holds the file lock, exclusive
+	 * if create is true.
+	 *
+	 * @param packagename
+	 *            packagename of the app
+	 * @param create
+	 *            reuses a free record or appends a new one if the app is
+	 *            unknown
+	 * @return record number, -1 if unknown
+	 */
+	private int findRecord(String packagename, boolean create) {
+		syncIndex();
+		Integer record = index.get(packagename);
+		if (record != null) {
+			return record;
+		}
+		if (!create || encodeName(packagename) == null) {
+			return -1;
+		}
+		int free = freeRecords.size();
+		if (free > 0) {
+			record = freeRecords.remove(free - 1);
+			writeName(record, packagename);
+			nextGeneration();
+		} else {
+			record = knownRecords;
+			try {
+				ensureCapacity(record + 1);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			writeName(record, packagename);
+			clearSlots(record);
+			buffer.putInt(RECORD_COUNT_OFFSET, record + 1);
+			knownRecords = record + 1;
+		}
+		index.put(packagename, record);
+		return record;
+	}
+
+	/**
+	 * Reads records appended since the last call into the index. Rebuilds the
+	 * index if another process removed or reused a record.
+	 */
+	private void syncIndex() {
+		int generation = buffer.getInt(GENERATION_OFFSET);
+		if (generation != knownGeneration) {
+			index.clear();
+			freeRecords.clear();
+			knownRecords = 0;
+			knownGeneration = generation;
+		}
+		int count = buffer.getInt(RECORD_COUNT_OFFSET);
+		if (count > capacity) {
+			try {
+				map();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		for (int record = knownRecords; record < count; record++) {
+			String name = readName(record);
+			if (name == null) {
+				continue;
+			}
+			if (name.length() == 0) {
+				freeRecords.add(record);
+			} else {
+				index.put(name, record);
+			}
+		}
+		knownRecords = Math.max(knownRecords, count);
+	}
+
+	/**
+	 * Marks a change of record ownership. The caller holds the exclusive file
+	 * lock and an index that is in sync.
+	 */
+	private void nextGeneration() {
+		knownGeneration++;
+		buffer.putInt(GENERATION_OFFSET, knownGeneration);
+	}
+
+	private FileLock lock(boolean shared) {
+		try {
+			return channel.lock(0L, Long.MAX_VALUE, shared);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void release(FileLock lock) {
+		try {
+			lock.release();
+		} catch (IOException e) {
+			// released when the channel closes
+		}
+	}
+
+	private void ensureCapacity(int records) throws IOException {
+		if (records <= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(capacity * 2, records);
+		file.setLength(HEADER_SIZE + (long) newCapacity * RECORD_SIZE);
+		map();
+	}
+
+	private void map() throws IOException {
+		capacity = (int) ((file.length() - HEADER_SIZE) / RECORD_SIZE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE
+				+ (long) capacity * RECORD_SIZE);
+	}
+
+	private int recordPosition(int record) {
+		return HEADER_SIZE + record * RECORD_SIZE;
+	}
+
+	private int slotPosition(int record, long epochHour) {
+		return recordPosition(record) + SLOT_OFFSET
+				+ (int) (epochHour % SLOTS) * BLOCK_SIZE;
+	}
+
+	/**
+	 * Decrypts a slot into slotHour and slotCount
+	 */
+	private void readSlot(int position) {
+		buffer.position(position);
+		buffer.get(cipher);
+		try {
+			slotDecrypt.doFinal(cipher, 0, BLOCK_SIZE, plain, 0);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		slotHour = getInt(plain, 0);
+		slotCount = getInt(plain, 4);
+	}
+
+	/**
+	 * Encrypts hour and count with a fresh nonce into a slot
+	 */
+	private void writeSlot(int position, int hour, int count) {
+		putInt(plain, 0, hour);
+		putInt(plain, 4, count);
+		long nonce = nonces.nextLong();
+		putInt(plain, 8, (int) (nonce >>> 32));
+		putInt(plain, 12, (int) nonce);
+		try {
+			slotEncrypt.doFinal(plain, 0, BLOCK_SIZE, cipher, 0);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		buffer.position(position);
+		buffer.put(cipher);
+	}
+
+	private byte[] encodeName(String packagename) {
+		byte[] bytes;
+		try {
+			bytes = packagename.getBytes(CryptoDatabase.UTF8);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (bytes.length > NAME_SIZE - 2) {
+			return null;
+		}
+		byte[] name = new byte[NAME_SIZE];
+		name[0] = (byte) (bytes.length >> 8);
+		name[1] = (byte) bytes.length;
+		System.arraycopy(bytes, 0, name, 2, bytes.length);
+		return name;
+	}
+
+	private void writeName(int record, String packagename) {
+		byte[] iv = new byte[BLOCK_SIZE];
+		nonces.nextBytes(iv);
+		byte[] encrypted;
+		try {
+			Cipher nameCipher = Cipher.getInstance("AES/CBC/NoPadding");
+			nameCipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+			encrypted = nameCipher.doFinal(encodeName(packagename));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		buffer.position(recordPosition(record));
+		buffer.put(iv);
+		buffer.put(encrypted);
+	}
+
+	private String readName(int record) {
+		byte[] iv = new byte[BLOCK_SIZE];
+		byte[] encrypted = new byte[NAME_SIZE];
+		buffer.position(recordPosition(record));
+		buffer.get(iv);
+		buffer.get(encrypted);
+		try {
+			Cipher nameCipher = Cipher.getInstance("AES/CBC/NoPadding");
+			nameCipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+			byte[] name = nameCipher.doFinal(encrypted);
+			int length = ((name[0] & 0xff) << 8) | (name[1] & 0xff);
+			if (length > NAME_SIZE - 2) {
+				return null;
+			}
+			return new String(name, 2, length, CryptoDatabase.UTF8);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static int getInt(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xff) << 24)
+				| ((bytes[offset + 1] & 0xff) << 16)
+				| ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+	}
+
+	private static void putInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.locationprivacy.control.LocationPrivacyContract.Applications;
+import android.locationprivacy.control.LocationPrivacyContract.Statistics;
+import android.os.Process;
+import android.util.Log;
+
+/**
+ * The AccessStatisticWriter updates the location access statistics on one
+ * background thread. Accesses are queued and written in batches, so a burst
+ * of location fixes results in one transaction instead of one thread and
+ * several transactions per fix. Newly seen apps are stored by the same
+ * thread.
+ */
+class AccessStatisticWriter implements Runnable {
+
+	private static final String TAG = "LPStatisticWriter";
+
+	/** Time accesses are collected before they are written */
+	private static final long FLUSH_DELAY_MILLIS = 1000;
+
+	private static class Access {
+		/** true if the app has to be registered, no access */
+		boolean register;
+		String packagename;
+		int deviation;
+		int config;
+		boolean online;
+		long time;
+	}
+
+	private final CryptoDatabase database;
+	private final AccessRingStore accessStore;
+	private final ContentResolver resolver;
+	private final LinkedBlockingQueue<Access> queue = new LinkedBlockingQueue<Access>();
+	/** Registered apps that are not stored yet */
+	private final LinkedHashSet<String> pendingApplications = new LinkedHashSet<String>();
+
+	/**
+	 * Creates new AccessStatisticWriter and starts its thread
+	 *
+	 * @param database
+	 *            location privacy database
+	 * @param accessStore
+	 *            hourly access store, may be null
+	 * @param resolver
+	 *            resolver used to notify observers of the statistics
+	 */
+	AccessStatisticWriter(CryptoDatabase database,
+			AccessRingStore accessStore, ContentResolver resolver) {
+		this(database, accessStore, resolver, true);
+	}
+
+	/**
+	 * Creates new AccessStatisticWriter
+	 *
+	 * @param database
+	 *            location privacy database
+	 * @param accessStore
+	 *            hourly access store, may be null
+	 * @param resolver
+	 *            resolver used to notify observers of the statistics
+	 * @param background
+	 *            if false, no thread is started and queued accesses are
+	 *            written by flush()
+	 */
+	AccessStatisticWriter(CryptoDatabase database,
+			AccessRingStore accessStore, ContentResolver resolver,
+			boolean background) {
+		this.database = database;
+		this.accessStore = accessStore;
+		this.resolver = resolver;
+		if (background) {
+			Thread thread = new Thread(this, TAG);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Queues one location access
+	 *
+	 * @param packagename
+	 *            app that accessed the location
+	 * @param deviation
+	 *            distance between real and obfuscated location, -1 if unknown
+	 * @param config
+	 *            preset configuration of the app
+	 * @param online
+	 *            true if the online algorithm was used
+	 */
+	void record(String packagename, int deviation, int config, boolean online) {
+		record(packagename, deviation, config, online,
+				LocationPrivacyClock.currentTimeMillis());
+	}
+
+	/**
+	 * Queues one location access at the given time
+	 *
+	 * @param time
+	 *            time of the access in ms since epoch
+	 */
+	void record(String packagename, int deviation, int config,
+			boolean online, long time) {
+		Access access = new Access();
+		access.packagename = packagename;
+		access.deviation = deviation;
+		access.config = config;
+		access.online = online;
+		access.time = time;
+		queue.offer(access);
+		LocationPrivacyMetrics.setGauge("statistics.queue", queue.size());
+	}
+
+	/**
+	 * Queues an app to be stored as unconfigured app
+	 *
+	 * @param packagename
+	 *            newly seen app
+	 */
+	void register(String packagename) {
+		synchronized (pendingApplications) {
+			if (!pendingApplications.add(packagename)) {
+				return;
+			}
+		}
+		Access access = new Access();
+		access.register = true;
+		access.packagename = packagename;
+		access.time = LocationPrivacyClock.currentTimeMillis();
+		queue.offer(access);
+	}
+
+	/**
+	 * Returns the registered apps that are not stored yet
+	 */
+	List<String> getPendingApplications() {
+		synchronized (pendingApplications) {
+			return new ArrayList<String>(pendingApplications);
+		}
+	}
+
+	/**
+	 * Number of accesses waiting to be written
+	 */
+	int getQueueSize() {
+		return queue.size();
+	}
+
+	public void run() {
+		Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+		ArrayList<Access> batch = new ArrayList<Access>();
+		while (true) {
+			try {
+				batch.add(queue.take());
+				Thread.sleep(FLUSH_DELAY_MILLIS);
+				queue.drainTo(batch);
+				writeBatch(batch);
+			} catch (InterruptedException e) {
+				return;
+			} catch (Exception e) {
+				Log.e(TAG, "Could not write access statistic", e);
+				// allow failed registrations to be queued again
+				synchronized (pendingApplications) {
+					for (Access access : batch) {
+						pendingApplications.remove(access.packagename);
+					}
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Writes all queued accesses on the calling thread
+	 */
+	void flush() {
+		ArrayList<Access> batch = new ArrayList<Access>();
+		queue.drainTo(batch);
+		if (!batch.isEmpty()) {
+			writeBatch(batch);
+		}
+	}
+
+	private synchronized void writeBatch(List<Access> batch) {
+		LocationPrivacyMetrics.setGauge("statistics.queue", 0);
+		long start = LocationPrivacyMetrics.start();
+		boolean added;
+		// all tables or none, the batch is dropped if the write fails
+		database.beginTransaction();
+		try {
+			added = writeApplications(batch);
+			write(batch);
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+		LocationPrivacyMetrics.recordLatency("statistics.write", start);
+		// the hourly store must not count accesses missing in the database
+		if (accessStore != null) {
+			for (Access access : batch) {
+				if (!access.register) {
+					accessStore.increment(access.packagename, access.time);
+				}
+			}
+		}
+		if (added) {
+			resolver.notifyChange(Applications.CONTENT_URI, null, false);
+		}
+		// observers of single apps only see changes of their app
+		LinkedHashSet<String> changed = new LinkedHashSet<String>();
+		for (Access access : batch) {
+			if (!access.register) {
+				changed.add(access.packagename);
+			}
+		}
+		for (String packagename : changed) {
+			resolver.notifyChange(Statistics.getContentUri(packagename), null,
+					false);
+		}
+	}
+
+	private void write(List<Access> batch) {
+		// per hour: packagename, day, month, year, hour -> count
+		HashMap<List<String>, Integer> hourly = new HashMap<List<String>, Integer>();
+		// per app: deviation sum and count
+		HashMap<String, int[]> deviations = new HashMap<String, int[]>();
+		// per app: time of last access
+		HashMap<String, Long> lastAccess = new HashMap<String, Long>();
+		// per config: deviation sum and count of online accesses
+		HashMap<Integer, int[]> offline = new HashMap<Integer, int[]>();
+
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		for (Access access : batch) {
+			if (access.register) {
+				continue;
+			}
+			date.setTimeInMillis(access.time);
+			List<String> hour = new ArrayList<String>(5);
+			hour.add(access.packagename);
+			hour.add("" + date.get(Calendar.DAY_OF_MONTH));
+			hour.add("" + date.get(Calendar.MONTH));
+			hour.add("" + date.get(Calendar.YEAR));
+			hour.add("" + date.get(Calendar.HOUR_OF_DAY));
+			Integer count = hourly.get(hour);
+			hourly.put(hour, count == null ? 1 : count + 1);
+
+			if (access.deviation >= 0) {
+				add(deviations, access.packagename, access.deviation);
+			}
+			Long last = lastAccess.get(access.packagename);
+			if (last == null || last < access.time) {
+				lastAccess.put(access.packagename, access.time);
+			}
+			if (access.online) {
+				add(offline, access.config, access.deviation);
+			}
+		}
+
+		writeAccessCounts(hourly);
+		writeDeviations(deviations);
+		writeLastAccess(lastAccess, date);
+		writeOfflineParameter(offline);
+	}
+
+	/**
+	 * Stores the apps registered in batch, each with its registration time as
+	 * last access
+	 *
+	 * @return true if an app has been stored
+	 */
+	private boolean writeApplications(List<Access> batch) {
+		List<ContentValues> inserts = new ArrayList<ContentValues>();
+		List<ContentValues> lastAccess = new ArrayList<ContentValues>();
+		List<String> registered = new ArrayList<String>();
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		for (Access access : batch) {
+			if (!access.register) {
+				continue;
+			}
+			registered.add(access.packagename);
+			Cursor c = database.query("APPLICATION",
+					new String[] { "packagename" }, "packagename = ?",
+					new String[] { access.packagename }, null, null, null);
+			boolean exists = c.getCount() > 0;
+			c.close();
+			if (!exists) {
+				ContentValues values = new ContentValues();
+				values.put("packagename", access.packagename);
+				values.put("config", -1);
+				inserts.add(values);
+
+				c = database.query("LASTACCESS",
+						new String[] { "packagename" }, "packagename = ?",
+						new String[] { access.packagename }, null, null, null);
+				if (c.getCount() == 0) {
+					date.setTimeInMillis(access.time);
+					lastAccess.add(lastAccessValues(access.packagename, date));
+				}
+				c.close();
+			}
+		}
+		database.insertAll("APPLICATION", inserts);
+		// getLastAccess expects a row for every app
+		database.insertAll("LASTACCESS", lastAccess);
+		synchronized (pendingApplications) {
+			pendingApplications.removeAll(registered);
+		}
+		return !inserts.isEmpty();
+	}
+
+	private static <K> void add(HashMap<K, int[]> sums, K key, int value) {
+		int[] sum = sums.get(key);
+		if (sum == null) {
+			sum = new int[2];
+			sums.put(key, sum);
+		}
+		sum[0] += value;
+		sum[1]++;
+	}
+
+	private void writeAccessCounts(HashMap<List<String>, Integer> hourly) {
+		String where = "packagename = ? AND day = ? AND month = ? AND year = ? AND hour = ?";
+		List<ContentValues> inserts = new ArrayList<ContentValues>();
+		List<ContentValues> updates = new ArrayList<ContentValues>();
+		List<String[]> updateArgs = new ArrayList<String[]>();
+		for (Map.Entry<List<String>, Integer> entry : hourly.entrySet()) {
+			String[] args = entry.getKey().toArray(new String[5]);
+			Cursor c = database.query("STATISTICACCESS",
+					new String[] { "count" }, where, args, null, null, null);
+			c.moveToFirst();
+			ContentValues values = new ContentValues();
+			if (c.isAfterLast()) {
+				values.put("packagename", args[0]);
+				values.put("day", args[1]);
+				values.put("month", args[2]);
+				values.put("year", args[3]);
+				values.put("hour", args[4]);
+				values.put("count", entry.getValue());
+				inserts.add(values);
+			} else {
+				values.put("count", c.getInt(0) + entry.getValue());
+				updates.add(values);
+				updateArgs.add(args);
+			}
+			c.close();
+		}
+		database.insertAll("STATISTICACCESS", inserts);
+		database.updateAll("STATISTICACCESS", updates, where, updateArgs);
+	}
+
+	private void writeDeviations(HashMap<String, int[]> deviations) {
+		List<ContentValues> inserts = new ArrayList<ContentValues>();
+		List<ContentValues> updates = new ArrayList<ContentValues>();
+		List<String[]> updateArgs = new ArrayList<String[]>();
+		for (Map.Entry<String, int[]> entry : deviations.entrySet()) {
+			String[] args = new String[] { entry.getKey() };
+			int[] sum = entry.getValue();
+			Cursor c = database.query("STATISTICDEVIATION", new String[] {
+					"deviationsum", "count" }, "packagename = ?", args, null,
+					null, null);
+			c.moveToFirst();
+			ContentValues values = new ContentValues();
+			if (c.isAfterLast()) {
+				values.put("packagename", entry.getKey());
+				values.put("deviationsum", sum[0]);
+				values.put("count", sum[1]);
+				inserts.add(values);
+			} else {
+				values.put("deviationsum", c.getDouble(0) + sum[0]);
+				values.put("count", c.getInt(1) + sum[1]);
+				updates.add(values);
+				updateArgs.add(args);
+			}
+			c.close();
+		}
+		database.insertAll("STATISTICDEVIATION", inserts);
+		database.updateAll("STATISTICDEVIATION", updates, "packagename = ?",
+				updateArgs);
+	}
+
+	private void writeLastAccess(HashMap<String, Long> lastAccess,
+			Calendar date) {
+		List<ContentValues> inserts = new ArrayList<ContentValues>();
+		List<ContentValues> updates = new ArrayList<ContentValues>();
+		List<String[]> updateArgs = new ArrayList<String[]>();
+		for (Map.Entry<String, Long> entry : lastAccess.entrySet()) {
+			String[] args = new String[] { entry.getKey() };
+			Cursor c = database.query("LASTACCESS",
+					new String[] { "packagename" }, "packagename = ?", args,
+					null, null, null);
+			boolean exists = c.getCount() > 0;
+			c.close();
+
+			date.setTimeInMillis(entry.getValue());
+			ContentValues values = lastAccessValues(entry.getKey(), date);
+			if (exists) {
+				updates.add(values);
+				updateArgs.add(args);
+			} else {
+				inserts.add(values);
+			}
+		}
+		database.insertAll("LASTACCESS", inserts);
+		database.updateAll("LASTACCESS", updates, "packagename = ?",
+				updateArgs);
+	}
+
+	private static ContentValues lastAccessValues(String packagename,
+			Calendar date) {
+		ContentValues values = new ContentValues();
+		values.put("day", date.get(Calendar.DAY_OF_MONTH));
+		values.put("month", date.get(Calendar.MONTH));
+		values.put("year", date.get(Calendar.YEAR));
+		values.put("hour", date.get(Calendar.HOUR_OF_DAY));
+		values.put("minute", date.get(Calendar.MINUTE));
+		values.put("packagename", packagename);
+		return values;
+	}
+
+	private void writeOfflineParameter(HashMap<Integer, int[]> offline) {
+		List<ContentValues> inserts = new ArrayList<ContentValues>();
+		List<ContentValues> updates = new ArrayList<ContentValues>();
+		List<String[]> updateArgs = new ArrayList<String[]>();
+		for (Map.Entry<Integer, int[]> entry : offline.entrySet()) {
+			String[] args = new String[] { "" + entry.getKey() };
+			int[] sum = entry.getValue();
+			Cursor c = database.query("OFFLINEPARAMETER", new String[] {
+					"sum", "count" }, "config = ?", args, null, null, null);
+			c.moveToFirst();
+			ContentValues values = new ContentValues();
+			if (c.isAfterLast()) {
+				values.put("config", entry.getKey());
+				values.put("sum", sum[0]);
+				values.put("count", sum[1]);
+				inserts.add(values);
+			} else {
+				values.put("sum", c.getInt(0) + sum[0]);
+				values.put("count", c.getInt(1) + sum[1]);
+				updates.add(values);
+				updateArgs.add(args);
+			}
+			c.close();
+		}
+		database.insertAll("OFFLINEPARAMETER", inserts);
+		database.updateAll("OFFLINEPARAMETER", updates, "config = ?",
+				updateArgs);
+	}
+}
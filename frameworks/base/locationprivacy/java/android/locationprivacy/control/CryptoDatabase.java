@@ -18,16 +18,21 @@
 
 package android.locationprivacy.control;
 
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 
 import android.content.ContentResolver;
 import android.content.ContentValues;
@@ -38,12 +43,14 @@ import android.database.Cursor;
 import android.database.DataSetObserver;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.location.Location;
 import android.locationprivacy.model.AbstractLocationPrivacyAlgorithm;
 import android.locationprivacy.model.Coordinate;
 import android.locationprivacy.model.LocationPrivacyAlgorithmValues;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Base64;
 
 /**
@@ -65,6 +72,22 @@ public class CryptoDatabase {
 
 	/** The context. */
 	private Context context;
+
+	/** Duration of the key derivation in ms */
+	private long keyDerivationMillis;
+
+	/** Duration of opening the database in ms */
+	private long openMillis;
+
+	/** Compiled statements of the batch methods, by SQL */
+	private HashMap<String, SQLiteStatement> statements = new HashMap<String, SQLiteStatement>();
+
+	/**
+	 * Guards the compiled statements. It is held for the whole transaction
+	 * and always taken before the database lock, so batch methods called
+	 * inside and outside of transactions cannot deadlock.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
 	
 
 	/**
@@ -82,10 +105,14 @@ public class CryptoDatabase {
 	public CryptoDatabase(String password, String salt, int iterationCount,
 			Context context) {
 		super();
+		long start = SystemClock.uptimeMillis();
 		this.key = generateKey(password, salt, iterationCount);
+		keyDerivationMillis = SystemClock.uptimeMillis() - start;
 		this.context = context;
+		start = SystemClock.uptimeMillis();
 		CryptoOpenHelper helper = new CryptoOpenHelper(context);
 		database = helper.getWritableDatabase();
+		openMillis = SystemClock.uptimeMillis() - start;
 	}
 
 	/**
@@ -93,6 +120,7 @@ public class CryptoDatabase {
 	 *      ContentValues) Entries of ContentValues are encrypted
 	 */
 	public long insert(String table, String nullColumnHack, ContentValues values) {
+		LocationPrivacyMetrics.add("db.write.", table, 1);
 		return database.insert(table, nullColumnHack,
 				encryptContentValues(values));
 	}
@@ -102,9 +130,24 @@ public class CryptoDatabase {
 	 *      String[])
 	 */
 	public int delete(String table, String whereClause, String[] whereArgs) {
+		LocationPrivacyMetrics.add("db.write.", table, 1);
 		return database.delete(table, whereClause, encryptArgs(whereArgs));
 	}
 	
+	/**
+	 * Returns the duration of the key derivation in ms
+	 */
+	long getKeyDerivationMillis() {
+		return keyDerivationMillis;
+	}
+
+	/**
+	 * Returns the duration of opening the database in ms
+	 */
+	long getOpenMillis() {
+		return openMillis;
+	}
+
 	public int getVersion(){
 		return database.getVersion();
 	}
@@ -115,6 +158,7 @@ public class CryptoDatabase {
 	 */
 	public int update(String table, ContentValues values, String whereClause,
 			String[] whereArgs) {
+		LocationPrivacyMetrics.add("db.write.", table, 1);
 		return database.update(table, encryptContentValues(values),
 				whereClause, encryptArgs(whereArgs));
 	}
@@ -127,23 +171,185 @@ public class CryptoDatabase {
 			String[] selectionArgs, String groupBy, String having,
 			String orderBy) {
 		// groupBy, having and orderBy are not meaningful on encrypted values
+		long start = LocationPrivacyMetrics.start();
 		Cursor cursor = database.query(table, columns, selection,
 				encryptArgs(selectionArgs), null, null, null);
+		if (start != 0) {
+			// the query runs when the cursor is filled for the first time
+			cursor.getCount();
+			LocationPrivacyMetrics.recordLatency("db.query.", table, start);
+		}
 		return new CryptoCursor(cursor);
 	}
 
+	/**
+	 * Inserts all rows in one transaction. Values are encrypted before the
+	 * transaction starts, and rows with the same columns share one compiled
+	 * statement.
+	 * 
+	 * @param table
+	 *            table to insert the rows into
+	 * @param rows
+	 *            rows to insert
+	 * @return number of inserted rows
+	 */
+	public int insertAll(String table, List<ContentValues> rows) {
+		int size = rows.size();
+		LocationPrivacyMetrics.add("db.write.", table, size);
+		String[] sql = new String[size];
+		String[][] args = new String[size][];
+		Cipher cipher = createCipher(Cipher.ENCRYPT_MODE);
+		for (int i = 0; i < size; i++) {
+			ContentValues values = rows.get(i);
+			String[] columns = columns(values);
+			StringBuilder builder = new StringBuilder("INSERT INTO ");
+			builder.append(table).append('(');
+			for (int j = 0; j < columns.length; j++) {
+				builder.append(j == 0 ? "" : ",").append(columns[j]);
+			}
+			builder.append(") VALUES (");
+			for (int j = 0; j < columns.length; j++) {
+				builder.append(j == 0 ? "?" : ",?");
+			}
+			sql[i] = builder.append(')').toString();
+			args[i] = encryptValues(cipher, values, columns, null);
+		}
+
+		int inserted = 0;
+		beginTransaction();
+		try {
+			for (int i = 0; i < size; i++) {
+				if (bind(sql[i], args[i]).executeInsert() != -1) {
+					inserted++;
+				}
+			}
+			setTransactionSuccessful();
+		} finally {
+			endTransaction();
+		}
+		return inserted;
+	}
+
+	/**
+	 * Updates rows in one transaction. Row i is updated with values.get(i)
+	 * and the where arguments whereArgs.get(i).
+	 * 
+	 * @param table
+	 *            table to update
+	 * @param values
+	 *            new values per update
+	 * @param whereClause
+	 *            where clause shared by all updates
+	 * @param whereArgs
+	 *            where arguments per update, may be null
+	 * @return number of updated rows
+	 */
+	public int updateAll(String table, List<ContentValues> values,
+			String whereClause, List<String[]> whereArgs) {
+		int size = values.size();
+		LocationPrivacyMetrics.add("db.write.", table, size);
+		String[] sql = new String[size];
+		String[][] args = new String[size][];
+		Cipher cipher = createCipher(Cipher.ENCRYPT_MODE);
+		for (int i = 0; i < size; i++) {
+			String[] columns = columns(values.get(i));
+			StringBuilder builder = new StringBuilder("UPDATE ");
+			builder.append(table).append(" SET ");
+			for (int j = 0; j < columns.length; j++) {
+				builder.append(j == 0 ? "" : ", ").append(columns[j])
+						.append(" = ?");
+			}
+			if (whereClause != null) {
+				builder.append(" WHERE ").append(whereClause);
+			}
+			sql[i] = builder.toString();
+			args[i] = encryptValues(cipher, values.get(i), columns,
+					whereArgs != null ? whereArgs.get(i) : null);
+		}
+
+		int updated = 0;
+		beginTransaction();
+		try {
+			for (int i = 0; i < size; i++) {
+				updated += bind(sql[i], args[i]).executeUpdateDelete();
+			}
+			setTransactionSuccessful();
+		} finally {
+			endTransaction();
+		}
+		return updated;
+	}
+
+	/**
+	 * Executes one delete per entry of whereArgs in one transaction.
+	 * 
+	 * @param table
+	 *            table to delete from
+	 * @param whereClause
+	 *            where clause shared by all deletes
+	 * @param whereArgs
+	 *            where arguments per delete
+	 * @return number of deleted rows
+	 */
+	public int deleteAll(String table, String whereClause,
+			List<String[]> whereArgs) {
+		String sql = "DELETE FROM " + table
+				+ (whereClause != null ? " WHERE " + whereClause : "");
+		int size = whereArgs.size();
+		LocationPrivacyMetrics.add("db.write.", table, size);
+		String[][] args = new String[size][];
+		Cipher cipher = createCipher(Cipher.ENCRYPT_MODE);
+		for (int i = 0; i < size; i++) {
+			String[] plain = whereArgs.get(i);
+			args[i] = new String[plain.length];
+			for (int j = 0; j < plain.length; j++) {
+				args[i][j] = encrypt(cipher, plain[j]);
+			}
+		}
+
+		int deleted = 0;
+		beginTransaction();
+		try {
+			for (int i = 0; i < size; i++) {
+				deleted += bind(sql, args[i]).executeUpdateDelete();
+			}
+			setTransactionSuccessful();
+		} finally {
+			endTransaction();
+		}
+		return deleted;
+	}
+
 	/**
 	 * @see android.database.sqlite.SQLiteDatabase#close()
 	 */
 	public void close() {
-		database.close();
+		lock.lock();
+		try {
+			for (SQLiteStatement statement : statements.values()) {
+				statement.close();
+			}
+			statements.clear();
+			database.close();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
+	 * Begins a transaction, which holds the statement lock until
+	 * endTransaction()
+	 * 
 	 * @see android.database.sqlite.SQLiteDatabase#beginTransaction()
 	 */
 	public void beginTransaction() {
-		database.beginTransaction();
+		lock.lock();
+		try {
+			database.beginTransaction();
+		} catch (RuntimeException e) {
+			lock.unlock();
+			throw e;
+		}
 	}
 
 	/**
@@ -161,7 +367,72 @@ public class CryptoDatabase {
 	 * @see android.database.sqlite.SQLiteDatabase#endTransaction()
 	 */
 	public void endTransaction() {
-		database.endTransaction();
+		try {
+			database.endTransaction();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Derives an AES key for data that is stored outside of the database,
+	 * such as the AccessRingStore.
+	 * 
+	 * @param purpose
+	 *            label that separates the keys of different stores
+	 * @return 128 bit AES key
+	 */
+	SecretKey deriveKey(String purpose) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(purpose.getBytes(UTF8));
+			digest.update(key.getEncoded());
+			return new SecretKeySpec(digest.digest(), 0, 16, "AES");
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Returns the cached statement for sql with the given arguments bound
+	 */
+	private SQLiteStatement bind(String sql, String[] args) {
+		SQLiteStatement statement = statements.get(sql);
+		if (statement == null) {
+			statement = database.compileStatement(sql);
+			statements.put(sql, statement);
+		}
+		statement.clearBindings();
+		for (int i = 0; i < args.length; i++) {
+			statement.bindString(i + 1, args[i]);
+		}
+		return statement;
+	}
+
+	/**
+	 * Returns the columns of values in a stable order, so equal rows result
+	 * in equal statements.
+	 */
+	private String[] columns(ContentValues values) {
+		TreeSet<String> columns = new TreeSet<String>(values.keySet());
+		return columns.toArray(new String[columns.size()]);
+	}
+
+	/**
+	 * Encrypts the values of the given columns followed by the where
+	 * arguments
+	 */
+	private String[] encryptValues(Cipher cipher, ContentValues values,
+			String[] columns, String[] whereArgs) {
+		int argCount = whereArgs != null ? whereArgs.length : 0;
+		String[] encrypted = new String[columns.length + argCount];
+		for (int i = 0; i < columns.length; i++) {
+			encrypted[i] = encrypt(cipher, "" + values.get(columns[i]));
+		}
+		for (int i = 0; i < argCount; i++) {
+			encrypted[columns.length + i] = encrypt(cipher, whereArgs[i]);
+		}
+		return encrypted;
 	}
 
 	/**
@@ -233,19 +504,46 @@ public class CryptoDatabase {
 	 * @return encrypted String
 	 */
 	private String encrypt(String value) {
+		return encrypt(createCipher(Cipher.ENCRYPT_MODE), value);
+	}
 
+	/**
+	 * Encrypts a String with an initialized cipher. The cipher returns to its
+	 * initial state afterwards and can be reused.
+	 * 
+	 * @param pbeCipher
+	 *            cipher in encrypt mode
+	 * @param value
+	 *            String to be encrypted
+	 * @return encrypted String
+	 */
+	private String encrypt(Cipher pbeCipher, String value) {
 		try {
 			final byte[] bytes = value != null ? value.getBytes(UTF8)
 					: new byte[0];
-			Cipher pbeCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-			pbeCipher.init(Cipher.ENCRYPT_MODE, key);
 			return new String(Base64.encode(pbeCipher.doFinal(bytes),
 					Base64.NO_WRAP), UTF8);
 
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
+	}
 
+	/**
+	 * Creates a cipher initialized with the database key
+	 * 
+	 * @param mode
+	 *            Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE
+	 * @return initialized cipher
+	 */
+	private Cipher createCipher(int mode) {
+		try {
+			Cipher pbeCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+			pbeCipher.init(mode, key);
+			return pbeCipher;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	/**
@@ -711,6 +1009,8 @@ public class CryptoDatabase {
 	 */
 	private class CryptoOpenHelper extends SQLiteOpenHelper {
 
+		/** Version 2 added the ADVICECACHE table */
+		private static final int DATABASE_VERSION = 2;
 
 		/**
 		 * Creates new instance of DatabaseOpenHelper
@@ -719,7 +1019,7 @@ public class CryptoDatabase {
 		 *            Context the database is stored in
 		 */
 		public CryptoOpenHelper(Context context) {
-			super(context, "privacy.db", null, 1);
+			super(context, "privacy.db", null, DATABASE_VERSION);
 		}
 
 		/**
@@ -738,6 +1038,7 @@ public class CryptoDatabase {
 			db.execSQL("Create Table STATISTICDEVIATION(packagename text PRIMARY KEY, deviationsum number, count integer)");
 			db.execSQL("Create Table WEBSERVICEDATA(packagename text PRIMARY KEY)");
 			db.execSQL("Create Table OFFLINEPARAMETER(config text PRIMARY KEY, sum number, count integer)");
+			createAdviceCache(db);
 			
 			
 			//To Do CONFIGURATION Values
@@ -824,7 +1125,16 @@ public class CryptoDatabase {
 		}
 
 		/**
-		 * Drops all tables of database and calls OnCreate
+		 * Creates the cache of community advice, time is the time the advice
+		 * was received in ms
+		 */
+		private void createAdviceCache(SQLiteDatabase db) {
+			db.execSQL("Create Table ADVICECACHE(packagename text PRIMARY KEY, query text, votes text, time text)");
+		}
+
+		/**
+		 * Adds the tables of newer versions. Drops all tables of database and
+		 * calls OnCreate if the database cannot be upgraded.
 		 * 
 		 * @param db
 		 *            the db
@@ -834,11 +1144,16 @@ public class CryptoDatabase {
 		 *            the new version
 		 */
 		public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+			if (oldVersion == 1 && newVersion == 2) {
+				createAdviceCache(db);
+				return;
+			}
 			db.execSQL("DROP TABLE IF EXISTS APPLICATION");
 			db.execSQL("DROP TABLE IF EXISTS CONFIGURATION");
 			db.execSQL("DROP TABLE IF EXISTS STATISTICACCESS");
 			db.execSQL("DROP TABLE IF EXISTS STATISTICDEVIATION");
 			db.execSQL("DROP TABLE IF EXISTS WEBSERVICEDATA");
+			db.execSQL("DROP TABLE IF EXISTS ADVICECACHE");
 			onCreate(db);
 
 		}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+/**
+ * Wall clock of the location privacy framework. Access times and the
+ * statistic periods are taken from this clock, so a simulation can replace
+ * it and replay days of location requests in minutes.
+ */
+public final class LocationPrivacyClock {
+
+	/**
+	 * Source of the wall clock time
+	 */
+	interface Source {
+		long currentTimeMillis();
+	}
+
+	private static volatile Source source;
+
+	private LocationPrivacyClock() {
+	}
+
+	/**
+	 * Returns the current time in ms since epoch
+	 */
+	public static long currentTimeMillis() {
+		Source current = source;
+		return current != null ? current.currentTimeMillis() : System
+				.currentTimeMillis();
+	}
+
+	/**
+	 * Replaces the system clock, null restores it
+	 */
+	static void setSource(Source newSource) {
+		source = newSource;
+	}
+}
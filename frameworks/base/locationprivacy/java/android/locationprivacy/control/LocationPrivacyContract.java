@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import android.net.Uri;
+
+/**
+ * URIs on which changes of the location privacy data are announced, so
+ * clients can observe just the data they display. No provider serves these
+ * URIs, the data itself is read through the LocationPrivacyManager.
+ */
+public final class LocationPrivacyContract {
+
+	/** Authority of the notification URIs */
+	public static final String AUTHORITY = "com.android.settings.locationprivacy";
+
+	/** Base URI of the notification URIs */
+	public static final Uri CONTENT_URI = Uri.parse("content://" + AUTHORITY);
+
+	private LocationPrivacyContract() {
+	}
+
+	/**
+	 * Apps known to the location privacy framework and their preset
+	 */
+	public static final class Applications {
+		public static final String PATH = "applications";
+		public static final Uri CONTENT_URI = Uri.withAppendedPath(
+				LocationPrivacyContract.CONTENT_URI, PATH);
+
+		private Applications() {
+		}
+
+		/**
+		 * Returns the URI of one app. Changes of only this app are notified
+		 * on this URI.
+		 */
+		public static Uri getContentUri(String packagename) {
+			return Uri.withAppendedPath(CONTENT_URI, packagename);
+		}
+	}
+
+	/**
+	 * Configuration of the location privacy framework as key value pairs
+	 */
+	public static final class Config {
+		public static final String PATH = "config";
+		public static final Uri CONTENT_URI = Uri.withAppendedPath(
+				LocationPrivacyContract.CONTENT_URI, PATH);
+
+		private Config() {
+		}
+	}
+
+	/**
+	 * Location accesses of the last 28 days
+	 */
+	public static final class Statistics {
+		public static final String PATH = "statistics";
+		public static final Uri CONTENT_URI = Uri.withAppendedPath(
+				LocationPrivacyContract.CONTENT_URI, PATH);
+
+		private Statistics() {
+		}
+
+		/**
+		 * Returns the URI of the statistics of one app. Changes of these
+		 * statistics are notified on this URI.
+		 */
+		public static Uri getContentUri(String packagename) {
+			return Uri.withAppendedPath(CONTENT_URI, packagename);
+		}
+	}
+}
@@ -18,15 +18,22 @@
 
 package android.locationprivacy.control;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 import android.content.ComponentName;
@@ -35,15 +42,23 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager.NameNotFoundException;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.location.Location;
 import android.locationprivacy.algorithm.GeoReverseGeo;
 import android.locationprivacy.algorithm.RadiusDistance;
+import android.locationprivacy.control.LocationPrivacyContract.Applications;
+import android.locationprivacy.control.LocationPrivacyContract.Config;
+import android.locationprivacy.control.LocationPrivacyContract.Statistics;
 import android.locationprivacy.model.AbstractLocationPrivacyAlgorithm;
+import android.locationprivacy.model.CommunityAdvice;
 import android.locationprivacy.model.LocationPrivacyApplication;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
 import android.util.Log;
 import android.util.Pair;
@@ -57,25 +72,6 @@ import android.util.Pair;
  */
 public class LocationPrivacyManager {
 
-	private class AccessUpdate implements Runnable {
-		String packagename;
-		int deviation;
-		int config;
-		boolean online;
-
-		public AccessUpdate(String packagename, int deviation, int config, boolean online) {
-			super();
-			this.packagename = packagename;
-			this.deviation = deviation;
-			this.config = config;
-			this.online = online;
-		}
-
-		public void run() {
-			updateLocationAccessStatistic(packagename, deviation, config, online);
-		}
-	}
-
 	public static final boolean useOnlineAlgorithmDefault = true;
 	public static final boolean dialogInUseDefault = false;
 	public static final boolean sharePrivacySettingsDefault = true;
@@ -90,17 +86,13 @@ public class LocationPrivacyManager {
 	public static final int minDistDefault = 200;
 	public static final String DATEFORMAT = "yyyyMMddHHmmssSS";
 	public static final int orderDefault = 0;
+	/** Cached community advice older than this is refreshed */
+	public static final long ADVICE_TTL_MILLIS = 24L * 60L * 60L * 1000L;
 
 	protected static final String TAG = "LPM";
 
 	public static final String webHostAdressDefault = "ulpa.dcsec.uni-hannover.de:8443";
 
-	/**
-	 * Cached LocationPrivacyApplications. Caching data to minimize access to
-	 * database.
-	 */
-	private ArrayList<LocationPrivacyApplication> applications;
-
 	private boolean useOnlineAlgorithm;
 
 	private boolean sharePrivacySettings;
@@ -128,8 +120,31 @@ public class LocationPrivacyManager {
 	private HashMap<Integer, AbstractLocationPrivacyAlgorithm> presetAlgorithms;
 	/** All location obfuscation algorithms */
 
-	private static HashMap<String, AbstractLocationPrivacyAlgorithm> algorithms;
+	private static HashMap<String, AbstractLocationPrivacyAlgorithm> algorithms = new HashMap<String, AbstractLocationPrivacyAlgorithm>();
+	static {
+		AbstractLocationPrivacyAlgorithm radiusDistance = new RadiusDistance();
+		AbstractLocationPrivacyAlgorithm geoReverseGeo = new GeoReverseGeo();
+		algorithms.put(radiusDistance.getName(), radiusDistance);
+		algorithms.put(geoReverseGeo.getName(), geoReverseGeo);
+	}
 	private static CryptoDatabase database;
+	/** Hourly access counts of the last 28 days */
+	private static AccessRingStore accessStore;
+	/** Writes the access statistics in the background */
+	private static AccessStatisticWriter statisticWriter;
+	/** Instance shared by all screens of this process */
+	private static LocationPrivacyManager instance;
+
+	/** Snapshot of the configuration table */
+	private HashMap<String, String> configuration;
+	/**
+	 * Snapshot of the application table (packagename to preset config), used
+	 * to look up the preset of every location fix. null if it has to be
+	 * reloaded
+	 */
+	private LinkedHashMap<String, Integer> applicationSnapshot;
+	/** Observers registered by registerObservers, by URI */
+	private HashMap<Uri, ContentObserver> observers = new HashMap<Uri, ContentObserver>();
 
 	/**
 	 * 
@@ -161,13 +176,40 @@ public class LocationPrivacyManager {
 
 	}
 
-	private ArrayList<String> configurationNeeded;
+	/**
+	 * Shows the configuration dialog for unconfigured apps, null in every
+	 * manager but the one of the location service
+	 */
+	private PromptScheduler promptScheduler;
+
+	/** true if this manager schedules the configuration dialogs */
+	private final boolean prompting;
 
 	/** Context the location privacy framework is running in */
 	private Context context;
 
 	private boolean bootComplete;
 
+	/** Context passed to the constructor */
+	private final Context callerContext;
+
+	/** Released when initialization has finished */
+	private final CountDownLatch ready = new CountDownLatch(1);
+
+	/**
+	 * true if setBootComplete was called and has not been applied yet.
+	 * Whoever sees it together with the finished initialization applies it.
+	 */
+	private final AtomicBoolean bootCompletePending = new AtomicBoolean();
+
+	/** Names of the initialization phases */
+	private static final String[] INIT_PHASES = new String[] {
+			"packageContext", "preferences", "keyDerivation", "databaseOpen",
+			"accessStore", "configuration" };
+
+	/** Duration of each initialization phase in ms, -1 if not executed */
+	private final long[] initMillis = new long[] { -1, -1, -1, -1, -1, -1 };
+
 	/**
 	 * Creates new instance of LocationPrivacyManager
 	 * 
@@ -175,38 +217,143 @@ public class LocationPrivacyManager {
 	 *            Context the location privacy framework is running in
 	 */
 	public LocationPrivacyManager(Context oContext) {
-		try {
-			this.context = oContext.createPackageContext(
-					"com.android.settings", Context.CONTEXT_INCLUDE_CODE);
-		} catch (NameNotFoundException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+		this(oContext, false);
+	}
 
-		}
+	/**
+	 * Creates new instance of LocationPrivacyManager
+	 * 
+	 * @param oContext
+	 *            Context the location privacy framework is running in
+	 * @param deferInitialization
+	 *            if true, the database is not opened until
+	 *            initializeAsync() is called. No locations are returned in
+	 *            the meantime. Only the manager of the location service is
+	 *            created this way, so only it shows configuration dialogs.
+	 */
+	public LocationPrivacyManager(Context oContext, boolean deferInitialization) {
+		callerContext = oContext;
+		prompting = deferInitialization;
 		cachedLocationsStreet = new LinkedList<Pair<Location, Location>>();
 		cachedLocationsPostalcode = new LinkedList<Pair<Location, Location>>();
 		cachedLocationsCity = new LinkedList<Pair<Location, Location>>();
-		initialize();
+		if (!deferInitialization) {
+			initialize();
+		}
 	}
 
 	/**
-	 * Adds new application to the location privacy framework
+	 * Returns the LocationPrivacyManager shared by all components of this
+	 * process. The instance keeps snapshots of configuration and apps, which
+	 * are reloaded when another process changes the data.
+	 * 
+	 * @param context
+	 *            any context of the calling process
 	 */
-	private LocationPrivacyApplication addApplication(String packagename) {
-		ContentValues values = new ContentValues();
-		values.put("packagename", packagename);
-		values.put("config", -1);
-		database.insert("APPLICATION", null, values);
+	public static synchronized LocationPrivacyManager getInstance(
+			Context context) {
+		if (instance == null) {
+			Context appContext = context.getApplicationContext();
+			if (appContext == null) {
+				appContext = context;
+			}
+			instance = new LocationPrivacyManager(appContext);
+			instance.registerObservers(new Handler(Looper.getMainLooper()));
+		}
+		return instance;
+	}
 
-		Calendar now = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
-		ContentValues lastaccess = new ContentValues();
-		lastaccess.put("day", now.get(Calendar.DAY_OF_MONTH));
-		lastaccess.put("month", now.get(Calendar.MONTH));
-		lastaccess.put("year", now.get(Calendar.YEAR));
-		lastaccess.put("hour", now.get(Calendar.HOUR_OF_DAY));
-		lastaccess.put("minute", now.get(Calendar.MINUTE));
-		lastaccess.put("packagename", packagename);
-		database.insert("LASTACCESS", null, lastaccess);
+	/**
+	 * Observes changes of configuration and apps made by other processes and
+	 * reloads the affected data. Changes made by this manager are not
+	 * delivered to its own observers.
+	 * 
+	 * @param handler
+	 *            handler the changes are processed on
+	 */
+	public void registerObservers(Handler handler) {
+		ContentObserver configObserver = new ContentObserver(handler) {
+			@Override
+			public void onChange(boolean selfChange) {
+				updateData();
+				checkForDialog();
+			}
+		};
+		ContentObserver applicationsObserver = new ContentObserver(handler) {
+			@Override
+			public void onChange(boolean selfChange) {
+				if (isReady()) {
+					applicationsChanged();
+					checkForDialog();
+				}
+			}
+		};
+		observers.put(Config.CONTENT_URI, configObserver);
+		observers.put(Applications.CONTENT_URI, applicationsObserver);
+		callerContext.getContentResolver().registerContentObserver(
+				Config.CONTENT_URI, true, configObserver);
+		callerContext.getContentResolver().registerContentObserver(
+				Applications.CONTENT_URI, true, applicationsObserver);
+	}
+
+	/**
+	 * Initializes the manager on a background thread. Only needed if the
+	 * manager has been created with deferred initialization.
+	 */
+	public void initializeAsync() {
+		if (isReady()) {
+			return;
+		}
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				initialize();
+			}
+		}, "LPMInit");
+		thread.start();
+	}
+
+	/**
+	 * Returns true if the configuration has been loaded
+	 */
+	public boolean isReady() {
+		return ready.getCount() == 0;
+	}
+
+	/**
+	 * Waits until the configuration has been loaded
+	 * 
+	 * @param timeout
+	 *            maximum time to wait
+	 * @param unit
+	 *            unit of timeout
+	 * @return true if the manager is ready
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return ready.await(timeout, unit);
+	}
+
+	/**
+	 * Prints the duration of each initialization phase
+	 */
+	public void dumpInitTimings(PrintWriter pw) {
+		pw.println("  Location Privacy initialization:"
+				+ (isReady() ? "" : " (running)"));
+		for (int i = 0; i < INIT_PHASES.length; i++) {
+			pw.println("    " + INIT_PHASES[i] + ": "
+					+ (initMillis[i] < 0 ? "-" : initMillis[i] + " ms"));
+		}
+	}
+
+	/**
+	 * Adds new application to the location privacy framework. The app is
+	 * available as unconfigured app immediately and is stored in the
+	 * background.
+	 */
+	private synchronized LocationPrivacyApplication addApplication(
+			String packagename) {
+		loadApplications().put(packagename, -1);
+		statisticWriter.register(packagename);
 		return new LocationPrivacyApplication(packagename, -1);
 	}
 
@@ -221,111 +368,121 @@ public class LocationPrivacyManager {
 	}
 
 	public void checkForDialog() {
-		while (configurationNeeded.size() > 0 && !dialogInUse && bootComplete) {
-			System.out.println("ConfigSize=" + configurationNeeded.size()
-					+ "; dialogInUse=" + dialogInUse + "; App="
-					+ configurationNeeded.get(0));
-			LocationPrivacyApplication app = getApplication(configurationNeeded
-					.remove(0));
-			if (app.getPresetConfig() == -1) {
-				Intent i;
-				try {
-					setDialogInUse(true);
-					i = new Intent();
-					i.setComponent(new ComponentName("com.android.settings",
-							"com.android.settings.locationprivacy.LocationPrivacyDialog"));
-					i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-					i.putExtra("app", app);
-					context.startActivity(i);
-				} catch (Exception e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			}
+		if (!isReady() || promptScheduler == null) {
+			return;
 		}
+		promptScheduler.dialogStateChanged(dialogInUse);
 	}
 
-	public void cleanDatabase() {
-		List<String> installedApps = getInstalledApps();
-		List<LocationPrivacyApplication> apps = getApplications();
-		List<String> appsToRemove = new LinkedList<String>();
-		for (LocationPrivacyApplication app : apps) {
-			if (!installedApps.contains(app.getPackagename())) {
-				appsToRemove.add(app.getPackagename());
-			}
-		}
+	/**
+	 * Returns true if the configuration dialog can be shown now
+	 */
+	boolean canPrompt() {
+		return bootComplete && !dialogInUse;
+	}
 
-		database.beginTransaction();
+	/**
+	 * Shows the configuration dialog for an app
+	 * 
+	 * @param packagename
+	 *            app to be configured
+	 * @return true if the dialog has been started, false if the app needs no
+	 *         configuration
+	 */
+	boolean showPrompt(String packagename) {
+		LocationPrivacyApplication app = getApplication(packagename);
+		if (app == null || app.getPresetConfig() != -1) {
+			return false;
+		}
+		Intent i;
 		try {
-			for (String remove : appsToRemove) {
-				database.delete("APPLICATION", "packagename = ?",
-						new String[] { remove });
-				database.delete("LASTACCESS", "packagename = ?",
-						new String[] { remove });
-				database.delete("STATISTICDEVIATION", "packagename = ?",
-						new String[] { remove });
-				database.delete("STATISTICACCESS", "packagename = ?",
-						new String[] { remove });
-				database.delete("WEBSERVICEDATA", "packagename = ?",
-						new String[] { remove });
-			}
-			Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
-			String deleteDates = "NOT((day = ? AND month = ? AND year = ?)";
-			String[] dates = new String[84];
-			dates[0] = "" + date.get(Calendar.DAY_OF_MONTH);
-			dates[1] = "" + date.get(Calendar.MONTH);
-			dates[2] = "" + date.get(Calendar.YEAR);
-			for (int i = 1; i < 28; i++) {
-				date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
-				date.set(Calendar.DAY_OF_MONTH, date.get(Calendar.DAY_OF_MONTH)
-						- i);
-				deleteDates += " OR (day = ? AND month = ? AND year = ?)";
-				dates[i*3] = "" + date.get(Calendar.DAY_OF_MONTH);
-				dates[i*3+1] = "" + date.get(Calendar.MONTH);
-				dates[i*3+2] = "" + date.get(Calendar.YEAR);
-			}
-			deleteDates += ")";
-			
-			Cursor c = database.query("STATISTICACCESS", null, null, null, null, null, null);
-			c.moveToFirst();
-			while(!c.isAfterLast()){
-				System.out.println(c.getInt(0) + ";" + c.getInt(1) + ";" + c.getInt(2) + ";" + c.getInt(3) + ";" + c.getString(4) + ";" +  c.getInt(5));
-				c.move(1);
-			}
-			c.close();
-			
-			System.out.println("Delete Dates: " + deleteDates);
-			database.delete("STATISTICACCESS", deleteDates, dates);
-			database.setTransactionSuccessful();
-
+			setDialogInUse(true);
+			i = new Intent();
+			i.setComponent(new ComponentName("com.android.settings",
+					"com.android.settings.locationprivacy.LocationPrivacyDialog"));
+			i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+			i.putExtra("app", app);
+			context.startActivity(i);
 		} catch (Exception e) {
-			// Error in between database transaction
-		} finally {
-			database.endTransaction();
+			// TODO Auto-generated catch block
+			e.printStackTrace();
 		}
+		return true;
+	}
 
+	/**
+	 * Removes expired statistics and data of uninstalled apps in the
+	 * background. Only data that expired since the last run is touched.
+	 */
+	public void cleanDatabase() {
+		new RetentionScheduler(context, database, accessStore).schedule();
 	}
 
 	/**
-	 * Send broadcast on data change for updating configurations
+	 * Writes the queued location accesses on the calling thread
 	 */
-	private void dataChanged() {
-		dataChanged(new Bundle());
+	void flushStatistics() {
+		statisticWriter.flush();
 	}
 
-	private void dataChanged(Bundle extras) {
-		Intent i = new Intent(
-				"com.android.server.LocationManagerService.locationprivacy");
-		i.putExtras(extras);
-		context.sendBroadcast(i);
+	/**
+	 * Notifies observers of a configuration change and reloads the
+	 * configuration
+	 */
+	private void dataChanged() {
+		notifyChange(Config.CONTENT_URI);
 		updateData();
 	}
 
+	/**
+	 * Reloads apps after the application table has been changed
+	 */
+	private void applicationsChanged() {
+		invalidateApplications();
+	}
+
+	/**
+	 * Sends a change notification for uri. The observer of this manager is
+	 * not notified.
+	 */
+	private void notifyChange(Uri uri) {
+		context.getContentResolver().notifyChange(uri, observers.get(uri),
+				false);
+	}
+
+	/**
+	 * Sends a change notification for the URI of one app below uri. The
+	 * observer of this manager is not notified.
+	 */
+	private void notifyChange(Uri uri, String packagename) {
+		context.getContentResolver().notifyChange(
+				Uri.withAppendedPath(uri, packagename), observers.get(uri),
+				false);
+	}
+
 	public void deleteAppToSend(String packagename) {
 		database.delete("WEBSERVICEDATA", "packagename = ?",
 				new String[] { packagename });
 	}
 
+	/**
+	 * Removes the given apps from the upload queue in one transaction
+	 *
+	 * @param packagenames
+	 *            apps whose settings have been sent to the webservice
+	 */
+	public void deleteAppsToSend(List<String> packagenames) {
+		if (packagenames.isEmpty()) {
+			return;
+		}
+		ArrayList<String[]> whereArgs = new ArrayList<String[]>(
+				packagenames.size());
+		for (String packagename : packagenames) {
+			whereArgs.add(new String[] { packagename });
+		}
+		database.deleteAll("WEBSERVICEDATA", "packagename = ?", whereArgs);
+	}
+
 	private String generateRandomString() {
 		SecureRandom random = new SecureRandom();
 		String randomString = new BigInteger(128, random).toString(32);
@@ -338,37 +495,57 @@ public class LocationPrivacyManager {
 	 * @param uid
 	 * @return LocationPrivacyApplication. null if uid not known to framework
 	 */
-	public LocationPrivacyApplication getApplication(String packagename) {
-		Cursor cursor = database.query("APPLICATION", null, "packagename = ?",
-				new String[] { packagename }, null, null, null);
-		LocationPrivacyApplication app = null;
-		if (cursor.getCount() > 0) {
-			cursor.moveToFirst();
-			int config = cursor.getInt(1);
-			app = new LocationPrivacyApplication(packagename, config);
+	public synchronized LocationPrivacyApplication getApplication(String packagename) {
+		Integer config = loadApplications().get(packagename);
+		if (config == null) {
+			return null;
 		}
-		cursor.close();
-		return app;
+		return new LocationPrivacyApplication(packagename, config);
 	}
 
 	/**
 	 * Returns a List of all apps known by the location privacy framework
 	 */
-	public List<LocationPrivacyApplication> getApplications() {
-		ArrayList<LocationPrivacyApplication> list = new ArrayList<LocationPrivacyApplication>();
-		Cursor cursor = database.query("APPLICATION", null, null, null, null,
-				null, null);
-		cursor.moveToFirst();
-		while (!cursor.isAfterLast()) {
-			String packageName = cursor.getString(0);
-			int config = cursor.getInt(1);
-			list.add(new LocationPrivacyApplication(packageName, config));
-			cursor.move(1);
+	public synchronized List<LocationPrivacyApplication> getApplications() {
+		LinkedHashMap<String, Integer> apps = loadApplications();
+		ArrayList<LocationPrivacyApplication> list = new ArrayList<LocationPrivacyApplication>(
+				apps.size());
+		for (String packageName : apps.keySet()) {
+			list.add(new LocationPrivacyApplication(packageName, apps
+					.get(packageName)));
 		}
-		cursor.close();
 		return list;
 	}
 
+	/**
+	 * Returns the snapshot of the application table and loads it if needed
+	 */
+	private LinkedHashMap<String, Integer> loadApplications() {
+		if (applicationSnapshot == null) {
+			LinkedHashMap<String, Integer> apps = new LinkedHashMap<String, Integer>();
+			Cursor cursor = database.query("APPLICATION", null, null, null,
+					null, null, null);
+			cursor.moveToFirst();
+			while (!cursor.isAfterLast()) {
+				apps.put(cursor.getString(0), cursor.getInt(1));
+				cursor.move(1);
+			}
+			cursor.close();
+			// apps that are not stored yet
+			for (String packagename : statisticWriter.getPendingApplications()) {
+				if (!apps.containsKey(packagename)) {
+					apps.put(packagename, -1);
+				}
+			}
+			applicationSnapshot = apps;
+		}
+		return applicationSnapshot;
+	}
+
+	private synchronized void invalidateApplications() {
+		applicationSnapshot = null;
+	}
+
 	public ArrayList<String> getAppsToSend() {
 		Cursor appsToSendC = database.query("WEBSERVICEDATA", null, null, null,
 				null, null, null);
@@ -382,26 +559,140 @@ public class LocationPrivacyManager {
 		return appsToSend;
 	}
 
-	private String getConfiguration(String key) {
-		Cursor cConfiguration = database.query("CONFIGURATION",
-				new String[] { "value" }, "key = ?", new String[] { key },
-				null, null, null);
-		cConfiguration.moveToFirst();
-		if (!cConfiguration.isAfterLast()) {
-			return cConfiguration.getString(0);
+	/**
+	 * Returns the query parameters the community advice depends on: the
+	 * radii of the presets for the offline algorithm, nothing for the online
+	 * algorithm.
+	 */
+	public String getAdviceQuery() {
+		if (useOnlineAlgorithm) {
+			return "";
+		}
+		return "street="
+				+ presetAlgorithms.get(1).getConfiguration().getInt("radius")
+				+ "&district="
+				+ presetAlgorithms.get(2).getConfiguration().getInt("radius")
+				+ "&city="
+				+ presetAlgorithms.get(3).getConfiguration().getInt("radius");
+	}
+
+	/**
+	 * Returns the cached community advice of an app
+	 *
+	 * @param packagename
+	 *            packagename of the app
+	 * @return cached advice, null if no advice for the current query is cached
+	 */
+	public CommunityAdvice getCachedAdvice(String packagename) {
+		Cursor cursor = database.query("ADVICECACHE", null, "packagename = ?",
+				new String[] { packagename }, null, null, null);
+		CommunityAdvice advice = null;
+		if (cursor.moveToFirst()) {
+			advice = readAdvice(cursor, getAdviceQuery());
+		}
+		cursor.close();
+		return advice;
+	}
+
+	/**
+	 * Returns the cached community advice of all apps for the current query
+	 *
+	 * @return cached advice by packagename
+	 */
+	public HashMap<String, CommunityAdvice> getCachedAdvice() {
+		HashMap<String, CommunityAdvice> cache = new HashMap<String, CommunityAdvice>();
+		String query = getAdviceQuery();
+		Cursor cursor = database.query("ADVICECACHE", null, null, null, null,
+				null, null);
+		cursor.moveToFirst();
+		while (!cursor.isAfterLast()) {
+			CommunityAdvice advice = readAdvice(cursor, query);
+			if (advice != null) {
+				cache.put(advice.getPackagename(), advice);
+			}
+			cursor.move(1);
+		}
+		cursor.close();
+		return cache;
+	}
+
+	private CommunityAdvice readAdvice(Cursor cursor, String query) {
+		if (!query.equals(cursor.getString(1))) {
+			return null;
+		}
+		int[] votes = CommunityAdvice.decodeVotes(cursor.getString(2));
+		if (votes == null) {
+			return null;
+		}
+		try {
+			return new CommunityAdvice(cursor.getString(0), query, votes,
+					Long.parseLong(cursor.getString(3)));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if advice is older than ADVICE_TTL_MILLIS
+	 */
+	public boolean isAdviceExpired(CommunityAdvice advice) {
+		long age = LocationPrivacyClock.currentTimeMillis() - advice.getTime();
+		return age < 0 || age > ADVICE_TTL_MILLIS;
+	}
+
+	/**
+	 * Stores community advice in the cache, replacing older advice of the
+	 * same apps, in one transaction
+	 *
+	 * @param advice
+	 *            advice received from the webservice
+	 */
+	public void setCachedAdvice(List<CommunityAdvice> advice) {
+		if (advice.isEmpty()) {
+			return;
+		}
+		ArrayList<String[]> packagenames = new ArrayList<String[]>(
+				advice.size());
+		ArrayList<ContentValues> rows = new ArrayList<ContentValues>(
+				advice.size());
+		for (CommunityAdvice entry : advice) {
+			packagenames.add(new String[] { entry.getPackagename() });
+			ContentValues values = new ContentValues();
+			values.put("packagename", entry.getPackagename());
+			values.put("query", entry.getQuery());
+			values.put("votes", entry.encodeVotes());
+			values.put("time", Long.toString(entry.getTime()));
+			rows.add(values);
+		}
+		database.beginTransaction();
+		try {
+			database.deleteAll("ADVICECACHE", "packagename = ?", packagenames);
+			database.insertAll("ADVICECACHE", rows);
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
 		}
-		return null;
 	}
 
-	private ArrayList<String> getInstalledApps() {
-		ArrayList<String> res = new ArrayList<String>();
-		List<PackageInfo> packs = context.getPackageManager()
-				.getInstalledPackages(0);
-		for (int i = 0; i < packs.size(); i++) {
-			PackageInfo p = packs.get(i);
-			res.add(p.packageName);
+	private synchronized String getConfiguration(String key) {
+		return configuration.get(key);
+	}
+
+	/**
+	 * Loads the snapshot of the configuration table with one query
+	 */
+	private synchronized void loadConfiguration() {
+		HashMap<String, String> values = new HashMap<String, String>();
+		Cursor cConfiguration = database.query("CONFIGURATION", new String[] {
+				"key", "value" }, null, null, null, null, null);
+		cConfiguration.moveToFirst();
+		while (!cConfiguration.isAfterLast()) {
+			values.put(cConfiguration.getString(0),
+					cConfiguration.getString(1));
+			cConfiguration.move(1);
 		}
-		return res;
+		cConfiguration.close();
+		configuration = values;
 	}
 
 	public Calendar getLastAccess(String packagename) {
@@ -430,13 +721,17 @@ public class LocationPrivacyManager {
 			String packagename) {
 		HashMap<Calendar, Integer> statistic = new HashMap<Calendar, Integer>();
 		Calendar now = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
-		Calendar border = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		now.setTimeInMillis(LocationPrivacyClock.currentTimeMillis());
+		Calendar border = (Calendar) now.clone();
 		border.set(Calendar.DAY_OF_MONTH,
 				border.get(Calendar.DAY_OF_MONTH) - 28);
 		border.set(Calendar.HOUR_OF_DAY, 0);
 		border.set(Calendar.MINUTE, 0);
 		border.set(Calendar.SECOND, 0);
 		border.set(Calendar.MILLISECOND, 0);
+		if (accessStore != null) {
+			return getLocationAccessStatistic(packagename, border, true);
+		}
 		Cursor cStatistic = database
 				.query("STATISTICACCESS",
 						new String[] { "day, month, year, hour, count" },
@@ -483,11 +778,15 @@ public class LocationPrivacyManager {
 			String packagename) {
 		HashMap<Calendar, Integer> statistic = new HashMap<Calendar, Integer>();
 		Calendar now = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
-		Calendar border = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		now.setTimeInMillis(LocationPrivacyClock.currentTimeMillis());
+		Calendar border = (Calendar) now.clone();
 		border.set(Calendar.DAY_OF_MONTH, border.get(Calendar.DAY_OF_MONTH) - 1);
 		border.set(Calendar.MINUTE, 0);
 		border.set(Calendar.SECOND, 0);
 		border.set(Calendar.MILLISECOND, 0);
+		if (accessStore != null) {
+			return getLocationAccessStatistic(packagename, border, false);
+		}
 		Cursor cStatistic = database
 				.query("STATISTICACCESS",
 						new String[] { "day, month, year, hour, count" },
@@ -526,6 +825,46 @@ public class LocationPrivacyManager {
 		return statistic;
 	}
 
+	/**
+	 * Reads location accesses after border from the AccessRingStore
+	 * 
+	 * @param packagename
+	 *            packagename of the app
+	 * @param border
+	 *            accesses up to this hour are ignored
+	 * @param perDay
+	 *            sums up hours to local days if true
+	 * @return number of accesses per local day or hour
+	 */
+	private HashMap<Calendar, Integer> getLocationAccessStatistic(
+			String packagename, Calendar border, boolean perDay) {
+		HashMap<Calendar, Integer> statistic = new HashMap<Calendar, Integer>();
+		long now = LocationPrivacyClock.currentTimeMillis();
+		int[] counts = accessStore.getHourlyCounts(packagename, now);
+		long firstHour = AccessRingStore.toEpochHour(now)
+				- AccessRingStore.SLOTS + 1;
+		for (int i = 0; i < counts.length; i++) {
+			long hourStart = (firstHour + i) * AccessRingStore.MILLIS_PER_HOUR;
+			if (counts[i] == 0 || hourStart <= border.getTimeInMillis()) {
+				continue;
+			}
+			int count = counts[i];
+			Calendar cal = Calendar.getInstance();
+			cal.setTimeInMillis(hourStart);
+			if (perDay) {
+				cal.set(Calendar.HOUR_OF_DAY, 0);
+				cal.set(Calendar.MINUTE, 0);
+				cal.set(Calendar.SECOND, 0);
+				cal.set(Calendar.MILLISECOND, 0);
+				if (statistic.containsKey(cal)) {
+					count += statistic.get(cal);
+				}
+			}
+			statistic.put(cal, count);
+		}
+		return statistic;
+	}
+
 	public int getMinDistance() {
 		return Integer.parseInt(getConfiguration("minDist"));
 	}
@@ -589,7 +928,22 @@ public class LocationPrivacyManager {
 		return webserviceHostAdress;
 	}
 
-	private void initialize() {
+	private synchronized void initialize() {
+		if (isReady()) {
+			return;
+		}
+		long start = SystemClock.uptimeMillis();
+		try {
+			this.context = callerContext.createPackageContext(
+					"com.android.settings", Context.CONTEXT_INCLUDE_CODE);
+		} catch (NameNotFoundException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+
+		}
+		initMillis[0] = SystemClock.uptimeMillis() - start;
+
+		start = SystemClock.uptimeMillis();
 		SharedPreferences sharedPreference = PreferenceManager
 				.getDefaultSharedPreferences(context);
 		String password = sharedPreference.getString("password", "");
@@ -608,12 +962,70 @@ public class LocationPrivacyManager {
 			sharedPreference.edit().putInt("iterationCount", iterationCount)
 					.commit();
 		}
-		if (database == null) {
-			database = new CryptoDatabase(password, salt, iterationCount,
-					context);
+		initMillis[1] = SystemClock.uptimeMillis() - start;
+
+		synchronized (LocationPrivacyManager.class) {
+			if (database == null) {
+				database = new CryptoDatabase(password, salt, iterationCount,
+						context);
+				initMillis[2] = database.getKeyDerivationMillis();
+				initMillis[3] = database.getOpenMillis();
+			}
+			start = SystemClock.uptimeMillis();
+			if (accessStore == null) {
+				openAccessStore();
+				initMillis[4] = SystemClock.uptimeMillis() - start;
+			}
+			if (statisticWriter == null) {
+				statisticWriter = new AccessStatisticWriter(database,
+						accessStore, context.getContentResolver());
+			}
+		}
+
+		start = SystemClock.uptimeMillis();
+		loadData();
+		if (prompting) {
+			promptScheduler = new PromptScheduler(this, database,
+					getConfiguration(PromptScheduler.PENDING_KEY));
+		}
+		initMillis[5] = SystemClock.uptimeMillis() - start;
+		ready.countDown();
+		if (bootCompletePending.compareAndSet(true, false)) {
+			applyBootComplete();
 		}
-		configurationNeeded = new ArrayList<String>();
-		updateData();
+	}
+
+	/**
+	 * Opens the AccessRingStore next to the database. A new store is filled
+	 * with the accesses recorded in STATISTICACCESS.
+	 */
+	private void openAccessStore() {
+		File path = context.getDatabasePath("privacy_access.ring");
+		try {
+			accessStore = new AccessRingStore(path,
+					database.deriveKey("AccessRingStore"));
+		} catch (IOException e) {
+			Log.e(TAG, "Could not open access statistic store", e);
+			return;
+		}
+		if (!accessStore.isCreated()) {
+			return;
+		}
+		Cursor c = database.query("STATISTICACCESS", new String[] { "day",
+				"month", "year", "hour", "packagename", "count" }, null, null,
+				null, null, null);
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		c.moveToFirst();
+		while (!c.isAfterLast()) {
+			date.setTimeInMillis(0);
+			date.set(c.getInt(2), c.getInt(1), c.getInt(0));
+			date.set(Calendar.HOUR_OF_DAY, c.getInt(3));
+			accessStore.add(c.getString(4),
+					AccessRingStore.toEpochHour(date.getTimeInMillis()),
+					c.getInt(5));
+			c.move(1);
+		}
+		c.close();
 	}
 
 	public boolean isDialogInUse() {
@@ -661,24 +1073,20 @@ public class LocationPrivacyManager {
 	 * @return obfuscated location
 	 */
 	public Location obfuscateLocation(Location location, String packagename) {
+		if (!isReady()) {
+			// the preset of the app is unknown, it may be blocked. The
+			// location service calls this holding its lock, so do not wait.
+			return null;
+		}
+		long start = LocationPrivacyMetrics.start();
 		Location obfuscatedLocation = null;
 		int presetConfig = -1;
 		int deviation = -1;
 		if (location != null) {
-			LocationPrivacyApplication app = null;
-			for (LocationPrivacyApplication application : applications) {
-				if (application.getPackagename().equals(packagename)) {
-					app = application;
-					break;
-				}
-			}
+			LocationPrivacyApplication app = getApplication(packagename);
 			if (app == null) {
-				app = getApplication(packagename);
-				if (app == null) {
-					app = addApplication(packagename);
-					Log.d(TAG, "added " + packagename);
-				}
-				applications.add(app);
+				app = addApplication(packagename);
+				Log.d(TAG, "added " + packagename);
 			}
 
 			Log.d(TAG, "obfuscateLocation for " + app);
@@ -699,6 +1107,7 @@ public class LocationPrivacyManager {
 				AbstractLocationPrivacyAlgorithm algorithm = presetAlgorithms
 						.get(presetConfig);
 				algorithm.setContext(context);
+				long algorithmStart = LocationPrivacyMetrics.start();
 				if (algorithm instanceof GeoReverseGeo) {
 					GeoReverseGeo geoAlg = (GeoReverseGeo) algorithm;
 					geoAlg.setCachedLocationsStreet(cachedLocationsStreet);
@@ -710,20 +1119,21 @@ public class LocationPrivacyManager {
 					obfuscatedLocation = algorithm.obfuscate(new Location(
 							location));
 				}
+				LocationPrivacyMetrics.recordLatency("obfuscate.",
+						algorithm.getName(), algorithmStart);
 				if(location != null && obfuscatedLocation != null){
 					deviation = (int) location.distanceTo(obfuscatedLocation);
 				}
-			} else {
-				if (!configurationNeeded.contains(app.getPackagename())) {
-					configurationNeeded.add(app.getPackagename());
-				}
-				checkForDialog();
+			} else if (promptScheduler != null) {
+				promptScheduler.enqueue(app.getPackagename());
 			}
 		} else {
 			deviation = -1;
 		}
 
-		new Thread(new AccessUpdate(packagename, deviation, presetConfig, isUseOnlineAlgorithm())).start();
+		statisticWriter.record(packagename, deviation, presetConfig,
+				isUseOnlineAlgorithm());
+		LocationPrivacyMetrics.recordLatency("obfuscateLocation", start);
 		return obfuscatedLocation;
 	}
 
@@ -759,7 +1169,8 @@ public class LocationPrivacyManager {
 		} finally {
 			database.endTransaction();
 		}
-		dataChanged();
+		applicationsChanged();
+		notifyChange(Applications.CONTENT_URI);
 	}
 
 	public void resetToFactoryDefaults() {
@@ -769,15 +1180,33 @@ public class LocationPrivacyManager {
 		database.delete("STATISTICACCESS", null, null);
 		database.delete("WEBSERVICEDATA", null, null);
 		database.delete("OFFLINEPARAMETER", null, null);
+		database.delete("ADVICECACHE", null, null);
+		if (accessStore != null) {
+			accessStore.clear();
+		}
+
+		String[][] defaults = new String[][] {
+				{ "useOnlineAlgorithm", "" + useOnlineAlgorithmDefault },
+				{ "dialogInUse", "" + dialogInUseDefault },
+				{ "showCommunityAdvice", "" + showCommunityAdviceDefault },
+				{ "sharePrivacySettings", "" + sharePrivacySettingsDefault },
+				{ "showOnlineInfo", "" + showOnlineInfoDefault },
+				{ "street", "" + streetDefault },
+				{ "postalcode", "" + postalcodeDefault },
+				{ "city", "" + cityDefault } };
+		List<ContentValues> values = new ArrayList<ContentValues>();
+		List<String[]> keys = new ArrayList<String[]>();
+		for (String[] entry : defaults) {
+			ContentValues value = new ContentValues();
+			value.put("value", entry[1]);
+			values.add(value);
+			keys.add(new String[] { entry[0] });
+		}
+		database.updateAll("CONFIGURATION", values, "key = ?", keys);
+		dialogInUse = dialogInUseDefault;
 
-		setUseOnlineAlgorithm(useOnlineAlgorithmDefault);
-		setDialogInUse(dialogInUseDefault);
-		setShowCommunityAdvice(showCommunityAdviceDefault);
-		setSharePrivacySettings(sharePrivacySettingsDefault);
-		setShowOnlineInfo(showOnlineInfoDefault);
-		setOfflinePresetConfiguration(1, streetDefault);
-		setOfflinePresetConfiguration(2, postalcodeDefault);
-		setOfflinePresetConfiguration(3, cityDefault);
+		notifyChange(Applications.CONTENT_URI);
+		notifyChange(Statistics.CONTENT_URI);
 		dataChanged();
 	}
 
@@ -788,13 +1217,24 @@ public class LocationPrivacyManager {
 				new String[] { app.getPackagename() });
 		database.delete("STATISTICDEVIATION", "packagename = ?",
 				new String[] { app.getPackagename() });
-		dataChanged();
+		applicationsChanged();
+		notifyChange(Applications.CONTENT_URI, app.getPackagename());
+		notifyChange(Statistics.CONTENT_URI, app.getPackagename());
 		checkForDialog();
 	}
 
 	public void setBootComplete() {
+		// set before checking, so initialize() sees it if it finishes now
+		bootCompletePending.set(true);
+		if (isReady() && bootCompletePending.compareAndSet(true, false)) {
+			applyBootComplete();
+		}
+	}
+
+	private void applyBootComplete() {
 		setConfiguration("bootComplete", "" + true);
 		bootComplete = true;
+		checkForDialog();
 	}
 
 	private void setConfiguration(String key, String value) {
@@ -802,15 +1242,15 @@ public class LocationPrivacyManager {
 		values.put("value", value);
 		database.update("Configuration", values, "key = ?",
 				new String[] { key });
+		synchronized (this) {
+			configuration.put(key, value);
+		}
 		dataChanged();
 	}
 
 	public void setDialogInUse(boolean dialogInUse) {
 		setConfiguration("dialogInUse", "" + dialogInUse);
 		this.dialogInUse = dialogInUse;
-		Bundle extra = new Bundle();
-		extra.putBoolean("checkForDialog", true);
-		dataChanged(extra);
 	}
 
 	public void setMinDistance(int minDist) {
@@ -874,7 +1314,19 @@ public class LocationPrivacyManager {
 	 * database
 	 */
 	public void updateData() {
-		applications = new ArrayList<LocationPrivacyApplication>();
+		if (!isReady()) {
+			// the configuration is loaded when initialization finishes
+			return;
+		}
+		loadData();
+	}
+
+	/**
+	 * Loads configuration and preset algorithms from the database
+	 */
+	private void loadData() {
+		loadConfiguration();
+		invalidateApplications();
 		presetAlgorithms = new HashMap<Integer, AbstractLocationPrivacyAlgorithm>();
 		showCommunityAdvice = Boolean
 				.parseBoolean(getConfiguration("showCommunityAdvice"));
@@ -924,112 +1376,4 @@ public class LocationPrivacyManager {
 			presetAlgorithms.put(3, r3);
 		}
 	}
-
-	private void updateLocationAccessStatistic(String packagename, int distance, int config, boolean online) {
-		ContentValues values = new ContentValues();
-		Calendar now = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
-
-		Cursor c = database
-				.query("STATISTICACCESS",
-						new String[] { "count" },
-						"packagename = ? AND day = ? AND month = ? AND year = ? AND hour = ?",
-						new String[] { packagename,
-								"" + now.get(Calendar.DAY_OF_MONTH),
-								"" + now.get(Calendar.MONTH),
-								"" + now.get(Calendar.YEAR),
-								"" + now.get(Calendar.HOUR_OF_DAY) }, null,
-						null, null);
-		if (c.getCount() == 0) {
-			values.put("packagename", packagename);
-			values.put("day", now.get(Calendar.DAY_OF_MONTH));
-			values.put("month", now.get(Calendar.MONTH));
-			values.put("year", now.get(Calendar.YEAR));
-			values.put("hour", now.get(Calendar.HOUR_OF_DAY));
-			values.put("count", 1);
-			database.insert("STATISTICACCESS", null, values);
-		} else {
-			c.moveToFirst();
-			ContentValues updateValues = new ContentValues();
-			updateValues.put("count", c.getInt(0) + 1);
-			database.update(
-					"STATISTICACCESS",
-					updateValues,
-					"packagename = ? AND day = ? AND month = ? AND year = ? AND hour = ?",
-					new String[] { packagename,
-							"" + now.get(Calendar.DAY_OF_MONTH),
-							"" + now.get(Calendar.MONTH),
-							"" + now.get(Calendar.YEAR),
-							"" + now.get(Calendar.HOUR_OF_DAY) });
-			c.close();
-		}
-		
-		if(distance >= 0){
-			Cursor distanceC = database.query("STATISTICDEVIATION",
-					new String[] { "deviationsum", "count" },
-					"packagename = ?", new String[] { packagename }, null,
-					null, null);
-			if (distanceC.getCount() == 0) {
-				ContentValues devValues = new ContentValues();
-				devValues.put("packagename", packagename);
-				devValues.put("deviationsum", distance);
-				devValues.put("count", 1);
-				database.insert("STATISTICDEVIATION", null, devValues);
-			} else {
-				distanceC.moveToFirst();
-				ContentValues updateDevValues = new ContentValues();
-				updateDevValues.put("deviationsum", distanceC.getDouble(0)
-						+ distance);
-				updateDevValues.put("count", distanceC.getInt(1) + 1);
-				database.update("STATISTICDEVIATION", updateDevValues,
-						"packagename = ?", new String[] { packagename });
-				distanceC.close();
-			}
-		}
-		
-		
-		Cursor lastAccessC = database.query("LASTACCESS", null, "packagename = ?",
-				new String[] { packagename }, null, null, null);
-		
-		
-		ContentValues lastaccess = new ContentValues();
-		lastaccess.put("day", now.get(Calendar.DAY_OF_MONTH));
-		lastaccess.put("month", now.get(Calendar.MONTH));
-		lastaccess.put("year", now.get(Calendar.YEAR));
-		lastaccess.put("hour", now.get(Calendar.HOUR_OF_DAY));
-		lastaccess.put("minute", now.get(Calendar.MINUTE));
-		lastaccess.put("packagename", packagename);
-		if(lastAccessC.getCount() == 0){
-			database.insert("LASTACCESS", null, lastaccess);
-		} else {
-			database.update("LASTACCESS", lastaccess, "packagename = ?",
-					new String[] { packagename });
-		}
-
-		
-		if(online){
-			int sum = 0;
-			int count = 0;
-			Cursor cOffline = database.query("OFFLINEPARAMETER", new String[]{"sum", "count"},"config = ?", new String[]{"" + config}, null, null, null);
-			cOffline.moveToFirst();
-			if(!cOffline.isAfterLast()){
-				sum = cOffline.getInt(0);
-				count = cOffline.getInt(1);
-			}
-			
-			sum += distance;
-			count++;
-			cOffline.close();
-			
-			ContentValues offline = new ContentValues();
-			offline.put("sum", sum);
-			offline.put("count", count);
-			if(count == 1){
-				offline.put("config", config);
-				database.insert("OFFLINEPARAMETER", null, offline);
-			} else {
-				database.update("OFFLINEPARAMETER", offline, "config = ?", new String[]{"" + config});
-
-			}
-		}
-	}
 }
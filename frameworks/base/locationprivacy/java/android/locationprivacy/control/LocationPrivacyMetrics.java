@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide counters, gauges and latency histograms of the location privacy
+ * framework. Recording is lock-free. While metrics are disabled, start()
+ * returns 0 and all record methods return after reading one volatile flag.
+ *
+ * Usage:
+ *
+ * <pre>
+ * long start = LocationPrivacyMetrics.start();
+ * ...
+ * LocationPrivacyMetrics.recordLatency(&quot;db.query.&quot;, table, start);
+ * </pre>
+ *
+ * The metrics of the location service are requested with an ordered
+ * broadcast of ACTION_METRICS. Sender and receiver need PERMISSION_METRICS.
+ * The result extras contain EXTRA_ENABLED and EXTRA_REPORT.
+ */
+public final class LocationPrivacyMetrics {
+
+	/** Requests the metrics of the location service */
+	public static final String ACTION_METRICS = "android.locationprivacy.action.METRICS";
+	/** Signature permission needed to request and answer ACTION_METRICS */
+	public static final String PERMISSION_METRICS = "android.permission.CONTROL_LocationPrivacyMetrics";
+	/** Optional command executed before answering: enable, disable or reset */
+	public static final String EXTRA_COMMAND = "command";
+	/** Result: true if metrics are recorded */
+	public static final String EXTRA_ENABLED = "enabled";
+	/** Result: printed metrics */
+	public static final String EXTRA_REPORT = "report";
+
+	public static final String COMMAND_ENABLE = "enable";
+	public static final String COMMAND_DISABLE = "disable";
+	public static final String COMMAND_RESET = "reset";
+
+	/** Upper bounds of the histogram buckets in microseconds */
+	private static final long[] BUCKETS = new long[] { 50, 100, 250, 500,
+			1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000,
+			1000000, 2500000, 5000000 };
+
+	private static volatile boolean enabled;
+
+	private static final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+	private static final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+	private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	private LocationPrivacyMetrics() {
+	}
+
+	/**
+	 * Latest and maximum value of a gauge
+	 */
+	private static final class Gauge {
+		final AtomicLong value = new AtomicLong();
+		final AtomicLong max = new AtomicLong();
+
+		void set(long newValue) {
+			value.set(newValue);
+			long oldMax;
+			while (newValue > (oldMax = max.get())) {
+				if (max.compareAndSet(oldMax, newValue)) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Latency histogram with fixed buckets. The last bucket counts all
+	 * values above the largest bound.
+	 */
+	private static final class Histogram {
+		final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length + 1);
+		final AtomicLong count = new AtomicLong();
+		final AtomicLong sumMicros = new AtomicLong();
+		final AtomicLong maxMicros = new AtomicLong();
+
+		void record(long micros) {
+			int i = 0;
+			while (i < BUCKETS.length && micros > BUCKETS[i]) {
+				i++;
+			}
+			buckets.incrementAndGet(i);
+			count.incrementAndGet();
+			sumMicros.addAndGet(micros);
+			long oldMax;
+			while (micros > (oldMax = maxMicros.get())) {
+				if (maxMicros.compareAndSet(oldMax, micros)) {
+					break;
+				}
+			}
+		}
+
+		/** Upper bound of the bucket containing the given quantile */
+		String quantile(double q) {
+			long total = count.get();
+			long rank = (long) Math.ceil(total * q);
+			long seen = 0;
+			for (int i = 0; i <= BUCKETS.length; i++) {
+				seen += buckets.get(i);
+				if (seen >= rank) {
+					return i < BUCKETS.length ? "<=" + formatMicros(BUCKETS[i])
+							: ">" + formatMicros(BUCKETS[BUCKETS.length - 1]);
+				}
+			}
+			return "-";
+		}
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables recording. Recorded values are kept.
+	 */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	/**
+	 * Removes all recorded values
+	 */
+	public static void reset() {
+		counters.clear();
+		gauges.clear();
+		histograms.clear();
+	}
+
+	/**
+	 * Returns the start time for recordLatency, 0 if metrics are disabled
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the time elapsed since start in histogram name
+	 *
+	 * @param name
+	 *            name of the histogram
+	 * @param start
+	 *            value returned by start()
+	 */
+	public static void recordLatency(String name, long start) {
+		if (start == 0 || !enabled) {
+			return;
+		}
+		histogram(name).record((System.nanoTime() - start) / 1000);
+	}
+
+	/**
+	 * Records the time elapsed since start in histogram prefix + detail. The
+	 * name is only built if metrics are enabled.
+	 */
+	public static void recordLatency(String prefix, String detail, long start) {
+		if (start == 0 || !enabled) {
+			return;
+		}
+		histogram(prefix + detail).record((System.nanoTime() - start) / 1000);
+	}
+
+	/**
+	 * Increments counter name by one
+	 */
+	public static void increment(String name) {
+		if (!enabled) {
+			return;
+		}
+		counter(name).incrementAndGet();
+	}
+
+	/**
+	 * Adds delta to counter prefix + detail. The name is only built if
+	 * metrics are enabled.
+	 */
+	public static void add(String prefix, String detail, long delta) {
+		if (!enabled) {
+			return;
+		}
+		counter(prefix + detail).addAndGet(delta);
+	}
+
+	/**
+	 * Returns the value of counter name, 0 if nothing has been recorded
+	 */
+	public static long getCounter(String name) {
+		AtomicLong counter = counters.get(name);
+		return counter != null ? counter.get() : 0;
+	}
+
+	/**
+	 * Returns the sum of all counters whose name starts with prefix
+	 */
+	public static long sumCounters(String prefix) {
+		long sum = 0;
+		for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+			if (entry.getKey().startsWith(prefix)) {
+				sum += entry.getValue().get();
+			}
+		}
+		return sum;
+	}
+
+	private static AtomicLong counter(String name) {
+		AtomicLong counter = counters.get(name);
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = counters.putIfAbsent(name, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Sets gauge name to value and updates its maximum
+	 */
+	public static void setGauge(String name, long value) {
+		if (!enabled) {
+			return;
+		}
+		Gauge gauge = gauges.get(name);
+		if (gauge == null) {
+			Gauge newGauge = new Gauge();
+			gauge = gauges.putIfAbsent(name, newGauge);
+			if (gauge == null) {
+				gauge = newGauge;
+			}
+		}
+		gauge.set(value);
+	}
+
+	private static Histogram histogram(String name) {
+		Histogram histogram = histograms.get(name);
+		if (histogram == null) {
+			Histogram newHistogram = new Histogram();
+			histogram = histograms.putIfAbsent(name, newHistogram);
+			if (histogram == null) {
+				histogram = newHistogram;
+			}
+		}
+		return histogram;
+	}
+
+	private static String formatMicros(long micros) {
+		if (micros >= 1000000) {
+			return (micros / 1000000.0) + "s";
+		}
+		if (micros >= 1000) {
+			return (micros / 1000.0) + "ms";
+		}
+		return micros + "us";
+	}
+
+	/**
+	 * Prints all metrics
+	 */
+	public static void dump(PrintWriter pw) {
+		pw.println("  Location Privacy metrics: "
+				+ (enabled ? "enabled" : "disabled"));
+
+		// sorted snapshots, reset() may clear the maps meanwhile
+		for (Map.Entry<String, AtomicLong> entry : new TreeMap<String, AtomicLong>(
+				counters).entrySet()) {
+			pw.println("    " + entry.getKey() + ": " + entry.getValue().get());
+		}
+		AtomicLong hits = counters.get("geocoder.cache.hit");
+		AtomicLong misses = counters.get("geocoder.cache.miss");
+		if (hits != null || misses != null) {
+			long h = hits != null ? hits.get() : 0;
+			long m = misses != null ? misses.get() : 0;
+			pw.println("    geocoder.cache hit ratio: "
+					+ (h + m > 0 ? (100 * h / (h + m)) + "%" : "-"));
+		}
+
+		for (Map.Entry<String, Gauge> entry : new TreeMap<String, Gauge>(
+				gauges).entrySet()) {
+			Gauge gauge = entry.getValue();
+			pw.println("    " + entry.getKey() + ": " + gauge.value.get()
+					+ " (max " + gauge.max.get() + ")");
+		}
+
+		for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(
+				histograms).entrySet()) {
+			String name = entry.getKey();
+			Histogram histogram = entry.getValue();
+			long count = histogram.count.get();
+			if (count == 0) {
+				continue;
+			}
+			pw.println("    " + name + ": count=" + count + " mean="
+					+ formatMicros(histogram.sumMicros.get() / count)
+					+ " p50" + histogram.quantile(0.5) + " p90"
+					+ histogram.quantile(0.9) + " p99"
+					+ histogram.quantile(0.99) + " max="
+					+ formatMicros(histogram.maxMicros.get()));
+		}
+	}
+}
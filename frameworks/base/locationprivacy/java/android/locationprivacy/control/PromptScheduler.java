@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import java.util.LinkedHashSet;
+
+import android.content.ContentValues;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+/**
+ * The PromptScheduler decides when the configuration dialog is shown for
+ * unconfigured apps. Apps are queued once in order of their first location
+ * request, so repeated requests of a waiting app cost one set lookup. Dialogs
+ * are shown one at a time, after the requests of an app have settled and
+ * with a minimum interval between two dialogs. The queue is stored in the
+ * configuration and survives restarts.
+ */
+class PromptScheduler implements Runnable {
+
+	/** Configuration key of the stored queue */
+	static final String PENDING_KEY = "pendingPrompts";
+
+	/** Time to wait after a new app has been queued */
+	private static final long DEBOUNCE_MILLIS = 2000;
+	/** Minimum time between two dialogs */
+	private static final long MIN_INTERVAL_MILLIS = 10000;
+
+	private final LocationPrivacyManager manager;
+	private final CryptoDatabase database;
+	/** Apps waiting for the dialog, in order of their first request */
+	private final LinkedHashSet<String> pending = new LinkedHashSet<String>();
+	/** App whose dialog is shown, null if no dialog is shown */
+	private String outstanding;
+	/** true if pending has not been stored yet */
+	private boolean dirty;
+	private boolean stored;
+	private long lastPrompt = -MIN_INTERVAL_MILLIS;
+	private Handler handler;
+
+	/**
+	 * Creates new PromptScheduler
+	 *
+	 * @param manager
+	 *            manager showing the dialogs
+	 * @param database
+	 *            location privacy database
+	 * @param storedQueue
+	 *            stored queue, comma separated packagenames or null
+	 */
+	PromptScheduler(LocationPrivacyManager manager, CryptoDatabase database,
+			String storedQueue) {
+		this.manager = manager;
+		this.database = database;
+		if (storedQueue != null) {
+			stored = true;
+			for (String packagename : storedQueue.split(",")) {
+				if (packagename.length() > 0) {
+					pending.add(packagename);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queues an unconfigured app. Does nothing if the app is already queued or
+	 * its dialog is shown.
+	 *
+	 * @param packagename
+	 *            unconfigured app
+	 */
+	synchronized void enqueue(String packagename) {
+		if (packagename.equals(outstanding) || !pending.add(packagename)) {
+			return;
+		}
+		dirty = true;
+		schedule(DEBOUNCE_MILLIS);
+	}
+
+	/**
+	 * Must be called if the dialog state may have changed
+	 *
+	 * @param dialogInUse
+	 *            true if a dialog is shown
+	 */
+	synchronized void dialogStateChanged(boolean dialogInUse) {
+		if (!dialogInUse) {
+			outstanding = null;
+		}
+		if (!pending.isEmpty()) {
+			schedule(0);
+		}
+	}
+
+	/**
+	 * Number of apps waiting for the dialog
+	 */
+	synchronized int size() {
+		return pending.size();
+	}
+
+	private void schedule(long delay) {
+		if (handler == null) {
+			HandlerThread thread = new HandlerThread("LPPromptScheduler",
+					Process.THREAD_PRIORITY_BACKGROUND);
+			thread.start();
+			handler = new Handler(thread.getLooper());
+		}
+		handler.removeCallbacks(this);
+		handler.postDelayed(this, delay);
+	}
+
+	public void run() {
+		while (true) {
+			String packagename;
+			synchronized (this) {
+				if (outstanding != null || pending.isEmpty()
+						|| !manager.canPrompt()) {
+					break;
+				}
+				long wait = lastPrompt + MIN_INTERVAL_MILLIS
+						- SystemClock.uptimeMillis();
+				if (wait > 0) {
+					schedule(wait);
+					break;
+				}
+				packagename = pending.iterator().next();
+				pending.remove(packagename);
+				dirty = true;
+			}
+			if (manager.showPrompt(packagename)) {
+				synchronized (this) {
+					outstanding = packagename;
+					lastPrompt = SystemClock.uptimeMillis();
+				}
+				break;
+			}
+		}
+		store();
+	}
+
+	/**
+	 * Stores the queue in the configuration if it has changed
+	 */
+	private void store() {
+		String value;
+		boolean insert;
+		synchronized (this) {
+			if (!dirty) {
+				return;
+			}
+			StringBuilder builder = new StringBuilder();
+			for (String packagename : pending) {
+				if (builder.length() > 0) {
+					builder.append(',');
+				}
+				builder.append(packagename);
+			}
+			value = builder.toString();
+			insert = !stored;
+			stored = true;
+			dirty = false;
+		}
+		ContentValues values = new ContentValues();
+		values.put("value", value);
+		if (insert) {
+			values.put("key", PENDING_KEY);
+			database.insert("CONFIGURATION", null, values);
+		} else {
+			database.update("CONFIGURATION", values, "key = ?",
+					new String[] { PENDING_KEY });
+		}
+	}
+}
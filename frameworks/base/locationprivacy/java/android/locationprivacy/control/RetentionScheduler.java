@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.control;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TimeZone;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.database.Cursor;
+import android.locationprivacy.control.LocationPrivacyContract.Applications;
+import android.locationprivacy.control.LocationPrivacyContract.Statistics;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * The RetentionScheduler removes expired location access statistics and the
+ * data of uninstalled apps on a background thread.
+ *
+ * The last expired day that has been deleted is stored as epoch day
+ * watermark in the configuration, so every run only deletes the days that
+ * expired since the previous run. Deletes are split into short transactions
+ * to keep the database available for location updates.
+ */
+public class RetentionScheduler implements Runnable {
+
+	/** Number of days access statistics are kept */
+	public static final int RETENTION_DAYS = 28;
+
+	/** Configuration key of the watermark */
+	static final String WATERMARK_KEY = "retentionWatermark";
+
+	private static final String TAG = "LPRetention";
+	private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+	/** Maximum duration of one transaction */
+	private static final long TRANSACTION_MILLIS = 50;
+	/** Pause between two transactions */
+	private static final long PAUSE_MILLIS = 100;
+
+	/** Tables holding data per app */
+	private static final String[] APP_TABLES = new String[] { "APPLICATION",
+			"LASTACCESS", "STATISTICDEVIATION", "STATISTICACCESS",
+			"WEBSERVICEDATA", "ADVICECACHE" };
+
+	/** true while a retention run of this process is active */
+	private static boolean running;
+
+	private final Context context;
+	private final CryptoDatabase database;
+	private final AccessRingStore accessStore;
+
+	/**
+	 * Creates new RetentionScheduler
+	 *
+	 * @param context
+	 *            context used to determine the installed apps
+	 * @param database
+	 *            location privacy database
+	 * @param accessStore
+	 *            hourly access store, may be null
+	 */
+	RetentionScheduler(Context context, CryptoDatabase database,
+			AccessRingStore accessStore) {
+		this.context = context;
+		this.database = database;
+		this.accessStore = accessStore;
+	}
+
+	/**
+	 * Starts a retention run unless one is already active in this process.
+	 */
+	public void schedule() {
+		synchronized (RetentionScheduler.class) {
+			if (running) {
+				return;
+			}
+			running = true;
+		}
+		new Thread(this, TAG).start();
+	}
+
+	public void run() {
+		Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+		try {
+			removeUninstalledApps();
+			removeExpiredDays(toEpochDay(LocationPrivacyClock
+					.currentTimeMillis()) - RETENTION_DAYS);
+			context.getContentResolver().notifyChange(
+					Statistics.CONTENT_URI, null, false);
+		} catch (Exception e) {
+			Log.e(TAG, "Retention run failed", e);
+		} finally {
+			synchronized (RetentionScheduler.class) {
+				running = false;
+			}
+		}
+	}
+
+	/**
+	 * Returns day since 1970-01-01 GMT for given time
+	 */
+	public static long toEpochDay(long millis) {
+		return millis / MILLIS_PER_DAY;
+	}
+
+	private void removeUninstalledApps() throws InterruptedException {
+		HashSet<String> installed = new HashSet<String>();
+		List<PackageInfo> packs = context.getPackageManager()
+				.getInstalledPackages(0);
+		for (PackageInfo p : packs) {
+			installed.add(p.packageName);
+		}
+
+		List<String> appsToRemove = new ArrayList<String>();
+		Cursor c = database.query("APPLICATION",
+				new String[] { "packagename" }, null, null, null, null, null);
+		c.moveToFirst();
+		while (!c.isAfterLast()) {
+			String packagename = c.getString(0);
+			if (!installed.contains(packagename)) {
+				appsToRemove.add(packagename);
+			}
+			c.move(1);
+		}
+		c.close();
+
+		if (appsToRemove.isEmpty()) {
+			return;
+		}
+		List<String[]> args = new ArrayList<String[]>();
+		for (String remove : appsToRemove) {
+			args.add(new String[] { remove });
+		}
+		for (String table : APP_TABLES) {
+			database.deleteAll(table, "packagename = ?", args);
+			Thread.sleep(PAUSE_MILLIS);
+		}
+		if (accessStore != null) {
+			for (String remove : appsToRemove) {
+				accessStore.remove(remove);
+			}
+		}
+		context.getContentResolver().notifyChange(Applications.CONTENT_URI,
+				null, false);
+	}
+
+	/**
+	 * Deletes all access statistics up to the given epoch day that have not
+	 * been deleted by a previous run.
+	 *
+	 * Values are encrypted, so the database can only compare for equality.
+	 * Every expired day is therefore deleted on its own.
+	 */
+	private void removeExpiredDays(long lastExpiredDay)
+			throws InterruptedException {
+		String stored = getWatermark();
+		if (stored == null) {
+			removeAllExpired(lastExpiredDay);
+			return;
+		}
+		long day = Long.parseLong(stored) + 1;
+		while (day <= lastExpiredDay) {
+			long start = SystemClock.uptimeMillis();
+			database.beginTransaction();
+			try {
+				do {
+					deleteDay(day);
+					day++;
+				} while (day <= lastExpiredDay
+						&& SystemClock.uptimeMillis() - start < TRANSACTION_MILLIS);
+				setWatermark(day - 1, true);
+				database.setTransactionSuccessful();
+			} finally {
+				database.endTransaction();
+			}
+			if (day <= lastExpiredDay) {
+				Thread.sleep(PAUSE_MILLIS);
+			}
+		}
+	}
+
+	/**
+	 * Deletes everything outside of the retention window at once. Only used
+	 * for databases without watermark.
+	 */
+	private void removeAllExpired(long lastExpiredDay) {
+		String deleteDates = "NOT((day = ? AND month = ? AND year = ?)";
+		String[] dates = new String[RETENTION_DAYS * 3];
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		for (int i = 0; i < RETENTION_DAYS; i++) {
+			if (i > 0) {
+				deleteDates += " OR (day = ? AND month = ? AND year = ?)";
+			}
+			date.setTimeInMillis((lastExpiredDay + 1 + i) * MILLIS_PER_DAY);
+			dates[i * 3] = "" + date.get(Calendar.DAY_OF_MONTH);
+			dates[i * 3 + 1] = "" + date.get(Calendar.MONTH);
+			dates[i * 3 + 2] = "" + date.get(Calendar.YEAR);
+		}
+		deleteDates += ")";
+
+		database.beginTransaction();
+		try {
+			database.delete("STATISTICACCESS", deleteDates, dates);
+			setWatermark(lastExpiredDay, false);
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+	}
+
+	private void deleteDay(long epochDay) {
+		Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+0"));
+		date.setTimeInMillis(epochDay * MILLIS_PER_DAY);
+		List<String[]> args = new ArrayList<String[]>(1);
+		args.add(new String[] { "" + date.get(Calendar.DAY_OF_MONTH),
+				"" + date.get(Calendar.MONTH), "" + date.get(Calendar.YEAR) });
+		database.deleteAll("STATISTICACCESS",
+				"day = ? AND month = ? AND year = ?", args);
+	}
+
+	private String getWatermark() {
+		Cursor c = database.query("CONFIGURATION", new String[] { "value" },
+				"key = ?", new String[] { WATERMARK_KEY }, null, null, null);
+		String watermark = null;
+		c.moveToFirst();
+		if (!c.isAfterLast()) {
+			watermark = c.getString(0);
+		}
+		c.close();
+		return watermark;
+	}
+
+	private void setWatermark(long epochDay, boolean exists) {
+		ContentValues values = new ContentValues();
+		values.put("value", "" + epochDay);
+		if (exists) {
+			database.update("CONFIGURATION", values, "key = ?",
+					new String[] { WATERMARK_KEY });
+		} else {
+			values.put("key", WATERMARK_KEY);
+			database.insert("CONFIGURATION", null, values);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.locationprivacy.model;
+
+/**
+ * Community advice for an app: the number of users of the webservice that
+ * chose each preset configuration
+ */
+public class CommunityAdvice {
+
+	/** Number of preset configurations */
+	public static final int PRESETS = 5;
+
+	private final String packagename;
+	private final String query;
+	private final int[] votes;
+	private final long time;
+
+	/**
+	 * Creates new instance of CommunityAdvice
+	 * 
+	 * @param packagename
+	 *            packagename of the app
+	 * @param query
+	 *            radii the advice was computed for, empty for the online
+	 *            algorithm
+	 * @param votes
+	 *            votes per preset configuration
+	 * @param time
+	 *            time the advice was received in ms
+	 */
+	public CommunityAdvice(String packagename, String query, int[] votes,
+			long time) {
+		if (votes.length != PRESETS) {
+			throw new IllegalArgumentException("Expected " + PRESETS
+					+ " votes, got " + votes.length);
+		}
+		this.packagename = packagename;
+		this.query = query;
+		this.votes = votes;
+		this.time = time;
+	}
+
+	public String getPackagename() {
+		return packagename;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * Returns the votes per preset configuration. The array must not be
+	 * modified.
+	 */
+	public int[] getVotes() {
+		return votes;
+	}
+
+	/**
+	 * Returns the total number of votes
+	 */
+	public int getSum() {
+		int sum = 0;
+		for (int vote : votes) {
+			sum += vote;
+		}
+		return sum;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Encodes the votes as comma separated list
+	 */
+	public String encodeVotes() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < votes.length; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(votes[i]);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Decodes votes encoded by encodeVotes
+	 * 
+	 * @return votes or null if encoded is malformed
+	 */
+	public static int[] decodeVotes(String encoded) {
+		String[] parts = encoded.split(",");
+		if (parts.length != PRESETS) {
+			return null;
+		}
+		int[] votes = new int[PRESETS];
+		try {
+			for (int i = 0; i < PRESETS; i++) {
+				votes[i] = Integer.parseInt(parts[i]);
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		return votes;
+	}
+}
@@ -49,6 +49,7 @@ import android.location.LocationManager;
 import android.location.LocationProvider;
 import android.location.LocationRequest;
 import android.locationprivacy.control.LocationPrivacyManager;
+import android.locationprivacy.control.LocationPrivacyMetrics;
 import android.os.Binder;
 import android.os.Bundle;
 import android.os.Handler;
@@ -59,6 +60,7 @@ import android.os.PowerManager;
 import android.os.Process;
 import android.os.RemoteException;
 import android.os.SystemClock;
+import android.os.SystemProperties;
 import android.os.UserHandle;
 import android.os.WorkSource;
 import android.provider.Settings;
@@ -80,6 +82,7 @@ import com.android.server.location.PassiveProvider;
 
 import java.io.FileDescriptor;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -191,34 +194,64 @@ public class LocationManagerService extends ILocationManager.Stub implements Run
     // the LocationPrivacyManager for location obfuscation
     private LocationPrivacyManager locationPrivacyManager;
 
-    /// Receive broadcast notification that location privacy settings changed
+    /// Receive broadcast notification that the launcher has started
     BroadcastReceiver LPFBReciever = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
         	if("com.android.server.LocationManagerService.start".equals(intent.getAction())){
         		locationPrivacyManager.setBootComplete();
-        	} else if(intent.getBooleanExtra("checkForDialog", false)){
-        		locationPrivacyManager.checkForDialog();
-        	} else {
-                locationPrivacyManager.updateData();
-
         	}
         }
     };
 
+    /**
+     * Answers metrics requests of the location privacy settings. The sender
+     * needs LocationPrivacyMetrics.PERMISSION_METRICS.
+     */
+    BroadcastReceiver LPMetricsReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String command = intent.getStringExtra(LocationPrivacyMetrics.EXTRA_COMMAND);
+            if (LocationPrivacyMetrics.COMMAND_ENABLE.equals(command)) {
+                LocationPrivacyMetrics.setEnabled(true);
+            } else if (LocationPrivacyMetrics.COMMAND_DISABLE.equals(command)) {
+                LocationPrivacyMetrics.setEnabled(false);
+            } else if (LocationPrivacyMetrics.COMMAND_RESET.equals(command)) {
+                LocationPrivacyMetrics.reset();
+            }
+            StringWriter report = new StringWriter();
+            PrintWriter pw = new PrintWriter(report);
+            locationPrivacyManager.dumpInitTimings(pw);
+            LocationPrivacyMetrics.dump(pw);
+            pw.flush();
+            Bundle result = getResultExtras(true);
+            result.putBoolean(LocationPrivacyMetrics.EXTRA_ENABLED,
+                    LocationPrivacyMetrics.isEnabled());
+            result.putString(LocationPrivacyMetrics.EXTRA_REPORT, report.toString());
+        }
+    };
+
     public LocationManagerService(Context context) {
         super();
         mContext = context;
 
         if (D) Log.d(TAG, "Constructed");
 
-        locationPrivacyManager = new LocationPrivacyManager(mContext);
-        mContext.registerReceiver(LPFBReciever, new IntentFilter("com.android.server.LocationManagerService.locationprivacy"));
+        // the privacy database is opened in systemReady(), no locations are
+        // delivered to apps until then
+        locationPrivacyManager = new LocationPrivacyManager(mContext, true);
+        // metrics can also be switched on the location privacy settings
+        LocationPrivacyMetrics.setEnabled(
+                SystemProperties.getBoolean("persist.locationprivacy.metrics", false));
         mContext.registerReceiver(LPFBReciever, new IntentFilter("com.android.server.LocationManagerService.start"));
+        mContext.registerReceiver(LPMetricsReceiver,
+                new IntentFilter(LocationPrivacyMetrics.ACTION_METRICS),
+                LocationPrivacyMetrics.PERMISSION_METRICS, null);
         // most startup is deferred until systemReady()
     }
 
     public void systemReady() {
+        locationPrivacyManager.initializeAsync();
         Thread thread = new Thread(null, this, THREAD_NAME);
         thread.start();
     }
@@ -249,6 +282,9 @@ public class LocationManagerService extends ILocationManager.Stub implements Run
 
         mGeofenceManager = new GeofenceManager(mContext, mBlacklist);
 
+        // reload location privacy settings when they are changed in Settings
+        locationPrivacyManager.registerObservers(mLocationHandler);
+
         // listen for settings changes
         mContext.getContentResolver().registerContentObserver(
                 Settings.Secure.getUriFor(Settings.Secure.LOCATION_PROVIDERS_ALLOWED), true,
@@ -2080,6 +2116,11 @@ public class LocationManagerService extends ILocationManager.Stub implements Run
             return;
         }
 
+        if (args.length > 0 && "locationprivacy".equals(args[0])) {
+            dumpLocationPrivacy(pw);
+            return;
+        }
+
         synchronized (mLock) {
             pw.println("Current Location Manager state:");
             pw.println("  Location Listeners:");
@@ -2127,6 +2168,9 @@ public class LocationManagerService extends ILocationManager.Stub implements Run
             pw.append("  fudger: ");
             mLocationFudger.dump(fd, pw,  args);
 
+            locationPrivacyManager.dumpInitTimings(pw);
+            LocationPrivacyMetrics.dump(pw);
+
             if (args.length > 0 && "short".equals(args[0])) {
                 return;
             }
@@ -2141,4 +2185,13 @@ public class LocationManagerService extends ILocationManager.Stub implements Run
             }
         }
     }
+
+    /**
+     * Dumps only the location privacy state
+     */
+    private void dumpLocationPrivacy(PrintWriter pw) {
+        pw.println("Current Location Privacy state:");
+        locationPrivacyManager.dumpInitTimings(pw);
+        LocationPrivacyMetrics.dump(pw);
+    }
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.locationprivacy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.Manifest;
+import android.app.IntentService;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.locationprivacy.control.LocationPrivacyClock;
+import android.locationprivacy.control.LocationPrivacyManager;
+import android.locationprivacy.model.CommunityAdvice;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.util.Log;
+
+/**
+ * Fills the community advice cache for all installed apps that request a
+ * location permission, so the configuration dialog can show advice without
+ * waiting for the webservice. Runs while Wi-Fi is connected and only fetches
+ * advice that is missing or expired, up to BATCH_SIZE apps per request to
+ * /getBatch.
+ */
+public class AdvicePrefetchService extends IntentService {
+
+	/**
+	 * Starts the prefetch when Wi-Fi is connected
+	 */
+	public static class ConnectivityReceiver extends BroadcastReceiver {
+		@Override
+		public void onReceive(Context context, Intent intent) {
+			if (isWifiConnected(context)) {
+				context.startService(new Intent(context,
+						AdvicePrefetchService.class));
+			}
+		}
+	}
+
+	private static final String TAG = "AdvicePrefetch";
+	/** Maximum number of apps per request */
+	private static final int BATCH_SIZE = 100;
+	private static final int TIMEOUT_MILLIS = 30000;
+
+	private LocationPrivacyManager lpManager;
+
+	public AdvicePrefetchService() {
+		super("AdvicePrefetchService");
+	}
+
+	private static boolean isWifiConnected(Context context) {
+		ConnectivityManager connectivityManager = (ConnectivityManager) context
+				.getSystemService(Context.CONNECTIVITY_SERVICE);
+		NetworkInfo networkInfo = null;
+		if (connectivityManager != null) {
+			networkInfo = connectivityManager
+					.getNetworkInfo(ConnectivityManager.TYPE_WIFI);
+		}
+		return networkInfo == null ? false : networkInfo.isConnected();
+	}
+
+	@Override
+	protected void onHandleIntent(Intent intent) {
+		lpManager = LocationPrivacyManager.getInstance(this);
+		if (!lpManager.isShowCommunityAdvice() || !isWifiConnected(this)) {
+			return;
+		}
+		HashMap<String, CommunityAdvice> cached = lpManager.getCachedAdvice();
+		ArrayList<String> apps = new ArrayList<String>();
+		for (String packagename : getLocationApps()) {
+			CommunityAdvice advice = cached.get(packagename);
+			if (advice == null || lpManager.isAdviceExpired(advice)) {
+				apps.add(packagename);
+			}
+		}
+		String query = lpManager.getAdviceQuery();
+		for (int i = 0; i < apps.size() && isWifiConnected(this); i += BATCH_SIZE) {
+			List<String> batch = apps.subList(i,
+					Math.min(i + BATCH_SIZE, apps.size()));
+			try {
+				lpManager.setCachedAdvice(fetch(batch, query));
+			} catch (IOException e) {
+				Log.d(TAG, "Prefetch failed: " + e.getMessage());
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the packagenames of all installed apps that request a location
+	 * permission
+	 */
+	private ArrayList<String> getLocationApps() {
+		ArrayList<String> apps = new ArrayList<String>();
+		for (PackageInfo info : getPackageManager().getInstalledPackages(
+				PackageManager.GET_PERMISSIONS)) {
+			if (info.requestedPermissions == null) {
+				continue;
+			}
+			for (String permission : info.requestedPermissions) {
+				if (Manifest.permission.ACCESS_FINE_LOCATION.equals(permission)
+						|| Manifest.permission.ACCESS_COARSE_LOCATION
+								.equals(permission)) {
+					apps.add(info.packageName);
+					break;
+				}
+			}
+		}
+		return apps;
+	}
+
+	/**
+	 * Requests the advice of several apps with one POST request
+	 * 
+	 * @param packagenames
+	 *            apps to request advice for
+	 * @param query
+	 *            query the advice depends on, see
+	 *            LocationPrivacyManager.getAdviceQuery()
+	 * @return advice of the apps known to the webservice
+	 * @throws IOException
+	 *             if the request failed
+	 */
+	private ArrayList<CommunityAdvice> fetch(List<String> packagenames,
+			String query) throws IOException {
+		byte[] body;
+		try {
+			body = ("apps="
+					+ URLEncoder.encode(new JSONArray(packagenames).toString(),
+							"UTF-8") + (query.length() > 0 ? "&" + query : ""))
+					.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+
+		HttpsURLConnection connection = (HttpsURLConnection) new URL("https://"
+				+ lpManager.getWebserviceHostAdress() + "/getBatch")
+				.openConnection();
+		connection
+				.setHostnameVerifier(SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+		connection.setConnectTimeout(TIMEOUT_MILLIS);
+		connection.setReadTimeout(TIMEOUT_MILLIS);
+		connection.setDoOutput(true);
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type",
+				"application/x-www-form-urlencoded; charset=UTF-8");
+		connection.setFixedLengthStreamingMode(body.length);
+		OutputStream os = connection.getOutputStream();
+		try {
+			os.write(body);
+		} finally {
+			os.close();
+		}
+		int code = connection.getResponseCode();
+		InputStream is = code < 400 ? connection.getInputStream() : connection
+				.getErrorStream();
+		String response = is != null ? readFully(is) : "";
+		if (code >= 400 || response.startsWith("error:")) {
+			throw new IOException(code + " " + response);
+		}
+
+		long now = LocationPrivacyClock.currentTimeMillis();
+		ArrayList<CommunityAdvice> advice = new ArrayList<CommunityAdvice>();
+		try {
+			JSONObject json = new JSONObject(response);
+			Iterator<?> keys = json.keys();
+			while (keys.hasNext()) {
+				String packagename = (String) keys.next();
+				JSONObject presets = json.getJSONObject(packagename);
+				int[] votes = new int[CommunityAdvice.PRESETS];
+				for (int i = 0; i < votes.length; i++) {
+					votes[i] = presets.optInt("" + i);
+				}
+				advice.add(new CommunityAdvice(packagename, query, votes, now));
+			}
+		} catch (JSONException e) {
+			throw new IOException("Invalid response: " + e.getMessage());
+		}
+		return advice;
+	}
+
+	private String readFully(InputStream is) throws IOException {
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					is, "UTF-8"));
+			StringBuilder builder = new StringBuilder();
+			char[] buffer = new char[1024];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				builder.append(buffer, 0, read);
+			}
+			return builder.toString();
+		} finally {
+			is.close();
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.locationprivacy;
+
+import java.util.HashSet;
+import java.util.List;
+
+import android.app.ActivityManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.PackageManager.NameNotFoundException;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.locationprivacy.model.LocationPrivacyApplication;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of app labels and icons for the location privacy app
+ * lists. Entries are dropped when their package is changed, replaced or
+ * removed, and all labels are dropped when the locale changes. Icons are bounded by size, labels by
+ * number.
+ */
+class AppInfoCache {
+
+	/** Number of apps whose label is kept */
+	private static final int MAX_LABELS = 1024;
+	/** Fraction of the memory class used for icons */
+	private static final int ICON_MEMORY_DIVISOR = 16;
+	/** Missing labels up to which single lookups are cheaper than a bulk query */
+	private static final int BULK_THRESHOLD = 8;
+
+	private static class Entry {
+		final String label;
+		/** Lower case label, for sorting */
+		final String sortKey;
+
+		Entry(String label) {
+			this.label = label;
+			this.sortKey = label.toLowerCase();
+		}
+	}
+
+	private static AppInfoCache instance;
+
+	private final PackageManager pm;
+	private final LruCache<String, Entry> labels = new LruCache<String, Entry>(
+			MAX_LABELS);
+	private final LruCache<String, Drawable> icons;
+
+	private AppInfoCache(Context context) {
+		pm = context.getPackageManager();
+		int memoryClass = ((ActivityManager) context
+				.getSystemService(Context.ACTIVITY_SERVICE)).getMemoryClass();
+		icons = new LruCache<String, Drawable>(memoryClass * 1024 * 1024
+				/ ICON_MEMORY_DIVISOR) {
+			@Override
+			protected int sizeOf(String key, Drawable icon) {
+				if (icon instanceof BitmapDrawable) {
+					Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+					if (bitmap != null) {
+						return bitmap.getByteCount();
+					}
+				}
+				return 4 * Math.max(1, icon.getIntrinsicWidth())
+						* Math.max(1, icon.getIntrinsicHeight());
+			}
+		};
+
+		IntentFilter packageFilter = new IntentFilter();
+		packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+		packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+		packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+		packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+		packageFilter.addDataScheme("package");
+		context.registerReceiver(new BroadcastReceiver() {
+			@Override
+			public void onReceive(Context context, Intent intent) {
+				if (intent.getData() != null) {
+					remove(intent.getData().getSchemeSpecificPart());
+				}
+			}
+		}, packageFilter);
+		context.registerReceiver(new BroadcastReceiver() {
+			@Override
+			public void onReceive(Context context, Intent intent) {
+				labels.evictAll();
+			}
+		}, new IntentFilter(Intent.ACTION_LOCALE_CHANGED));
+	}
+
+	static synchronized AppInfoCache getInstance(Context context) {
+		if (instance == null) {
+			instance = new AppInfoCache(context.getApplicationContext());
+		}
+		return instance;
+	}
+
+	/**
+	 * Loads the labels of all apps that are not cached. Many missing labels
+	 * are read with one query for all installed packages.
+	 */
+	void prefetch(List<LocationPrivacyApplication> apps) {
+		HashSet<String> missing = new HashSet<String>();
+		for (LocationPrivacyApplication app : apps) {
+			if (labels.get(app.getPackagename()) == null) {
+				missing.add(app.getPackagename());
+			}
+		}
+		if (missing.size() <= BULK_THRESHOLD) {
+			return;
+		}
+		for (PackageInfo info : pm.getInstalledPackages(0)) {
+			if (missing.contains(info.packageName)) {
+				labels.put(info.packageName, new Entry(info.applicationInfo
+						.loadLabel(pm).toString()));
+			}
+		}
+	}
+
+	/**
+	 * Returns the label of an app, its packagename if it is not installed
+	 */
+	String getLabel(String packagename) {
+		return entry(packagename).label;
+	}
+
+	/**
+	 * Returns the lower case label of an app
+	 */
+	String getSortKey(String packagename) {
+		return entry(packagename).sortKey;
+	}
+
+	/**
+	 * Returns the icon of an app, null if it is not installed. Each call
+	 * returns a new drawable sharing the cached bitmap, so that it can be
+	 * shown in several views.
+	 */
+	Drawable getIcon(String packagename) {
+		Drawable icon = icons.get(packagename);
+		if (icon == null) {
+			try {
+				icon = pm.getApplicationIcon(packagename);
+			} catch (NameNotFoundException e) {
+				return null;
+			}
+			icons.put(packagename, icon);
+		}
+		Drawable.ConstantState state = icon.getConstantState();
+		return state != null ? state.newDrawable() : icon;
+	}
+
+	private Entry entry(String packagename) {
+		Entry entry = labels.get(packagename);
+		if (entry == null) {
+			try {
+				PackageInfo info = pm.getPackageInfo(packagename, 0);
+				entry = new Entry(info.applicationInfo.loadLabel(pm)
+						.toString());
+			} catch (NameNotFoundException e) {
+				// not installed, not cached
+				return new Entry(packagename);
+			}
+			labels.put(packagename, entry);
+		}
+		return entry;
+	}
+
+	private void remove(String packagename) {
+		labels.remove(packagename);
+		icons.remove(packagename);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.locationprivacy;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import android.locationprivacy.control.LocationPrivacyManager;
+import android.locationprivacy.model.LocationPrivacyApplication;
+
+/**
+ * Order of a location privacy app list. The sort keys are computed once per
+ * app and kept until the app changes, so comparisons neither query the
+ * database nor the PackageManager. Ties are ordered by label.
+ */
+final class AppOrder {
+
+	static final int LABEL = 0;
+	static final int LAST_ACCESS = 1;
+	static final int PRECISION = 2;
+	static final int ACCESSES_28_DAYS = 3;
+
+	private final LocationPrivacyManager lpManager;
+	private final AppInfoCache appInfo;
+	private int order;
+	/** Database sort keys of the current order, larger values first */
+	private final HashMap<String, Long> keys = new HashMap<String, Long>();
+
+	/**
+	 * @param order
+	 *            one of LABEL, LAST_ACCESS, PRECISION, ACCESSES_28_DAYS
+	 */
+	AppOrder(LocationPrivacyManager lpManager, AppInfoCache appInfo, int order) {
+		this.lpManager = lpManager;
+		this.appInfo = appInfo;
+		this.order = order;
+	}
+
+	int getOrder() {
+		return order;
+	}
+
+	void setOrder(int order) {
+		if (this.order != order) {
+			this.order = order;
+			keys.clear();
+		}
+	}
+
+	/**
+	 * Returns true if the order depends on the statistics of the apps
+	 */
+	boolean dependsOnStatistics() {
+		return order == LAST_ACCESS || order == ACCESSES_28_DAYS;
+	}
+
+	/**
+	 * Drops the sort key of an app whose statistics have changed
+	 */
+	void invalidate(String packagename) {
+		keys.remove(packagename);
+	}
+
+	void invalidateAll() {
+		keys.clear();
+	}
+
+	/**
+	 * Sorts apps, only the keys of new or changed apps are computed
+	 */
+	void sort(List<LocationPrivacyApplication> apps) {
+		final HashMap<String, String> labels = new HashMap<String, String>();
+		// presets in ascending order
+		final HashMap<String, Long> presets = new HashMap<String, Long>();
+		for (LocationPrivacyApplication app : apps) {
+			String packagename = app.getPackagename();
+			labels.put(packagename, appInfo.getSortKey(packagename));
+			presets.put(packagename, (long) -app.getPresetConfig());
+			if (dependsOnStatistics() && !keys.containsKey(packagename)) {
+				keys.put(packagename, key(packagename));
+			}
+		}
+		final HashMap<String, Long> sortKeys = order == PRECISION ? presets
+				: keys;
+		Collections.sort(apps, new Comparator<LocationPrivacyApplication>() {
+			@Override
+			public int compare(LocationPrivacyApplication o1,
+					LocationPrivacyApplication o2) {
+				if (order != LABEL) {
+					Long k1 = sortKeys.get(o1.getPackagename());
+					Long k2 = sortKeys.get(o2.getPackagename());
+					if (!k1.equals(k2)) {
+						return k2.compareTo(k1);
+					}
+				}
+				return labels.get(o1.getPackagename()).compareTo(
+						labels.get(o2.getPackagename()));
+			}
+		});
+	}
+
+	private long key(String packagename) {
+		if (order == LAST_ACCESS) {
+			return lpManager.getLastAccess(packagename).getTimeInMillis();
+		}
+		long sum = 0;
+		for (Integer value : lpManager.getLocationAccessStatistic(packagename)
+				.values()) {
+			sum += value;
+		}
+		return sum;
+	}
+}
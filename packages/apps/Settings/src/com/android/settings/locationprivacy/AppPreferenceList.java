@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.locationprivacy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import android.locationprivacy.control.LocationPrivacyManager;
+import android.locationprivacy.model.LocationPrivacyApplication;
+import android.net.Uri;
+import android.preference.Preference;
+import android.preference.PreferenceGroup;
+
+/**
+ * Model of the app rows shown in a PreferenceGroup. Changes of the apps are
+ * applied as insertions, removals, reorders and updates of single rows
+ * instead of rebuilding the list. Changes notified while the screen is not
+ * shown are collected and applied when it is shown again.
+ */
+abstract class AppPreferenceList<P extends Preference> {
+
+	private final PreferenceGroup group;
+	private final LocationPrivacyManager lpManager;
+	private final AppInfoCache appInfo;
+	private final AppOrder order;
+	/** Order of the first row, the rows follow the static preferences */
+	private final int firstOrder;
+	/** Displayed apps in displayed order */
+	private final ArrayList<LocationPrivacyApplication> apps = new ArrayList<LocationPrivacyApplication>();
+	private final HashMap<String, P> rows = new HashMap<String, P>();
+	/** Changed apps that have not been applied yet */
+	private final HashSet<String> changedApps = new HashSet<String>();
+	/** true if all apps have to be reloaded */
+	private boolean allChanged = true;
+	private boolean active;
+
+	AppPreferenceList(PreferenceGroup group, LocationPrivacyManager lpManager,
+			AppInfoCache appInfo, int order) {
+		this.group = group;
+		this.lpManager = lpManager;
+		this.appInfo = appInfo;
+		this.order = new AppOrder(lpManager, appInfo, order);
+		this.firstOrder = group.getPreferenceCount();
+	}
+
+	/**
+	 * Creates the row of a new app
+	 */
+	abstract P createRow(LocationPrivacyApplication app);
+
+	/**
+	 * Updates the row of a changed app, should do nothing if the displayed
+	 * values have not changed
+	 */
+	abstract void updateRow(P row, LocationPrivacyApplication app);
+
+	/**
+	 * Applies the collected changes and applies further changes immediately
+	 * until setActive(false) is called
+	 */
+	void setActive(boolean active) {
+		this.active = active;
+		if (active) {
+			apply();
+		}
+	}
+
+	/**
+	 * Records a change notification of the location privacy data
+	 *
+	 * @param uri
+	 *            notified URI, changes of one app end with its packagename
+	 */
+	void changed(Uri uri) {
+		if (uri != null && uri.getPathSegments().size() > 1) {
+			changedApps.add(uri.getLastPathSegment());
+		} else {
+			allChanged = true;
+		}
+		if (active) {
+			apply();
+		}
+	}
+
+	/**
+	 * Returns true if the current order depends on the statistics of the apps
+	 */
+	boolean dependsOnStatistics() {
+		return order.dependsOnStatistics();
+	}
+
+	void setOrder(int order) {
+		if (this.order.getOrder() != order) {
+			this.order.setOrder(order);
+			sort();
+		}
+	}
+
+	private void apply() {
+		if (allChanged) {
+			allChanged = false;
+			changedApps.clear();
+			order.invalidateAll();
+			update(lpManager.getApplications());
+		} else if (!changedApps.isEmpty()) {
+			for (String packagename : changedApps) {
+				updateApp(packagename);
+			}
+			changedApps.clear();
+			sort();
+		}
+	}
+
+	/**
+	 * Replaces all apps, only rows of added, removed or changed apps are
+	 * touched
+	 */
+	private void update(List<LocationPrivacyApplication> newApps) {
+		HashSet<String> packagenames = new HashSet<String>();
+		for (LocationPrivacyApplication app : newApps) {
+			packagenames.add(app.getPackagename());
+		}
+		for (LocationPrivacyApplication app : apps) {
+			if (!packagenames.contains(app.getPackagename())) {
+				group.removePreference(rows.remove(app.getPackagename()));
+			}
+		}
+		apps.clear();
+		apps.addAll(newApps);
+		appInfo.prefetch(apps);
+		for (LocationPrivacyApplication app : apps) {
+			P row = rows.get(app.getPackagename());
+			if (row != null) {
+				updateRow(row, app);
+			}
+		}
+		sort();
+	}
+
+	/**
+	 * Reloads one app, it is removed if the framework does not know it
+	 * anymore
+	 */
+	private void updateApp(String packagename) {
+		order.invalidate(packagename);
+		LocationPrivacyApplication app = lpManager.getApplication(packagename);
+		int index = indexOf(packagename);
+		if (app == null) {
+			if (index >= 0) {
+				apps.remove(index);
+				group.removePreference(rows.remove(packagename));
+			}
+		} else if (index >= 0) {
+			apps.set(index, app);
+			updateRow(rows.get(packagename), app);
+		} else {
+			apps.add(app);
+		}
+	}
+
+	/**
+	 * Sorts the apps, adds missing rows and moves rows whose position has
+	 * changed
+	 */
+	private void sort() {
+		order.sort(apps);
+		for (int i = 0; i < apps.size(); i++) {
+			LocationPrivacyApplication app = apps.get(i);
+			P row = rows.get(app.getPackagename());
+			if (row == null) {
+				row = createRow(app);
+				row.setOrder(firstOrder + i);
+				rows.put(app.getPackagename(), row);
+				group.addPreference(row);
+			} else if (row.getOrder() != firstOrder + i) {
+				row.setOrder(firstOrder + i);
+			}
+		}
+	}
+
+	private int indexOf(String packagename) {
+		for (int i = 0; i < apps.size(); i++) {
+			if (apps.get(i).getPackagename().equals(packagename)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -33,14 +33,18 @@ import org.json.JSONObject;
 
 import android.accounts.Account;
 import android.accounts.AccountManager;
+import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.Notification;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.res.Resources;
 import android.locationprivacy.control.LocationPrivacyManager;
+import android.locationprivacy.control.LocationPrivacyMetrics;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
@@ -168,7 +172,7 @@ public class LocationPrivacyAdvancedSettings extends SettingsPreferenceFragment
 	@Override
 	public void onCreate(Bundle icicle) {
 		super.onCreate(icicle);
-		lpManager = new LocationPrivacyManager(getActivity());
+		lpManager = LocationPrivacyManager.getInstance(getActivity());
 		mHandler = new Handler(getActivity().getMainLooper()) {
 			public void handleMessage(Message inputMessage) {
 				Resources res = getResources();
@@ -256,8 +260,6 @@ public class LocationPrivacyAdvancedSettings extends SettingsPreferenceFragment
 								public void onClick(DialogInterface dialog,
 										int which) {
 									lpManager.resetToFactoryDefaults();
-									lpManager = new LocationPrivacyManager(
-											getActivity());
 									startFragment(getParentFragment(),
 											LocationPrivacySettings.class
 													.getName(), 0, new Bundle());
@@ -277,6 +279,8 @@ public class LocationPrivacyAdvancedSettings extends SettingsPreferenceFragment
 			AlertDialog dialog = builder.create();
 			dialog.show();
 
+		} else if (preference.getKey().equals("lp_settings_advanced_metrics")) {
+			requestMetrics(null);
 		} else if (preference.getKey().equals("lp_settings_advanced_settings")) {
 			if (GooglePlayServicesUtil
 					.isGooglePlayServicesAvailable(getActivity()) != ConnectionResult.SUCCESS) {
@@ -287,6 +291,73 @@ public class LocationPrivacyAdvancedSettings extends SettingsPreferenceFragment
 		return true;
 	}
 
+	/**
+	 * Requests the metrics from the location service, which records them in
+	 * the system process, and shows them
+	 *
+	 * @param command
+	 *            LocationPrivacyMetrics.COMMAND_* executed before, null to only
+	 *            read
+	 */
+	private void requestMetrics(String command) {
+		if (getActivity() == null) {
+			return;
+		}
+		Intent intent = new Intent(LocationPrivacyMetrics.ACTION_METRICS);
+		if (command != null) {
+			intent.putExtra(LocationPrivacyMetrics.EXTRA_COMMAND, command);
+		}
+		getActivity().sendOrderedBroadcast(intent,
+				LocationPrivacyMetrics.PERMISSION_METRICS,
+				new BroadcastReceiver() {
+					@Override
+					public void onReceive(Context context, Intent intent) {
+						showMetrics(getResultExtras(false));
+					}
+				}, mHandler, Activity.RESULT_OK, null, null);
+	}
+
+	private void showMetrics(Bundle result) {
+		if (getActivity() == null) {
+			return;
+		}
+		AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
+		builder.setTitle(R.string.lp_settings_advanced_metrics)
+				.setPositiveButton(R.string.ok, null);
+		if (result == null
+				|| !result.containsKey(LocationPrivacyMetrics.EXTRA_REPORT)) {
+			builder.setMessage(R.string.lp_settings_advanced_metrics_error);
+		} else {
+			final boolean enabled = result
+					.getBoolean(LocationPrivacyMetrics.EXTRA_ENABLED);
+			builder.setMessage(
+					result.getString(LocationPrivacyMetrics.EXTRA_REPORT))
+					.setNeutralButton(
+							enabled ? R.string.lp_settings_advanced_metrics_disable
+									: R.string.lp_settings_advanced_metrics_enable,
+							new DialogInterface.OnClickListener() {
+
+								@Override
+								public void onClick(DialogInterface dialog,
+										int which) {
+									requestMetrics(enabled ? LocationPrivacyMetrics.COMMAND_DISABLE
+											: LocationPrivacyMetrics.COMMAND_ENABLE);
+								}
+							})
+					.setNegativeButton(
+							R.string.lp_settings_advanced_metrics_reset,
+							new DialogInterface.OnClickListener() {
+
+								@Override
+								public void onClick(DialogInterface dialog,
+										int which) {
+									requestMetrics(LocationPrivacyMetrics.COMMAND_RESET);
+								}
+							});
+		}
+		builder.create().show();
+	}
+
 	private void refresh() {
 		for (int i = 0; i < screen.getPreferenceCount(); i++) {
 			Preference pref = screen.getPreference(i);
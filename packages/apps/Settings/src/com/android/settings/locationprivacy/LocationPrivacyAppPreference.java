@@ -19,7 +19,6 @@
 package com.android.settings.locationprivacy;
 
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.locationprivacy.model.LocationPrivacyApplication;
 import android.preference.Preference;
 import android.preference.Preference.OnPreferenceClickListener;
@@ -39,20 +38,17 @@ public class LocationPrivacyAppPreference extends Preference implements
 
 	private LocationPrivacyApplication app;
 
-	private PackageManager packageManager;
+	private AppInfoCache appInfo;
 
-	private TextView presetConfiguration;
-
-	private ImageView presetConfigurationImage;
 	public LocationPrivacyAppPreference(Context context,
 			LocationPrivacyApplication app, boolean offline) {
 		super(context);
 		// TODO Auto-generated constructor stub
 		this.app = app;
-		this.packageManager = context.getPackageManager();
+		this.appInfo = AppInfoCache.getInstance(context);
 		setOnPreferenceClickListener(this);
-		setTitle(app.getLabel(packageManager));
-		setIcon(app.getIcon(packageManager));
+		setTitle(appInfo.getLabel(app.getPackagename()));
+		setIcon(appInfo.getIcon(app.getPackagename()));
 		setKey("app_" + app.getPackagename());
 
 	}
@@ -65,9 +61,16 @@ public class LocationPrivacyAppPreference extends Preference implements
 	protected View onCreateView(ViewGroup parent) {
 		LayoutInflater inflater = (LayoutInflater) getContext()
 				.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-		View view = inflater.inflate(R.layout.lp_apppreference, null);
-		presetConfiguration = (TextView) view.findViewById(R.id.presetConf);
-		presetConfigurationImage = (ImageView) view
+		return inflater.inflate(R.layout.lp_apppreference, null);
+	}
+
+	@Override
+	protected void onBindView(View view) {
+		super.onBindView(view);
+		// views are recycled between rows, so the preset is bound every time
+		TextView presetConfiguration = (TextView) view
+				.findViewById(R.id.presetConf);
+		ImageView presetConfigurationImage = (ImageView) view
 				.findViewById(R.id.presetConfImage);
 		String[] presetconfigs = getContext().getResources().getStringArray(
 				R.array.preconfigs_short);
@@ -75,7 +78,6 @@ public class LocationPrivacyAppPreference extends Preference implements
 		preset = preset == -1 ? 5 : preset;
 		presetConfiguration.setText(presetconfigs[preset]);
 		presetConfigurationImage.setImageResource(presetsDrawables[preset]);
-		return view;
 	}
 
 	@Override
@@ -85,21 +87,20 @@ public class LocationPrivacyAppPreference extends Preference implements
 
 	public void setApp(LocationPrivacyApplication app) {
 		this.app = app;
-		setTitle(app.getLabel(packageManager));
-		setIcon(app.getIcon(packageManager));
+		setTitle(appInfo.getLabel(app.getPackagename()));
+		setIcon(appInfo.getIcon(app.getPackagename()));
 		setKey("app_" + app.getPackagename());
+		notifyChanged();
 	}
 
+	/**
+	 * Updates the displayed preset, does nothing if it has not changed
+	 */
 	public void setPreset(int preset) {
-		app.setPresetConfig(preset);
-		String[] presetconfigs = getContext().getResources().getStringArray(
-				R.array.preconfigs_short);
-		if (app.getPresetConfig() >= 0) {
-			presetConfiguration.setText(presetconfigs[app.getPresetConfig()]);
-			presetConfigurationImage.setImageResource(presetsDrawables[app
-					.getPresetConfig()]);
+		if (app.getPresetConfig() != preset) {
+			app.setPresetConfig(preset);
+			notifyChanged();
 		}
-
 	}
 
 }
@@ -25,7 +25,6 @@ import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -39,8 +38,9 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Intent;
 import android.content.res.Resources;
+import android.locationprivacy.control.LocationPrivacyClock;
 import android.locationprivacy.control.LocationPrivacyManager;
-import android.locationprivacy.model.AbstractLocationPrivacyAlgorithm;
+import android.locationprivacy.model.CommunityAdvice;
 import android.locationprivacy.model.LocationPrivacyApplication;
 import android.os.Bundle;
 import android.os.Handler;
@@ -70,36 +70,36 @@ public class LocationPrivacyDialog extends Activity implements OnClickListener {
 			this.packagename = packagename;
 		}
 
+		/**
+		 * Shows the cached advice at once and refreshes it from the
+		 * webservice if it is missing or expired
+		 */
 		@Override
 		public void run() {
-			final String HOST_ADDRESS = "https://"
-					+ lpManager.getWebserviceHostAdress() + "/get";
-			String urlString = HOST_ADDRESS;
-			HashMap<Integer, AbstractLocationPrivacyAlgorithm> presetAlgorithms = lpManager
-					.getPresetAlgorithms();
-			urlString += "?app=" + packagename;
-			if (!lpManager.isUseOnlineAlgorithm()) {
-				urlString += "&street="
-						+ presetAlgorithms.get(1).getConfiguration()
-								.getInt("radius");
-				urlString += "&district="
-						+ presetAlgorithms.get(2).getConfiguration()
-								.getInt("radius");
-				urlString += "&city="
-						+ presetAlgorithms.get(3).getConfiguration()
-								.getInt("radius");
+			CommunityAdvice cached = lpManager.getCachedAdvice(packagename);
+			if (cached != null) {
+				deliver(cached.getVotes());
+				if (!lpManager.isAdviceExpired(cached)) {
+					return;
+				}
 			}
 
-			System.out.println(urlString);
+			String query = lpManager.getAdviceQuery();
+			String urlString = "https://"
+					+ lpManager.getWebserviceHostAdress() + "/get?app="
+					+ packagename;
+			if (query.length() > 0) {
+				urlString += "&" + query;
+			}
 			URL url;
 			try {
 				url = new URL(urlString);
 			} catch (MalformedURLException e) {
-
 				Log.e(TAG, "Error: could not build URL");
 				Log.e(TAG, e.getMessage());
-				Message msg = Message.obtain(mHandler, ERROR);
-				msg.sendToTarget();
+				if (cached == null) {
+					Message.obtain(mHandler, ERROR).sendToTarget();
+				}
 				return;
 			}
 			HttpsURLConnection connection = null;
@@ -112,42 +112,51 @@ public class LocationPrivacyDialog extends Activity implements OnClickListener {
 				BufferedReader reader = new BufferedReader(
 						new InputStreamReader(is));
 				String line = reader.readLine();
-				System.out.println("Line " + line);
 				json = new JSONObject(line);
 			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				connection.disconnect();
-				e.printStackTrace();
-				Message msg = Message.obtain(mHandler, ERROR);
-				msg.sendToTarget();
+				if (connection != null) {
+					connection.disconnect();
+				}
+				Log.d(TAG, "Could not get advice: " + e.getMessage());
+				if (cached == null) {
+					Message.obtain(mHandler, ERROR).sendToTarget();
+				}
 				return;
 			} catch (JSONException e) {
-				// TODO Auto-generated catch block
 				connection.disconnect();
-				e.printStackTrace();
-				Message msg = Message.obtain(mHandler, ERROR);
-				msg.sendToTarget();
+				Log.d(TAG, "Invalid advice: " + e.getMessage());
+				if (cached == null) {
+					Message.obtain(mHandler, ERROR).sendToTarget();
+				}
 				return;
 			}
 			connection.disconnect();
 
-			HashMap<Integer, Integer> choosenPresets = new HashMap<Integer, Integer>();
-			int[] values = new int[5];
-			int[] stars = new int[5];
-			for (int i = 0; i < 5; i++) {
+			int[] values = new int[CommunityAdvice.PRESETS];
+			for (int i = 0; i < values.length; i++) {
 				try {
 					values[i] = json.getInt("" + i);
-					System.out.println(i + " " + json.getInt("" + i));
 				} catch (JSONException e) {
 					Log.d(TAG, "Warning: No entry for preset " + i);
-					System.out.println("Warning: No entry for preset " + i);
 				}
 			}
+			ArrayList<CommunityAdvice> advice = new ArrayList<CommunityAdvice>(1);
+			advice.add(new CommunityAdvice(packagename, query, values,
+					LocationPrivacyClock.currentTimeMillis()));
+			lpManager.setCachedAdvice(advice);
+			deliver(values);
+		}
+
+		/**
+		 * Sends the votes per preset to the handler of the dialog
+		 */
+		private void deliver(int[] values) {
 			int sum = 0;
 			for (int i = 0; i < values.length; i++) {
 				sum += values[i];
 			}
 			if (useStarsInDialog) {
+				int[] stars = new int[values.length];
 				for (int i = 0; i < stars.length; i++) {
 					stars[i] = (int) (((double) values[i]) / (sum * STARTHRESHOLD));
 				}
@@ -156,11 +165,12 @@ public class LocationPrivacyDialog extends Activity implements OnClickListener {
 				msg.arg1 = sum;
 				msg.sendToTarget();
 			} else {
-				Message msg = Message.obtain(mHandler, RECIEVED_DATA, values);
+				// the handler modifies the array
+				Message msg = Message.obtain(mHandler, RECIEVED_DATA,
+						values.clone());
 				msg.arg1 = sum;
 				msg.sendToTarget();
 			}
-
 		}
 	}
 	protected static final int ERROR = 20;
@@ -229,7 +239,7 @@ public class LocationPrivacyDialog extends Activity implements OnClickListener {
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.lp_dialog);
-		lpManager = new LocationPrivacyManager(this);
+		lpManager = LocationPrivacyManager.getInstance(this);
 		sharePrivacySettings = lpManager.isSharePrivacySettings();
 		showCommunityAdvice = lpManager.isShowCommunityAdvice();
 
@@ -252,7 +262,6 @@ public class LocationPrivacyDialog extends Activity implements OnClickListener {
 				+ res.getString(R.string.lp_dialog_intro));
 
 		if (showCommunityAdvice) {
-			new Thread(new DataFromWebservice(app.getPackagename())).start();
 			community.setText(R.string.lp_dialog_get_from_webservice);
 			community.setVisibility(View.VISIBLE);
 			progress.setVisibility(View.VISIBLE);
@@ -348,6 +357,9 @@ public class LocationPrivacyDialog extends Activity implements OnClickListener {
 				}
 			};
 		}
+		if (showCommunityAdvice) {
+			new Thread(new DataFromWebservice(app.getPackagename())).start();
+		}
 	}
 
 	@Override
@@ -393,7 +393,7 @@ public class LocationPrivacyMap extends MapActivity implements OnClickListener {
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.locationprivacy_coordinate);
-		lpManager = new LocationPrivacyManager(this);
+		lpManager = LocationPrivacyManager.getInstance(this);
 
 		int minDistance = lpManager.getMinDistance();
 		int[] nums = { 0, 20, 50, 100, 200, 300, 400, 500, 1000, 2000, 3000,
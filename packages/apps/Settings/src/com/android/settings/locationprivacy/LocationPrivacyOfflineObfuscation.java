@@ -60,7 +60,7 @@ public class LocationPrivacyOfflineObfuscation extends
 	@Override
 	public void onCreate(Bundle icicle) {
 		super.onCreate(icicle);
-		lpManager = new LocationPrivacyManager(getActivity());
+		lpManager = LocationPrivacyManager.getInstance(getActivity());
 		screen = getPreferenceScreen();
 		if (screen != null) {
 			screen.removeAll();
@@ -42,7 +42,7 @@ public class LocationPrivacyOnlineInfoActivity extends Activity implements OnCli
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.online_info);
-		lpManager = new LocationPrivacyManager(this);
+		lpManager = LocationPrivacyManager.getInstance(this);
 		ok = (Button) findViewById(R.id.info_ok);
 		ok.setOnClickListener(this);
 	}
@@ -18,17 +18,15 @@
 
 package com.android.settings.locationprivacy;
 
-import java.util.Calendar;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-
+import android.content.ContentResolver;
 import android.content.Intent;
-import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.locationprivacy.control.LocationPrivacyContract;
 import android.locationprivacy.control.LocationPrivacyManager;
 import android.locationprivacy.model.LocationPrivacyApplication;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
 import android.preference.Preference;
 import android.preference.Preference.OnPreferenceClickListener;
 import android.preference.PreferenceScreen;
@@ -51,77 +49,18 @@ public class LocationPrivacySettings extends SettingsPreferenceFragment
 		implements OnPreferenceClickListener {
 
 	private static final int APP_REQUEST = 30;
-	private List<LocationPrivacyApplication> apps;
-	private int comparator;
-	private final Comparator<LocationPrivacyApplication> compareLabel = new Comparator<LocationPrivacyApplication>() {
-
-		@Override
-		public int compare(LocationPrivacyApplication o1,
-				LocationPrivacyApplication o2) {
-
-			return o1.getLabel(pm).toLowerCase()
-					.compareTo(o2.getLabel(pm).toLowerCase());
-		}
-	};
-
-	private final Comparator<LocationPrivacyApplication> compareLastAccess = new Comparator<LocationPrivacyApplication>() {
-
-		@Override
-		public int compare(LocationPrivacyApplication o1,
-				LocationPrivacyApplication o2) {
-			Calendar c1 = lpManager.getLastAccess(o1.getPackagename());
-			Calendar c2 = lpManager.getLastAccess(o2.getPackagename());
-			int compare = c2.compareTo(c1);
-			if(compare == 0){
-				return compareLabel.compare(o1, o2);
-			}
-			return compare;
-		}
-	};
-
-	private final Comparator<LocationPrivacyApplication> comparePrecision = new Comparator<LocationPrivacyApplication>() {
-
-		@Override
-		public int compare(LocationPrivacyApplication o1,
-				LocationPrivacyApplication o2) {
-			if(o1.getPresetConfig() < o2.getPresetConfig()){
-				return -1;
-			} else if(o1.getPresetConfig() > o2.getPresetConfig()) {
-				return 1;
-			} else  {
-				return compareLabel.compare(o1, o2);
-			}
-		}
-	};
-	
-	private final Comparator<LocationPrivacyApplication> compare28Days = new Comparator<LocationPrivacyApplication>() {
-
+	private AppPreferenceList<LocationPrivacyAppPreference> apps;
+	private LocationPrivacyManager lpManager;
+	/** Observes the apps, and their statistics if the order depends on them */
+	private final ContentObserver observer = new ContentObserver(new Handler()) {
 		@Override
-		public int compare(LocationPrivacyApplication o1,
-				LocationPrivacyApplication o2) {
-			int count1 = count(lpManager.getLocationAccessStatistic(o1
-					.getPackagename()));
-			int count2 = count(lpManager.getLocationAccessStatistic(o2
-					.getPackagename()));
-			if (count1 == count2) {
-				return compareLabel.compare(o1, o2);
-			} else {
-				return count2 - count1;
+		public void onChange(boolean selfChange, Uri uri) {
+			if (apps != null) {
+				apps.changed(uri);
 			}
 		}
 	};
-	
-	private int count(HashMap<Calendar, Integer> locationAccessStatistic) {
-		int sum = 0;
-		for (Integer value : locationAccessStatistic.values()) {
-			sum += value;
-		}
-		return sum;
-	}
-
-	private LocationPrivacyManager lpManager;
-
-	private PackageManager pm;
+	private boolean statisticsObserved;
 
 	private PreferenceScreen screen;
 
@@ -134,8 +73,9 @@ public class LocationPrivacySettings extends SettingsPreferenceFragment
 			if (appKey != null && preset >= 0) {
 				LocationPrivacyAppPreference pref = (LocationPrivacyAppPreference) screen
 						.findPreference(appKey);
-				pref.setPreset(preset);
-				apps = lpManager.getApplications();
+				if (pref != null) {
+					pref.setPreset(preset);
+				}
 			}
 		}
 		super.onActivityResult(requestCode, resultCode, data);
@@ -147,14 +87,29 @@ public class LocationPrivacySettings extends SettingsPreferenceFragment
 		setHasOptionsMenu(true);
 		getActivity().getActionBar().setDisplayHomeAsUpEnabled(true);
 
-		pm = getActivity().getPackageManager();
-		lpManager = new LocationPrivacyManager(getActivity());
+		lpManager = LocationPrivacyManager.getInstance(getActivity());
 		addPreferencesFromResource(R.xml.locationprivacy_settings);
 		screen = getPreferenceScreen();
 
 		screen.setOrderingAsAdded(true);
-		comparator = 0;
-		refresh();
+		apps = new AppPreferenceList<LocationPrivacyAppPreference>(screen,
+				lpManager, AppInfoCache.getInstance(getActivity()),
+				AppOrder.LABEL) {
+			@Override
+			LocationPrivacyAppPreference createRow(LocationPrivacyApplication app) {
+				LocationPrivacyAppPreference pref = new LocationPrivacyAppPreference(
+						getActivity(), app, !lpManager.isUseOnlineAlgorithm());
+				pref.setOnPreferenceClickListener(LocationPrivacySettings.this);
+				return pref;
+			}
+
+			@Override
+			void updateRow(LocationPrivacyAppPreference row,
+					LocationPrivacyApplication app) {
+				row.setPreset(app.getPresetConfig());
+			}
+		};
+		observe();
 		lpManager.cleanDatabase();
 	}
 
@@ -166,6 +121,7 @@ public class LocationPrivacySettings extends SettingsPreferenceFragment
 	@Override
 	public void onDestroy() {
 		super.onDestroy();
+		getContentResolver().unregisterContentObserver(observer);
 		if (screen != null) {
 			screen.removeAll();
 		}
@@ -178,24 +134,20 @@ public class LocationPrivacySettings extends SettingsPreferenceFragment
 	public boolean onOptionsItemSelected(MenuItem item) {
 		switch (item.getItemId()) {
 		case R.id.lp_menu_label_app:
-			comparator = 0;
-			refresh();
+			setOrder(AppOrder.LABEL);
 			Log.d("LpSettings", "order app by name");
 			break;
 
 		case R.id.lp_menu_last_access_app:
-			comparator = 1;
-			refresh();
+			setOrder(AppOrder.LAST_ACCESS);
 			Log.d("LpSettings", "order app by last access");
 			break;
 		case R.id.lp_menu_precision_app:
-			comparator = 2;
-			refresh();
+			setOrder(AppOrder.PRECISION);
 			Log.d("LpSettings", "order app by location precision");
 			break;
 		case R.id.lp_menu_number_access_28_days_app:
-			comparator = 3;
-			refresh();
+			setOrder(AppOrder.ACCESSES_28_DAYS);
 			Log.d("LpSettings", "order app number of location access in last 28 days");
 			break;
 		}		
@@ -222,47 +174,44 @@ public class LocationPrivacySettings extends SettingsPreferenceFragment
 		return true;
 	}
 
-	@Override
-	public void onResume() {
-		super.onResume();
-		if (screen != null) {
-			refresh();
+	/**
+	 * Changes the order and observes the statistics if the order depends on
+	 * them
+	 */
+	private void setOrder(int order) {
+		apps.setOrder(order);
+		if (apps.dependsOnStatistics() != statisticsObserved) {
+			observe();
 		}
 	}
 
-	private Comparator<LocationPrivacyApplication> getComparator() {
-		switch (comparator) {
-		case 0:
-			return compareLabel;
-		case 1:
-			return compareLastAccess;
-		case 2:
-			return comparePrecision;
-		case 3:
-			return compare28Days;
+	/**
+	 * Registers the observer for the apps and, if the order depends on them,
+	 * for the statistics
+	 */
+	private void observe() {
+		ContentResolver resolver = getContentResolver();
+		resolver.unregisterContentObserver(observer);
+		resolver.registerContentObserver(
+				LocationPrivacyContract.Applications.CONTENT_URI, true, observer);
+		statisticsObserved = apps.dependsOnStatistics();
+		if (statisticsObserved) {
+			resolver.registerContentObserver(
+					LocationPrivacyContract.Statistics.CONTENT_URI, true,
+					observer);
 		}
-		return null;
-
 	}
 
-	private void refresh() {
-		apps = lpManager.getApplications();
-		for (LocationPrivacyApplication app : apps) {
-			Preference pref = screen.findPreference("app_"
-					+ app.getPackagename());
-			if (pref != null) {
-				screen.removePreference(pref);
-			}
-		}
-		Collections.sort(apps, getComparator());
-		for (LocationPrivacyApplication app : apps) {
-			LocationPrivacyAppPreference pref = new LocationPrivacyAppPreference(
-					getActivity(), app, !lpManager.isUseOnlineAlgorithm());
-			pref.setKey("app_" + app.getPackagename());
-			pref.setOnPreferenceClickListener(this);
-			screen.addPreference(pref);
-		}
+	@Override
+	public void onResume() {
+		super.onResume();
+		apps.setActive(true);
+	}
 
+	@Override
+	public void onPause() {
+		super.onPause();
+		apps.setActive(false);
 	}
 
 }
@@ -18,14 +18,8 @@
 
 package com.android.settings.locationprivacy;
 
-import java.util.Calendar;
-import java.util.Comparator;
-import java.util.HashMap;
-
 import android.app.ActionBar;
-import android.content.res.Resources;
 import android.locationprivacy.control.LocationPrivacyManager;
-import android.locationprivacy.model.LocationPrivacyApplication;
 import android.os.Bundle;
 import android.preference.Preference;
 import android.preference.PreferenceScreen;
@@ -33,21 +27,29 @@ import android.preference.PreferenceScreen;
 import com.android.settings.R;
 import com.android.settings.SettingsPreferenceFragment;
 
-public class LocationPrivacyStatistic extends SettingsPreferenceFragment {
+public class LocationPrivacyStatistic extends SettingsPreferenceFragment
+		implements StatisticDiagramCache.Listener {
 
 	private LocationPrivacyManager lpManager;
+	private StatisticDiagramCache cache;
 	private String packagename;
 	private PreferenceScreen screen;
+	private Preference deviation;
+	private StatisticDiagram24HPreference diagram24H;
+	private StatisticDiagramPreference diagram;
+	/** data shown by the preferences, null if not loaded yet */
+	private StatisticDiagramData shown;
 
 	@Override
 	public void onCreate(Bundle bundle) {
 		super.onCreate(bundle);
 
-		lpManager = new LocationPrivacyManager(getActivity());
+		lpManager = LocationPrivacyManager.getInstance(getActivity());
+		cache = StatisticDiagramCache.getInstance(getActivity());
 		packagename = getArguments().getString("packagename");
 
-		String appName = lpManager.getApplication(packagename).getLabel(
-				getPackageManager());
+		String appName = AppInfoCache.getInstance(getActivity()).getLabel(
+				packagename);
 
 		addPreferencesFromResource(R.xml.locationprivacy_statistic);
 		screen = getPreferenceScreen();
@@ -56,42 +58,49 @@ public class LocationPrivacyStatistic extends SettingsPreferenceFragment {
 		actionBar.setDisplayShowTitleEnabled(true);
 		actionBar.setTitle(appName);
 		actionBar.setDisplayHomeAsUpEnabled(true);
-		refresh();
+
+		// the preferences are created once, cached data is shown at once,
+		// otherwise empty diagrams until the data has been loaded
+		StatisticDiagramData data = cache.get(packagename);
+		shown = data;
+		deviation = new Preference(getActivity());
+		diagram24H = new StatisticDiagram24HPreference(getActivity(),
+				data != null ? data.hours : new int[24]);
+		diagram = new StatisticDiagramPreference(getActivity(),
+				data != null ? data.days : new int[29]);
+		setDeviation(data != null ? data.deviation : -1);
+		screen.addPreference(deviation);
+		screen.addPreference(diagram24H);
+		screen.addPreference(diagram);
 	}
 
 	@Override
 	public void onResume() {
 		super.onResume();
-		refresh();
+		cache.register(packagename, this);
 	}
 
-	private void refresh() {
-		if (screen != null) {
-			screen.removeAll();
-			Resources res = getResources();
-
-			HashMap<Calendar, Integer> lastAccesses = lpManager
-					.getLocationAccessStatistic(packagename);
-			HashMap<Calendar, Integer> last24H = lpManager
-					.getLocationAccessStatistic24H(packagename);
-			Preference deviation = new Preference(getActivity());
-			String obfuscation = lpManager.getObfuscationDeviation(packagename) >= 0 ? ""
-					+ lpManager.getObfuscationDeviation(packagename) + " m"
-					: getResources().getString(
-							R.string.lp_settings_statistic_na);
-			deviation.setTitle(res
-					.getString(R.string.lp_settings_statistic_deviation)
-					+ " "
-					+ obfuscation);
-			screen.addPreference(deviation);
-
-			screen.addPreference(new StatisticDiagram24HPreference(getActivity(),
-					last24H));
-
-			screen.addPreference(new StatisticDiagramPreference(getActivity(),
-					lastAccesses));
+	@Override
+	public void onPause() {
+		super.onPause();
+		cache.unregister(this);
+	}
 
+	public void onStatisticLoaded(StatisticDiagramData data) {
+		if (data == shown) {
+			return;
 		}
+		shown = data;
+		setDeviation(data.deviation);
+		diagram24H.setCounts(data.hours);
+		diagram.setCounts(data.days);
+	}
 
+	private void setDeviation(int value) {
+		String obfuscation = value >= 0 ? "" + value + " m" : getResources()
+				.getString(R.string.lp_settings_statistic_na);
+		deviation.setTitle(getResources().getString(
+				R.string.lp_settings_statistic_deviation)
+				+ " " + obfuscation);
 	}
 }
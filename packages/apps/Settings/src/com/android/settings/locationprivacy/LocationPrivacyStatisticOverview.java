@@ -19,20 +19,18 @@
 package com.android.settings.locationprivacy;
 
 import java.util.Calendar;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
 
-import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.locationprivacy.control.LocationPrivacyContract;
 import android.locationprivacy.control.LocationPrivacyManager;
 import android.locationprivacy.model.LocationPrivacyApplication;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
 import android.preference.Preference;
 import android.preference.Preference.OnPreferenceClickListener;
 import android.preference.PreferenceScreen;
 import android.text.format.DateFormat;
-import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -43,63 +41,18 @@ import com.android.settings.SettingsPreferenceFragment;
 public class LocationPrivacyStatisticOverview extends
 		SettingsPreferenceFragment implements OnPreferenceClickListener {
 
-	private List<LocationPrivacyApplication> apps;
-
-	private int comparator;
-
-	private final Comparator<LocationPrivacyApplication> compareLabel = new Comparator<LocationPrivacyApplication>() {
-
-		@Override
-		public int compare(LocationPrivacyApplication o1,
-				LocationPrivacyApplication o2) {
-
-			return o1.getLabel(pm).toLowerCase()
-					.compareTo(o2.getLabel(pm).toLowerCase());
-		}
-	};
-
-	private final Comparator<LocationPrivacyApplication> compareLastAccess = new Comparator<LocationPrivacyApplication>() {
-
-		@Override
-		public int compare(LocationPrivacyApplication o1,
-				LocationPrivacyApplication o2) {
-			Calendar c1 = lpManager.getLastAccess(o1.getPackagename());
-			Calendar c2 = lpManager.getLastAccess(o2.getPackagename());
-			int compare = c2.compareTo(c1);
-			if(compare == 0){
-				return compareLabel.compare(o1, o2);
-			}
-			return compare;
-		}
-	};
-
-	private final Comparator<LocationPrivacyApplication> compare28Days = new Comparator<LocationPrivacyApplication>() {
+	private AppPreferenceList<PreferenceScreen> apps;
 
+	private LocationPrivacyManager lpManager;
+	private final ContentObserver observer = new ContentObserver(new Handler()) {
 		@Override
-		public int compare(LocationPrivacyApplication o1,
-				LocationPrivacyApplication o2) {
-			int count1 = count(lpManager.getLocationAccessStatistic(o1
-					.getPackagename()));
-			int count2 = count(lpManager.getLocationAccessStatistic(o2
-					.getPackagename()));
-			if (count1 == count2) {
-				return compareLabel.compare(o1, o2);
-			} else {
-				return count2 - count1;
+		public void onChange(boolean selfChange, Uri uri) {
+			if (apps != null) {
+				apps.changed(uri);
 			}
 		}
 	};
-
-	private int count(HashMap<Calendar, Integer> locationAccessStatistic) {
-		int sum = 0;
-		for (Integer value : locationAccessStatistic.values()) {
-			sum += value;
-		}
-		return sum;
-	}
-
-	private LocationPrivacyManager lpManager;
-	private PackageManager pm;
+	private AppInfoCache appInfo;
 	private PreferenceScreen root;
 
 	@Override
@@ -107,15 +60,37 @@ public class LocationPrivacyStatisticOverview extends
 		super.onCreate(bundle);
 		setHasOptionsMenu(true);
 		getActivity().getActionBar().setDisplayHomeAsUpEnabled(true);
-		pm = getActivity().getPackageManager();
-		lpManager = new LocationPrivacyManager(getActivity());
-		apps = lpManager.getApplications();
+		appInfo = AppInfoCache.getInstance(getActivity());
+		lpManager = LocationPrivacyManager.getInstance(getActivity());
 
 		addPreferencesFromResource(R.xml.locationprivacy_statistic_overview);
 		root = getPreferenceScreen();
 		root.setOrderingAsAdded(true);
-		comparator = 1;
-		refresh();
+		apps = new AppPreferenceList<PreferenceScreen>(root, lpManager,
+				appInfo, AppOrder.LAST_ACCESS) {
+			@Override
+			PreferenceScreen createRow(LocationPrivacyApplication app) {
+				PreferenceScreen statisticScreen = getPreferenceManager()
+						.createPreferenceScreen(getActivity());
+				String packagename = app.getPackagename();
+				statisticScreen.setTitle(appInfo.getLabel(packagename));
+				statisticScreen.setKey("app_stat_" + packagename);
+				statisticScreen.setIcon(appInfo.getIcon(packagename));
+				statisticScreen.setOnPreferenceClickListener(
+						LocationPrivacyStatisticOverview.this);
+				updateRow(statisticScreen, app);
+				return statisticScreen;
+			}
+
+			@Override
+			void updateRow(PreferenceScreen row, LocationPrivacyApplication app) {
+				row.setSummary(getLastAccessSummary(app.getPackagename()));
+			}
+		};
+		getContentResolver().registerContentObserver(
+				LocationPrivacyContract.Applications.CONTENT_URI, true, observer);
+		getContentResolver().registerContentObserver(
+				LocationPrivacyContract.Statistics.CONTENT_URI, true, observer);
 	}
 
 	@Override
@@ -126,6 +101,7 @@ public class LocationPrivacyStatisticOverview extends
 	@Override
 	public void onDestroy() {
 		super.onDestroy();
+		getContentResolver().unregisterContentObserver(observer);
 		if (root != null) {
 			root.removeAll();
 		}
@@ -138,16 +114,13 @@ public class LocationPrivacyStatisticOverview extends
 	public boolean onOptionsItemSelected(MenuItem item) {
 		switch (item.getItemId()) {
 		case R.id.lp_menu_label_stat:
-			comparator = 0;
-			refresh();
+			apps.setOrder(AppOrder.LABEL);
 			break;
 		case R.id.lp_menu_last_access_stat:
-			comparator = 1;
-			refresh();
+			apps.setOrder(AppOrder.LAST_ACCESS);
 			break;
 		case R.id.lp_menu_number_access_28_days_stat:
-			comparator = 3;
-			refresh();
+			apps.setOrder(AppOrder.ACCESSES_28_DAYS);
 			break;
 		}
 		return super.onOptionsItemSelected(item);
@@ -167,61 +140,25 @@ public class LocationPrivacyStatisticOverview extends
 	@Override
 	public void onResume() {
 		super.onResume();
-		if (root != null) {
-			refresh();
-		}
+		apps.setActive(true);
 	}
 
-	private void refresh() {
-		apps = lpManager.getApplications();
-		if (root != null) {
-			root.removeAll();
-
-			Collections.sort(apps, getComparator());
-			System.out.println("Apps: " + apps);
-			root.setOrderingAsAdded(true);
-			for (LocationPrivacyApplication app : apps) {
-				PreferenceScreen statisticScreen = getPreferenceManager()
-						.createPreferenceScreen(getActivity());
-				statisticScreen.setTitle(app.getLabel(getPackageManager()));
-				String packagename = app.getPackagename();
-
-				statisticScreen.setKey("app_stat_" + packagename);
-
-				Calendar time = lpManager.getLastAccess(packagename);
-				Calendar cal = Calendar.getInstance();
-				cal.setTimeInMillis(time.getTimeInMillis());
-				System.out.println("Cal : " + cal);
-				statisticScreen.setSummary(getResources().getString(
-						R.string.lp_settings_statistic_lastaccess)
-						+ " "
-						+ DateFormat.getDateFormat(getActivity()).format(
-								cal.getTime())
-						+ " "
-						+ DateFormat.getTimeFormat(getActivity()).format(
-								cal.getTime()));
-
-				statisticScreen.setIcon(app.getIcon(getPackageManager()));
-				statisticScreen.setOnPreferenceClickListener(this);
-
-				root.addPreference(statisticScreen);
-
-			}
-
-		}
+	@Override
+	public void onPause() {
+		super.onPause();
+		apps.setActive(false);
 	}
 
-	private Comparator<LocationPrivacyApplication> getComparator() {
-		switch (comparator) {
-		case 0:
-			return compareLabel;
-		case 1:
-			return compareLastAccess;
-		case 3:
-			return compare28Days;
-		}
-		return null;
-
+	private String getLastAccessSummary(String packagename) {
+		Calendar time = lpManager.getLastAccess(packagename);
+		Calendar cal = Calendar.getInstance();
+		cal.setTimeInMillis(time.getTimeInMillis());
+		return getResources().getString(
+				R.string.lp_settings_statistic_lastaccess)
+				+ " "
+				+ DateFormat.getDateFormat(getActivity()).format(cal.getTime())
+				+ " "
+				+ DateFormat.getTimeFormat(getActivity()).format(cal.getTime());
 	}
 
 }
@@ -22,14 +22,20 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import javax.net.ssl.HttpsURLConnection;
 
 import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import android.accounts.Account;
 import android.accounts.AccountManager;
@@ -49,8 +55,21 @@ import com.google.android.gms.auth.UserRecoverableAuthException;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GooglePlayServicesUtil;
 
+/**
+ * Uploads the settings of the apps in WEBSERVICEDATA to the webservice. The
+ * settings are sent in batches of POST requests to /setBatch, and only apps
+ * acknowledged by the webservice are removed from WEBSERVICEDATA.
+ */
 public class SendDataService extends Service {
 
+	/** Maximum number of apps per request */
+	private static final int BATCH_SIZE = 100;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final long INITIAL_BACKOFF_MILLIS = 1000;
+	private static final int TIMEOUT_MILLIS = 30000;
+
+	private final Random random = new Random();
+
 	public class SendData implements Runnable {
 		private static final String TAG = "Runnable SendData";
 		private ArrayList<String> appsToSend;
@@ -96,12 +115,154 @@ public class SendDataService extends Service {
 			return networkInfo == null ? false : networkInfo.isConnected();
 		}
 
+		/**
+		 * Sends the settings of the given apps in one POST request. Failed
+		 * requests are retried with exponential backoff.
+		 * 
+		 * @param packagenames
+		 *            apps to send
+		 * @param token
+		 *            OAuth2 access token
+		 * @return apps acknowledged by the webservice or unknown to the
+		 *         manager, null if the upload failed
+		 */
+		private List<String> sendBatch(List<String> packagenames, String token) {
+			ArrayList<String> unknown = new ArrayList<String>();
+			JSONArray settings = new JSONArray();
+			try {
+				for (String packagename : packagenames) {
+					LocationPrivacyApplication app = lpManager
+							.getApplication(packagename);
+					if (app == null) {
+						unknown.add(packagename);
+						continue;
+					}
+					JSONObject setting = new JSONObject();
+					setting.put("app", packagename);
+					setting.put("preset", app.getPresetConfig());
+					if (!lpManager.isUseOnlineAlgorithm()) {
+						setting.put("radius", lpManager
+								.getPresetConfiguration(app.getPresetConfig()));
+					}
+					settings.put(setting);
+				}
+			} catch (JSONException e) {
+				Log.e(TAG, "Error: could not build request");
+				return null;
+			}
+			if (settings.length() == 0) {
+				return unknown;
+			}
+
+			byte[] body;
+			try {
+				body = ("accesstoken=" + URLEncoder.encode(token, "UTF-8")
+						+ "&data=" + URLEncoder.encode(settings.toString(),
+						"UTF-8")).getBytes("UTF-8");
+			} catch (UnsupportedEncodingException e) {
+				throw new RuntimeException(e);
+			}
+
+			long backoff = INITIAL_BACKOFF_MILLIS;
+			for (int attempt = 1;; attempt++) {
+				try {
+					List<String> acknowledged = post(body);
+					if (acknowledged != null) {
+						acknowledged.addAll(unknown);
+					}
+					return acknowledged;
+				} catch (IOException e) {
+					Log.w(TAG, "Upload failed (attempt " + attempt + "): "
+							+ e.getMessage());
+				}
+				if (attempt == MAX_ATTEMPTS) {
+					return null;
+				}
+				try {
+					Thread.sleep(backoff + random.nextInt((int) backoff));
+				} catch (InterruptedException e) {
+					return null;
+				}
+				backoff *= 2;
+			}
+		}
+
+		/**
+		 * Posts body to the webservice. The response is read completely and
+		 * the connection is not disconnected, so the next request can reuse
+		 * it.
+		 * 
+		 * @return acknowledged apps, null if the webservice rejected the
+		 *         request
+		 * @throws IOException
+		 *             if the request failed and may be retried
+		 */
+		private List<String> post(byte[] body) throws IOException {
+			HttpsURLConnection connection = (HttpsURLConnection) new URL(
+					HOST_ADDRESS).openConnection();
+			connection
+					.setHostnameVerifier(SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+			connection.setConnectTimeout(TIMEOUT_MILLIS);
+			connection.setReadTimeout(TIMEOUT_MILLIS);
+			connection.setDoOutput(true);
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("Content-Type",
+					"application/x-www-form-urlencoded; charset=UTF-8");
+			connection.setFixedLengthStreamingMode(body.length);
+			OutputStream os = connection.getOutputStream();
+			try {
+				os.write(body);
+			} finally {
+				os.close();
+			}
+
+			int code = connection.getResponseCode();
+			InputStream is = code < 400 ? connection.getInputStream()
+					: connection.getErrorStream();
+			String response = is != null ? readFully(is) : "";
+			if (code >= 500 || code == 429) {
+				throw new IOException("HTTP " + code);
+			}
+			if (code >= 400 || response.startsWith("error:")) {
+				Log.d(TAG, code + " " + response);
+				return null;
+			}
+			try {
+				JSONArray apps = new JSONObject(response)
+						.getJSONArray("acknowledged");
+				ArrayList<String> acknowledged = new ArrayList<String>(
+						apps.length());
+				for (int i = 0; i < apps.length(); i++) {
+					acknowledged.add(apps.getString(i));
+				}
+				return acknowledged;
+			} catch (JSONException e) {
+				throw new IOException("Invalid response: " + response);
+			}
+		}
+
+		private String readFully(InputStream is) throws IOException {
+			try {
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(is, "UTF-8"));
+				StringBuilder builder = new StringBuilder();
+				char[] buffer = new char[1024];
+				int read;
+				while ((read = reader.read(buffer)) != -1) {
+					builder.append(buffer, 0, read);
+				}
+				return builder.toString();
+			} finally {
+				is.close();
+			}
+		}
+
 		@Override
 		public void run() {
-			lpManager = new LocationPrivacyManager(context);
+			lpManager = LocationPrivacyManager.getInstance(context);
 			appsToSend = lpManager.getAppsToSend();
 			HOST_ADDRESS = "https://" + lpManager.getWebserviceHostAdress()
-					+ "/set";
+					+ "/setBatch";
 			if (isWlanConnected()
 					&& GooglePlayServicesUtil
 							.isGooglePlayServicesAvailable(context) == ConnectionResult.SUCCESS
@@ -132,60 +293,15 @@ public class SendDataService extends Service {
 						return;
 					}
 					if (token != null) {
-
-						ArrayList<String> finishedApps = new ArrayList<String>();
-
-						// Send Data to Webservice
-						while (!appsToSend.isEmpty()) {
-							String packagename = appsToSend.remove(0);
-							LocationPrivacyApplication app = lpManager
-									.getApplication(packagename);
-
-							if (app != null) {
-								String urlString = HOST_ADDRESS;
-								urlString += "?app=" + packagename;
-								urlString += "&preset=" + app.getPresetConfig();
-								urlString += "&accesstoken=" + token;
-								if (!lpManager.isUseOnlineAlgorithm()) {
-									urlString += "&radius="
-											+ lpManager.getPresetConfiguration(app.getPresetConfig());
-								}
-								URL url;
-								try {
-									url = new URL(urlString);
-								} catch (MalformedURLException e) {
-									Log.e(TAG, "Error: could not build URL");
-									Log.e(TAG, e.getMessage());
-									continue;
-								}
-								HttpsURLConnection connection = null;
-
-								try {
-									connection = (HttpsURLConnection) url
-											.openConnection();
-									connection
-											.setHostnameVerifier(SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
-									InputStream is = connection
-											.getInputStream();
-									BufferedReader reader = new BufferedReader(
-											new InputStreamReader(is));
-									String line = reader.readLine();
-									if (line.startsWith("error:")) {
-										Log.d(TAG, line);
-										break;
-									}
-								} catch (IOException e) {
-									connection.disconnect();
-									break;
-								}
-								connection.disconnect();
+						for (int i = 0; i < appsToSend.size(); i += BATCH_SIZE) {
+							List<String> acknowledged = sendBatch(
+									appsToSend.subList(i, Math.min(i
+											+ BATCH_SIZE, appsToSend.size())),
+									token);
+							if (acknowledged == null) {
+								break;
 							}
-							finishedApps.add(packagename);
-						}
-
-						// Delete Sended Data
-						for (String packagename : finishedApps) {
-							lpManager.deleteAppToSend(packagename);
+							lpManager.deleteAppsToSend(acknowledged);
 						}
 					}
 				}
@@ -18,8 +18,8 @@
 
 package com.android.settings.locationprivacy;
 
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.HashMap;
 
 import android.content.Context;
 import android.graphics.Color;
@@ -39,36 +39,44 @@ import com.jjoe64.graphview.StatisticGraphView;
 public class StatisticDiagram24HPreference extends Preference {
 
 	private Context context;
-	private HashMap<Calendar, Integer> dates;
-	private int maxY;
+	/** accesses per hour, index 23 is the current hour */
+	private int[] counts;
+	private GraphView graphView;
+	private GraphViewSeries series;
+	/** x axis labels, each hour is formatted once */
+	private final String[] xLabels = new String[24];
 
 
-	public StatisticDiagram24HPreference(Context context, HashMap<Calendar, Integer> dates) {
+	public StatisticDiagram24HPreference(Context context, int[] counts) {
 		super(context);
 		this.context = context;
-		this.dates = dates;
-		this.maxY = 0;
+		this.counts = counts;
 	}
 
-	private GraphViewSeries createData() {
-		GraphViewData[] data = new GraphViewData[24];
-		this.maxY = 0;
-		for (Calendar cal : dates.keySet()) {
-			int x = getXValueFromDate(cal);
-			int y = dates.get(cal);
-			if(x>=0){
-				System.out.println("Added Value to 24h statistik: [Cal]: " + cal + " [x]: " + x + " [y]: " + y);
-				data[x] = new GraphViewData(x, y);
-				
-			}
-			this.maxY = Math.max(maxY, y);
+	/**
+	 * Shows new counts, the diagram is kept and only its data is replaced
+	 */
+	public void setCounts(int[] counts) {
+		this.counts = counts;
+		if (series != null) {
+			Arrays.fill(xLabels, null);
+			series.resetData(createData());
+			setYAxisBounds();
 		}
+	}
+
+	private GraphViewData[] createData() {
+		GraphViewData[] data = new GraphViewData[24];
 		for (int i = 0; i < data.length; i++) {
-			if(data[i] == null){
-				data[i] = new GraphViewData(i,0);
-			}
+			data[i] = new GraphViewData(i, counts[i]);
 		}
-		return new GraphViewSeries(data);
+		return data;
+	}
+
+	private void setYAxisBounds() {
+		int maxY = Math.max(StatisticDiagramData.max(counts), 4);
+		maxY = ((int) Math.ceil(maxY / 4.)) * 4;
+		graphView.setManualYAxisBounds(maxY, 0);
 	}
 
 	private GraphView createGraph() {
@@ -78,11 +86,7 @@ public class StatisticDiagram24HPreference extends Preference {
 			@Override
 			protected String formatLabel(double value, boolean isValueX) {
 				if (isValueX) {
-					Calendar cal = getDateFromXValue((int) value);
-					cal.set(Calendar.MINUTE, 0);
-					
-					return DateFormat.getTimeFormat(context).format(
-							cal.getTime());//String.format("%02d", cal.get(Calendar.HOUR_OF_DAY)) + ":00";
+					return getXLabel((int) value);
 				}
 				return "" + (int) value;
 			}
@@ -92,16 +96,26 @@ public class StatisticDiagram24HPreference extends Preference {
 		graphView.getGraphViewStyle().setNumHorizontalLabels(24);
 		graphView.getGraphViewStyle().setGridColor(Color.WHITE);
 		graphView.getGraphViewStyle().setTextSize(21);
-		graphView.addSeries(createData());
-		System.out.println("maxY "+this.maxY);
-                int maxY = Math.max(this.maxY, 4);
-                maxY = ((int) Math.ceil(maxY / 4.)) * 4;
-		System.out.println("_maxY "+maxY);
-                graphView.setManualYAxisBounds(maxY, 0);
- 		return graphView;
+		series = new GraphViewSeries(createData());
+		graphView.addSeries(series);
+		return graphView;
 
 	}
 
+	private String getXLabel(int x) {
+		if (x >= 0 && x < xLabels.length && xLabels[x] != null) {
+			return xLabels[x];
+		}
+		Calendar cal = getDateFromXValue(x);
+		cal.set(Calendar.MINUTE, 0);
+		String label = DateFormat.getTimeFormat(context).format(
+				cal.getTime());//String.format("%02d", cal.get(Calendar.HOUR_OF_DAY)) + ":00";
+		if (x >= 0 && x < xLabels.length) {
+			xLabels[x] = label;
+		}
+		return label;
+	}
+
 	private Calendar getDateFromXValue(int x) {
 		int hoursbetween = 23 - x;
 		Calendar cal = Calendar.getInstance();
@@ -110,21 +124,19 @@ public class StatisticDiagram24HPreference extends Preference {
 		return cal;
 	}
 	
-	private int getXValueFromDate(Calendar cal){
-		Calendar now = Calendar.getInstance();
-		return 23 - hoursbetween(cal, now);
-	}
-	
-	public int hoursbetween(Calendar d1, Calendar d2) {
-		return (int) (Math.abs(d2.getTimeInMillis() - d1.getTimeInMillis()) / (1000 * 60 * 60));
-	}
-
 	protected View onCreateView(ViewGroup parent) {
 		LayoutInflater inflater = (LayoutInflater) getContext()
 				.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
 		View view = inflater.inflate(R.layout.statistic_diagram, null);
 		LinearLayout layout = (LinearLayout) view.findViewById(R.id.layout);
-		layout.addView(createGraph());
+		// the graph is created once and moved to the new view on rebind
+		if (graphView == null) {
+			graphView = createGraph();
+			setYAxisBounds();
+		} else if (graphView.getParent() != null) {
+			((ViewGroup) graphView.getParent()).removeView(graphView);
+		}
+		layout.addView(graphView);
 		return view;
 	}
 
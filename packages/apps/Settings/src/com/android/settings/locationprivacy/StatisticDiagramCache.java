@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.locationprivacy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.locationprivacy.control.LocationPrivacyContract.Statistics;
+import android.locationprivacy.control.LocationPrivacyManager;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * Process-wide cache of the statistic diagram data per app. Data is loaded on
+ * a background thread and dropped when the statistics of its app change.
+ * All methods must be called on the UI thread, listeners are called on it.
+ */
+class StatisticDiagramCache {
+
+	/** Number of apps whose data is kept */
+	private static final int MAX_ENTRIES = 16;
+
+	interface Listener {
+		/**
+		 * Called when the data of the registered app has been loaded, again
+		 * after each change of its statistics
+		 */
+		void onStatisticLoaded(StatisticDiagramData data);
+	}
+
+	private static StatisticDiagramCache instance;
+
+	private final LocationPrivacyManager lpManager;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private final LinkedHashMap<String, StatisticDiagramData> cache = new LinkedHashMap<String, StatisticDiagramData>(
+			MAX_ENTRIES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, StatisticDiagramData> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	/** Registered listeners and the app they show */
+	private final HashMap<Listener, String> listeners = new HashMap<Listener, String>();
+	/** Apps whose data is being loaded */
+	private final HashSet<String> loading = new HashSet<String>();
+	/** Incremented on each change, results of older loads are not cached */
+	private int generation;
+
+	private StatisticDiagramCache(Context context) {
+		lpManager = LocationPrivacyManager.getInstance(context);
+		context.getContentResolver().registerContentObserver(
+				Statistics.CONTENT_URI, true, new ContentObserver(handler) {
+					@Override
+					public void onChange(boolean selfChange, Uri uri) {
+						statisticChanged(uri);
+					}
+				});
+	}
+
+	static StatisticDiagramCache getInstance(Context context) {
+		if (instance == null) {
+			instance = new StatisticDiagramCache(
+					context.getApplicationContext());
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the cached data of an app, null if it has to be loaded
+	 */
+	StatisticDiagramData get(String packagename) {
+		StatisticDiagramData data = cache.get(packagename);
+		return data != null && data.isCurrent() ? data : null;
+	}
+
+	/**
+	 * Registers a listener for the data of an app and loads it if it is not
+	 * cached
+	 */
+	void register(String packagename, Listener listener) {
+		listeners.put(listener, packagename);
+		load(packagename);
+	}
+
+	void unregister(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	private void load(final String packagename) {
+		StatisticDiagramData data = get(packagename);
+		if (data != null) {
+			deliver(data);
+			return;
+		}
+		if (!loading.add(packagename)) {
+			return;
+		}
+		final int started = generation;
+		new Thread(new Runnable() {
+			public void run() {
+				Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+				final StatisticDiagramData data = StatisticDiagramData.load(
+						lpManager, packagename);
+				handler.post(new Runnable() {
+					public void run() {
+						loading.remove(packagename);
+						if (started != generation) {
+							// changed while loading
+							if (listeners.containsValue(packagename)) {
+								load(packagename);
+							}
+							return;
+						}
+						cache.put(packagename, data);
+						deliver(data);
+					}
+				});
+			}
+		}, "LPStatisticLoader").start();
+	}
+
+	private void deliver(StatisticDiagramData data) {
+		List<Listener> targets = new ArrayList<Listener>();
+		for (Map.Entry<Listener, String> entry : listeners.entrySet()) {
+			if (entry.getValue().equals(data.packagename)) {
+				targets.add(entry.getKey());
+			}
+		}
+		for (Listener listener : targets) {
+			listener.onStatisticLoaded(data);
+		}
+	}
+
+	/**
+	 * Drops the data of the changed app, of all apps if uri does not name one,
+	 * and reloads the data of registered apps
+	 */
+	private void statisticChanged(Uri uri) {
+		generation++;
+		String packagename = null;
+		if (uri != null && uri.getPathSegments().size() > 1) {
+			packagename = uri.getLastPathSegment();
+		}
+		if (packagename == null) {
+			cache.clear();
+		} else {
+			cache.remove(packagename);
+		}
+		for (String registered : new HashSet<String>(listeners.values())) {
+			if (packagename == null || packagename.equals(registered)) {
+				load(registered);
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2014 B. Henne, C. Kater,
+ *   Distributed Computing & Security Group,
+ *   Leibniz Universitaet Hannover, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.locationprivacy;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import android.locationprivacy.control.LocationPrivacyClock;
+import android.locationprivacy.control.LocationPrivacyManager;
+
+/**
+ * Data shown on the statistic screen of one app: accesses of the last 28
+ * days and of the last 24 hours as counts per x value of the diagrams, and
+ * the mean obfuscation deviation.
+ */
+class StatisticDiagramData {
+
+	static final long MILLIS_PER_HOUR = 60 * 60 * 1000;
+	static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+	final String packagename;
+	/** Accesses per day, index 28 is today */
+	final int[] days = new int[29];
+	/** Accesses per hour, index 23 is the current hour */
+	final int[] hours = new int[24];
+	/** Mean obfuscation deviation in m, -1 if unknown */
+	final int deviation;
+	/** Hour since epoch the data has been loaded in */
+	private final long hour;
+
+	private StatisticDiagramData(String packagename, int deviation, long now) {
+		this.packagename = packagename;
+		this.deviation = deviation;
+		this.hour = now / MILLIS_PER_HOUR;
+	}
+
+	/**
+	 * Loads the data of an app. Queries the database, must not be called on
+	 * the UI thread.
+	 */
+	static StatisticDiagramData load(LocationPrivacyManager lpManager,
+			String packagename) {
+		long now = LocationPrivacyClock.currentTimeMillis();
+		StatisticDiagramData data = new StatisticDiagramData(packagename,
+				lpManager.getObfuscationDeviation(packagename), now);
+		fill(data.days, lpManager.getLocationAccessStatistic(packagename),
+				now, MILLIS_PER_DAY);
+		fill(data.hours,
+				lpManager.getLocationAccessStatistic24H(packagename), now,
+				MILLIS_PER_HOUR);
+		return data;
+	}
+
+	private static void fill(int[] counts, HashMap<Calendar, Integer> statistic,
+			long now, long millisPerValue) {
+		for (Map.Entry<Calendar, Integer> entry : statistic.entrySet()) {
+			int x = counts.length - 1
+					- (int) (Math.abs(now - entry.getKey().getTimeInMillis()) / millisPerValue);
+			if (x >= 0) {
+				counts[x] = entry.getValue();
+			}
+		}
+	}
+
+	/**
+	 * Returns false if the diagrams have moved on since the data was loaded
+	 */
+	boolean isCurrent() {
+		return hour == LocationPrivacyClock.currentTimeMillis()
+				/ MILLIS_PER_HOUR;
+	}
+
+	/**
+	 * Returns the largest count, at least 0
+	 */
+	static int max(int[] counts) {
+		int max = 0;
+		for (int count : counts) {
+			max = Math.max(max, count);
+		}
+		return max;
+	}
+}
@@ -18,9 +18,8 @@
 
 package com.android.settings.locationprivacy;
 
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
 
 import android.content.Context;
 import android.graphics.Color;
@@ -42,37 +41,43 @@ import com.jjoe64.graphview.StatisticGraphView;
 public class StatisticDiagramPreference extends Preference {
 
 	private Context context;
-	private HashMap<Calendar, Integer> dates;
-	private int maxY;
-
-	public StatisticDiagramPreference(Context context, HashMap<Calendar, Integer> dates) {
+	/** accesses per day, index 28 is today */
+	private int[] counts;
+	private GraphView graphView;
+	private GraphViewSeries series;
+	/** x axis labels, each date is formatted once */
+	private final String[] xLabels = new String[29];
+
+	public StatisticDiagramPreference(Context context, int[] counts) {
 		super(context);
 		this.context = context;
-		this.dates = dates;
-		this.maxY = 0;
+		this.counts = counts;
+	}
 
+	/**
+	 * Shows new counts, the diagram is kept and only its data is replaced
+	 */
+	public void setCounts(int[] counts) {
+		this.counts = counts;
+		if (series != null) {
+			Arrays.fill(xLabels, null);
+			series.resetData(createData());
+			setYAxisBounds();
+		}
 	}
 
-	private GraphViewSeries createData() {
+	private GraphViewData[] createData() {
 		GraphViewData[] data = new GraphViewData[29];
-		this.maxY = 0;
-		for (Calendar cal : dates.keySet()) {
-			int x = getXValueFromDate(cal);
-			int y = dates.get(cal);
-			if (x >= 0) {
-				System.out.println("Added Value to statistik: [Date]: " + cal
-						+ " [x]: " + x + " [y]: " + y);
-				data[x] = new GraphViewData(x, y);
-
-			}
-                        this.maxY = Math.max(maxY, y);
-		}
 		for (int i = 0; i < data.length; i++) {
-			if (data[i] == null) {
-				data[i] = new GraphViewData(i, 0);
-			}
+			data[i] = new GraphViewData(i, counts[i]);
 		}
-		return new GraphViewSeries(data);
+		return data;
+	}
+
+	private void setYAxisBounds() {
+		int maxY = Math.max(StatisticDiagramData.max(counts), 4);
+		maxY = ((int) Math.ceil(maxY / 4.)) * 4;
+		graphView.setManualYAxisBounds(maxY, 0);
 	}
 
 	private GraphView createGraph() {
@@ -82,9 +87,7 @@ public class StatisticDiagramPreference extends Preference {
 			@Override
 			protected String formatLabel(double value, boolean isValueX) {
 				if (isValueX) {
-					Calendar cal = getDateFromXValue((int) value);
-					return "" + String.format("%02d", cal.get(Calendar.DAY_OF_MONTH)) + "." + String.format("%02d", (cal.get(Calendar.MONTH) + 1))
-							+ ".";
+					return getXLabel((int) value);
 				}
 				return "" + (int) value;
 			}
@@ -95,16 +98,23 @@ public class StatisticDiagramPreference extends Preference {
 		graphView.getGraphViewStyle().setGridColor(Color.WHITE);
 		graphView.getGraphViewStyle().setTextSize(21); 
 		
-		graphView.addSeries(createData());
-		int maxY = Math.max(this.maxY, 4);
-		maxY = ((int) Math.ceil(maxY / 4.)) * 4;
-		graphView.setManualYAxisBounds(maxY, 0);
+		series = new GraphViewSeries(createData());
+		graphView.addSeries(series);
 		return graphView;
 
 	}
 
-	public int daysBetween(Calendar d1, Calendar d2) {
-		return (int) (Math.abs(d2.getTimeInMillis() - d1.getTimeInMillis()) / (1000 * 60 * 60 * 24));
+	private String getXLabel(int x) {
+		if (x >= 0 && x < xLabels.length && xLabels[x] != null) {
+			return xLabels[x];
+		}
+		Calendar cal = getDateFromXValue(x);
+		String label = "" + String.format("%02d", cal.get(Calendar.DAY_OF_MONTH)) + "." + String.format("%02d", (cal.get(Calendar.MONTH) + 1))
+				+ ".";
+		if (x >= 0 && x < xLabels.length) {
+			xLabels[x] = label;
+		}
+		return label;
 	}
 
 	private Calendar getDateFromXValue(int x) {
@@ -115,17 +125,19 @@ public class StatisticDiagramPreference extends Preference {
 		return cal;
 	}
 
-	private int getXValueFromDate(Calendar cal) {
-		int daysBetween = daysBetween(cal, Calendar.getInstance());
-		return 28 - daysBetween;
-	}
-
 	protected View onCreateView(ViewGroup parent) {
 		LayoutInflater inflater = (LayoutInflater) getContext()
 				.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
 		View view = inflater.inflate(R.layout.statistic_diagram, null);
 		LinearLayout layout = (LinearLayout) view.findViewById(R.id.layout);
-		layout.addView(createGraph());
+		// the graph is created once and moved to the new view on rebind
+		if (graphView == null) {
+			graphView = createGraph();
+			setYAxisBounds();
+		} else if (graphView.getParent() != null) {
+			((ViewGroup) graphView.getParent()).removeView(graphView);
+		}
+		layout.addView(graphView);
 		return view;
 	}
 
@@ -41,7 +41,7 @@ public class UserRecoverableAuth extends Activity{
 	
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
-		lpManager = new LocationPrivacyManager(this);
+		lpManager = LocationPrivacyManager.getInstance(this);
 		startActivityForResult((Intent) getIntent().getParcelableExtra("authIntent"), REQUEST_CODE);
 		super.onCreate(savedInstanceState);
 	}
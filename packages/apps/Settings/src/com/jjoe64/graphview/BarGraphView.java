@@ -22,6 +22,7 @@ package com.jjoe64.graphview;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.util.AttributeSet;
 
@@ -34,6 +35,8 @@ import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
 public class BarGraphView extends GraphView {
 	private boolean drawValuesOnTop;
 	private int valuesOnTopColor = Color.WHITE;
+	/** line buffer reused between draws */
+	private float[] bars = new float[0];
 
 	public BarGraphView(Context context, AttributeSet attrs) {
 		super(context, attrs);
@@ -69,40 +72,65 @@ public class BarGraphView extends GraphView {
 
 	@SuppressWarnings("deprecation")
 	@Override
-	public void drawSeries(Canvas canvas, GraphViewDataInterface[] values, float graphwidth, float graphheight,
+	public void drawSeries(Canvas canvas, GraphViewDataInterface[] values, int start, int end, float graphwidth, float graphheight,
 			float border, double minX, double minY, double diffX, double diffY,
 			float horstart, GraphViewSeriesStyle style) {
-		float colwidth = graphwidth / (values.length);
-
-		paint.setStrokeWidth(style.thickness);
+		int count = end - start;
+		if (count <= 0) {
+			return;
+		}
+		float colwidth = graphwidth / count;
 
 		float offset = 0;
+		float bottom = graphheight + border - 1;
+		ValueDependentColor valueDependentColor = style.getValueDependentColor();
+
+		// bars without value dependent color are drawn at once,
+		// as vertical lines with the bar width and butt caps
+		if (valueDependentColor == null && bars.length < 4 * count) {
+			bars = new float[4 * count];
+		}
 
 		// draw data
-		for (int i = 0; i < values.length; i++) {
-			float valY = (float) (values[i].getY() - minY);
+		paint.setColor(style.color);
+		for (int i = 0; i < count; i++) {
+			float valY = (float) (values[start + i].getY() - minY);
 			float ratY = (float) (valY / diffY);
 			float y = graphheight * ratY;
 
-			// hook for value dependent color
-			if (style.getValueDependentColor() != null) {
-				paint.setColor(style.getValueDependentColor().get(values[i]));
-			} else {
-				paint.setColor(style.color);
-			}
-
 			float left = (i * colwidth) + horstart -offset;
 			float top = (border - y) + graphheight;
 			float right = ((i * colwidth) + horstart) + (colwidth - 1) -offset;
-			canvas.drawRect(left, top, right, graphheight + border - 1, paint);
+			if (valueDependentColor != null) {
+				// hook for value dependent color
+				paint.setColor(valueDependentColor.get(values[start + i]));
+				canvas.drawRect(left, top, right, bottom, paint);
+			} else {
+				bars[4 * i] = bars[4 * i + 2] = (left + right) / 2;
+				bars[4 * i + 1] = top;
+				bars[4 * i + 3] = bottom;
+			}
+		}
+		if (valueDependentColor == null) {
+			paint.setStrokeWidth(colwidth - 1);
+			paint.setStrokeCap(Paint.Cap.BUTT);
+			canvas.drawLines(bars, 0, 4 * count, paint);
+			paint.setStrokeCap(Paint.Cap.ROUND);
+		}
+		paint.setStrokeWidth(style.thickness);
 
-			// -----Set values on top of graph---------
-			if (drawValuesOnTop) {
+		// -----Set values on top of graph---------
+		if (drawValuesOnTop) {
+			paint.setTextAlign(Align.CENTER);
+			paint.setColor(valuesOnTopColor );
+			for (int i = 0; i < count; i++) {
+				float valY = (float) (values[start + i].getY() - minY);
+				float ratY = (float) (valY / diffY);
+				float top = (border - graphheight * ratY) + graphheight;
 				top -= 4;
 				if (top<=border) top+=border+4;
-				paint.setTextAlign(Align.CENTER);
-				paint.setColor(valuesOnTopColor );
-				canvas.drawText(formatLabel(values[i].getY(), false), (left+right)/2, top, paint);
+				float x = (i * colwidth) + horstart -offset + (colwidth - 1) / 2;
+				canvas.drawText(formatLabel(values[start + i].getY(), false), x, top, paint);
 			}
 		}
 	}
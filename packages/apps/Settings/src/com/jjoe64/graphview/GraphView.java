@@ -42,7 +42,7 @@ import com.jjoe64.graphview.compatible.ScaleGestureDetector;
 
 /**
  * GraphView is a Android View for creating zoomable and scrollable graphs.
- * This is the abstract base class for all graphs. Extend this class and implement {@link #drawSeries(android.graphics.Canvas, GraphViewDataInterface[], float, float, float, double, double, double, double, float, com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle)} to display a custom graph.
+ * This is the abstract base class for all graphs. Extend this class and implement {@link #drawSeries(android.graphics.Canvas, GraphViewDataInterface[], int, int, float, float, float, double, double, double, double, float, com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle)} to display a custom graph.
  * Use {@link com.jjoe64.graphview.LineGraphView} for creating a line chart.
  *
  * @author jjoe64 - jonas gehring - http://www.jjoe64.com
@@ -56,6 +56,43 @@ abstract public class GraphView extends LinearLayout {
 		static final float BORDER = 20;
 	}
 
+	/**
+	 * the axis range, size and style the labels of one axis were generated for
+	 */
+	static final private class LabelCache {
+		private boolean valid;
+		private double min;
+		private double max;
+		private float size;
+		private float textSize;
+		private int numLabels;
+
+		/**
+		 * @return true if the labels are still valid, otherwise the new key is stored and the labels have to be generated
+		 */
+		boolean update(double min, double max, float size, float textSize, int numLabels) {
+			if (numLabels > 0) {
+				// the size only matters if the number of labels depends on it
+				size = 0;
+			}
+			if (valid && this.min == min && this.max == max && this.size == size
+					&& this.textSize == textSize && this.numLabels == numLabels) {
+				return true;
+			}
+			valid = true;
+			this.min = min;
+			this.max = max;
+			this.size = size;
+			this.textSize = textSize;
+			this.numLabels = numLabels;
+			return false;
+		}
+
+		void invalidate() {
+			valid = false;
+		}
+	}
+
 	private class GraphViewContentView extends View {
 		private float lastTouchEventX;
 		private float graphwidth;
@@ -91,25 +128,14 @@ abstract public class GraphView extends LinearLayout {
 			double diffX = maxX - minX;
 
 			 // measure bottom text
-			if (labelTextHeight == null || horLabelTextWidth == null) {
-				paint.setTextSize(getGraphViewStyle().getTextSize());
-				double testX = ((getMaxX(true)-getMinX(true))*0.783)+getMinX(true);
-				String testLabel = formatLabel(testX, true);
-				paint.getTextBounds(testLabel, 0, testLabel.length(), textBounds);
-				labelTextHeight = (textBounds.height());
-				horLabelTextWidth = (textBounds.width());
-			}
+			measureLabels();
             border += labelTextHeight;
 
 			float graphheight = height - (2 * border);
 			graphwidth = width;
 
-			if (horlabels == null) {
-				horlabels = generateHorlabels(graphwidth);
-			}
-			if (verlabels == null) {
-				verlabels = generateVerlabels(graphheight);
-			}
+			String[] horlabels = horlabels(graphwidth);
+			String[] verlabels = verlabels(graphheight);
 
 			// vertical lines
 			if(graphViewStyle.getGridStyle() != GridStyle.HORIZONTAL) {
@@ -147,7 +173,18 @@ abstract public class GraphView extends LinearLayout {
 			paint.setStrokeCap(Paint.Cap.ROUND);
 
 			for (int i=0; i<graphSeries.size(); i++) {
-				drawSeries(canvas, _values(i), graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, graphSeries.get(i).style);
+				GraphViewSeries series = graphSeries.get(i);
+				GraphViewDataInterface[] values = series.values();
+				int start = _start(values);
+				int end = _end(values);
+				// more values than pixels can not be seen
+				GraphViewDataInterface[] sampled = series.downsample(values, start, end, (int) graphwidth);
+				if (sampled != null) {
+					values = sampled;
+					start = 0;
+					end = sampled.length;
+				}
+				drawSeries(canvas, values, start, end, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, series.style);
 			}
 
 			if (showLegend) drawLegend(canvas, height, width);
@@ -167,9 +204,7 @@ abstract public class GraphView extends LinearLayout {
 					viewportStart = maxX - viewportSize;
 				}
 
-				// labels have to be regenerated
-				if (!staticHorizontalLabels) horlabels = null;
-				if (!staticVerticalLabels) verlabels = null;
+				// labels are regenerated for the new viewport
 				viewVerLabels.invalidate();
 			}
 			invalidate();
@@ -268,14 +303,7 @@ abstract public class GraphView extends LinearLayout {
 			paint.setStrokeWidth(0);
 
 			 // measure bottom text
-			if (labelTextHeight == null || verLabelTextWidth == null) {
-				paint.setTextSize(getGraphViewStyle().getTextSize());
-				double testY = ((getMaxY()-getMinY())*0.783)+getMinY();
-				String testLabel = formatLabel(testY, false);
-				paint.getTextBounds(testLabel, 0, testLabel.length(), textBounds);
-				labelTextHeight = (textBounds.height());
-				verLabelTextWidth = (textBounds.width());
-			}
+			measureLabels();
 			if (getGraphViewStyle().getVerticalLabelsWidth()==0 && getLayoutParams().width != verLabelTextWidth+GraphViewConfig.BORDER) {
 				setLayoutParams(new LayoutParams(
 						(int) (verLabelTextWidth+GraphViewConfig.BORDER), LayoutParams.FILL_PARENT));
@@ -289,9 +317,7 @@ abstract public class GraphView extends LinearLayout {
 			float height = getHeight();
 			float graphheight = height - (2 * border);
 
-			if (verlabels == null) {
-				verlabels = generateVerlabels(graphheight);
-			}
+			String[] verlabels = verlabels(graphheight);
 
 			// vertical labels
 			paint.setTextAlign(getGraphViewStyle().getVerticalLabelsAlign());
@@ -340,6 +366,9 @@ abstract public class GraphView extends LinearLayout {
 	private Integer labelTextHeight;
 	private Integer horLabelTextWidth;
 	private Integer verLabelTextWidth;
+	private float labelTextSize;
+	private final LabelCache horlabelsCache = new LabelCache();
+	private final LabelCache verlabelsCache = new LabelCache();
 	private final Rect textBounds = new Rect();
 	private boolean staticHorizontalLabels;
 	private boolean staticVerticalLabels;
@@ -379,33 +408,47 @@ abstract public class GraphView extends LinearLayout {
 		addView(graphViewContentView, new LayoutParams(LayoutParams.FILL_PARENT, LayoutParams.FILL_PARENT, 1));
 	}
 
-	private GraphViewDataInterface[] _values(int idxSeries) {
-		GraphViewDataInterface[] values = graphSeries.get(idxSeries).values;
-		synchronized (values) {
-			if (viewportStart == 0 && viewportSize == 0) {
-				// all data
-				return values;
+	/**
+	 * index of the first value to draw. With a viewport this is the last value
+	 * before the viewport, for nice scrolling.
+	 */
+	private int _start(GraphViewDataInterface[] values) {
+		if (viewportStart == 0 && viewportSize == 0) {
+			// all data
+			return 0;
+		}
+		return Math.max(0, indexOf(values, viewportStart, false) - 1);
+	}
+
+	/**
+	 * index after the last value to draw. With a viewport this includes the
+	 * first value after the viewport, for nice scrolling.
+	 */
+	private int _end(GraphViewDataInterface[] values) {
+		if (viewportStart == 0 && viewportSize == 0) {
+			// all data
+			return values.length;
+		}
+		return Math.min(values.length, indexOf(values, viewportStart+viewportSize, true) + 1);
+	}
+
+	/**
+	 * binary search over the sorted x values
+	 * @return index of the first value with x >= (after == false) or x > (after == true) the given x, values.length if there is none
+	 */
+	private static int indexOf(GraphViewDataInterface[] values, double x, boolean after) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			double midX = values[mid].getX();
+			if (midX < x || (after && midX == x)) {
+				low = mid + 1;
 			} else {
-				// viewport
-				List<GraphViewDataInterface> listData = new ArrayList<GraphViewDataInterface>();
-				for (int i=0; i<values.length; i++) {
-					if (values[i].getX() >= viewportStart) {
-						if (values[i].getX() > viewportStart+viewportSize) {
-							listData.add(values[i]); // one more for nice scrolling
-							break;
-						} else {
-							listData.add(values[i]);
-						}
-					} else {
-						if (listData.isEmpty()) {
-							listData.add(values[i]);
-						}
-						listData.set(0, values[i]); // one before, for nice scrolling
-					}
-				}
-				return listData.toArray(new GraphViewDataInterface[listData.size()]);
+				high = mid;
 			}
 		}
+		return low;
 	}
 
 	/**
@@ -479,7 +522,10 @@ abstract public class GraphView extends LinearLayout {
 		}
 	}
 
-	abstract protected void drawSeries(Canvas canvas, GraphViewDataInterface[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style);
+	/**
+	 * draws the values from index start (inclusive) to end (exclusive) of a series
+	 */
+	abstract protected void drawSeries(Canvas canvas, GraphViewDataInterface[] values, int start, int end, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style);
 
 	/**
 	 * formats the label
@@ -518,6 +564,49 @@ abstract public class GraphView extends LinearLayout {
 		return numberformatter[i].format(value);
 	}
 
+	/**
+	 * measures the label text, if it has not been measured for the current text size
+	 */
+	private void measureLabels() {
+		float textSize = getGraphViewStyle().getTextSize();
+		if (labelTextHeight != null && labelTextSize == textSize) {
+			return;
+		}
+		paint.setTextSize(textSize);
+		double testX = ((getMaxX(true)-getMinX(true))*0.783)+getMinX(true);
+		String testLabel = formatLabel(testX, true);
+		paint.getTextBounds(testLabel, 0, testLabel.length(), textBounds);
+		labelTextHeight = (textBounds.height());
+		horLabelTextWidth = (textBounds.width());
+		double testY = ((getMaxY()-getMinY())*0.783)+getMinY();
+		testLabel = formatLabel(testY, false);
+		paint.getTextBounds(testLabel, 0, testLabel.length(), textBounds);
+		verLabelTextWidth = (textBounds.width());
+		labelTextSize = textSize;
+	}
+
+	/**
+	 * @return the horizontal labels, generated only if viewport, size or style have changed
+	 */
+	private String[] horlabels(float graphwidth) {
+		if (!staticHorizontalLabels && !horlabelsCache.update(getMinX(false), getMaxX(false), graphwidth,
+				getGraphViewStyle().getTextSize(), getGraphViewStyle().getNumHorizontalLabels())) {
+			horlabels = generateHorlabels(graphwidth);
+		}
+		return horlabels;
+	}
+
+	/**
+	 * @return the vertical labels, generated only if y range, size or style have changed
+	 */
+	private String[] verlabels(float graphheight) {
+		if (!staticVerticalLabels && !verlabelsCache.update(getMinY(), getMaxY(), graphheight,
+				getGraphViewStyle().getTextSize(), getGraphViewStyle().getNumVerticalLabels())) {
+			verlabels = generateVerlabels(graphheight);
+		}
+		return verlabels;
+	}
+
 	private String[] generateHorlabels(float graphwidth) {
 		int numLabels = getGraphViewStyle().getNumHorizontalLabels()-1;
 		if (numLabels < 0) {
@@ -611,14 +700,14 @@ abstract public class GraphView extends LinearLayout {
 			// values must be sorted by x, so the last value has the largest X value
 			double highest = 0;
 			if (graphSeries.size() > 0) {
-				GraphViewDataInterface[] values = graphSeries.get(0).values;
+				GraphViewDataInterface[] values = graphSeries.get(0).values();
 				if (values.length == 0) {
 					highest = 0;
 				} else {
 					highest = values[values.length-1].getX();
 				}
 				for (int i=1; i<graphSeries.size(); i++) {
-					values = graphSeries.get(i).values;
+					values = graphSeries.get(i).values();
 					if (values.length > 0) {
 						highest = Math.max(highest, values[values.length-1].getX());
 					}
@@ -640,8 +729,9 @@ abstract public class GraphView extends LinearLayout {
 		} else {
 			largest = Integer.MIN_VALUE;
 			for (int i=0; i<graphSeries.size(); i++) {
-				GraphViewDataInterface[] values = _values(i);
-				for (int ii=0; ii<values.length; ii++)
+				GraphViewDataInterface[] values = graphSeries.get(i).values();
+				int end = _end(values);
+				for (int ii=_start(values); ii<end; ii++)
 					if (values[ii].getY() > largest)
 						largest = values[ii].getY();
 			}
@@ -665,14 +755,14 @@ abstract public class GraphView extends LinearLayout {
 			// values must be sorted by x, so the first value has the smallest X value
 			double lowest = 0;
 			if (graphSeries.size() > 0) {
-				GraphViewDataInterface[] values = graphSeries.get(0).values;
+				GraphViewDataInterface[] values = graphSeries.get(0).values();
 				if (values.length == 0) {
 					lowest = 0;
 				} else {
 					lowest = values[0].getX();
 				}
 				for (int i=1; i<graphSeries.size(); i++) {
-					values = graphSeries.get(i).values;
+					values = graphSeries.get(i).values();
 					if (values.length > 0) {
 						lowest = Math.min(lowest, values[0].getX());
 					}
@@ -694,8 +784,9 @@ abstract public class GraphView extends LinearLayout {
 		} else {
 			smallest = Integer.MAX_VALUE;
 			for (int i=0; i<graphSeries.size(); i++) {
-				GraphViewDataInterface[] values = _values(i);
-				for (int ii=0; ii<values.length; ii++)
+				GraphViewDataInterface[] values = graphSeries.get(i).values();
+				int end = _end(values);
+				for (int ii=_start(values); ii<end; ii++)
 					if (values[ii].getY() < smallest)
 						smallest = values[ii].getY();
 			}
@@ -728,8 +819,8 @@ abstract public class GraphView extends LinearLayout {
 	 * Normally there is no need to call this manually.
 	 */
 	public void redrawAll() {
-		if (!staticVerticalLabels) verlabels = null;
-		if (!staticHorizontalLabels) horlabels = null;
+		verlabelsCache.invalidate();
+		horlabelsCache.invalidate();
 		numberformatter[0] = null;
 		numberformatter[1] = null;
 		labelTextHeight = null;
@@ -787,8 +878,7 @@ abstract public class GraphView extends LinearLayout {
 
 		// don't clear labels width/height cache
 		// so that the display is not flickering
-		if (!staticVerticalLabels) verlabels = null;
-		if (!staticHorizontalLabels) horlabels = null;
+		// labels are regenerated for the new viewport
 
 		invalidate();
 		viewVerLabels.invalidate();
@@ -827,6 +917,7 @@ abstract public class GraphView extends LinearLayout {
 	public void setHorizontalLabels(String[] horlabels) {
 		staticHorizontalLabels = horlabels != null;
 		this.horlabels = horlabels;
+		horlabelsCache.invalidate();
 	}
 
 	/**
@@ -936,7 +1027,12 @@ abstract public class GraphView extends LinearLayout {
 							viewportSize = maxX - viewportStart;
 						}
 					}
-					redrawAll();
+					// labels are regenerated for the new viewport, text metrics are kept
+					numberformatter[0] = null;
+					numberformatter[1] = null;
+					invalidate();
+					viewVerLabels.invalidate();
+					graphViewContentView.invalidate();
 					return true;
 				}
 			});
@@ -970,6 +1066,7 @@ abstract public class GraphView extends LinearLayout {
 	public void setVerticalLabels(String[] verlabels) {
 		staticVerticalLabels = verlabels != null;
 		this.verlabels = verlabels;
+		verlabelsCache.invalidate();
 	}
 
 	/**
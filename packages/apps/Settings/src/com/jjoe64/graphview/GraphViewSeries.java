@@ -60,8 +60,20 @@ public class GraphViewSeries {
 
 	final String description;
 	final GraphViewSeriesStyle style;
-	GraphViewDataInterface[] values;
+	// values handed to the graph views, null after appends until they are read again
+	private GraphViewDataInterface[] values;
+	// appended data is kept in a ring buffer, oldest value at head
+	private GraphViewDataInterface[] ring;
+	private int head;
+	private int size;
 	private final List<GraphView> graphViews = new ArrayList<GraphView>();
+	private boolean downsampling = true;
+	// result of the last downsampling and the values, range and threshold it was computed for
+	private GraphViewDataInterface[] sampled;
+	private GraphViewDataInterface[] sampledValues;
+	private int sampledStart;
+	private int sampledEnd;
+	private int sampledThreshold;
 
     /**
      * create a series with predefined values
@@ -108,51 +120,49 @@ public class GraphViewSeries {
 	 */
 	@Deprecated
 	public void appendData(GraphViewDataInterface value, boolean scrollToEnd) {
-        if (value.getX() < values[values.length-1].getX()) {
-            throw new IllegalArgumentException("new x-value must be greater then the last value. x-values has to be ordered in ASC.");
-        }
-		GraphViewDataInterface[] newValues = new GraphViewDataInterface[values.length + 1];
-		int offset = values.length;
-		System.arraycopy(values, 0, newValues, 0, offset);
-
-		newValues[values.length] = value;
-		values = newValues;
-		for (GraphView g : graphViews) {
-			if (scrollToEnd) {
-				g.scrollToEnd();
-			}
-		}
+		appendData(value, scrollToEnd, Integer.MAX_VALUE);
 	}
 
 	/**
 	 * add one data to current data
      * the values must be in the correct order! x-value has to be ASC. First the lowest x value and at least the highest x value.
+     *
+     * The data is kept in a ring buffer, so appending does not copy the existing values.
      *
 	 * @param value the new data to append. Important: the new value must be higher then the last value (x).
 	 * @param scrollToEnd true => graphview will scroll to the end (maxX)
 	 * @param maxDataCount if max data count is reached, the oldest data value will be lost
 	 */
 	public void appendData(GraphViewDataInterface value, boolean scrollToEnd, int maxDataCount) {
-        if (value.getX() < values[values.length-1].getX()) {
-            throw new IllegalArgumentException("new x-value must be greater then the last value. x-values has to be ordered in ASC.");
-        }
-		synchronized (values) {
-			int curDataCount = values.length;
-			GraphViewDataInterface[] newValues;
-			if (curDataCount < maxDataCount) {
-				// enough space
-				newValues = new GraphViewDataInterface[curDataCount + 1];
-				System.arraycopy(values, 0, newValues, 0, curDataCount);
-				// append new data
-				newValues[curDataCount] = value;
+		if (maxDataCount < 1) {
+			throw new IllegalArgumentException("maxDataCount must be greater than 0");
+		}
+		synchronized (this) {
+			if (ring == null) {
+				// first append, copy the values into a ring buffer
+				ring = values;
+				head = 0;
+				size = values.length;
+				resize(size >= maxDataCount ? maxDataCount : Math.min(Math.max(2 * size, 16), maxDataCount));
+			}
+			if (size > 0 && value.getX() < ring[(head + size - 1) % ring.length].getX()) {
+				throw new IllegalArgumentException("new x-value must be greater then the last value. x-values has to be ordered in ASC.");
+			}
+			if (size >= maxDataCount) {
+				if (ring.length != maxDataCount) {
+					resize(maxDataCount);
+				}
+				// replace the oldest value
+				ring[head] = value;
+				head = (head + 1) % ring.length;
 			} else {
-				// we have to trim one data
-				newValues = new GraphViewDataInterface[maxDataCount];
-				System.arraycopy(values, 1, newValues, 0, curDataCount-1);
-				// append new data
-				newValues[maxDataCount-1] = value;
+				if (size == ring.length) {
+					resize((int) Math.min(2L * ring.length, maxDataCount));
+				}
+				ring[(head + size) % ring.length] = value;
+				size++;
 			}
-			values = newValues;
+			values = null;
 		}
 
 		// update linked graph views
@@ -163,6 +173,106 @@ public class GraphViewSeries {
 		}
 	}
 
+	/**
+	 * moves the newest values into a new ring buffer with the given capacity
+	 */
+	private void resize(int capacity) {
+		GraphViewDataInterface[] newRing = new GraphViewDataInterface[capacity];
+		int count = Math.min(size, capacity);
+		for (int i = 0; i < count; i++) {
+			newRing[i] = ring[(head + size - count + i) % ring.length];
+		}
+		ring = newRing;
+		head = 0;
+		size = count;
+	}
+
+	/**
+	 * the values to draw. The returned array is never modified, appended data
+	 * is copied into a new array when the values are read the next time.
+	 */
+	synchronized GraphViewDataInterface[] values() {
+		if (values == null) {
+			values = new GraphViewDataInterface[size];
+			int tail = Math.min(size, ring.length - head);
+			System.arraycopy(ring, head, values, 0, tail);
+			System.arraycopy(ring, 0, values, tail, size - tail);
+		}
+		return values;
+	}
+
+	/**
+	 * downsamples the values from index start (inclusive) to end (exclusive)
+	 * with Largest-Triangle-Three-Buckets. The first and the last value are always kept,
+	 * in between one value per bucket is chosen that spans the largest triangle
+	 * with the previously chosen value and the average of the next bucket.
+	 * The result is reused until values, range or threshold change.
+	 *
+	 * @param threshold maximal number of values to draw, at least 3
+	 * @return the chosen values in ascending order, or null if the range has no more than threshold values or downsampling is disabled
+	 */
+	GraphViewDataInterface[] downsample(GraphViewDataInterface[] values, int start, int end, int threshold) {
+		int count = end - start;
+		if (!downsampling || threshold < 3 || count <= threshold) {
+			return null;
+		}
+		synchronized (this) {
+			if (values == sampledValues && start == sampledStart && end == sampledEnd && threshold == sampledThreshold) {
+				return sampled;
+			}
+			if (sampled == null || sampled.length != threshold) {
+				sampled = new GraphViewDataInterface[threshold];
+			}
+			// buckets between the first and the last value
+			double bucketSize = (double) (count - 2) / (threshold - 2);
+			int a = start;
+			sampled[0] = values[a];
+			for (int i = 0; i < threshold - 2; i++) {
+				// average of the next bucket, the last value for the last bucket
+				int nextStart = start + 1 + (int) ((i + 1) * bucketSize);
+				int nextEnd = Math.min(start + 1 + (int) ((i + 2) * bucketSize), end);
+				double avgX = 0;
+				double avgY = 0;
+				for (int j = nextStart; j < nextEnd; j++) {
+					avgX += values[j].getX();
+					avgY += values[j].getY();
+				}
+				avgX /= nextEnd - nextStart;
+				avgY /= nextEnd - nextStart;
+
+				// value of this bucket with the largest triangle
+				double aX = values[a].getX();
+				double aY = values[a].getY();
+				double maxArea = -1;
+				int chosen = nextStart - 1;
+				for (int j = start + 1 + (int) (i * bucketSize); j < nextStart; j++) {
+					double area = Math.abs((aX - avgX) * (values[j].getY() - aY)
+							- (aX - values[j].getX()) * (avgY - aY));
+					if (area > maxArea) {
+						maxArea = area;
+						chosen = j;
+					}
+				}
+				sampled[i + 1] = values[chosen];
+				a = chosen;
+			}
+			sampled[threshold - 1] = values[end - 1];
+
+			sampledValues = values;
+			sampledStart = start;
+			sampledEnd = end;
+			sampledThreshold = threshold;
+			return sampled;
+		}
+	}
+
+	/**
+	 * @return true if series with more values than pixels are downsampled for drawing
+	 */
+	public boolean isDownsampling() {
+		return downsampling;
+	}
+
 	/**
 	 * @return series styles. never null
 	 */
@@ -170,6 +280,18 @@ public class GraphViewSeries {
 		return style;
 	}
 
+	/**
+	 * by default, a series with more values in the viewport than the graph is wide in pixels
+	 * is downsampled for drawing, keeping its visual shape. Disable this if every single value has to be drawn.
+	 * @param downsampling
+	 */
+	public void setDownsampling(boolean downsampling) {
+		this.downsampling = downsampling;
+		for (GraphView g : graphViews) {
+			g.redrawAll();
+		}
+	}
+
 	/**
 	 * you should use {@link GraphView#removeSeries(GraphViewSeries)}
 	 * @param graphView
@@ -185,7 +307,10 @@ public class GraphViewSeries {
 	 * @param values the values must be in the correct order! x-value has to be ASC. First the lowest x value and at least the highest x value.
 	 */
 	public void resetData(GraphViewDataInterface[] values) {
-		this.values = values;
+		synchronized (this) {
+			this.values = values;
+			ring = null;
+		}
         checkValueOrder();
         for (GraphView g : graphViews) {
 			g.redrawAll();
@@ -36,6 +36,10 @@ public class LineGraphView extends GraphView {
 	private boolean drawBackground;
 	private boolean drawDataPoints;
 	private float dataPointsRadius = 10f;
+	/** buffers reused between draws */
+	private final Path bgPath = new Path();
+	private float[] points = new float[0];
+	private float[] lines = new float[0];
 
 	public LineGraphView(Context context, AttributeSet attrs) {
 		super(context, attrs);
@@ -56,67 +60,65 @@ public class LineGraphView extends GraphView {
 	}
 
 	@Override
-	public void drawSeries(Canvas canvas, GraphViewDataInterface[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
-		// draw background
-		double lastEndY = 0;
-		double lastEndX = 0;
-
-		// draw data
-		paint.setStrokeWidth(style.thickness);
-		paint.setColor(style.color);
-
-
-		Path bgPath = null;
-		if (drawBackground) {
-			bgPath = new Path();
+	public void drawSeries(Canvas canvas, GraphViewDataInterface[] values, int start, int end, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+		int count = end - start;
+		if (count <= 0) {
+			return;
 		}
-
-		lastEndY = 0;
-		lastEndX = 0;
-		float firstX = 0;
-		for (int i = 0; i < values.length; i++) {
-			double valY = values[i].getY() - minY;
+		// screen coordinates of all points
+		if (points.length < 2 * count) {
+			points = new float[2 * count];
+		}
+		for (int i = 0; i < count; i++) {
+			double valY = values[start + i].getY() - minY;
 			double ratY = valY / diffY;
 			double y = graphheight * ratY;
 
-			double valX = values[i].getX() - minX;
+			double valX = values[start + i].getX() - minX;
 			double ratX = valX / diffX;
 			double x = graphwidth * ratX;
 
-			if (i > 0) {
-				float startX = (float) lastEndX + (horstart + 1);
-				float startY = (float) (border - lastEndY) + graphheight;
-				float endX = (float) x + (horstart + 1);
-				float endY = (float) (border - y) + graphheight;
-
-				// draw data point
-				if (drawDataPoints) {
-					//fix: last value was not drawn. Draw here now the end values
-					canvas.drawCircle(endX, endY, dataPointsRadius, paint);
-				}
-
-				canvas.drawLine(startX, startY, endX, endY, paint);
-				if (bgPath != null) {
-					if (i==1) {
-						firstX = startX;
-						bgPath.moveTo(startX, startY);
-					}
-					bgPath.lineTo(endX, endY);
-				}
-			} else if (drawDataPoints) {
-				//fix: last value not drawn as datapoint. Draw first point here, and then on every step the end values (above)
-				float first_X = (float) x + (horstart + 1);
-				float first_Y = (float) (border - y) + graphheight;
-				canvas.drawCircle(first_X, first_Y, dataPointsRadius, paint);
+			points[2 * i] = (float) x + (horstart + 1);
+			points[2 * i + 1] = (float) (border - y) + graphheight;
+		}
+
+		// draw data
+		paint.setStrokeWidth(style.thickness);
+		paint.setColor(style.color);
+
+		if (count > 1) {
+			// one segment from each point to the next
+			if (lines.length < 4 * (count - 1)) {
+				lines = new float[4 * (count - 1)];
 			}
-			lastEndY = y;
-			lastEndX = x;
+			System.arraycopy(points, 0, lines, 0, 2);
+			for (int i = 1; i < count - 1; i++) {
+				lines[4 * i - 2] = lines[4 * i] = points[2 * i];
+				lines[4 * i - 1] = lines[4 * i + 1] = points[2 * i + 1];
+			}
+			lines[4 * count - 6] = points[2 * count - 2];
+			lines[4 * count - 5] = points[2 * count - 1];
+			canvas.drawLines(lines, 0, 4 * (count - 1), paint);
+		}
+
+		// draw data points, round points with the diameter as width are filled circles
+		if (drawDataPoints) {
+			paint.setStrokeWidth(2 * dataPointsRadius);
+			paint.setStrokeCap(Paint.Cap.ROUND);
+			canvas.drawPoints(points, 0, 2 * count, paint);
+			paint.setStrokeWidth(style.thickness);
 		}
 
-		if (bgPath != null) {
+		// draw background
+		if (drawBackground && count > 1) {
+			bgPath.reset();
+			bgPath.moveTo(points[0], points[1]);
+			for (int i = 1; i < count; i++) {
+				bgPath.lineTo(points[2 * i], points[2 * i + 1]);
+			}
 			// end / close path
-			bgPath.lineTo((float) lastEndX, graphheight + border);
-			bgPath.lineTo(firstX, graphheight + border);
+			bgPath.lineTo(points[2 * count - 2] - (horstart + 1), graphheight + border);
+			bgPath.lineTo(points[0], graphheight + border);
 			bgPath.close();
 			canvas.drawPath(bgPath, paintBackground);
 		}
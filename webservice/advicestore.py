@@ -0,0 +1,249 @@
+"""
+ Usable Location Privacy Extension
+  Copyright (C) 2014 B. Henne, C. Kater,
+    Distributed Computing & Security Group,
+    Leibniz Universitaet Hannover, Germany
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+  
+      http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+
+ Storage of the community webservice. Besides the configuration of every
+ user, per-app aggregates are maintained on every change, so advice is
+ computed from a few aggregate rows instead of all configurations of an app:
+
+   advice_online   votes per preset of online users (radius = -2)
+   advice_offline  votes for preset 0 and 4 of offline users
+   advice_radius   radius histogram of offline users with preset 1 to 3,
+                   with logarithmic buckets of 5% width and the smallest and
+                   largest radius of every bucket
+
+A client's radius is counted for the preset with the nearest radius. The
+presets partition the radii into intervals, so all radii of a bucket belong
+to the same preset if its smallest and largest radius do. Only the few
+buckets that contain a boundary are resolved from the configuration table.
+"""
+
+import contextlib
+import math
+import sqlite3
+import threading
+
+try:
+    from Queue import Queue, Empty
+except ImportError:
+    from queue import Queue, Empty
+
+__author__ = "B. Henne, C. Kater"
+__copyright__ = "(c) 2014, DCSec, Leibniz Universitaet Hannover, Germany"
+__license__ = "Apache 2.0"
+
+PRESETS = 5
+ONLINE_RADIUS = -2
+BUCKET_BASE = 1.05
+# increase if the aggregates have to be rebuilt
+AGGREGATES_VERSION = '1'
+
+
+def bucket(radius):
+    """Histogram bucket of a radius, 0 for radii up to 1 m"""
+    radius = int(radius)
+    if radius <= 1:
+        return 0
+    return 1 + int(math.log(radius) / math.log(BUCKET_BASE))
+
+
+def nearest(radius, radii):
+    """Preset 1 to 3 whose radius in radii is nearest, the smaller on ties"""
+    best = 1
+    for preset in (2, 3):
+        if math.fabs(radius - radii[preset - 1]) < math.fabs(radius - radii[best - 1]):
+            best = preset
+    return best
+
+
+@contextlib.contextmanager
+def transaction(db):
+    """
+    Write transaction that takes the write lock before the first read, so
+    concurrent read-modify-write of the same rows is serialized
+    """
+    db.execute('BEGIN IMMEDIATE')
+    try:
+        yield db
+    except Exception:
+        db.execute('ROLLBACK')
+        raise
+    db.execute('COMMIT')
+
+
+class ConnectionPool(object):
+    """Reuses up to size sqlite3 connections across requests"""
+
+    def __init__(self, db_path, size=8):
+        self.db_path = db_path
+        self.size = size
+        self.idle = Queue()
+        self.lock = threading.Lock()
+        self.created = 0
+
+    def open(self):
+        # transactions are managed explicitly, see transaction()
+        db = sqlite3.connect(self.db_path, timeout=30, check_same_thread=False,
+                             isolation_level=None)
+        db.execute('PRAGMA journal_mode=WAL')
+        db.execute('PRAGMA synchronous=NORMAL')
+        db.create_function('bucket', 1, bucket)
+        return db
+
+    @contextlib.contextmanager
+    def connection(self):
+        try:
+            db = self.idle.get_nowait()
+        except Empty:
+            with self.lock:
+                create = self.created < self.size
+                if create:
+                    self.created += 1
+            if create:
+                try:
+                    db = self.open()
+                except Exception:
+                    with self.lock:
+                        self.created -= 1
+                    raise
+            else:
+                db = self.idle.get()
+        try:
+            yield db
+        finally:
+            self.idle.put(db)
+
+
+class AdviceStore(object):
+
+    def __init__(self, db_path, pool_size=8):
+        self.pool = ConnectionPool(db_path, pool_size)
+        with self.pool.connection() as db:
+            db.execute('CREATE TABLE IF NOT EXISTS configuration(app text, user text, preset integer, radius integer, PRIMARY KEY(app, user))')
+            db.execute('CREATE INDEX IF NOT EXISTS configuration_app_radius ON configuration(app, radius)')
+            db.execute('CREATE TABLE IF NOT EXISTS advice_online(app text, preset integer, count integer, PRIMARY KEY(app, preset))')
+            db.execute('CREATE TABLE IF NOT EXISTS advice_offline(app text, preset integer, count integer, PRIMARY KEY(app, preset))')
+            db.execute('CREATE TABLE IF NOT EXISTS advice_radius(app text, bucket integer, count integer, radius_min integer, radius_max integer, PRIMARY KEY(app, bucket))')
+            db.execute('CREATE TABLE IF NOT EXISTS advice_meta(key text PRIMARY KEY, value text)')
+            row = db.execute("SELECT value FROM advice_meta WHERE key = 'version'").fetchone()
+        if row is None or row[0] != AGGREGATES_VERSION:
+            self.rebuild()
+
+    def rebuild(self):
+        """Recomputes all aggregates from the configuration table"""
+        with self.pool.connection() as db:
+            with transaction(db):
+                db.execute('DELETE FROM advice_online')
+                db.execute('DELETE FROM advice_offline')
+                db.execute('DELETE FROM advice_radius')
+                db.execute('INSERT INTO advice_online(app, preset, count) SELECT app, preset, count(*) FROM configuration WHERE radius = ? GROUP BY app, preset', (ONLINE_RADIUS,))
+                db.execute('INSERT INTO advice_offline(app, preset, count) SELECT app, preset, count(*) FROM configuration WHERE radius > ? AND preset IN (0, 4) GROUP BY app, preset', (ONLINE_RADIUS,))
+                db.execute('INSERT INTO advice_radius(app, bucket, count, radius_min, radius_max) SELECT app, bucket(radius), count(*), min(radius), max(radius) FROM configuration WHERE radius > ? AND preset NOT IN (0, 4) GROUP BY app, bucket(radius)', (ONLINE_RADIUS,))
+                db.execute("INSERT OR REPLACE INTO advice_meta(key, value) VALUES('version', ?)", (AGGREGATES_VERSION,))
+
+    def _count(self, db, app, preset, radius, delta):
+        """Adds delta to the aggregate the configuration belongs to"""
+        if radius == ONLINE_RADIUS:
+            table = 'advice_online'
+        elif radius > ONLINE_RADIUS and preset in (0, 4):
+            table = 'advice_offline'
+        elif radius > ONLINE_RADIUS:
+            b = bucket(radius)
+            # bounds are not narrowed on removal, they stay valid bounds
+            db.execute('INSERT OR IGNORE INTO advice_radius(app, bucket, count, radius_min, radius_max) VALUES(?, ?, 0, ?, ?)', (app, b, radius, radius))
+            db.execute('UPDATE advice_radius SET count = count + ?, radius_min = min(radius_min, ?), radius_max = max(radius_max, ?) WHERE app = ? AND bucket = ?', (delta, radius, radius, app, b))
+            db.execute('DELETE FROM advice_radius WHERE app = ? AND bucket = ? AND count <= 0', (app, b))
+            return
+        else:
+            return
+        db.execute('INSERT OR IGNORE INTO ' + table + '(app, preset, count) VALUES(?, ?, 0)', (app, preset))
+        db.execute('UPDATE ' + table + ' SET count = count + ? WHERE app = ? AND preset = ?', (delta, app, preset))
+        db.execute('DELETE FROM ' + table + ' WHERE app = ? AND preset = ? AND count <= 0', (app, preset))
+
+    def _set(self, db, app, user, preset, radius):
+        old = db.execute('SELECT preset, radius FROM configuration WHERE app = ? AND user = ?', (app, user)).fetchone()
+        if old is not None:
+            self._count(db, app, old[0], old[1], -1)
+            db.execute('UPDATE configuration SET preset = ?, radius = ? WHERE app = ? AND user = ?', (preset, radius, app, user))
+        else:
+            db.execute('INSERT INTO configuration(app, user, preset, radius) VALUES(?, ?, ?, ?)', (app, user, preset, radius))
+        self._count(db, app, preset, radius, 1)
+        return old is None
+
+    def set(self, app, user, preset, radius=ONLINE_RADIUS):
+        """
+        Stores the configuration of a user for an app
+
+        :return: True if it was inserted, False if it was updated
+        """
+        with self.pool.connection() as db:
+            with transaction(db):
+                return self._set(db, app, user, int(preset), int(radius))
+
+    def set_many(self, user, settings):
+        """
+        Stores the configurations of a user for several apps in one
+        transaction
+
+        :param settings: list of dicts with app, preset and optional radius
+        :return: apps whose configuration was stored
+        """
+        stored = []
+        with self.pool.connection() as db:
+            with transaction(db):
+                for setting in settings:
+                    try:
+                        app = setting['app']
+                        preset = int(setting['preset'])
+                        radius = int(setting.get('radius', ONLINE_RADIUS))
+                    except (KeyError, ValueError, TypeError, AttributeError):
+                        continue
+                    self._set(db, app, user, preset, radius)
+                    stored.append(app)
+        return stored
+
+    def advice_many(self, apps, radii=None):
+        """Returns advice() of several apps as dict from app to votes"""
+        with self.pool.connection() as db:
+            return dict((app, self._advice(db, app, radii)) for app in apps)
+
+    def advice(self, app, radii=None):
+        """
+        Returns the votes per preset for app as dict from preset string to
+        count. Without radii the votes of online users are counted. With radii
+        (street, district, city) the votes of offline users are counted, and
+        every radius is assigned to the preset with the nearest radius.
+        """
+        with self.pool.connection() as db:
+            return self._advice(db, app, radii)
+
+    def _advice(self, db, app, radii):
+        statistic = dict((str(preset), 0) for preset in range(PRESETS))
+        if radii is None:
+            for preset, count in db.execute('SELECT preset, count FROM advice_online WHERE app = ?', (app,)):
+                statistic[str(preset)] = count
+            return statistic
+        for preset, count in db.execute('SELECT preset, count FROM advice_offline WHERE app = ?', (app,)):
+            statistic[str(preset)] += count
+        for count, radius_min, radius_max in db.execute('SELECT count, radius_min, radius_max FROM advice_radius WHERE app = ?', (app,)).fetchall():
+            preset = nearest(radius_min, radii)
+            if preset == nearest(radius_max, radii):
+                statistic[str(preset)] += count
+                continue
+            for radius, count in db.execute('SELECT radius, count(*) FROM configuration WHERE app = ? AND radius BETWEEN ? AND ? AND preset NOT IN (0, 4) GROUP BY radius', (app, radius_min, radius_max)):
+                statistic[str(nearest(radius, radii))] += count
+        return statistic
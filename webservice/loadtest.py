@@ -0,0 +1,159 @@
+#!/usr/bin/env python
+
+"""
+ Usable Location Privacy Extension
+  Copyright (C) 2014 B. Henne, C. Kater,
+    Distributed Computing & Security Group,
+    Leibniz Universitaet Hannover, Germany
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+  
+      http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+
+ Load test of the community webservice. Every thread sends requests over
+ one kept-alive connection and the requests and apps per second of the
+ single-app and the batch endpoints are reported. Start the webservice with
+ the stub token verifier first:
+
+   ./webservice.py --local --verifier-delay 0.05
+   ./loadtest.py --url http://127.0.0.1:8080 --threads 8 --duration 10
+"""
+
+import json
+import optparse
+import random
+import ssl
+import threading
+import time
+
+try:
+    from httplib import HTTPConnection, HTTPSConnection
+    from urllib import urlencode
+    from urlparse import urlparse
+except ImportError:
+    from http.client import HTTPConnection, HTTPSConnection
+    from urllib.parse import urlencode, urlparse
+
+__author__ = "B. Henne, C. Kater"
+__copyright__ = "(c) 2014, DCSec, Leibniz Universitaet Hannover, Germany"
+__license__ = "Apache 2.0"
+
+MODES = ('set', 'setBatch', 'get', 'getBatch')
+RADII = {'street': 250, 'district': 1000, 'city': 5000}
+
+
+class Worker(threading.Thread):
+
+    def __init__(self, options, mode, deadline, seed):
+        threading.Thread.__init__(self)
+        self.options = options
+        self.mode = mode
+        self.deadline = deadline
+        self.random = random.Random(seed)
+        self.latencies = []
+        self.apps = 0
+        self.errors = 0
+
+    def connect(self):
+        url = urlparse(self.options.url)
+        if url.scheme == 'https':
+            context = ssl._create_unverified_context() if self.options.insecure else None
+            return HTTPSConnection(url.hostname, url.port or 443, context=context)
+        return HTTPConnection(url.hostname, url.port or 80)
+
+    def app(self):
+        return 'com.example.app%d' % self.random.randint(0, self.options.apps - 1)
+
+    def setting(self):
+        setting = {'app': self.app(), 'preset': self.random.randint(0, 4)}
+        if self.random.random() < 0.5:
+            setting['radius'] = self.random.randint(100, 20000)
+        return setting
+
+    def request(self):
+        """Returns path, parameters and number of apps of the next request"""
+        token = 'token%d' % self.random.randint(0, self.options.tokens - 1)
+        if self.mode == 'set':
+            params = self.setting()
+            params['accesstoken'] = token
+            return '/set', params, 1
+        if self.mode == 'setBatch':
+            settings = [self.setting() for i in range(self.options.batch)]
+            return '/setBatch', {'accesstoken': token, 'data': json.dumps(settings)}, len(settings)
+        params = dict(RADII) if self.random.random() < 0.5 else {}
+        if self.mode == 'get':
+            params['app'] = self.app()
+            return '/get', params, 1
+        apps = [self.app() for i in range(self.options.batch)]
+        params['apps'] = json.dumps(apps)
+        return '/getBatch', params, len(apps)
+
+    def run(self):
+        connection = self.connect()
+        headers = {'Content-Type': 'application/x-www-form-urlencoded'}
+        while time.time() < self.deadline:
+            path, params, apps = self.request()
+            start = time.time()
+            try:
+                connection.request('POST', path, urlencode(params).encode('utf-8'), headers)
+                response = connection.getresponse()
+                body = response.read().decode('utf-8')
+            except Exception:
+                self.errors += 1
+                connection.close()
+                connection = self.connect()
+                continue
+            self.latencies.append(time.time() - start)
+            if response.status != 200 or body.startswith('error:'):
+                self.errors += 1
+            else:
+                self.apps += apps
+        connection.close()
+
+
+def run(options, mode):
+    deadline = time.time() + options.duration
+    workers = [Worker(options, mode, deadline, options.seed + i) for i in range(options.threads)]
+    start = time.time()
+    for worker in workers:
+        worker.start()
+    for worker in workers:
+        worker.join()
+    elapsed = time.time() - start
+    latencies = sorted(l for worker in workers for l in worker.latencies)
+    requests = len(latencies)
+
+    def quantile(q):
+        if not latencies:
+            return 0.0
+        return latencies[min(requests - 1, int(q * requests))] * 1000
+
+    print('%-9s %8d %10.1f %10.1f %8.1f %8.1f %7d' % (
+        mode, requests, requests / elapsed, sum(w.apps for w in workers) / elapsed,
+        quantile(0.5), quantile(0.99), sum(w.errors for w in workers)))
+
+
+if __name__ == '__main__':
+    parser = optparse.OptionParser()
+    parser.add_option('--url', default='http://127.0.0.1:8080')
+    parser.add_option('--insecure', action='store_true', help='do not verify the certificate')
+    parser.add_option('--mode', default='all', help='one of %s or all' % ', '.join(MODES))
+    parser.add_option('--threads', type='int', default=8)
+    parser.add_option('--duration', type='float', default=10.0, help='seconds per mode')
+    parser.add_option('--batch', type='int', default=50, help='apps per batch request')
+    parser.add_option('--apps', type='int', default=1000, help='number of distinct apps')
+    parser.add_option('--tokens', type='int', default=100, help='number of distinct users')
+    parser.add_option('--seed', type='int', default=1)
+    options, args = parser.parse_args()
+
+    print('%-9s %8s %10s %10s %8s %8s %7s' % ('mode', 'requests', 'req/s', 'apps/s', 'p50 ms', 'p99 ms', 'errors'))
+    for mode in (MODES if options.mode == 'all' else (options.mode,)):
+        run(options, mode)
@@ -0,0 +1,201 @@
+#!/usr/bin/env python
+
+"""
+ Usable Location Privacy Extension
+  Copyright (C) 2014 B. Henne, C. Kater,
+    Distributed Computing & Security Group,
+    Leibniz Universitaet Hannover, Germany
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+  
+      http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+
+ Local stand-in for the community webservice to test the settings upload
+ of SendDataService and the advice prefetch of AdvicePrefetchService.
+ Settings are kept in memory, every access token is
+ accepted. Failures can be injected to test the retry behavior, and every
+ request is logged with its connection and the number of requests served on
+ that connection, which shows whether keep-alive works.
+
+   ./stubserver.py --port 8443 --cert server.crt --key server.key --fail-rate 0.3
+"""
+
+import json
+import optparse
+import random
+import ssl
+import sys
+import threading
+import time
+
+try:
+    from BaseHTTPServer import BaseHTTPRequestHandler, HTTPServer
+    from SocketServer import ThreadingMixIn
+    from urlparse import urlparse, parse_qs
+except ImportError:
+    from http.server import BaseHTTPRequestHandler, HTTPServer
+    from socketserver import ThreadingMixIn
+    from urllib.parse import urlparse, parse_qs
+
+__author__ = "B. Henne, C. Kater"
+__copyright__ = "(c) 2014, DCSec, Leibniz Universitaet Hannover, Germany"
+__license__ = "Apache 2.0"
+
+options = None
+lock = threading.Lock()
+# (app, token) -> (preset, radius)
+configuration = {}
+connections = [0]
+
+
+class ThreadingHTTPServer(ThreadingMixIn, HTTPServer):
+    daemon_threads = True
+
+
+class StubHandler(BaseHTTPRequestHandler):
+    protocol_version = 'HTTP/1.1'
+
+    def setup(self):
+        BaseHTTPRequestHandler.setup(self)
+        with lock:
+            connections[0] += 1
+            self.connection_id = connections[0]
+        self.requests = 0
+
+    def log_message(self, format, *args):
+        sys.stderr.write("[conn %d #%d] %s\n" % (self.connection_id,
+                                                 self.requests, format % args))
+
+    def respond(self, code, body):
+        body = body.encode('utf-8')
+        self.send_response(code)
+        self.send_header('Content-Type', 'text/plain; charset=UTF-8')
+        self.send_header('Content-Length', str(len(body)))
+        self.end_headers()
+        self.wfile.write(body)
+
+    def params(self):
+        url = urlparse(self.path)
+        params = parse_qs(url.query)
+        length = int(self.headers.get('Content-Length') or 0)
+        if length > 0:
+            params.update(parse_qs(self.rfile.read(length).decode('utf-8')))
+        return url.path, dict((k, v[0]) for k, v in params.items())
+
+    def do_GET(self):
+        self.handle_request()
+
+    def do_POST(self):
+        self.handle_request()
+
+    def handle_request(self):
+        self.requests += 1
+        path, params = self.params()
+        if options.delay > 0:
+            time.sleep(options.delay / 1000.0)
+        if random.random() < options.fail_rate:
+            self.respond(503, "unavailable")
+            return
+        if path == '/setBatch':
+            self.set_batch(params)
+        elif path == '/set':
+            self.set(params)
+        elif path == '/getBatch':
+            self.get_batch(params)
+        elif path == '/get':
+            self.get(params)
+        elif path == '/info':
+            self.respond(200, json.dumps({'shareSettings': True,
+                                          'showCommunityAdvice': True}))
+        else:
+            self.respond(404, "error: unknown path")
+
+    def store(self, token, setting):
+        radius = int(setting.get('radius', -2))
+        with lock:
+            configuration[(setting['app'], token)] = (int(setting['preset']),
+                                                      radius)
+
+    def set_batch(self, params):
+        try:
+            token = params['accesstoken']
+            settings = json.loads(params['data'])
+        except (KeyError, ValueError):
+            self.respond(400, "error: invalid input")
+            return
+        if token == options.reject_token:
+            self.respond(200, "error: The access_token is expired or invalid")
+            return
+        acknowledged = []
+        for setting in settings:
+            try:
+                self.store(token, setting)
+                acknowledged.append(setting['app'])
+            except (KeyError, ValueError, TypeError):
+                pass
+        self.respond(200, json.dumps({'acknowledged': acknowledged}))
+
+    def advice(self, app):
+        """Votes per preset of app. Radii are not mapped to presets."""
+        statistic = dict((str(preset), 0) for preset in range(5))
+        with lock:
+            for (configured_app, token), (preset, radius) in configuration.items():
+                if configured_app == app and str(preset) in statistic:
+                    statistic[str(preset)] += 1
+        return statistic
+
+    def get(self, params):
+        if 'app' not in params:
+            self.respond(200, "error: invalid input")
+            return
+        self.respond(200, json.dumps(self.advice(params['app'])))
+
+    def get_batch(self, params):
+        try:
+            apps = json.loads(params['apps'])
+        except (KeyError, ValueError):
+            self.respond(400, "error: invalid input")
+            return
+        self.respond(200, json.dumps(dict((app, self.advice(app))
+                                          for app in apps)))
+
+    def set(self, params):
+        try:
+            self.store(params['accesstoken'], params)
+        except (KeyError, ValueError):
+            self.respond(200, "error: invalid input")
+            return
+        self.respond(200, "insert successfull")
+
+
+if __name__ == '__main__':
+    parser = optparse.OptionParser()
+    parser.add_option('--port', type='int', default=8443)
+    parser.add_option('--cert', help='certificate file, serves HTTPS if set')
+    parser.add_option('--key', help='private key file')
+    parser.add_option('--fail-rate', type='float', default=0.0,
+                      help='fraction of requests answered with 503')
+    parser.add_option('--delay', type='int', default=0,
+                      help='delay of every response in ms')
+    parser.add_option('--reject-token', help='access token that is rejected')
+    options, args = parser.parse_args()
+
+    server = ThreadingHTTPServer(('0.0.0.0', options.port), StubHandler)
+    if options.cert:
+        context = ssl.SSLContext(getattr(ssl, 'PROTOCOL_TLS_SERVER',
+                                      ssl.PROTOCOL_SSLv23))
+        context.load_cert_chain(options.cert, options.key)
+        server.socket = context.wrap_socket(server.socket, server_side=True)
+    sys.stderr.write("stub webservice on port %d\n" % options.port)
+    try:
+        server.serve_forever()
+    except KeyboardInterrupt:
+        pass
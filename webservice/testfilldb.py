@@ -5,6 +5,7 @@
 import sqlite3
 import hashlib
 import random
+from advicestore import AdviceStore
 
 __author__ = "B. Henne"
 __copyright__ = "(c) 2014, DCSec, Leibniz Universitaet Hannover, Germany"
@@ -55,6 +56,8 @@ class testfill(object):
         db.commit()
         cursor.close()
         db.close()
+        # aggregates of the webservice
+        AdviceStore(self.db_path).rebuild()
         return answer
 
 if __name__  == '__main__':
@@ -0,0 +1,109 @@
+"""
+ Usable Location Privacy Extension
+  Copyright (C) 2014 B. Henne, C. Kater,
+    Distributed Computing & Security Group,
+    Leibniz Universitaet Hannover, Germany
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+  
+      http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+
+ Maps OAuth2 access tokens to the anonymous user id of the webservice, the
+ SHA-256 hash of the Google user id.
+"""
+
+import hashlib
+import threading
+import time
+
+__author__ = "B. Henne, C. Kater"
+__copyright__ = "(c) 2014, DCSec, Leibniz Universitaet Hannover, Germany"
+__license__ = "Apache 2.0"
+
+
+class InvalidTokenError(Exception):
+    pass
+
+
+def sha256(value):
+    return hashlib.sha256(value.encode('utf-8')).hexdigest()
+
+
+class GoogleTokenVerifier(object):
+    """Asks Google for the user id of every token"""
+
+    def verify(self, accesstoken):
+        import httplib2
+        import oauth2client.client
+        from oauth2client.client import AccessTokenCredentials
+        from apiclient.discovery import build
+        try:
+            credentials = AccessTokenCredentials(accesstoken, 'my-user-agent/1.0')
+            http = httplib2.Http()
+            http = credentials.authorize(http)
+            service = build('oauth2', 'v2', http=http)
+            userinfo = service.userinfo().get().execute()
+            return sha256(userinfo['id'])
+        except oauth2client.client.AccessTokenCredentialsError:
+            raise InvalidTokenError("The access_token is expired or invalid and can't be refreshed")
+
+
+class StubTokenVerifier(object):
+    """
+    Local stand-in for tests: every token is its own user id, tokens starting
+    with 'invalid' are rejected. delay simulates the round trip to Google.
+    """
+
+    def __init__(self, delay=0.0):
+        self.delay = delay
+
+    def verify(self, accesstoken):
+        if self.delay > 0:
+            time.sleep(self.delay)
+        if accesstoken.startswith('invalid'):
+            raise InvalidTokenError("The access_token is expired or invalid and can't be refreshed")
+        return sha256(accesstoken)
+
+
+class CachingTokenVerifier(object):
+    """
+    Remembers the user of a token for ttl seconds, so a client sending several
+    requests costs one verification. Tokens are kept as hashes only. Rejected
+    tokens are not cached.
+    """
+
+    def __init__(self, verifier, ttl=300, max_entries=10000):
+        self.verifier = verifier
+        self.ttl = ttl
+        self.max_entries = max_entries
+        self.lock = threading.Lock()
+        # token hash -> (user, expiry)
+        self.users = {}
+        self.hits = 0
+        self.misses = 0
+
+    def verify(self, accesstoken):
+        key = sha256(accesstoken)
+        now = time.time()
+        with self.lock:
+            entry = self.users.get(key)
+            if entry is not None and entry[1] > now:
+                self.hits += 1
+                return entry[0]
+            self.misses += 1
+        user = self.verifier.verify(accesstoken)
+        with self.lock:
+            if len(self.users) >= self.max_entries:
+                self.users = dict((k, v) for k, v in self.users.items() if v[1] > now)
+                if len(self.users) >= self.max_entries:
+                    self.users.clear()
+            self.users[key] = (user, now + self.ttl)
+        return user
@@ -21,15 +21,10 @@
 
 import cherrypy
 import json
-import sqlite3
+import optparse
 import os
-import httplib2
-import oauth2client.client
-from oauth2client.client import AccessTokenCredentials
-from apiclient.discovery import build
-import hashlib
-import sys
-import math
+from advicestore import AdviceStore, ONLINE_RADIUS
+from tokenverifier import CachingTokenVerifier, GoogleTokenVerifier, InvalidTokenError, StubTokenVerifier
 
 __author__ = "B. Henne, C. Kater"
 __copyright__ = "(c) 2014, DCSec, Leibniz Universitaet Hannover, Germany"
@@ -51,22 +46,25 @@ server_config = {
     'log.screen': False,
 }
 
+# maximum number of apps per batch request
+MAX_BATCH = 500
+
+
 class Webservice:
     db_path = 'ulpa_configurations.db'
 
-    def __init__(self):
-        db = sqlite3.connect(self.db_path)
-        cursor = db.cursor()
-        cursor.execute('''CREATE TABLE IF NOT EXISTS configuration(app text, user text, preset integer, radius integer, PRIMARY KEY(app, user))''')
-        cursor.close()
-        db.close()
+    def __init__(self, verifier=None):
+        self.store = AdviceStore(self.db_path)
+        if verifier is None:
+            verifier = GoogleTokenVerifier()
+        self.verifier = CachingTokenVerifier(verifier)
 
     def index(self):
         return "Usable Location Privacy Framework Webservice"
     index.exposed = True
 
     def filter(self, d):
-	for k in ('user', 'username', 'password'):
+        for k in ('user', 'username', 'password'):
             if k in d:
                 del d[k]
         return d
@@ -74,113 +72,94 @@ class Webservice:
     @cherrypy.expose()
     def get(self, **kwargs):
         """
+        Returns the votes per preset for an app. Offline clients send the
+        radii of their presets, and every radius of other offline users is
+        counted for the preset with the nearest radius.
 
-        :param kwargs:
-        :return:
+        :param kwargs: app, optional street, district and city
+        :return: JSON object from preset to number of votes
         """
         kwargs = self.filter(kwargs)
-        db = sqlite3.connect(self.db_path)
-        cursor = db.cursor()
-
-        #get information from calling android device
-        input = json.loads(json.dumps(kwargs))
         try:
-            app = input['app']
+            app = kwargs['app']
         except KeyError:
-            cursor.close()
-            db.close()
             return "error: invalid input"
-        online = False
         try:
-            street = input['street']
-            district = input['district']
-            city = input['city']
+            radii = self.radii(kwargs)
+        except ValueError:
+            return "error: invalid input"
+        return json.dumps(self.store.advice(app, radii))
+
+    def radii(self, kwargs):
+        """Radii of the presets of offline clients, None for online clients"""
+        try:
+            return (int(kwargs['street']), int(kwargs['district']), int(kwargs['city']))
         except KeyError:
-            online = True
-
-        statistic = {}
-        statistic['0'] = 0;
-        statistic['1'] = 0;
-        statistic['2'] = 0;
-        statistic['3'] = 0;
-        statistic['4'] = 0;
-        if online:
-            cursor.execute('SELECT preset, count(preset) FROM configuration WHERE app = ? AND radius = -2 GROUP BY preset', (app,))
-            for row in cursor:
-                statistic[str(row[0])] = row[1]
-        else :
-            cursor.execute('SELECT preset, radius FROM configuration WHERE app = ? AND radius > -2', (app,))
-            for row in cursor:
-                preset = row[0]
-                radius = int(row[1])
-                print radius, " ", preset
-
-                if preset == 0 or preset == 4:
-                    statistic[str(preset)] = statistic[str(preset)] + 1
-                else:
-                    minDev = sys.maxint;
-                    bestpreset = -1
-                    streetDev = math.fabs(radius - int(street))
-                    if streetDev < minDev:
-                        minDev = streetDev
-                        bestpreset = 1
-                    districtDev = math.fabs(radius - int(district))
-                    if districtDev < minDev:
-                        minDev = districtDev
-                        bestpreset = 2
-                    cityDev = math.fabs(radius - int(city))
-                    if cityDev < minDev:
-                        bestpreset = 3
-                    statistic[str(bestpreset)] = statistic[str(bestpreset)] + 1
-        cursor.close()
-        db.close()
-        return json.dumps(statistic)
+            return None
 
     @cherrypy.expose()
-    def set(self, **kwargs):
+    def getBatch(self, **kwargs):
+        """
+        Returns the votes of several apps like /get
+
+        :param kwargs: apps as JSON array, optional street, district and city
+        :return: JSON object from app to the answer of /get
+        """
         kwargs = self.filter(kwargs)
-        db = sqlite3.connect(self.db_path)
-        cursor = db.cursor()
+        try:
+            apps = json.loads(kwargs['apps'])
+            radii = self.radii(kwargs)
+        except (KeyError, ValueError):
+            return "error: invalid input"
+        if not isinstance(apps, list) or len(apps) > MAX_BATCH:
+            return "error: invalid input"
+        return json.dumps(self.store.advice_many(apps, radii))
 
-        #get information from calling android device
-        input = json.loads(json.dumps(kwargs))
+    @cherrypy.expose()
+    def set(self, **kwargs):
+        kwargs = self.filter(kwargs)
         try:
-            app = input['app']
-            preset = input['preset']
-            accesstoken = input['accesstoken']
-        except KeyError:
-            cursor.close()
-            db.close()
+            app = kwargs['app']
+            preset = int(kwargs['preset'])
+            accesstoken = kwargs['accesstoken']
+            radius = int(kwargs.get('radius', ONLINE_RADIUS))
+        except (KeyError, ValueError):
             return "error: invalid input"
+
         try:
-            radius = input['radius']
-        except KeyError:
-            radius = -2
+            user = self.verifier.verify(accesstoken)
+        except InvalidTokenError as e:
+            return "error: " + str(e)
+
+        if self.store.set(app, user, preset, radius):
+            return "insert successfull"
+        return "update successfull"
 
-        #get user id from google with access token
+    @cherrypy.expose()
+    def setBatch(self, **kwargs):
+        """
+        Stores the configurations of several apps. The token is verified once
+        per request.
+
+        :param kwargs: accesstoken, data as JSON array of objects with app,
+                       preset and optional radius
+        :return: JSON object with the list of stored apps as acknowledged
+        """
+        kwargs = self.filter(kwargs)
         try:
-            credentials = AccessTokenCredentials(accesstoken, 'my-user-agent/1.0')
-            http = httplib2.Http()
-            http = credentials.authorize(http)
-            service = build('oauth2', 'v2', http=http)
-            userinfo = service.userinfo().get().execute()
-            user = hashlib.sha256(userinfo['id']).hexdigest()
-        except oauth2client.client.AccessTokenCredentialsError:
-            cursor.close()
-            db.close()
-            return "error: The access_token is expired or invalid and can't be refreshed"
+            accesstoken = kwargs['accesstoken']
+            settings = json.loads(kwargs['data'])
+        except (KeyError, ValueError):
+            return "error: invalid input"
+        if not isinstance(settings, list) or len(settings) > MAX_BATCH:
+            return "error: invalid input"
 
         try:
-            cursor.execute("INSERT INTO configuration(app, user, preset, radius) VALUES(?, ?, ?, ?)", (app, user, preset, radius,))
-            answer = "insert successfull"
-        except sqlite3.IntegrityError:
-            cursor.execute("UPDATE configuration SET preset = ?, radius = ? WHERE app = ? AND user = ?", (preset, radius, app, user, ))
-            answer = "update successfull"
+            user = self.verifier.verify(accesstoken)
+        except InvalidTokenError as e:
+            return "error: " + str(e)
 
-        db.commit()
-        cursor.close()
-        db.close()
-        return answer
+        return json.dumps({'acknowledged': self.store.set_many(user, settings)})
 
     @cherrypy.expose()
     def info(self, **kwargs):
@@ -190,8 +169,28 @@ class Webservice:
         return json.dumps(info)
 
 if __name__ == '__main__':
+    parser = optparse.OptionParser()
+    parser.add_option('--local', action='store_true',
+                      help='serve HTTP on localhost:8080 and accept every token except invalid*, for tests')
+    parser.add_option('--verifier-delay', type='float', default=0.0,
+                      help='simulated token verification time in s with --local')
+    options, args = parser.parse_args()
+
+    verifier = None
+    if options.local:
+        server_config.update({
+            'server.socket_host': '127.0.0.1',
+            'server.socket_port': 8080,
+            'server.ssl_module': None,
+            'server.ssl_certificate': None,
+            'server.ssl_certificate_chain': None,
+            'server.ssl_private_key': None,
+            'server.thread_pool': 16,
+            'log.screen': True,
+        })
+        verifier = StubTokenVerifier(options.verifier_delay)
     cherrypy.config.update(server_config)
-    cherrypy.tree.mount(Webservice(), '/', config=None)
+    cherrypy.tree.mount(Webservice(verifier), '/', config=None)
     if hasattr(cherrypy.engine, 'block'):
         # 3.1 syntax
         cherrypy.engine.start()